@@ -0,0 +1,257 @@
+package com.thijs226.fahdonor;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+
+/**
+ * Temporarily caps FAH cores around known lag sources: world saves, bursts of
+ * chunk generation and join floods. Each burst type opens a short, configurable
+ * boost window; windows are coalesced and expire on their own, with all
+ * changes actuated through {@link PlayerMonitor}.
+ */
+public class BurstThrottle implements Listener, CoreBudgetAdjuster {
+
+    public enum BurstType {
+        WORLD_SAVE("world-save", 1, 15, 2),
+        CHUNK_GENERATION("chunk-generation", 40, 20, 2),
+        JOIN_FLOOD("join-flood", 5, 30, 0);
+
+        private final String configKey;
+        private final int defaultThreshold;
+        private final int defaultBoostSeconds;
+        private final int defaultMaxCores;
+
+        BurstType(String configKey, int defaultThreshold, int defaultBoostSeconds, int defaultMaxCores) {
+            this.configKey = configKey;
+            this.defaultThreshold = defaultThreshold;
+            this.defaultBoostSeconds = defaultBoostSeconds;
+            this.defaultMaxCores = defaultMaxCores;
+        }
+
+        public String getConfigKey() {
+            return configKey;
+        }
+    }
+
+    /**
+     * Event counter over a sliding window of one-second buckets. Main thread only.
+     */
+    private static final class EventRate {
+        private final long[] buckets;
+        private final long[] bucketSecond;
+
+        EventRate(int windowSeconds) {
+            int size = Math.max(1, windowSeconds);
+            this.buckets = new long[size];
+            this.bucketSecond = new long[size];
+        }
+
+        long record(long nowSecond) {
+            int index = (int) (nowSecond % buckets.length);
+            if (bucketSecond[index] != nowSecond) {
+                bucketSecond[index] = nowSecond;
+                buckets[index] = 0;
+            }
+            buckets[index]++;
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                if (nowSecond - bucketSecond[i] < buckets.length) {
+                    total += buckets[i];
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Per-type config values, read once per reload instead of per event.
+     * {@code enabled} already includes the global switch.
+     */
+    private record TypeSettings(boolean enabled, int threshold, long boostMillis, int maxCores) {
+
+        static TypeSettings fromConfig(FileConfiguration config, BurstType type) {
+            return new TypeSettings(
+                config.getBoolean("burst-throttle.enabled", true) && config.getBoolean(path(type, "enabled"), true),
+                Math.max(1, config.getInt(path(type, "threshold"), type.defaultThreshold)),
+                Math.max(1, config.getLong(path(type, "boost-seconds"), type.defaultBoostSeconds)) * 1000L,
+                Math.max(0, config.getInt(path(type, "max-fah-cores"), type.defaultMaxCores)));
+        }
+    }
+
+    private final FAHResourceDonor plugin;
+    private final Map<BurstType, TypeSettings> settings = new EnumMap<>(BurstType.class);
+    private final Map<BurstType, EventRate> rates = new EnumMap<>(BurstType.class);
+    private final Map<BurstType, Long> boostUntilMillis = new EnumMap<>(BurstType.class);
+    private BukkitTask expiryTask;
+    private long expiryAtMillis;
+    private boolean registered = false;
+
+    public BurstThrottle(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        reload();
+    }
+
+    /**
+     * Rebuilds the rate windows and per-type settings from configuration.
+     */
+    public final void reload() {
+        FileConfiguration config = plugin.getConfig();
+        rates.clear();
+        settings.clear();
+        for (BurstType type : BurstType.values()) {
+            int window = config.getInt(path(type, "window-seconds"), 5);
+            rates.put(type, new EventRate(window));
+            settings.put(type, TypeSettings.fromConfig(config, type));
+        }
+    }
+
+    public void start() {
+        if (!registered) {
+            Bukkit.getPluginManager().registerEvents(this, plugin);
+            registered = true;
+        }
+    }
+
+    public void stop() {
+        if (registered) {
+            HandlerList.unregisterAll(this);
+            registered = false;
+        }
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+        boostUntilMillis.clear();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        long started = plugin.getOverheadProfiler().begin();
+        try {
+            record(BurstType.WORLD_SAVE);
+        } finally {
+            plugin.getOverheadProfiler().end(Subsystem.BURST_EVENTS, started);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        if (event.isNewChunk()) {
+            long started = plugin.getOverheadProfiler().begin();
+            try {
+                record(BurstType.CHUNK_GENERATION);
+            } finally {
+                plugin.getOverheadProfiler().end(Subsystem.BURST_EVENTS, started);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        long started = plugin.getOverheadProfiler().begin();
+        try {
+            record(BurstType.JOIN_FLOOD);
+        } finally {
+            plugin.getOverheadProfiler().end(Subsystem.BURST_EVENTS, started);
+        }
+    }
+
+    private void record(BurstType type) {
+        TypeSettings typeSettings = settings.get(type);
+        if (!typeSettings.enabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long count = rates.get(type).record(now / 1000L);
+        if (count >= typeSettings.threshold()) {
+            triggerBoost(type, typeSettings.boostMillis(), now);
+        }
+    }
+
+    private void triggerBoost(BurstType type, long boostMillis, long now) {
+        Long previous = boostUntilMillis.get(type);
+        boolean newlyActive = previous == null || previous <= now;
+        boostUntilMillis.put(type, now + boostMillis);
+        scheduleExpiry(now + boostMillis, now);
+
+        if (newlyActive) {
+            plugin.getLogger().info(() -> String.format("Burst detected (%s); capping FAH cores for %ds",
+                type.getConfigKey(), boostMillis / 1000L));
+            PlayerMonitor monitor = plugin.getPlayerMonitor();
+            if (monitor != null) {
+                monitor.requestCheck();
+            }
+        }
+    }
+
+    /**
+     * Keeps a single pending task that fires when the last open window closes.
+     */
+    private void scheduleExpiry(long untilMillis, long now) {
+        if (expiryTask != null && untilMillis <= expiryAtMillis) {
+            return;
+        }
+        if (expiryTask != null) {
+            expiryTask.cancel();
+        }
+        expiryAtMillis = untilMillis;
+        long delayTicks = Math.max(1L, (untilMillis - now + 49L) / 50L);
+        expiryTask = Bukkit.getScheduler().runTaskLater(plugin, plugin.getOverheadProfiler().wrap(Subsystem.BURST_EVENTS, () -> {
+            expiryTask = null;
+            PlayerMonitor monitor = plugin.getPlayerMonitor();
+            if (monitor != null) {
+                monitor.requestCheck();
+            }
+        }), delayTicks);
+    }
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        long now = System.currentTimeMillis();
+        int capped = cores;
+        for (Map.Entry<BurstType, Long> entry : boostUntilMillis.entrySet()) {
+            if (entry.getValue() > now) {
+                capped = Math.min(capped, settings.get(entry.getKey()).maxCores());
+            }
+        }
+        return capped;
+    }
+
+    @Override
+    public String getName() {
+        return "burst throttle";
+    }
+
+    /**
+     * Burst types whose boost window is currently open, with seconds remaining.
+     */
+    public Map<BurstType, Long> getActiveBoosts() {
+        long now = System.currentTimeMillis();
+        Map<BurstType, Long> active = new EnumMap<>(BurstType.class);
+        for (Map.Entry<BurstType, Long> entry : boostUntilMillis.entrySet()) {
+            if (entry.getValue() > now) {
+                active.put(entry.getKey(), (entry.getValue() - now + 999L) / 1000L);
+            }
+        }
+        return active;
+    }
+
+    private static String path(BurstType type, String key) {
+        return "burst-throttle." + type.getConfigKey().toLowerCase(Locale.ROOT) + "." + key;
+    }
+}
@@ -10,9 +10,11 @@ import java.nio.file.Path;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -23,6 +25,10 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.scheduler.BukkitTask;
 
+import com.thijs226.fahdonor.metrics.PerformanceMetrics;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+
 /**
  * Folding@home client bridge that derives live status and statistics from the
  * official FAHClient log output. All information exposed by this class is based
@@ -41,6 +47,19 @@ public class FAHClient {
     private static final java.util.regex.Pattern PROJECT_PATTERN = java.util.regex.Pattern.compile("Project:\\s*(.+)");
     private static final java.util.regex.Pattern CORE_FAILURE_PATTERN = java.util.regex.Pattern.compile(
         "Core returned\\s+([^\\s]+)(?:\\s*\\((\\d+)\\))?");
+    /**
+     * CPU count of a slot as the client reports it: the slot's config dump
+     * ({@code <cpus v='4'/>}), a slot option update ({@code FS00:... cpus=4})
+     * or the thread count a core is started with ({@code -np 4} / {@code -nt 4}).
+     * Case-sensitive so the startup system info ({@code CPUs: 16}) never matches.
+     */
+    private static final java.util.regex.Pattern CPUS_PATTERN = java.util.regex.Pattern.compile(
+        "<cpus\\s+v=['\"](\\d{1,4})['\"]\\s*/>"
+            + "|\\bFS\\d+:.*\\bcpus\\s*[=:]\\s*(\\d{1,4})\\b"
+            + "|Running FahCore:.*\\s-n[pt]\\s+(\\d{1,4})\\b");
+    /** A slot paused on request; pauses with a reason (idle, battery, finishing) are not. */
+    private static final java.util.regex.Pattern SLOT_PAUSED_PATTERN = java.util.regex.Pattern.compile(
+        "\\bFS\\d+:Paused\\s*$");
 
     private final FAHResourceDonor plugin;
     private final FAHClientManager manager;
@@ -64,6 +83,8 @@ public class FAHClient {
 
     private final Map<String, WorkUnitState> activeWorkUnits = new ConcurrentHashMap<>();
     private final Set<String> creditedWorkUnits = ConcurrentHashMap.newKeySet();
+    private final List<WorkUnitListener> workUnitListeners = new CopyOnWriteArrayList<>();
+    private final List<ProgressListener> progressListeners = new CopyOnWriteArrayList<>();
 
     private BukkitTask monitorTask;
     private long lastLogPointer = 0L;
@@ -78,10 +99,42 @@ public class FAHClient {
         final long startSeconds;
         final int allocatedCores;
         volatile String projectSummary;
+        volatile int minCores;
+        volatile int maxCores;
 
         WorkUnitState(long startSeconds, int allocatedCores) {
             this.startSeconds = startSeconds;
             this.allocatedCores = Math.max(allocatedCores, 1);
+            this.minCores = this.allocatedCores;
+            this.maxCores = this.allocatedCores;
+        }
+
+        void observeCores(int cores) {
+            minCores = Math.min(minCores, cores);
+            maxCores = Math.max(maxCores, cores);
+        }
+    }
+
+    /**
+     * A credited work unit. {@code minCores}/{@code maxCores} are the core
+     * counts seen while it ran; they differ when FAH was resized mid-unit.
+     */
+    public record CompletedWorkUnit(String slot, String projectSummary, long credit, long durationSeconds,
+                                    int minCores, int maxCores) {}
+
+    /** Notified from the log polling thread whenever a work unit is credited. */
+    public interface WorkUnitListener {
+        void onWorkUnitCompleted(CompletedWorkUnit unit);
+    }
+
+    /**
+     * Notified from the log polling thread for every progress line, with the
+     * log timestamp and the cores FAH was running with.
+     */
+    public interface ProgressListener {
+        void onProgress(String slot, String projectSummary, int percent, long timestampSeconds, int cores);
+
+        default void onPaused() {
         }
     }
 
@@ -140,10 +193,15 @@ public class FAHClient {
                 resetLogState();
             }
 
+            long linesRead = 0;
+            long startPointer = lastLogPointer;
+            ProfilingEvents.LogPoll pollEvent = new ProfilingEvents.LogPoll();
+            pollEvent.begin();
             try (RandomAccessFile raf = new RandomAccessFile(logFile.toFile(), "r")) {
                 raf.seek(lastLogPointer);
                 String rawLine;
                 while ((rawLine = raf.readLine()) != null) {
+                    linesRead++;
                     if (rawLine.isEmpty()) continue;
                     String line = normalizeLine(rawLine);
                     long timestampSeconds = extractTimestampSeconds(line);
@@ -151,6 +209,13 @@ public class FAHClient {
                 }
                 lastLogPointer = raf.getFilePointer();
             }
+            pollEvent.linesRead = linesRead;
+            pollEvent.bytesRead = lastLogPointer - startPointer;
+            pollEvent.commit();
+            PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+            if (metrics != null && linesRead > 0) {
+                metrics.recordLogIngest(linesRead, lastLogPointer - startPointer);
+            }
 
             // If nothing is active, mark idle after the last update settles
             long nowSeconds = System.currentTimeMillis() / 1000L;
@@ -198,8 +263,13 @@ public class FAHClient {
 
         String slot = extractSlot(line);
 
+        if (manager != null) {
+            confirmActuation(line);
+        }
+
         if (line.contains("Paused")) {
             processing.set(false);
+            progressListeners.forEach(ProgressListener::onPaused);
             updateStatus("Paused", describeWorkUnit(slot), null);
             return;
         }
@@ -223,7 +293,7 @@ public class FAHClient {
             java.util.regex.Matcher progressMatcher = PROGRESS_PATTERN.matcher(line);
             if (progressMatcher.find()) {
                 int percent = Integer.parseInt(progressMatcher.group(1));
-                handleProgress(slot, percent);
+                handleProgress(slot, percent, timestampSeconds);
                 return;
             }
 
@@ -247,6 +317,29 @@ public class FAHClient {
         }
     }
 
+    /**
+     * Lets the actuation tracer know when the log shows a requested pause or
+     * the slot running with a specific CPU count. A pause only confirms 0
+     * cores while 0 is what was asked for; FAH also pauses on its own.
+     */
+    private void confirmActuation(String line) {
+        if (SLOT_PAUSED_PATTERN.matcher(line).find()) {
+            if (manager.getTargetCores() == 0) {
+                manager.getActuationTracer().confirmed(0);
+            }
+            return;
+        }
+        java.util.regex.Matcher cpusMatcher = CPUS_PATTERN.matcher(line);
+        if (cpusMatcher.find()) {
+            for (int group = 1; group <= cpusMatcher.groupCount(); group++) {
+                if (cpusMatcher.group(group) != null) {
+                    manager.getActuationTracer().confirmed(Integer.parseInt(cpusMatcher.group(group)));
+                    return;
+                }
+            }
+        }
+    }
+
     private void handleWorkUnitStart(String slot, long timestampSeconds) {
         int allocatedCores = manager != null ? Math.max(1, manager.getCurrentCores()) : 1;
         WorkUnitState state = new WorkUnitState(timestampSeconds, allocatedCores);
@@ -274,9 +367,12 @@ public class FAHClient {
         }
     }
 
-    private void handleProgress(String slot, int percent) {
+    private void handleProgress(String slot, int percent, long timestampSeconds) {
         currentWorkUnitId = slot;
         WorkUnitState state = activeWorkUnits.get(slot);
+        if (state != null && manager != null) {
+            state.observeCores(Math.max(1, manager.getCurrentCores()));
+        }
         if (state != null && state.projectSummary != null) {
             currentProjectSummary = state.projectSummary;
         }
@@ -287,18 +383,31 @@ public class FAHClient {
         failureAlertLogged.set(false);
         markLogPollSuccess();
         updateStatus("Processing", describeWorkUnit(slot), percent);
+
+        int cores = manager != null ? manager.getCurrentCores() : 0;
+        String project = state != null && state.projectSummary != null ? state.projectSummary : currentProjectSummary;
+        for (ProgressListener listener : progressListeners) {
+            try {
+                listener.onProgress(slot, project, percent, timestampSeconds, cores);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Progress listener failed", e);
+            }
+        }
     }
 
     private void handleCredit(String slot, long credit, long timestampSeconds) {
         String key = slot + "#" + credit + "#" + timestampSeconds;
         if (creditedWorkUnits.add(key)) {
             WorkUnitState state = activeWorkUnits.remove(slot);
+            CompletedWorkUnit completed = null;
             if (state != null) {
                 long durationSeconds = Math.max(0L, timestampSeconds - state.startSeconds);
                 totalCoreSeconds.addAndGet(durationSeconds * (long) state.allocatedCores);
                 if (state.projectSummary != null && !state.projectSummary.isBlank()) {
                     currentProjectSummary = state.projectSummary;
                 }
+                completed = new CompletedWorkUnit(slot, state.projectSummary != null ? state.projectSummary : "",
+                        credit, durationSeconds, state.minCores, state.maxCores);
             }
 
             totalPoints.addAndGet(credit);
@@ -317,9 +426,35 @@ public class FAHClient {
                     credit);
             updateStatus(message, null, null);
             plugin.getLogger().info(message);
+
+            if (completed != null) {
+                for (WorkUnitListener listener : workUnitListeners) {
+                    try {
+                        listener.onWorkUnitCompleted(completed);
+                    } catch (RuntimeException e) {
+                        plugin.getLogger().log(Level.WARNING, "Work unit listener failed", e);
+                    }
+                }
+            }
         }
     }
 
+    public void addWorkUnitListener(WorkUnitListener listener) {
+        workUnitListeners.add(listener);
+    }
+
+    public void removeWorkUnitListener(WorkUnitListener listener) {
+        workUnitListeners.remove(listener);
+    }
+
+    public void addProgressListener(ProgressListener listener) {
+        progressListeners.add(listener);
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        progressListeners.remove(listener);
+    }
+
     private String describeWorkUnit(String slot) {
         String slotId = slot != null ? slot : currentWorkUnitId;
         WorkUnitState state = slotId != null ? activeWorkUnits.get(slotId) : null;
@@ -413,13 +548,13 @@ public class FAHClient {
                         + "FAH auto-restart is now disabled until an administrator intervenes.");
             }
             if (manager != null) {
-                Bukkit.getScheduler().runTask(plugin, () -> {
+                Bukkit.getScheduler().runTask(plugin, plugin.getOverheadProfiler().wrap(Subsystem.ALLOCATION, () -> {
                     try {
                         manager.setCores(0);
                     } catch (RuntimeException ex) {
                         plugin.getLogger().log(Level.WARNING, "Unable to pause FAH after repeated failures", ex);
                     }
-                });
+                }));
             }
         }
         markLogPollSuccess();
@@ -521,6 +656,10 @@ public class FAHClient {
         return progressPercent.get() + "%";
     }
 
+    public String getCurrentProjectSummary() {
+        return currentProjectSummary;
+    }
+
     public long getPointsEarned() {
         return totalPoints.get();
     }
@@ -12,6 +12,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -24,8 +25,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
 
+import com.thijs226.fahdonor.allocation.AllocationPolicy;
+import com.thijs226.fahdonor.allocation.AllocationPolicyEngine;
 import com.thijs226.fahdonor.environment.PlatformResourceManager;
-import com.thijs226.fahdonor.environment.ServerEnvironmentDetector;
+import com.thijs226.fahdonor.metrics.ActuationTracer;
+import com.thijs226.fahdonor.metrics.PerformanceMetrics;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
 
 public class FAHClientManager {
     private final FAHResourceDonor plugin;
@@ -35,12 +40,15 @@ public class FAHClientManager {
     private PrintWriter controlWriter;
     private BufferedReader controlReader;
     private int currentCores = 0;
+    private volatile int targetCores = 0;
     private final ScheduledExecutorService executor;
     private AccountInfo currentAccount;
     private CausePreference currentCause;
     private PlatformResourceManager platformManager;
+    private final AllocationPolicy allocationPolicy;
     private final AtomicInteger cliFailureStreak = new AtomicInteger(0);
     private volatile long cliBackoffUntilMillis = 0L;
+    private final ActuationTracer actuationTracer = new ActuationTracer();
 
     private enum CliCommandResult {
         APPLIED,
@@ -147,6 +155,10 @@ public class FAHClientManager {
     public FAHClientManager(FAHResourceDonor plugin, PlatformResourceManager platformManager) {
         this.plugin = plugin;
         this.platformManager = platformManager;
+        // Share the platform's compiled policy so reloads are picked up; compile our own otherwise
+        this.allocationPolicy = platformManager != null
+            ? platformManager.getAllocationPolicy()
+            : new AllocationPolicyEngine(plugin);
         this.fahDirectory = new File(plugin.getDataFolder(), "folding-at-home");
         this.executor = Executors.newSingleThreadScheduledExecutor();
 
@@ -452,6 +464,14 @@ public class FAHClientManager {
         return fahProcess != null && fahProcess.isAlive();
     }
 
+    /**
+     * Handle of the FAH client process started by this plugin, if it is still alive.
+     */
+    public Optional<ProcessHandle> getFahProcessHandle() {
+        Process process = fahProcess;
+        return process != null && process.isAlive() ? Optional.of(process.toHandle()) : Optional.empty();
+    }
+
     public boolean isConnected() {
         return controlSocket != null && controlSocket.isConnected() && !controlSocket.isClosed();
     }
@@ -460,6 +480,18 @@ public class FAHClientManager {
         return currentCores;
     }
 
+    public ActuationTracer getActuationTracer() {
+        return actuationTracer;
+    }
+
+    /**
+     * Core count most recently requested through {@link #setCores(int)}; may
+     * differ from {@link #getCurrentCores()} while the change is being applied.
+     */
+    public int getTargetCores() {
+        return targetCores;
+    }
+
     public void forceStart() {
         if (!isFAHRunning()) {
             plugin.getLogger().info("Force starting FAH client...");
@@ -539,7 +571,10 @@ public class FAHClientManager {
     public void setCores(int cores) {
         // enforce FAH min 2 cores; use 0 to pause instead of 1
         int clamped = (cores == 1 ? 0 : cores);
+        targetCores = clamped;
         if (clamped == currentCores) return;
+        final long requestedAt = System.nanoTime();
+        final long traceId = actuationTracer.enqueue(currentCores, clamped);
 
     int controlPort = plugin.getConfig().getInt("folding-at-home.ports.control-port", 0);
     String noPortMode = plugin.getConfig().getString("folding-at-home.ports.no-port-mode", "file-based");
@@ -547,68 +582,105 @@ public class FAHClientManager {
             if (controlPort == 0 && "file-based".equalsIgnoreCase(noPortMode)) {
                 // File-based control for hosts with no ports; run off the main thread
                 final int targetCores = clamped;
-                executor.execute(() -> setCoresFileMode(targetCores));
+                executor.execute(() -> {
+                    ProfilingEvents.CoreActuation event = new ProfilingEvents.CoreActuation();
+                    event.begin();
+                    int previousCores = currentCores;
+                    setCoresFileMode(targetCores, traceId);
+                    finishActuation(event, previousCores, targetCores, "file", requestedAt);
+                });
                 return;
             }
 
         final int targetCores = clamped;
         executor.execute(() -> {
-            try {
-                if (controlWriter == null) {
-                    // FAH not connected
-                    if (controlPort > 0) {
-                        // Try to reconnect
-                        plugin.getLogger().warning("FAH not connected, attempting to reconnect...");
-                        try {
-                            connectToControl(controlPort);
-                            plugin.getLogger().info("Reconnected to FAH control interface");
-                        } catch (IOException | RuntimeException e) {
-                            // Still not connected
-                            plugin.getLogger().info(() -> "[No Control] Would set FAH to " + targetCores + " cores");
-                            // In file mode, write to control file
-                            if ("file-based".equals(noPortMode)) {
-                                setCoresFileMode(targetCores);
-                            }
-                            currentCores = targetCores;
-                            return;
+            ProfilingEvents.CoreActuation event = new ProfilingEvents.CoreActuation();
+            event.begin();
+            int previousCores = currentCores;
+            applyCoresViaSocket(targetCores, controlPort, noPortMode, traceId);
+            finishActuation(event, previousCores, targetCores, "socket", requestedAt);
+        });
+    }
+
+    private void finishActuation(ProfilingEvents.CoreActuation event, int previousCores, int cores,
+                                 String controlPath, long requestedAtNanos) {
+        boolean applied = currentCores == cores;
+        event.previousCores = previousCores;
+        event.requestedCores = cores;
+        event.controlPath = controlPath;
+        event.applied = applied;
+        event.commit();
+
+        PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+        if (metrics != null && applied) {
+            metrics.recordActuation(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestedAtNanos));
+        }
+    }
+
+    private void applyCoresViaSocket(int targetCores, int controlPort, String noPortMode, long traceId) {
+        try {
+            if (controlWriter == null) {
+                // FAH not connected
+                if (controlPort > 0) {
+                    // Try to reconnect
+                    plugin.getLogger().warning("FAH not connected, attempting to reconnect...");
+                    try {
+                        connectToControl(controlPort);
+                        plugin.getLogger().info("Reconnected to FAH control interface");
+                    } catch (IOException | RuntimeException e) {
+                        // Still not connected
+                        plugin.getLogger().info(() -> "[No Control] Would set FAH to " + targetCores + " cores");
+                        // In file mode, write to control file
+                        if ("file-based".equals(noPortMode)) {
+                            setCoresFileMode(targetCores, traceId);
+                        } else {
+                            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, "no control connection");
                         }
-                    } else {
-                        // No port configured - use file mode
-                        setCoresFileMode(targetCores);
                         currentCores = targetCores;
                         return;
                     }
-                }
-
-                // Now we should be connected via socket
-                if (targetCores == 0) {
-                    sendCommand("pause");
-                    plugin.getLogger().info("FAH paused - all cores needed for Minecraft");
                 } else {
-                    sendCommand("unpause");
-                    Thread.sleep(500);
-                    sendCommand("slot-modify 0 cpus " + targetCores);
-                    plugin.getLogger().info(() -> "FAH set to use " + targetCores + " cores");
-                    Thread.sleep(500);
-                    sendCommand("unpause");
+                    // No port configured - use file mode
+                    setCoresFileMode(targetCores, traceId);
+                    currentCores = targetCores;
+                    return;
                 }
+            }
 
-                currentCores = targetCores;
-
-            } catch (IOException e) {
-                plugin.getLogger().warning(() -> String.format("Error occurred: %s", e.getMessage()));
-            } catch (InterruptedException e) {
-                plugin.getLogger().warning(() -> String.format("Interrupted while setting cores: %s", e.getMessage()));
-                Thread.currentThread().interrupt();
-            } catch (IllegalStateException | SecurityException e) {
-                plugin.getLogger().warning(() -> String.format("Unexpected error: %s", e.getMessage()));
+            // Now we should be connected via socket
+            actuationTracer.sent(traceId, "socket");
+            if (targetCores == 0) {
+                sendCommand("pause");
+                plugin.getLogger().info("FAH paused - all cores needed for Minecraft");
+            } else {
+                sendCommand("unpause");
+                Thread.sleep(500);
+                sendCommand("slot-modify 0 cpus " + targetCores);
+                plugin.getLogger().info(() -> "FAH set to use " + targetCores + " cores");
+                Thread.sleep(500);
+                sendCommand("unpause");
             }
-        });
+
+            actuationTracer.acknowledged(traceId);
+            currentCores = targetCores;
+
+        } catch (IOException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, e.getMessage());
+            plugin.getLogger().warning(() -> String.format("Error occurred: %s", e.getMessage()));
+        } catch (InterruptedException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, "interrupted");
+            plugin.getLogger().warning(() -> String.format("Interrupted while setting cores: %s", e.getMessage()));
+            Thread.currentThread().interrupt();
+        } catch (IllegalStateException | SecurityException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, e.getMessage());
+            plugin.getLogger().warning(() -> String.format("Unexpected error: %s", e.getMessage()));
+        }
     }
 
-    private synchronized void setCoresFileMode(int cores) {
+    private synchronized void setCoresFileMode(int cores, long traceId) {
         try {
             plugin.getLogger().info(() -> String.format("Applying file-based FAH core allocation: %d cores", cores));
+            actuationTracer.sent(traceId, "cli");
 
             CliCommandResult commandResult;
             if (cores == 0) {
@@ -621,6 +693,7 @@ public class FAHClientManager {
                     if (unpauseResult == CliCommandResult.FAILED && cliFailureStreak.get() >= 3) {
                         plugin.getLogger().warning("Unable to unpause FAH via CLI after slot modify; forcing restart to recover.");
                         restartFahProcessForFileMode(cores);
+                        actuationTracer.acknowledged(traceId);
                         currentCores = cores;
                         syncConfigCpuSetting(cores);
                         return;
@@ -629,11 +702,13 @@ public class FAHClientManager {
             }
 
             if (commandResult == CliCommandResult.RETRY_LATER) {
+                actuationTracer.lost(traceId, ActuationTracer.Outcome.DEFERRED, "CLI backoff");
                 plugin.getLogger().info("Deferring core adjustment until CLI backoff expires to avoid interrupting FAH work unit.");
                 return;
             }
 
             if (commandResult == CliCommandResult.APPLIED) {
+                actuationTracer.acknowledged(traceId);
                 syncConfigCpuSetting(cores);
                 currentCores = Math.max(cores, 0);
                 return;
@@ -641,6 +716,7 @@ public class FAHClientManager {
 
             // commandResult == FAILED
             if (cliFailureStreak.get() < 3) {
+                actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, "CLI command failed");
                 plugin.getLogger().warning("FAH CLI command failed; will retry later without restarting to preserve the current work unit.");
                 return;
             }
@@ -650,17 +726,23 @@ public class FAHClientManager {
             if (cores <= 0) {
                 stopFahProcessForFileMode();
                 currentCores = 0;
+                // No client left to log a pause, so the stop itself confirms it
+                actuationTracer.confirmed(0);
             } else {
                 restartFahProcessForFileMode(cores);
                 currentCores = cores;
             }
+            actuationTracer.acknowledged(traceId);
 
         } catch (IOException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, e.getMessage());
             plugin.getLogger().warning(() -> String.format("Failed to update cores in file mode: %s", e.getMessage()));
         } catch (InterruptedException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, "interrupted");
             Thread.currentThread().interrupt();
             plugin.getLogger().warning(() -> String.format("Interrupted while updating cores in file mode: %s", e.getMessage()));
         } catch (IllegalStateException | SecurityException e) {
+            actuationTracer.lost(traceId, ActuationTracer.Outcome.FAILED, e.getMessage());
             plugin.getLogger().warning(() -> String.format("Failed to update cores in file mode: %s", e.getMessage()));
         }
     }
@@ -938,29 +1020,19 @@ public class FAHClientManager {
 
     // Helper used but not defined in original snippet: calculateInitialCores
     private int calculateInitialCores(int playerCount) {
-        // Use platform manager if available, otherwise fall back to original logic
-        if (platformManager != null) {
-            plugin.getLogger().info(() -> "Using platform-specific core allocation logic.");
-            return platformManager.calculateFAHCores(playerCount);
-        }
-
-        // Fallback to original allocation logic
-        int total = plugin.getConfig().getInt("server.total-cores", 8);
-        int reserved = plugin.getConfig().getInt("server.reserved-cores", 1);
-        double cpp = plugin.getConfig().getDouble("allocation.dynamic.cores-per-player", 0.5);
+        int allocatedCores = allocationPolicy.coresFor(playerCount);
+        plugin.getLogger().info(() -> String.format("Calculated cores for FAH: %d (%s policy)", allocatedCores, allocationPolicy.getMode()));
+        return allocatedCores;
+    }
 
-        // Adjust for Pterodactyl environment
-        if (ServerEnvironmentDetector.detectEnvironment().getType() == ServerEnvironmentDetector.EnvironmentType.PTERODACTYL) {
-            plugin.getLogger().info(() -> "Detected Pterodactyl environment. Adjusting core allocation.");
-            cpp = plugin.getConfig().getDouble("allocation.dynamic.cores-per-player-pterodactyl", 0.25);
+    /**
+     * Recompiles the allocation policy when this manager owns it; the
+     * platform's shared policy is recompiled by the platform manager.
+     */
+    public void reloadAllocationPolicy() {
+        if (allocationPolicy instanceof AllocationPolicyEngine engine && platformManager == null) {
+            engine.compile();
         }
-
-        double neededForMC = reserved + (playerCount * cpp);
-        int availableForFAH = (int) Math.floor(total - neededForMC);
-        int allocatedCores = Math.max(1, Math.min(availableForFAH, total - reserved));
-
-    plugin.getLogger().info(() -> "Calculated cores for FAH: " + allocatedCores);
-        return allocatedCores;
     }
 
     // Define connectToControl method to resolve undefined reference
@@ -6,6 +6,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
@@ -19,13 +20,29 @@ import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import com.thijs226.fahdonor.allocation.ThroughputTuner;
 import com.thijs226.fahdonor.commands.FAHCommands;
+import com.thijs226.fahdonor.environment.FahProcessMonitor;
+import com.thijs226.fahdonor.environment.HostPressureMonitor;
+import com.thijs226.fahdonor.environment.MemoryGuard;
 import com.thijs226.fahdonor.environment.PlatformResourceManager;
 import com.thijs226.fahdonor.health.HealthMonitor;
+import com.thijs226.fahdonor.health.ProgressRateTracker;
+import com.thijs226.fahdonor.metrics.MetricsExporter;
+import com.thijs226.fahdonor.metrics.MetricsHistory;
 import com.thijs226.fahdonor.leaderboard.LeaderboardManager;
 import com.thijs226.fahdonor.metrics.PerformanceMetrics;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.profiling.PluginProfiler;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
+import com.thijs226.fahdonor.rewards.ContributionAttributor;
 import com.thijs226.fahdonor.rewards.RewardManager;
 import com.thijs226.fahdonor.scheduling.ScheduleManager;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.JournalStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.SqliteStore;
+import com.thijs226.fahdonor.storage.Table;
 import com.thijs226.fahdonor.voting.CauseVotingManager;
 
 import net.md_5.bungee.api.ChatMessageType;
@@ -41,10 +58,23 @@ public class FAHResourceDonor extends JavaPlugin {
     private CauseVotingManager votingManager;
     private PlatformResourceManager platformManager;
     private PerformanceMetrics performanceMetrics;
+    private MetricsExporter metricsExporter;
+    private FahProcessMonitor fahProcessMonitor;
+    private MetricsHistory metricsHistory;
+    private ThroughputTuner throughputTuner;
+    private ProgressRateTracker progressRateTracker;
+    private PluginProfiler profiler;
+    private final OverheadProfiler overheadProfiler = new OverheadProfiler(this);
+    private ContributionStore contributionStore;
+    private PersistenceScheduler persistenceScheduler;
     private RewardManager rewardManager;
+    private ContributionAttributor contributionAttributor;
     private LeaderboardManager leaderboardManager;
     private ScheduleManager scheduleManager;
     private HealthMonitor healthMonitor;
+    private HostPressureMonitor hostPressureMonitor;
+    private MemoryGuard memoryGuard;
+    private BurstThrottle burstThrottle;
     private BukkitRunnable statusChecker;
     private String teamId = "";
     private boolean isRunning = false;
@@ -171,10 +201,55 @@ public class FAHResourceDonor extends JavaPlugin {
         
         // Initialize new enhancement systems
         performanceMetrics = new PerformanceMetrics(this);
+        metricsExporter = new MetricsExporter(this);
+        fahProcessMonitor = new FahProcessMonitor(this);
+        metricsHistory = new MetricsHistory(this);
+        profiler = new PluginProfiler(this);
+        contributionStore = openContributionStore();
+        persistenceScheduler = new PersistenceScheduler(contributionStore, getLogger());
         rewardManager = new RewardManager(this);
         leaderboardManager = new LeaderboardManager(this);
+        if (getConfig().getBoolean("leaderboard.enabled", true)
+                && getConfig().getBoolean("leaderboard.auto-broadcast.enabled", true)) {
+            leaderboardManager.startAutoBroadcast();
+        }
+        persistenceScheduler.register(rewardManager);
+        // Queue before ledger, so a grant is never on disk without its queued reward
+        persistenceScheduler.register(rewardManager.getDispatcher());
+        persistenceScheduler.register(rewardManager.getLedger());
+        rewardManager.getDispatcher().start();
+        persistenceScheduler.register(leaderboardManager);
+        if (leaderboardManager.getWindows() != null) {
+            leaderboardManager.getWindows().start();
+            persistenceScheduler.register(leaderboardManager.getWindows());
+        }
+        persistenceScheduler.register(votingManager);
+        persistenceScheduler.start(getConfig().getLong("storage.autosave.interval-seconds", 30),
+                getConfig().getInt("storage.autosave.max-changes", 500));
         scheduleManager = new ScheduleManager(this);
+        playerMonitor.addAdjuster(scheduleManager);
         healthMonitor = new HealthMonitor(this);
+        hostPressureMonitor = new HostPressureMonitor(this);
+        playerMonitor.addAdjuster(hostPressureMonitor);
+        memoryGuard = new MemoryGuard(this);
+        playerMonitor.addAdjuster(memoryGuard);
+        persistenceScheduler.register(memoryGuard.getPeaksFile());
+        burstThrottle = new BurstThrottle(this);
+        playerMonitor.addAdjuster(burstThrottle);
+        throughputTuner = new ThroughputTuner(this);
+        playerMonitor.addAdjuster(throughputTuner);
+        fahClient.addWorkUnitListener(throughputTuner);
+        persistenceScheduler.register(throughputTuner.getSamplesFile());
+        progressRateTracker = new ProgressRateTracker(this);
+        playerMonitor.addAdjuster(progressRateTracker);
+        fahClient.addProgressListener(progressRateTracker);
+        fahClient.addWorkUnitListener(progressRateTracker);
+        persistenceScheduler.register(progressRateTracker.getBaselinesFile());
+        if (getConfig().getBoolean("attribution.enabled", true)) {
+            contributionAttributor = new ContributionAttributor(this);
+            fahClient.addWorkUnitListener(contributionAttributor);
+            contributionAttributor.start();
+        }
         
         // Start the actual FAH service
         startFAHService();
@@ -187,6 +262,10 @@ public class FAHResourceDonor extends JavaPlugin {
             getLogger().warning(() -> "Command 'fah' not defined in plugin.yml; commands will be unavailable");
         }
         
+        if (getConfig().getBoolean("overhead-profiling.enabled", true)) {
+            overheadProfiler.start();
+        }
+        
         // Start monitoring
         playerMonitor.start();
         
@@ -201,6 +280,34 @@ public class FAHResourceDonor extends JavaPlugin {
             getLogger().info("Health monitor started");
         }
         
+        if (getConfig().getBoolean("monitoring.host-pressure.enabled", true)) {
+            hostPressureMonitor.start();
+        }
+        
+        if (getConfig().getBoolean("memory-guard.enabled", true)) {
+            memoryGuard.start();
+        }
+        
+        if (getConfig().getBoolean("burst-throttle.enabled", true)) {
+            burstThrottle.start();
+        }
+        
+        if (getConfig().getBoolean("performance-tracking.enabled", true)) {
+            fahProcessMonitor.start();
+        }
+        
+        if (getConfig().getBoolean("auto-tuning.enabled", false)) {
+            throughputTuner.start();
+        }
+        
+        if (getConfig().getBoolean("metrics-history.enabled", true)) {
+            metricsHistory.start();
+        }
+        
+        if (getConfig().getBoolean("metrics-exporter.enabled", false)) {
+            metricsExporter.start();
+        }
+        
         // Start status checker for FAH client
         startStatusChecker();
         
@@ -267,17 +374,59 @@ public class FAHResourceDonor extends JavaPlugin {
         if (playerMonitor != null) {
             playerMonitor.stop();
         }
+        overheadProfiler.stop();
         if (scheduleManager != null) {
             scheduleManager.stop();
         }
         if (healthMonitor != null) {
             healthMonitor.stop();
         }
+        if (hostPressureMonitor != null) {
+            hostPressureMonitor.stop();
+        }
+        if (memoryGuard != null) {
+            memoryGuard.stop();
+        }
+        if (burstThrottle != null) {
+            burstThrottle.stop();
+        }
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (fahProcessMonitor != null) {
+            fahProcessMonitor.stop();
+        }
+        if (metricsHistory != null) {
+            metricsHistory.stop();
+            metricsHistory.save();
+        }
+        if (throughputTuner != null) {
+            throughputTuner.stop();
+        }
+        if (profiler != null) {
+            profiler.stop();
+        }
+        if (contributionAttributor != null) {
+            // Hands out pending shares before the final autosave
+            contributionAttributor.stop();
+        }
         if (rewardManager != null) {
-            rewardManager.saveContributions();
+            rewardManager.getDispatcher().stop();
         }
         if (leaderboardManager != null) {
-            leaderboardManager.saveLeaderboard();
+            leaderboardManager.stopAutoBroadcast();
+            if (leaderboardManager.getWindows() != null) {
+                leaderboardManager.getWindows().stop();
+            }
+        }
+        if (persistenceScheduler != null) {
+            // Contributions, leaderboard and votes
+            persistenceScheduler.shutdown(getConfig().getLong("storage.shutdown-timeout-ms", 5000));
+        } else if (votingManager != null) {
+            votingManager.saveVotes();
+        }
+        if (contributionStore != null) {
+            contributionStore.close(getConfig().getLong("storage.shutdown-timeout-ms", 5000));
         }
         if (fahManager != null) {
             fahManager.shutdown();
@@ -285,9 +434,6 @@ public class FAHResourceDonor extends JavaPlugin {
         if (fahClient != null) {
             fahClient.shutdown();
         }
-        if (votingManager != null) {
-            votingManager.saveVotes();
-        }
         getLogger().info("FAH ResourceDonor plugin has been disabled!");
     }
 
@@ -400,6 +546,15 @@ public class FAHResourceDonor extends JavaPlugin {
         statusChecker = new BukkitRunnable() {
             @Override
             public void run() {
+                long started = overheadProfiler.begin();
+                try {
+                    checkStatus();
+                } finally {
+                    overheadProfiler.end(OverheadProfiler.Subsystem.STATUS, started);
+                }
+            }
+            
+            private void checkStatus() {
                 if (isRunning && fahClient != null) {
                     CompletableFuture.runAsync(() -> {
                         try {
@@ -488,9 +643,52 @@ public class FAHResourceDonor extends JavaPlugin {
         this.isRunning = running;
     }
     
+    @Override
+    public void saveConfig() {
+        ProfilingEvents.ConfigWrite event = new ProfilingEvents.ConfigWrite();
+        event.begin();
+        super.saveConfig();
+        event.bytesWritten = new File(getDataFolder(), "config.yml").length();
+        event.commit();
+    }
+    
     public void reloadConfiguration() {
         reloadConfig();
         configManager.reload();
+        if (platformManager != null) {
+            platformManager.reloadAllocationPolicy();
+        }
+        if (fahManager != null) {
+            fahManager.reloadAllocationPolicy();
+        }
+        if (playerMonitor != null) {
+            playerMonitor.reloadAllocationPolicy();
+        }
+        if (burstThrottle != null) {
+            burstThrottle.reload();
+        }
+        if (hostPressureMonitor != null) {
+            hostPressureMonitor.reload();
+        }
+        if (memoryGuard != null) {
+            memoryGuard.reload();
+        }
+        if (fahProcessMonitor != null) {
+            fahProcessMonitor.reload();
+        }
+        if (throughputTuner != null) {
+            throughputTuner.reload();
+        }
+        if (scheduleManager != null) {
+            scheduleManager.reload();
+        }
+        if (rewardManager != null) {
+            rewardManager.reloadRewards();
+            rewardManager.getDispatcher().reload();
+        }
+        if (statisticsManager != null) {
+            statisticsManager.reloadMilestones();
+        }
         
         if (fahClient != null) {
             // Restart FAH service with new configuration
@@ -523,10 +721,11 @@ public class FAHResourceDonor extends JavaPlugin {
             }
         };
 
+        Runnable measured = overheadProfiler.wrap(OverheadProfiler.Subsystem.NOTIFICATIONS, task);
         if (Bukkit.isPrimaryThread()) {
-            task.run();
+            measured.run();
         } else {
-            Bukkit.getScheduler().runTask(this, task);
+            Bukkit.getScheduler().runTask(this, measured);
         }
 
         if (logToConsole) {
@@ -551,10 +750,118 @@ public class FAHResourceDonor extends JavaPlugin {
         return performanceMetrics;
     }
     
+    public MetricsExporter getMetricsExporter() {
+        return metricsExporter;
+    }
+    
+    public FahProcessMonitor getFahProcessMonitor() {
+        return fahProcessMonitor;
+    }
+    
+    public MetricsHistory getMetricsHistory() {
+        return metricsHistory;
+    }
+    
+    public ThroughputTuner getThroughputTuner() {
+        return throughputTuner;
+    }
+    
+    public ProgressRateTracker getProgressRateTracker() {
+        return progressRateTracker;
+    }
+    
+    public OverheadProfiler getOverheadProfiler() {
+        return overheadProfiler;
+    }
+    
+    public PluginProfiler getProfiler() {
+        return profiler;
+    }
+    
+    /**
+     * Opens the backend selected by {@code storage.backend}. When SQLite is
+     * selected for the first time, records from the journal are copied over.
+     * Falls back to the journal if the database cannot be opened.
+     */
+    private ContributionStore openContributionStore() {
+        Path directory = getDataFolder().toPath().resolve("storage");
+        JournalStore journal = new JournalStore(directory,
+                getConfig().getLong("storage.compact-after-kb", 8192) * 1024L, getLogger());
+        String backend = getConfig().getString("storage.backend", "journal");
+        if ("sqlite".equalsIgnoreCase(backend)) {
+            SqliteStore sqlite = new SqliteStore(directory.resolve(getConfig().getString("storage.sqlite.file", "contributions.db")),
+                    getConfig().getLong("storage.sqlite.flush-interval-ms", 1000),
+                    getConfig().getInt("storage.sqlite.batch-size", 500), getLogger());
+            try {
+                sqlite.open();
+                importJournal(journal, sqlite, directory);
+                return sqlite;
+            } catch (IOException e) {
+                getLogger().log(Level.SEVERE, "Failed to open contribution database; using the journal store instead", e);
+                sqlite.close(getConfig().getLong("storage.shutdown-timeout-ms", 5000));
+            }
+        } else if (!"journal".equalsIgnoreCase(backend)) {
+            getLogger().warning(() -> "Unknown storage.backend '" + backend + "', using journal");
+        }
+        try {
+            journal.open();
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Failed to open contribution store; contributions will not be saved", e);
+        }
+        return journal;
+    }
+    
+    /**
+     * Copies the journal into an empty database. A marker file exists while
+     * the copy is in progress, so an import that failed halfway is redone on
+     * the next start instead of leaving the database with part of the data.
+     */
+    private void importJournal(JournalStore journal, ContributionStore target, Path directory) throws IOException {
+        Path marker = directory.resolve("contributions.importing");
+        boolean targetEmpty = target.loadAll(Table.CONTRIBUTIONS).isEmpty() && target.loadAll(Table.LEADERBOARD).isEmpty();
+        if ((!targetEmpty && !Files.exists(marker)) || !Files.exists(directory.resolve("contributions.journal"))) {
+            return;
+        }
+        Files.write(marker, new byte[0]);
+        journal.open();
+        int imported = 0;
+        for (Table table : Table.values()) {
+            for (var record : journal.loadAll(table).values()) {
+                target.upsert(table, record);
+                imported++;
+            }
+            for (var blob : journal.loadBlobs(table).entrySet()) {
+                target.putBlob(table, blob.getKey(), blob.getValue());
+                imported++;
+            }
+        }
+        journal.close(getConfig().getLong("storage.shutdown-timeout-ms", 5000));
+        try {
+            target.flush().join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not write imported records to the database", e.getCause());
+        }
+        Files.delete(marker);
+        final int count = imported;
+        getLogger().info(() -> String.format("Imported %d records from the contribution journal into the database", count));
+    }
+    
+    public PersistenceScheduler getPersistenceScheduler() {
+        return persistenceScheduler;
+    }
+    
+    public ContributionStore getContributionStore() {
+        return contributionStore;
+    }
+    
     public RewardManager getRewardManager() {
         return rewardManager;
     }
     
+    public ContributionAttributor getContributionAttributor() {
+        return contributionAttributor;
+    }
+    
     public LeaderboardManager getLeaderboardManager() {
         return leaderboardManager;
     }
@@ -563,6 +870,22 @@ public class FAHResourceDonor extends JavaPlugin {
         return scheduleManager;
     }
     
+    public PlayerMonitor getPlayerMonitor() {
+        return playerMonitor;
+    }
+    
+    public HostPressureMonitor getHostPressureMonitor() {
+        return hostPressureMonitor;
+    }
+    
+    public MemoryGuard getMemoryGuard() {
+        return memoryGuard;
+    }
+    
+    public BurstThrottle getBurstThrottle() {
+        return burstThrottle;
+    }
+    
     public HealthMonitor getHealthMonitor() {
         return healthMonitor;
     }
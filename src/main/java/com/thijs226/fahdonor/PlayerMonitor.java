@@ -1,7 +1,9 @@
 package com.thijs226.fahdonor;
 
 import java.lang.reflect.Method;
-import java.util.Locale;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -12,12 +14,19 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import com.thijs226.fahdonor.allocation.AllocationPolicy;
+import com.thijs226.fahdonor.allocation.AllocationPolicyEngine;
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
 import com.thijs226.fahdonor.environment.PlatformResourceManager;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
 
 public class PlayerMonitor implements Listener {
     private final FAHResourceDonor plugin;
     private final FAHClientManager fahManager;
     private final PlatformResourceManager platformManager;
+    private final AllocationPolicy allocationPolicy;
+    private final List<CoreBudgetAdjuster> adjusters = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean checkPending = new AtomicBoolean(false);
     private int checkTaskId = -1;
     private int lastPlayerCount = 0;
     private long lastChange = 0;
@@ -34,6 +43,10 @@ public class PlayerMonitor implements Listener {
         this.plugin = plugin;
         this.fahManager = fahManager;
         this.platformManager = platformManager;
+        // Share the platform's compiled policy so reloads are picked up; compile our own otherwise
+        this.allocationPolicy = platformManager != null
+            ? platformManager.getAllocationPolicy()
+            : new AllocationPolicyEngine(plugin);
         
         // Try to find TPS method (Paper/Spigot specific)
         try {
@@ -44,6 +57,16 @@ public class PlayerMonitor implements Listener {
         }
     }
     
+    /**
+     * Recompiles the allocation policy when this monitor owns it; the
+     * platform's shared policy is recompiled by the platform manager.
+     */
+    public void reloadAllocationPolicy() {
+        if (allocationPolicy instanceof AllocationPolicyEngine engine && platformManager == null) {
+            engine.compile();
+        }
+    }
+    
     public void start() {
         if (!registered) {
             Bukkit.getPluginManager().registerEvents(this, plugin);
@@ -51,9 +74,9 @@ public class PlayerMonitor implements Listener {
         }
         int checkInterval = plugin.getConfig().getInt("monitoring.check-interval", 30) * 20;
         
-        checkTaskId = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            checkAndAdjustCores();
-        }, 100L, checkInterval).getTaskId();
+        checkTaskId = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.ALLOCATION, this::checkAndAdjustCores),
+            100L, checkInterval).getTaskId();
         
         // Initial check
         checkAndAdjustCores();
@@ -71,6 +94,15 @@ public class PlayerMonitor implements Listener {
     
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
+        long started = plugin.getOverheadProfiler().begin();
+        try {
+            handleJoin(event);
+        } finally {
+            plugin.getOverheadProfiler().end(Subsystem.PLAYER_EVENTS, started);
+        }
+    }
+    
+    private void handleJoin(PlayerJoinEvent event) {
         lastChange = System.currentTimeMillis();
         
         // Check if player is admin and account isn't configured
@@ -79,21 +111,21 @@ public class PlayerMonitor implements Listener {
             String passkey = plugin.getConfig().getString("folding-at-home.account.passkey", "");
 
             if (username == null || username.isEmpty()) {
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                Bukkit.getScheduler().runTaskLater(plugin, plugin.getOverheadProfiler().wrap(Subsystem.PLAYER_EVENTS, () -> {
                     event.getPlayer().sendMessage(ChatColor.GOLD + "[FAH] " + ChatColor.YELLOW + 
                         "Folding@home account not configured! Use: /fah setup");
                     event.getPlayer().sendMessage(ChatColor.GRAY + 
                         "Your server's contributions aren't being tracked!");
-                }, 60L); // 3 seconds after join
+                }), 60L); // 3 seconds after join
             } else if (passkey == null || passkey.isEmpty()) {
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
+                Bukkit.getScheduler().runTaskLater(plugin, plugin.getOverheadProfiler().wrap(Subsystem.PLAYER_EVENTS, () -> {
                     event.getPlayer().sendMessage(ChatColor.GOLD + "[FAH] " + ChatColor.YELLOW + 
                         "No passkey configured! Use: /fah passkey <token>");
                     event.getPlayer().sendMessage(ChatColor.GRAY + 
                         "You're missing out on bonus points! Get one at:");
                     event.getPlayer().sendMessage(ChatColor.AQUA + 
                         "https://apps.foldingathome.org/getpasskey");
-                }, 60L);
+                }), 60L);
             }
         }
         
@@ -102,24 +134,77 @@ public class PlayerMonitor implements Listener {
             plugin.getStatisticsManager().onPlayerJoin(event.getPlayer());
         }
         
-        Bukkit.getScheduler().runTaskLater(plugin, this::checkAndAdjustCores, 20L);
+        Bukkit.getScheduler().runTaskLater(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.ALLOCATION, this::checkAndAdjustCores), 20L);
     }
     
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
-        lastChange = System.currentTimeMillis();
-        Bukkit.getScheduler().runTaskLater(plugin, this::checkAndAdjustCores, 60L);
+        long started = plugin.getOverheadProfiler().begin();
+        try {
+            lastChange = System.currentTimeMillis();
+            Bukkit.getScheduler().runTaskLater(plugin,
+                plugin.getOverheadProfiler().wrap(Subsystem.ALLOCATION, this::checkAndAdjustCores), 60L);
+            if (plugin.getRewardManager() != null) {
+                plugin.getRewardManager().onPlayerQuit(event.getPlayer().getUniqueId());
+            }
+        } finally {
+            plugin.getOverheadProfiler().end(Subsystem.PLAYER_EVENTS, started);
+        }
+    }
+    
+    /**
+     * Registers a runtime signal that may lower the policy's core budget.
+     */
+    public void addAdjuster(CoreBudgetAdjuster adjuster) {
+        adjusters.add(adjuster);
+    }
+    
+    public void removeAdjuster(CoreBudgetAdjuster adjuster) {
+        adjusters.remove(adjuster);
+    }
+    
+    /**
+     * Schedules a core re-evaluation on the main thread. Safe to call from any
+     * thread; requests made before the pending check runs are coalesced.
+     */
+    public void requestCheck() {
+        if (checkPending.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(plugin, plugin.getOverheadProfiler().wrap(Subsystem.ALLOCATION, () -> {
+                checkPending.set(false);
+                adjustCores(true);
+            }));
+        }
     }
     
     private void checkAndAdjustCores() {
+        adjustCores(false);
+    }
+    
+    private void adjustCores(boolean adjusterRequest) {
         int playerCount = Bukkit.getOnlinePlayers().size();
         
         long gracePeriod = plugin.getConfig().getLong("monitoring.grace-period", 60) * 1000;
         if (System.currentTimeMillis() - lastChange < gracePeriod && playerCount != lastPlayerCount) {
-            return;
+            if (!adjusterRequest) {
+                return;
+            }
+            // Adjuster signals must not wait out the grace period; keep the settled player count
+            playerCount = lastPlayerCount;
         }
         
         int cores = calculateOptimalCores(playerCount);
+        String limitedBy = null;
+        for (CoreBudgetAdjuster adjuster : adjusters) {
+            int adjusted = Math.max(0, adjuster.adjust(cores, playerCount));
+            if (adjusted < cores) {
+                limitedBy = adjuster.getName();
+            }
+            cores = Math.min(cores, adjusted);
+        }
+        if (cores == 1) {
+            cores = 0; // never run FAH on a single core
+        }
 
         FAHClient client = plugin.getFAHClient();
         if (client != null && client.isAutoRestartSuppressed()) {
@@ -152,7 +237,8 @@ public class PlayerMonitor implements Listener {
             final int old = fahManager.getCurrentCores();
             final int nc = cores;
             final int pc = playerCount;
-            plugin.getLogger().info(() -> String.format("Adjusting FAH cores: %d -> %d (Players: %d)", old, nc, pc));
+            final String reason = limitedBy == null ? "" : ", limited by " + limitedBy;
+            plugin.getLogger().info(() -> String.format("Adjusting FAH cores: %d -> %d (Players: %d%s)", old, nc, pc, reason));
         }
         
         fahManager.setCores(cores);
@@ -174,55 +260,6 @@ public class PlayerMonitor implements Listener {
     }
     
     private int calculateOptimalCores(int playerCount) {
-        // Prefer centralized logic if available
-        if (platformManager != null) {
-            return platformManager.calculateFAHCores(playerCount);
-        }
-        String modeRaw = plugin.getConfig().getString("allocation.mode");
-        String mode = (modeRaw == null ? "dynamic" : modeRaw).toLowerCase(Locale.ROOT);
-        int totalCores = plugin.getConfig().getInt("server.total-cores", 8);
-        int reservedCores = plugin.getConfig().getInt("server.reserved-cores", 1);
-        
-        return switch (mode) {
-            case "dynamic" -> {
-                double coresPerPlayer = plugin.getConfig().getDouble("allocation.dynamic.cores-per-player", 0.5);
-                double neededForMC = reservedCores + (playerCount * coresPerPlayer);
-                int availableForFAH = (int) Math.floor(totalCores - neededForMC);
-                yield Math.max(0, Math.min(availableForFAH, totalCores - reservedCores));
-            }
-            case "tiered" -> {
-                var section = plugin.getConfig().getConfigurationSection("allocation.tiered");
-                if (section != null) {
-                    for (String key : section.getKeys(false)) {
-                        String range = plugin.getConfig().getString("allocation.tiered." + key + ".players");
-                        int fahCores = plugin.getConfig().getInt("allocation.tiered." + key + ".fah-cores");
-                        if (matchesPlayerRange(playerCount, range)) {
-                            yield fahCores;
-                        }
-                    }
-                }
-                yield 0;
-            }
-            default -> 0;
-        };
-    }
-    
-    private boolean matchesPlayerRange(int playerCount, String range) {
-        if (range == null || range.isEmpty()) return false;
-        try {
-            if (range.contains("+")) {
-                int min = Integer.parseInt(range.replace("+", ""));
-                return playerCount >= min;
-            } else if (range.contains("-")) {
-                String[] parts = range.split("-");
-                int min = Integer.parseInt(parts[0]);
-                int max = Integer.parseInt(parts[1]);
-                return playerCount >= min && playerCount <= max;
-            } else {
-                return playerCount == Integer.parseInt(range);
-            }
-        } catch (NumberFormatException ex) {
-            return false;
-        }
+        return allocationPolicy.coresFor(playerCount);
     }
-}
\ No newline at end of file
+}
@@ -3,97 +3,240 @@ package com.thijs226.fahdonor;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+
+/**
+ * Server-wide folding totals. A new immutable {@link Snapshot} is built from
+ * the FAH client's counters whenever a work unit is credited and swapped in
+ * atomically, so readers always see one consistent set of numbers without
+ * locking. Each swap compares the old and new totals against the configured
+ * milestones and announces the highest one crossed.
+ */
+public class StatisticsManager implements FAHClient.WorkUnitListener {
+
+    /** Totals at one point in time. */
+    public record Snapshot(long workUnits, long points, double coreHours, long failures, int consecutiveFailures,
+                           Instant takenAt) {
+
+        static final Snapshot EMPTY = new Snapshot(0L, 0L, 0.0, 0L, 0, Instant.EPOCH);
+    }
+
+    /**
+     * Sorted milestone values plus an optional repeating step beyond the
+     * last one. Checks cost a binary search over the configured list, however
+     * far the totals moved.
+     */
+    static final class Milestones {
+        private final long[] values;
+        private final long every;
+
+        Milestones(long[] values, long every) {
+            this.values = values;
+            this.every = Math.max(0L, every);
+        }
+
+        static Milestones fromConfig(FileConfiguration config, String path, long[] defaults, long defaultEvery) {
+            long[] values = config.isList(path)
+                ? config.getLongList(path).stream().mapToLong(Long::longValue).filter(v -> v > 0).sorted().distinct().toArray()
+                : defaults;
+            return new Milestones(values, config.getLong(path + "-every", defaultEvery));
+        }
+
+        /** Highest milestone in {@code (before, after]}, or -1. */
+        long crossed(long before, long after) {
+            if (after <= before) {
+                return -1L;
+            }
+            long best = -1L;
+            int index = Arrays.binarySearch(values, after);
+            int highest = index >= 0 ? index : -index - 2;
+            if (highest >= 0 && values[highest] > before) {
+                best = values[highest];
+            }
+            if (every > 0) {
+                long step = after / every * every;
+                if (step > before && step > best && step > last()) {
+                    best = step;
+                }
+            }
+            return best;
+        }
+
+        /** First milestone above {@code value}, or -1 when there is none. */
+        long next(long value) {
+            int index = Arrays.binarySearch(values, value + 1);
+            int next = index >= 0 ? index : -index - 1;
+            if (next < values.length) {
+                return values[next];
+            }
+            if (every > 0) {
+                return Math.max(last(), value) / every * every + every;
+            }
+            return -1L;
+        }
+
+        /** Milestone at or below {@code value}, or 0. */
+        long previous(long value) {
+            long previous = 0L;
+            int index = Arrays.binarySearch(values, value);
+            int highest = index >= 0 ? index : -index - 2;
+            if (highest >= 0) {
+                previous = values[highest];
+            }
+            if (every > 0 && value > last()) {
+                previous = Math.max(previous, value / every * every);
+            }
+            return previous;
+        }
+
+        private long last() {
+            return values.length > 0 ? values[values.length - 1] : 0L;
+        }
+    }
+
+    private static final long[] DEFAULT_POINT_MILESTONES = {100_000L, 250_000L, 500_000L, 1_000_000L};
+    private static final long[] DEFAULT_UNIT_MILESTONES = {10L, 50L, 100L, 250L, 500L, 1_000L};
+    /** Credits replayed from the existing log right after startup are not announced. */
+    private static final Duration STARTUP_GRACE = Duration.ofMinutes(2);
 
-public class StatisticsManager {
     private final FAHResourceDonor plugin;
     private final FAHClient fahClient;
-    private long totalWorkUnits = 0;
-    private long totalPoints = 0;
-    private Instant startTime;
-    private double totalCoreHours = 0.0;
-    private long totalFailures = 0;
-    private int consecutiveFailures = 0;
-    
+    private final Instant startTime;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private volatile Milestones pointMilestones;
+    private volatile Milestones unitMilestones;
+
     public StatisticsManager(FAHResourceDonor plugin, FAHClient fahClient) {
         this.plugin = plugin;
         this.fahClient = fahClient;
         this.startTime = Instant.now();
-        
-        Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::fetchStats, 0L, 12000L);
+        reloadMilestones();
+        refresh(false);
+        if (fahClient != null) {
+            fahClient.addWorkUnitListener(this);
+            // Whatever was credited during the grace becomes the baseline, so it is never announced late
+            Bukkit.getScheduler().runTaskLater(plugin,
+                plugin.getOverheadProfiler().wrap(Subsystem.STATISTICS, () -> refresh(false)),
+                STARTUP_GRACE.toSeconds() * 20L);
+        }
     }
-    
-    private void fetchStats() {
+
+    public final void reloadMilestones() {
+        FileConfiguration config = plugin.getConfig();
+        pointMilestones = Milestones.fromConfig(config, "statistics.milestones.points", DEFAULT_POINT_MILESTONES, 1_000_000L);
+        unitMilestones = Milestones.fromConfig(config, "statistics.milestones.work-units", DEFAULT_UNIT_MILESTONES, 1_000L);
+    }
+
+    @Override
+    public void onWorkUnitCompleted(FAHClient.CompletedWorkUnit unit) {
+        refresh();
+    }
+
+    /**
+     * Current totals. Lock-free; never older than the last credited work
+     * unit.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    private Snapshot refresh() {
+        return refresh(true);
+    }
+
+    /**
+     * Takes a new snapshot from the client's counters and, when
+     * {@code announce} is set and the startup grace is over, checks
+     * milestones against the previous one. Serialized so snapshots never go
+     * backwards between two concurrent refreshes.
+     */
+    private synchronized Snapshot refresh(boolean announce) {
         if (fahClient == null) {
-            return;
+            return snapshot.get();
         }
-        try {
-            totalWorkUnits = fahClient.getCompletedWorkUnits();
-            totalPoints = fahClient.getPointsEarned();
-            totalCoreHours = fahClient.getTotalCoreHours();
-            totalFailures = fahClient.getTotalFailures();
-            consecutiveFailures = fahClient.getConsecutiveFailures();
-        } catch (RuntimeException ignored) {
-            // Stats are informational; ignore transient issues
+        Snapshot next = new Snapshot(fahClient.getCompletedWorkUnits(), fahClient.getPointsEarned(),
+            fahClient.getTotalCoreHours(), fahClient.getTotalFailures(), fahClient.getConsecutiveFailures(), Instant.now());
+        Snapshot previous = snapshot.getAndSet(next);
+        if (announce && Duration.between(startTime, next.takenAt()).compareTo(STARTUP_GRACE) >= 0) {
+            long points = pointMilestones.crossed(previous.points(), next.points());
+            if (points > 0) {
+                announce(String.format("%,d", points) + ChatColor.GREEN + " points");
+            }
+            long units = unitMilestones.crossed(previous.workUnits(), next.workUnits());
+            if (units > 0) {
+                announce(String.format("%,d", units) + ChatColor.GREEN + " work units");
+            }
+        }
+        return next;
+    }
+
+    private void announce(String amount) {
+        if (!plugin.getConfig().getBoolean("statistics.broadcast-milestones", true) || !plugin.isEnabled()) {
+            return;
         }
+        String message = ChatColor.GOLD + "⭐ " + ChatColor.GREEN + "Server Milestone! We've contributed "
+            + ChatColor.YELLOW + amount + " to Folding@home!";
+        Bukkit.getScheduler().runTask(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.STATISTICS, () -> Bukkit.broadcastMessage(message)));
     }
-    
+
     public void displayStats(CommandSender sender) {
+        // Failures are not tied to credits, so read the client once more
+        Snapshot stats = refresh();
         sender.sendMessage(ChatColor.GOLD + "=== Folding@home Contribution Stats ===");
-        
+
         Duration uptime = Duration.between(startTime, Instant.now());
         long hours = uptime.toHours();
-        
+
         FAHClientManager.AccountInfo account = plugin.getFAHManager().getCurrentAccount();
-        
+
         sender.sendMessage(ChatColor.GRAY + "Account: " + ChatColor.WHITE + account.username);
         sender.sendMessage(ChatColor.GRAY + "Team: " + ChatColor.WHITE + account.teamId);
         sender.sendMessage(ChatColor.GRAY + "Running for: " + ChatColor.WHITE + hours + " hours");
-        sender.sendMessage(ChatColor.GRAY + "Work Units: " + ChatColor.WHITE + totalWorkUnits);
-        sender.sendMessage(ChatColor.GRAY + "Points Earned: " + ChatColor.WHITE + 
-            String.format("%,d", totalPoints));
-        sender.sendMessage(ChatColor.GRAY + "Core Hours Donated: " + ChatColor.WHITE + 
-            String.format("%.2f", totalCoreHours));
-        if (totalFailures > 0) {
-            sender.sendMessage(ChatColor.GRAY + "Work Unit Failures: " + ChatColor.WHITE + totalFailures +
-                (consecutiveFailures > 0 ? ChatColor.DARK_RED + " (" + consecutiveFailures + " consecutive)" : ""));
+        sender.sendMessage(ChatColor.GRAY + "Work Units: " + ChatColor.WHITE + stats.workUnits());
+        sender.sendMessage(ChatColor.GRAY + "Points Earned: " + ChatColor.WHITE +
+            String.format("%,d", stats.points()));
+        sender.sendMessage(ChatColor.GRAY + "Core Hours Donated: " + ChatColor.WHITE +
+            String.format("%.2f", stats.coreHours()));
+        if (stats.failures() > 0) {
+            sender.sendMessage(ChatColor.GRAY + "Work Unit Failures: " + ChatColor.WHITE + stats.failures() +
+                (stats.consecutiveFailures() > 0 ? ChatColor.DARK_RED + " (" + stats.consecutiveFailures() + " consecutive)" : ""));
             if (fahClient.isAutoRestartSuppressed()) {
                 sender.sendMessage(ChatColor.RED + "Auto-restart disabled due to repeated failures. Investigate FAH logs and use /fah start to resume once fixed.");
             }
         }
-        
-        long nextMilestone = ((totalPoints / 100000) + 1) * 100000;
-        double progress = (totalPoints % 100000) / 1000.0;
-        sender.sendMessage(ChatColor.GRAY + "Next Milestone: " + ChatColor.YELLOW + 
-            String.format("%,d points (%.1f%% complete)", nextMilestone, progress));
-            
-        sender.sendMessage(ChatColor.DARK_GRAY + "View online: " + 
-            ChatColor.AQUA + ChatColor.UNDERLINE + 
+
+        Milestones milestones = pointMilestones;
+        long nextMilestone = milestones.next(stats.points());
+        if (nextMilestone > 0) {
+            long previousMilestone = milestones.previous(stats.points());
+            double progress = 100.0 * (stats.points() - previousMilestone) / Math.max(1L, nextMilestone - previousMilestone);
+            sender.sendMessage(ChatColor.GRAY + "Next Milestone: " + ChatColor.YELLOW +
+                String.format("%,d points (%.1f%% complete)", nextMilestone, progress));
+        }
+
+        sender.sendMessage(ChatColor.DARK_GRAY + "View online: " +
+            ChatColor.AQUA + ChatColor.UNDERLINE +
             "https://stats.foldingathome.org/donor/" + account.username);
     }
-    
+
     public void onPlayerJoin(Player player) {
         if (!plugin.getConfig().getBoolean("statistics.show-on-join", true)) return;
-        
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+
+        Bukkit.getScheduler().runTaskLater(plugin, plugin.getOverheadProfiler().wrap(Subsystem.STATISTICS, () -> {
+            long totalPoints = snapshot.get().points();
             if (totalPoints > 0) {
-                player.sendMessage(ChatColor.GRAY + "This server has donated " + 
-                    ChatColor.GOLD + String.format("%,d", totalPoints) + 
+                player.sendMessage(ChatColor.GRAY + "This server has donated " +
+                    ChatColor.GOLD + String.format("%,d", totalPoints) +
                     ChatColor.GRAY + " points to medical research via Folding@home!");
             }
-        }, 60L);
-    }
-    
-    public void checkMilestones() {
-        if (totalPoints > 0 && totalPoints % 100000 == 0) {
-            if (plugin.getConfig().getBoolean("statistics.broadcast-milestones", true)) {
-                Bukkit.broadcastMessage(ChatColor.GOLD + "⭐ " + ChatColor.GREEN + 
-                    "Server Milestone! We've contributed " + 
-                    ChatColor.YELLOW + String.format("%,d", totalPoints) + 
-                    ChatColor.GREEN + " points to Folding@home!");
-            }
-        }
+        }), 60L);
     }
-}
\ No newline at end of file
+}
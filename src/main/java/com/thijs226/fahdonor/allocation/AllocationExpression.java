@@ -0,0 +1,249 @@
+package com.thijs226.fahdonor.allocation;
+
+import java.util.Locale;
+
+/**
+ * Small arithmetic expression language used by the {@code custom} allocation
+ * mode. Expressions are parsed once into a tree and evaluated per player count
+ * while the allocation table is compiled.
+ *
+ * <p>Supported: numbers, the variables {@code players}, {@code total} and
+ * {@code reserved}, the operators {@code + - * / %}, parentheses and the
+ * functions {@code min}, {@code max}, {@code floor}, {@code ceil} and
+ * {@code round}. Example: {@code total - reserved - ceil(players / 2)}.</p>
+ */
+public final class AllocationExpression {
+
+    @FunctionalInterface
+    private interface Node {
+        double eval(double players, double total, double reserved);
+    }
+
+    private final String source;
+    private final Node root;
+
+    private AllocationExpression(String source, Node root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Parses an expression, throwing {@link IllegalArgumentException} with the
+     * failing position when the syntax is invalid.
+     */
+    public static AllocationExpression parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("Expression is empty");
+        }
+        Parser parser = new Parser(source);
+        Node root = parser.parseExpression();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw parser.error("Unexpected '" + parser.peek() + "'");
+        }
+        return new AllocationExpression(source, root);
+    }
+
+    public double evaluate(int players, int totalCores, int reservedCores) {
+        return root.eval(players, totalCores, reservedCores);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    private static final class Parser {
+        private final String input;
+        private int pos;
+
+        Parser(String input) {
+            this.input = input;
+        }
+
+        Node parseExpression() {
+            Node left = parseTerm();
+            while (true) {
+                skipWhitespace();
+                if (consume('+')) {
+                    Node l = left;
+                    Node r = parseTerm();
+                    left = (p, t, s) -> l.eval(p, t, s) + r.eval(p, t, s);
+                } else if (consume('-')) {
+                    Node l = left;
+                    Node r = parseTerm();
+                    left = (p, t, s) -> l.eval(p, t, s) - r.eval(p, t, s);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseTerm() {
+            Node left = parseUnary();
+            while (true) {
+                skipWhitespace();
+                if (consume('*')) {
+                    Node l = left;
+                    Node r = parseUnary();
+                    left = (p, t, s) -> l.eval(p, t, s) * r.eval(p, t, s);
+                } else if (consume('/')) {
+                    Node l = left;
+                    Node r = parseUnary();
+                    left = (p, t, s) -> {
+                        double divisor = r.eval(p, t, s);
+                        return divisor == 0 ? 0 : l.eval(p, t, s) / divisor;
+                    };
+                } else if (consume('%')) {
+                    Node l = left;
+                    Node r = parseUnary();
+                    left = (p, t, s) -> {
+                        double divisor = r.eval(p, t, s);
+                        return divisor == 0 ? 0 : l.eval(p, t, s) % divisor;
+                    };
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            skipWhitespace();
+            if (consume('-')) {
+                Node operand = parseUnary();
+                return (p, t, s) -> -operand.eval(p, t, s);
+            }
+            if (consume('+')) {
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            skipWhitespace();
+            if (consume('(')) {
+                Node inner = parseExpression();
+                expect(')');
+                return inner;
+            }
+            if (atEnd()) {
+                throw error("Unexpected end of expression");
+            }
+            char c = peek();
+            if (Character.isDigit(c) || c == '.') {
+                return parseNumber();
+            }
+            if (Character.isLetter(c)) {
+                return parseIdentifier();
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node parseNumber() {
+            int start = pos;
+            while (!atEnd() && (Character.isDigit(peek()) || peek() == '.')) {
+                pos++;
+            }
+            try {
+                double value = Double.parseDouble(input.substring(start, pos));
+                return (p, t, s) -> value;
+            } catch (NumberFormatException e) {
+                throw error("Invalid number '" + input.substring(start, pos) + "'");
+            }
+        }
+
+        private Node parseIdentifier() {
+            int start = pos;
+            while (!atEnd() && (Character.isLetterOrDigit(peek()) || peek() == '_')) {
+                pos++;
+            }
+            String name = input.substring(start, pos).toLowerCase(Locale.ROOT);
+            skipWhitespace();
+            if (consume('(')) {
+                return parseFunction(name);
+            }
+            return switch (name) {
+                case "players" -> (p, t, s) -> p;
+                case "total" -> (p, t, s) -> t;
+                case "reserved" -> (p, t, s) -> s;
+                default -> throw error("Unknown variable '" + name + "'");
+            };
+        }
+
+        private Node parseFunction(String name) {
+            Node first = parseExpression();
+            skipWhitespace();
+            Node second = null;
+            if (consume(',')) {
+                second = parseExpression();
+            }
+            expect(')');
+            Node a = first;
+            Node b = second;
+            switch (name) {
+                case "floor" -> {
+                    requireArity(name, b, false);
+                    return (p, t, s) -> Math.floor(a.eval(p, t, s));
+                }
+                case "ceil" -> {
+                    requireArity(name, b, false);
+                    return (p, t, s) -> Math.ceil(a.eval(p, t, s));
+                }
+                case "round" -> {
+                    requireArity(name, b, false);
+                    return (p, t, s) -> Math.round(a.eval(p, t, s));
+                }
+                case "min" -> {
+                    requireArity(name, b, true);
+                    return (p, t, s) -> Math.min(a.eval(p, t, s), b.eval(p, t, s));
+                }
+                case "max" -> {
+                    requireArity(name, b, true);
+                    return (p, t, s) -> Math.max(a.eval(p, t, s), b.eval(p, t, s));
+                }
+                default -> throw error("Unknown function '" + name + "'");
+            }
+        }
+
+        private void requireArity(String name, Node second, boolean twoArgs) {
+            if (twoArgs && second == null) {
+                throw error(name + "() expects two arguments");
+            }
+            if (!twoArgs && second != null) {
+                throw error(name + "() expects one argument");
+            }
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(peek())) {
+                pos++;
+            }
+        }
+
+        boolean atEnd() {
+            return pos >= input.length();
+        }
+
+        char peek() {
+            return input.charAt(pos);
+        }
+
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (!atEnd() && peek() == expected) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1) + " in '" + input + "'");
+        }
+    }
+}
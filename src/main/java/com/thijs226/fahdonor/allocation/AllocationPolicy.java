@@ -0,0 +1,20 @@
+package com.thijs226.fahdonor.allocation;
+
+/**
+ * Maps the number of online players to the number of CPU cores Folding@home
+ * may use. Implementations must be cheap and thread-safe to evaluate.
+ */
+public interface AllocationPolicy {
+
+    /**
+     * Returns the FAH core allocation for the given player count. A value of
+     * 0 means FAH should be paused.
+     */
+    int coresFor(int playerCount);
+
+    /**
+     * Returns the allocation mode this policy was compiled from
+     * (dynamic, tiered, percentage or custom).
+     */
+    String getMode();
+}
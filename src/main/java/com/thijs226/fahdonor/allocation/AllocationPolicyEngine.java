@@ -0,0 +1,257 @@
+package com.thijs226.fahdonor.allocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.environment.ServerEnvironmentDetector;
+import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.EnvironmentInfo;
+
+/**
+ * Compiles the {@code allocation.*} configuration into a lookup table indexed
+ * by player count, so evaluating the policy on the monitor tick is a single
+ * array read. The table is rebuilt on {@link #compile()} (startup and reload)
+ * and swapped atomically; player counts beyond the table use its last entry.
+ */
+public class AllocationPolicyEngine implements AllocationPolicy {
+
+    private static final int MIN_TABLE_SIZE = 1;
+    private static final int MAX_TABLE_SIZE = 4096;
+
+    private final FAHResourceDonor plugin;
+    private final boolean pterodactyl;
+    private volatile CompiledTable compiled = new CompiledTable("dynamic", new int[] {0});
+
+    private record CompiledTable(String mode, int[] cores) {
+        int lookup(int playerCount) {
+            int index = Math.max(0, Math.min(playerCount, cores.length - 1));
+            return cores[index];
+        }
+    }
+
+    private record Tier(int minPlayers, int maxPlayers, int cores) {
+        boolean matches(int playerCount) {
+            return playerCount >= minPlayers && playerCount <= maxPlayers;
+        }
+    }
+
+    public AllocationPolicyEngine(FAHResourceDonor plugin) {
+        this(plugin, ServerEnvironmentDetector.detectEnvironment());
+    }
+
+    public AllocationPolicyEngine(FAHResourceDonor plugin, EnvironmentInfo environment) {
+        this.plugin = plugin;
+        this.pterodactyl = environment.getType() == ServerEnvironmentDetector.EnvironmentType.PTERODACTYL;
+        compile();
+    }
+
+    @Override
+    public int coresFor(int playerCount) {
+        return compiled.lookup(playerCount);
+    }
+
+    @Override
+    public String getMode() {
+        return compiled.mode();
+    }
+
+    /**
+     * Number of player counts covered by the compiled table.
+     */
+    public int getTableSize() {
+        return compiled.cores().length;
+    }
+
+    /**
+     * Re-reads the allocation configuration and replaces the compiled table.
+     * Invalid tiered or custom settings fall back to dynamic mode with a warning.
+     */
+    public final void compile() {
+        FileConfiguration config = plugin.getConfig();
+        int totalCores = config.getInt("server.total-cores", 8);
+        int reservedCores = config.getInt("server.reserved-cores", 1);
+        String modeRaw = config.getString("allocation.mode");
+        String mode = (modeRaw == null ? "dynamic" : modeRaw).toLowerCase(Locale.ROOT);
+        int tableSize = resolveTableSize(config);
+
+        int[] table = switch (mode) {
+            case "tiered" -> compileTiered(config, tableSize);
+            case "percentage" -> compilePercentage(config, tableSize, totalCores, reservedCores);
+            case "custom" -> compileCustom(config, tableSize, totalCores, reservedCores);
+            case "dynamic" -> null;
+            default -> {
+                plugin.getLogger().warning(() -> String.format("Unknown allocation mode '%s', using dynamic", mode));
+                yield null;
+            }
+        };
+        String effectiveMode = mode;
+        if (table == null) {
+            table = compileDynamic(config, tableSize, totalCores, reservedCores);
+            effectiveMode = "dynamic";
+        }
+
+        for (int i = 0; i < table.length; i++) {
+            table[i] = clamp(table[i], totalCores);
+        }
+
+        compiled = new CompiledTable(effectiveMode, table);
+        final String logMode = effectiveMode;
+        final int size = table.length;
+        plugin.getLogger().info(() -> String.format("Compiled %s allocation policy for 0-%d players", logMode, size - 1));
+    }
+
+    private int resolveTableSize(FileConfiguration config) {
+        int maxPlayers = config.getInt("allocation.max-players", 0);
+        if (maxPlayers <= 0) {
+            try {
+                maxPlayers = Bukkit.getMaxPlayers();
+            } catch (RuntimeException e) {
+                maxPlayers = 100;
+            }
+        }
+        return Math.max(MIN_TABLE_SIZE, Math.min(MAX_TABLE_SIZE, maxPlayers + 1));
+    }
+
+    /**
+     * Same guard rails as before the table existed: keep one core for
+     * Minecraft and never run FAH on a single core (pause instead).
+     */
+    private static int clamp(int fahCores, int totalCores) {
+        int cores = Math.min(fahCores, totalCores - 1);
+        if (cores == 1) {
+            return 0;
+        }
+        return Math.max(0, cores);
+    }
+
+    private int[] compileDynamic(FileConfiguration config, int tableSize, int totalCores, int reservedCores) {
+        double coresPerPlayer = config.getDouble("allocation.dynamic.cores-per-player", 0.5);
+        // Pterodactyl containers share the host's cores, so each player costs less headroom
+        if (pterodactyl) {
+            coresPerPlayer = config.getDouble("allocation.dynamic.cores-per-player-pterodactyl", 0.25);
+        }
+        int minCoresForMC = config.getInt("allocation.dynamic.min-cores-for-minecraft", 1);
+        int maxCoresForFAH = config.getInt("allocation.dynamic.max-cores-for-fah", 7);
+
+        int[] table = new int[tableSize];
+        for (int players = 0; players < tableSize; players++) {
+            double neededForMC = Math.max(reservedCores + (players * coresPerPlayer), minCoresForMC);
+            int availableForFAH = (int) Math.floor(totalCores - neededForMC);
+            table[players] = Math.min(Math.max(0, availableForFAH), maxCoresForFAH);
+        }
+        return table;
+    }
+
+    private int[] compileTiered(FileConfiguration config, int tableSize) {
+        List<Tier> tiers = parseTiers(config);
+        if (tiers.isEmpty()) {
+            plugin.getLogger().warning("Tiered allocation selected but no valid tiers configured, using dynamic");
+            return null;
+        }
+
+        int[] table = new int[tableSize];
+        for (int players = 0; players < tableSize; players++) {
+            // First matching tier wins; counts no tier covers keep the nearest lower tier
+            Tier match = null;
+            for (Tier tier : tiers) {
+                if (tier.matches(players)) {
+                    match = tier;
+                    break;
+                }
+            }
+            if (match != null) {
+                table[players] = match.cores();
+            } else {
+                table[players] = players == 0 ? tiers.get(0).cores() : table[players - 1];
+            }
+        }
+        return table;
+    }
+
+    private List<Tier> parseTiers(FileConfiguration config) {
+        List<Tier> tiers = new ArrayList<>();
+        if (config.isList("allocation.tiered")) {
+            for (Map<?, ?> entry : config.getMapList("allocation.tiered")) {
+                Object range = entry.get("players");
+                Object cores = entry.get("fah-cores");
+                addTier(tiers, range, cores);
+            }
+        } else {
+            ConfigurationSection section = config.getConfigurationSection("allocation.tiered");
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    ConfigurationSection tier = section.getConfigurationSection(key);
+                    if (tier != null) {
+                        addTier(tiers, tier.get("players"), tier.get("fah-cores"));
+                    }
+                }
+            }
+        }
+        return tiers;
+    }
+
+    private void addTier(List<Tier> tiers, Object range, Object cores) {
+        if (range == null || cores == null) {
+            return;
+        }
+        String spec = String.valueOf(range).trim();
+        try {
+            int fahCores = Integer.parseInt(String.valueOf(cores).trim());
+            int min;
+            int max;
+            if (spec.endsWith("+")) {
+                min = Integer.parseInt(spec.substring(0, spec.length() - 1).trim());
+                max = Integer.MAX_VALUE;
+            } else if (spec.contains("-")) {
+                String[] parts = spec.split("-", 2);
+                min = Integer.parseInt(parts[0].trim());
+                max = Integer.parseInt(parts[1].trim());
+            } else {
+                min = Integer.parseInt(spec);
+                max = min;
+            }
+            tiers.add(new Tier(min, max, fahCores));
+        } catch (NumberFormatException e) {
+            plugin.getLogger().warning(() -> String.format("Ignoring invalid allocation tier '%s' -> '%s'", spec, cores));
+        }
+    }
+
+    private int[] compilePercentage(FileConfiguration config, int tableSize, int totalCores, int reservedCores) {
+        double basePercent = config.getDouble("allocation.percentage.base-percent", 90.0);
+        double reductionPerPlayer = config.getDouble("allocation.percentage.reduction-per-player", 5.0);
+        double minPercent = config.getDouble("allocation.percentage.min-percent", 0.0);
+        int available = Math.max(0, totalCores - reservedCores);
+
+        int[] table = new int[tableSize];
+        for (int players = 0; players < tableSize; players++) {
+            double percent = Math.max(minPercent, basePercent - players * reductionPerPlayer);
+            percent = Math.min(100.0, Math.max(0.0, percent));
+            table[players] = (int) Math.floor(available * percent / 100.0);
+        }
+        return table;
+    }
+
+    private int[] compileCustom(FileConfiguration config, int tableSize, int totalCores, int reservedCores) {
+        String source = config.getString("allocation.custom.expression", "");
+        AllocationExpression expression;
+        try {
+            expression = AllocationExpression.parse(source);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning(() -> "Invalid custom allocation expression: " + e.getMessage() + " - using dynamic");
+            return null;
+        }
+
+        int[] table = new int[tableSize];
+        for (int players = 0; players < tableSize; players++) {
+            double value = expression.evaluate(players, totalCores, reservedCores);
+            table[players] = Double.isFinite(value) ? (int) Math.floor(value) : 0;
+        }
+        return table;
+    }
+}
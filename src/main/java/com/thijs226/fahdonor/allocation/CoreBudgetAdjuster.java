@@ -0,0 +1,20 @@
+package com.thijs226.fahdonor.allocation;
+
+/**
+ * A runtime signal that can lower the core budget produced by the
+ * {@link AllocationPolicy}. Adjusters are applied in registration order by
+ * {@code PlayerMonitor}, which remains the only place that actuates FAH.
+ */
+public interface CoreBudgetAdjuster {
+
+    /**
+     * Returns the adjusted core budget. Implementations are called on the main
+     * thread and must only read state that was sampled elsewhere.
+     */
+    int adjust(int cores, int playerCount);
+
+    /**
+     * Short name used when logging why the budget was changed.
+     */
+    String getName();
+}
@@ -0,0 +1,435 @@
+package com.thijs226.fahdonor.allocation;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClient.CompletedWorkUnit;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.PlayerMonitor;
+import com.thijs226.fahdonor.scheduling.ScheduleManager;
+import com.thijs226.fahdonor.storage.AutosavedDataFile;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+
+/**
+ * Learns how FAH throughput scales with cores on this host. Every cleanly
+ * credited work unit (no resize while it ran) adds a points-per-hour sample
+ * for its project and core count. Projects differ wildly in credit, so each
+ * project is compared against itself at a reference core count and the
+ * ratios are averaged into one throughput curve. The knee is the last core
+ * count whose extra cores still pay off; it can be recommended or applied as
+ * a cap. Missing points on the curve are filled by off-peak experiments that
+ * hold FAH at a candidate core count for a few work units. The per-project
+ * samples survive restarts in {@code throughput-samples.yml}.
+ */
+public class ThroughputTuner implements CoreBudgetAdjuster, FAHClient.WorkUnitListener {
+
+    private static final Pattern PROJECT_NUMBER = Pattern.compile("(\\d+)");
+
+    /**
+     * Config values read when a work unit completes, which happens on the FAH
+     * client's log thread; replaced as a whole on reload.
+     */
+    private record Settings(long minDurationSeconds, long samplesPerCoreCount, double minMarginalGain,
+                            boolean apply) {
+
+        static Settings fromConfig(FileConfiguration config) {
+            return new Settings(
+                Math.max(1, config.getLong("auto-tuning.min-work-unit-minutes", 10)) * 60L,
+                Math.max(1, config.getLong("auto-tuning.samples-per-core-count", 3)),
+                config.getDouble("auto-tuning.min-marginal-gain", 0.5),
+                config.getBoolean("auto-tuning.apply", false));
+        }
+    }
+
+    /** Running mean of points per hour for one project at one core count. */
+    private static final class Stat {
+        long count;
+        double meanPointsPerHour;
+
+        void add(double pointsPerHour) {
+            count++;
+            meanPointsPerHour += (pointsPerHour - meanPointsPerHour) / count;
+        }
+    }
+
+    /** Relative throughput at a core count (reference = 1.0) and how many samples back it. */
+    public record CurvePoint(int cores, double relativeThroughput, long samples) {}
+
+    private final FAHResourceDonor plugin;
+    private final Map<String, Map<Integer, Stat>> samples = new ConcurrentHashMap<>();
+    private final AutosavedDataFile samplesFile;
+    private volatile Settings settings;
+    private BukkitTask evaluationTask;
+
+    private volatile int experimentCores = 0;
+    private volatile int experimentUnits = 0;
+    private volatile long experimentStartedMillis = 0L;
+    private volatile int recommendedCores = 0;
+    private volatile List<CurvePoint> curve = List.of();
+
+    public ThroughputTuner(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        this.samplesFile = new AutosavedDataFile(plugin, "throughput-samples.yml", "throughput samples",
+            this::writeSamples);
+        reload();
+        loadSamples();
+        recompute();
+    }
+
+    /**
+     * Re-reads the sampling and knee settings. Main thread.
+     */
+    public final void reload() {
+        settings = Settings.fromConfig(plugin.getConfig());
+    }
+
+    public void start() {
+        stop();
+        reload();
+        evaluationTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.TUNING, this::evaluate), 20L * 60L, 20L * 60L);
+    }
+
+    public void stop() {
+        if (evaluationTask != null) {
+            evaluationTask.cancel();
+            evaluationTask = null;
+        }
+        // No re-check here: stop() also runs while the plugin is disabling
+        experimentCores = 0;
+    }
+
+    @Override
+    public void onWorkUnitCompleted(CompletedWorkUnit unit) {
+        if (unit.minCores() != unit.maxCores()) {
+            // Resized mid-unit; the duration says nothing about either core count
+            return;
+        }
+        if (unit.durationSeconds() < settings.minDurationSeconds() || unit.credit() <= 0) {
+            return;
+        }
+        String project = projectNumber(unit.projectSummary());
+        if (project.isEmpty()) {
+            return;
+        }
+        double pointsPerHour = unit.credit() * 3600.0 / unit.durationSeconds();
+        synchronized (this) {
+            samples.computeIfAbsent(project, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(unit.minCores(), key -> new Stat())
+                .add(pointsPerHour);
+            if (experimentCores > 0 && unit.minCores() == experimentCores) {
+                experimentUnits++;
+            }
+        }
+        samplesFile.markDirty();
+        recompute();
+    }
+
+    /**
+     * Main-thread step: suspends experiments outside off-peak hours, finishes
+     * them once enough units are in, and starts the next one when needed.
+     */
+    private void evaluate() {
+        FileConfiguration config = plugin.getConfig();
+        if (!config.getBoolean("auto-tuning.enabled", false)) {
+            if (experimentCores > 0) {
+                endExperiment("auto-tuning disabled");
+            }
+            return;
+        }
+        boolean offPeak = isOffPeak(config);
+        if (experimentCores > 0) {
+            int unitsPerStep = Math.max(1, config.getInt("auto-tuning.work-units-per-experiment", 2));
+            long maxMillis = Math.max(1, config.getLong("auto-tuning.max-experiment-hours", 12)) * 3_600_000L;
+            if (!offPeak) {
+                endExperiment("off-peak window ended");
+            } else if (experimentUnits >= unitsPerStep) {
+                endExperiment("collected " + experimentUnits + " work units");
+            } else if (System.currentTimeMillis() - experimentStartedMillis > maxMillis) {
+                endExperiment("timed out");
+            }
+            return;
+        }
+        if (offPeak && config.getBoolean("auto-tuning.explore", true)) {
+            int candidate = nextCandidate(config);
+            if (candidate > 0) {
+                startExperiment(candidate);
+            }
+        }
+    }
+
+    private boolean isOffPeak(FileConfiguration config) {
+        if (Bukkit.getOnlinePlayers().size() > config.getInt("auto-tuning.off-peak.max-players", 0)) {
+            return false;
+        }
+        try {
+            LocalTime start = LocalTime.parse(config.getString("auto-tuning.off-peak.start", "02:00"));
+            LocalTime end = LocalTime.parse(config.getString("auto-tuning.off-peak.end", "07:00"));
+            ScheduleManager scheduleManager = plugin.getScheduleManager();
+            ZoneId zone = scheduleManager != null ? scheduleManager.getZone() : ZoneId.systemDefault();
+            LocalTime now = ZonedDateTime.now(zone).toLocalTime();
+            return start.isBefore(end)
+                ? !now.isBefore(start) && now.isBefore(end)
+                : !now.isBefore(start) || now.isBefore(end);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Candidate with the fewest clean samples that is still short of the target.
+     */
+    private int nextCandidate(FileConfiguration config) {
+        long target = settings.samplesPerCoreCount();
+        Map<Integer, Long> counts = sampleCounts();
+        int best = 0;
+        long bestCount = Long.MAX_VALUE;
+        for (int cores : candidates(config)) {
+            long count = counts.getOrDefault(cores, 0L);
+            if (count < target && count < bestCount) {
+                best = cores;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private List<Integer> candidates(FileConfiguration config) {
+        List<Integer> configured = config.getIntegerList("auto-tuning.candidates");
+        TreeSet<Integer> result = new TreeSet<>();
+        if (!configured.isEmpty()) {
+            for (int cores : configured) {
+                if (cores >= 2) {
+                    result.add(cores);
+                }
+            }
+            return new ArrayList<>(result);
+        }
+        int max = maxFahCores();
+        int steps = Math.max(1, config.getInt("auto-tuning.steps", 4));
+        for (int i = 1; i <= steps; i++) {
+            int cores = (int) Math.round((double) max * i / steps);
+            if (cores >= 2) {
+                result.add(cores);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /** Cores the allocation policy grants on an empty server. */
+    private int maxFahCores() {
+        if (plugin.getPlatformManager() != null) {
+            return plugin.getPlatformManager().getAllocationPolicy().coresFor(0);
+        }
+        return plugin.getConfig().getInt("server.max-cores-for-fah", 0);
+    }
+
+    private void startExperiment(int cores) {
+        experimentCores = cores;
+        experimentUnits = 0;
+        experimentStartedMillis = System.currentTimeMillis();
+        plugin.getLogger().info(() -> String.format("Throughput tuner: testing FAH at %d cores", cores));
+        requestCheck();
+    }
+
+    private void endExperiment(String reason) {
+        int cores = experimentCores;
+        experimentCores = 0;
+        plugin.getLogger().info(() -> String.format("Throughput tuner: finished %d-core test (%s)", cores, reason));
+        requestCheck();
+    }
+
+    private void requestCheck() {
+        PlayerMonitor monitor = plugin.getPlayerMonitor();
+        if (monitor != null) {
+            monitor.requestCheck();
+        }
+    }
+
+    /**
+     * Rebuilds the normalised curve and its knee from the collected samples.
+     */
+    private synchronized void recompute() {
+        Map<Integer, Long> counts = sampleCounts();
+        if (counts.isEmpty()) {
+            curve = List.of();
+            recommendedCores = 0;
+            return;
+        }
+        int reference = counts.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(0);
+
+        // Weighted mean of per-project ratios against the reference core count
+        Map<Integer, double[]> ratios = new TreeMap<>();
+        for (Map<Integer, Stat> byCores : samples.values()) {
+            Stat base = byCores.get(reference);
+            if (base == null || base.meanPointsPerHour <= 0) {
+                continue;
+            }
+            for (Map.Entry<Integer, Stat> entry : byCores.entrySet()) {
+                Stat stat = entry.getValue();
+                double weight = Math.min(stat.count, base.count);
+                double[] acc = ratios.computeIfAbsent(entry.getKey(), key -> new double[3]);
+                acc[0] += weight * stat.meanPointsPerHour / base.meanPointsPerHour;
+                acc[1] += weight;
+                acc[2] += stat.count;
+            }
+        }
+
+        List<CurvePoint> points = new ArrayList<>();
+        for (Map.Entry<Integer, double[]> entry : ratios.entrySet()) {
+            double[] acc = entry.getValue();
+            if (acc[1] > 0) {
+                points.add(new CurvePoint(entry.getKey(), acc[0] / acc[1], (long) acc[2]));
+            }
+        }
+        curve = Collections.unmodifiableList(points);
+
+        int previousRecommendation = recommendedCores;
+        recommendedCores = findKnee(points);
+        if (recommendedCores != previousRecommendation && recommendedCores > 0) {
+            int knee = recommendedCores;
+            plugin.getLogger().info(() -> String.format(
+                "Throughput tuner: extra cores stop paying off above %d (recommended FAH cap)", knee));
+        }
+    }
+
+    /**
+     * Walks the curve upwards and stops at the first step whose marginal gain per
+     * added core falls below {@code min-marginal-gain} of the per-core throughput
+     * at the smallest measured count.
+     */
+    private int findKnee(List<CurvePoint> points) {
+        Settings current = settings;
+        long minSamples = current.samplesPerCoreCount();
+        double minMarginal = current.minMarginalGain();
+        List<CurvePoint> usable = new ArrayList<>();
+        for (CurvePoint point : points) {
+            if (point.samples() >= minSamples) {
+                usable.add(point);
+            }
+        }
+        if (usable.size() < 2) {
+            return 0;
+        }
+        CurvePoint first = usable.get(0);
+        double perCoreBaseline = first.relativeThroughput() / first.cores();
+        CurvePoint knee = first;
+        for (int i = 1; i < usable.size(); i++) {
+            CurvePoint next = usable.get(i);
+            double marginal = (next.relativeThroughput() - knee.relativeThroughput()) / (next.cores() - knee.cores());
+            if (marginal < minMarginal * perCoreBaseline) {
+                break;
+            }
+            knee = next;
+        }
+        return knee.cores();
+    }
+
+    private synchronized Map<Integer, Long> sampleCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        for (Map<Integer, Stat> byCores : samples.values()) {
+            for (Map.Entry<Integer, Stat> entry : byCores.entrySet()) {
+                counts.merge(entry.getKey(), entry.getValue().count, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        int experiment = experimentCores;
+        if (experiment > 0) {
+            return Math.min(cores, experiment);
+        }
+        int knee = recommendedCores;
+        if (knee > 0 && settings.apply()) {
+            return Math.min(cores, knee);
+        }
+        return cores;
+    }
+
+    @Override
+    public String getName() {
+        return experimentCores > 0 ? "throughput experiment" : "throughput tuner";
+    }
+
+    public int getRecommendedCores() {
+        return recommendedCores;
+    }
+
+    public int getExperimentCores() {
+        return experimentCores;
+    }
+
+    public List<CurvePoint> getCurve() {
+        return curve;
+    }
+
+    public AutosavedDataFile getSamplesFile() {
+        return samplesFile;
+    }
+
+    private static String projectNumber(String summary) {
+        if (summary == null) {
+            return "";
+        }
+        Matcher matcher = PROJECT_NUMBER.matcher(summary);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private void loadSamples() {
+        ConfigurationSection section = samplesFile.load();
+        for (String project : section.getKeys(false)) {
+            ConfigurationSection byCores = section.getConfigurationSection(project);
+            if (byCores == null) {
+                continue;
+            }
+            for (String coresKey : byCores.getKeys(false)) {
+                try {
+                    Stat stat = new Stat();
+                    stat.count = byCores.getLong(coresKey + ".count", 0);
+                    stat.meanPointsPerHour = byCores.getDouble(coresKey + ".points-per-hour", 0);
+                    if (stat.count > 0) {
+                        samples.computeIfAbsent(project, key -> new ConcurrentHashMap<>())
+                            .put(Integer.parseInt(coresKey), stat);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Skip hand-edited keys that are not core counts
+                }
+            }
+        }
+    }
+
+    private void writeSamples(YamlConfiguration data) {
+        synchronized (this) {
+            for (Map.Entry<String, Map<Integer, Stat>> project : samples.entrySet()) {
+                for (Map.Entry<Integer, Stat> entry : project.getValue().entrySet()) {
+                    String path = project.getKey() + "." + entry.getKey();
+                    data.set(path + ".count", entry.getValue().count);
+                    data.set(path + ".points-per-hour", entry.getValue().meanPointsPerHour);
+                }
+            }
+        }
+    }
+}
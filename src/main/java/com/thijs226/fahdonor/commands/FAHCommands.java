@@ -3,6 +3,10 @@ package com.thijs226.fahdonor.commands;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -17,13 +21,37 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
+import com.thijs226.fahdonor.BurstThrottle;
+import com.thijs226.fahdonor.BurstThrottle.BurstType;
 import com.thijs226.fahdonor.FAHClientManager;
 import com.thijs226.fahdonor.FAHClientManager.FoldingCause;
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.allocation.ThroughputTuner;
+import com.thijs226.fahdonor.allocation.ThroughputTuner.CurvePoint;
+import com.thijs226.fahdonor.environment.HostPressureMonitor;
+import com.thijs226.fahdonor.environment.HostPressureSampler.HostPressure;
+import com.thijs226.fahdonor.environment.MemoryGuard;
+import com.thijs226.fahdonor.environment.MemoryGuard.MemorySample;
 import com.thijs226.fahdonor.environment.PlatformResourceManager;
 import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.EnvironmentInfo;
 import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.EnvironmentType;
 import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.ResourceLimits;
+import com.thijs226.fahdonor.health.HealthIssueJournal;
+import com.thijs226.fahdonor.health.HealthMonitor;
+import com.thijs226.fahdonor.health.HealthMonitor.HealthIssueType;
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager;
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager.LeaderboardType;
+import com.thijs226.fahdonor.leaderboard.WindowedLeaderboards;
+import com.thijs226.fahdonor.leaderboard.WindowedLeaderboards.Window;
+import com.thijs226.fahdonor.metrics.ActuationTracer;
+import com.thijs226.fahdonor.metrics.MetricsHistory;
+import com.thijs226.fahdonor.metrics.TimeSeriesStore.Point;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.profiling.PluginProfiler;
+import com.thijs226.fahdonor.scheduling.ScheduleManager;
+import com.thijs226.fahdonor.scheduling.ScheduleTimeline.Transition;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
 
 public class FAHCommands implements CommandExecutor, TabCompleter {
     private final FAHResourceDonor plugin;
@@ -55,6 +83,8 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
             case "debug" -> handleDebug(sender, args);
             case "install" -> handleInstall(sender);
             case "stats" -> handleStats(sender);
+            case "top" -> handleTop(sender, args);
+            case "winners" -> handleWinners(sender, args);
             case "cause" -> handleCause(sender, args);
             case "vote" -> handleVote(sender, args);
             case "diseases" -> handleDiseases(sender);
@@ -68,6 +98,11 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
             case "platform" -> handlePlatform(sender);
             case "verify" -> handleVerify(sender);
             case "optimize" -> handleOptimize(sender);
+            case "schedule" -> handleSchedule(sender, args);
+            case "graph" -> handleGraph(sender, args);
+            case "profile" -> handleProfile(sender, args);
+            case "health" -> handleHealth(sender, args);
+            case "overhead" -> handleOverhead(sender, args);
             default -> {
                 sendHelp(sender);
                 yield true;
@@ -591,6 +626,84 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private boolean handleTop(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.stats")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to view leaderboards!");
+            return true;
+        }
+        LeaderboardManager leaderboard = plugin.getLeaderboardManager();
+        if (leaderboard == null || !plugin.getConfig().getBoolean("leaderboard.enabled", true)) {
+            sender.sendMessage(ChatColor.RED + "Leaderboards are disabled.");
+            return true;
+        }
+        // Optional window first: /fah top [daily|weekly|monthly] [type] [page]
+        int next = 1;
+        Window window = args.length >= 2 ? Window.fromString(args[1]) : null;
+        WindowedLeaderboards windows = leaderboard.getWindows();
+        if (window != null) {
+            if (windows == null) {
+                sender.sendMessage(ChatColor.RED + "Daily, weekly and monthly leaderboards are disabled.");
+                return true;
+            }
+            next++;
+        }
+        LeaderboardType type = args.length > next ? LeaderboardType.fromString(args[next]) : LeaderboardType.POINTS;
+        int page = 0;
+        if (args.length > next + 1) {
+            try {
+                page = Math.max(0, Integer.parseInt(args[next + 1]) - 1);
+            } catch (NumberFormatException e) {
+                sender.sendMessage(ChatColor.RED + "Page must be a number.");
+                return true;
+            }
+        }
+        int pageSize = Math.max(1, plugin.getConfig().getInt("leaderboard.page-size", 10));
+        int entries = window != null ? windows.getEntryCount(window, type) : leaderboard.getEntryCount(type);
+        int pages = Math.max(1, (int) ((entries + (long) pageSize - 1) / pageSize));
+        page = Math.min(page, pages - 1);
+        if (window != null) {
+            sender.sendMessage(windows.formatPage(window, type, pageSize, page));
+        } else {
+            sender.sendMessage(leaderboard.formatPage(type, pageSize, page));
+        }
+        
+        if (entries > pageSize) {
+            sender.sendMessage(ChatColor.GRAY + "Page " + (page + 1) + "/" + pages
+                + " - /fah top " + (window != null ? window.name().toLowerCase() + " " : "")
+                + type.name().toLowerCase().replace("_", "") + " <page>");
+        }
+        if (sender instanceof Player player) {
+            int rank = window != null
+                ? windows.getPlayerRank(player.getUniqueId(), window, type)
+                : leaderboard.getPlayerRank(player.getUniqueId(), type);
+            if (rank > 0) {
+                sender.sendMessage(ChatColor.GRAY + "Your rank: " + ChatColor.YELLOW + "#" + rank
+                    + ChatColor.GRAY + " of " + entries);
+            }
+        }
+        return true;
+    }
+    
+    private boolean handleWinners(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.stats")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission to view leaderboards!");
+            return true;
+        }
+        LeaderboardManager leaderboard = plugin.getLeaderboardManager();
+        WindowedLeaderboards windows = leaderboard != null ? leaderboard.getWindows() : null;
+        if (windows == null || !plugin.getConfig().getBoolean("leaderboard.enabled", true)) {
+            sender.sendMessage(ChatColor.RED + "Daily, weekly and monthly leaderboards are disabled.");
+            return true;
+        }
+        Window window = args.length >= 2 ? Window.fromString(args[1]) : Window.WEEKLY;
+        if (window == null) {
+            sender.sendMessage(ChatColor.RED + "Usage: /fah winners <daily|weekly|monthly>");
+            return true;
+        }
+        sender.sendMessage(windows.formatArchive(window, 5));
+        return true;
+    }
+    
     private boolean handleDebug(CommandSender sender, String[] args) {
         if (!sender.hasPermission("fahdonor.admin")) {
             sender.sendMessage(ChatColor.RED + "You don't have permission!");
@@ -605,6 +718,8 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
             sender.sendMessage(ChatColor.YELLOW + "/fah debug logs" + ChatColor.GRAY + " - Show FAH logs");
             sender.sendMessage(ChatColor.YELLOW + "/fah debug unpause" + ChatColor.GRAY + " - Force unpause");
             sender.sendMessage(ChatColor.YELLOW + "/fah debug info" + ChatColor.GRAY + " - Show all debug info");
+            sender.sendMessage(ChatColor.YELLOW + "/fah debug actuation" + ChatColor.GRAY + " - Trace core changes end to end");
+            sender.sendMessage(ChatColor.YELLOW + "/fah debug storage" + ChatColor.GRAY + " - Show autosave and storage status");
             return true;
         }
         
@@ -721,12 +836,92 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
                 sender.sendMessage(ChatColor.GRAY + "Current cores: " + ChatColor.WHITE + fahManager.getCurrentCores());
             }
 
+            case "actuation" -> showActuationTrace(sender, fahManager.getActuationTracer());
+
+            case "storage" -> showStorageStatus(sender);
+
             default -> sender.sendMessage(ChatColor.RED + "Unknown debug command. Use /fah debug for help.");
         }
         
         return true;
     }
     
+    private void showStorageStatus(CommandSender sender) {
+        sender.sendMessage(ChatColor.GOLD + "=== Storage ===");
+        ContributionStore store = plugin.getContributionStore();
+        sender.sendMessage(ChatColor.GRAY + "Backend: " + ChatColor.WHITE + (store != null ? store.getDescription() : "not open"));
+        PersistenceScheduler persistence = plugin.getPersistenceScheduler();
+        if (persistence == null) {
+            return;
+        }
+        PersistenceScheduler.FlushStats stats = persistence.getStats();
+        sender.sendMessage(ChatColor.GRAY + "Autosaves: " + ChatColor.WHITE + stats.flushes()
+                + ChatColor.GRAY + " (" + stats.records() + " records, "
+                + (stats.failures() > 0 ? ChatColor.RED : ChatColor.GRAY) + stats.failures() + " failed"
+                + ChatColor.GRAY + ")");
+        sender.sendMessage(ChatColor.GRAY + "Flush latency: " + ChatColor.WHITE
+                + String.format("last %.1f ms, avg %.1f ms, max %.1f ms",
+                        stats.lastMicros() / 1000.0, stats.averageMillis(), stats.maxMicros() / 1000.0));
+        sender.sendMessage(ChatColor.GRAY + "Pending changes: " + ChatColor.WHITE + stats.pendingChanges());
+    }
+
+    private void showActuationTrace(CommandSender sender, ActuationTracer tracer) {
+        sender.sendMessage(ChatColor.GOLD + "=== Core Actuation Trace ===");
+        sender.sendMessage(ChatColor.GRAY + "Decisions: " + ChatColor.WHITE + tracer.getDecisionCount()
+                + ChatColor.GRAY + " | confirmed " + ChatColor.GREEN + tracer.getOutcomeCount(ActuationTracer.Outcome.CONFIRMED)
+                + ChatColor.GRAY + " | pending " + ChatColor.WHITE + tracer.getOutcomeCount(ActuationTracer.Outcome.PENDING));
+        sender.sendMessage(ChatColor.GRAY + "Lost: superseded " + ChatColor.YELLOW + tracer.getOutcomeCount(ActuationTracer.Outcome.SUPERSEDED)
+                + ChatColor.GRAY + ", deferred " + ChatColor.YELLOW + tracer.getOutcomeCount(ActuationTracer.Outcome.DEFERRED)
+                + ChatColor.GRAY + ", failed " + ChatColor.RED + tracer.getOutcomeCount(ActuationTracer.Outcome.FAILED)
+                + ChatColor.GRAY + ", unconfirmed " + ChatColor.RED + tracer.getOutcomeCount(ActuationTracer.Outcome.UNCONFIRMED));
+
+        sender.sendMessage(ChatColor.AQUA + "Latency (ms):");
+        for (ActuationTracer.Stage stage : ActuationTracer.Stage.values()) {
+            ActuationTracer.Histogram histogram = tracer.getHistogram(stage);
+            if (histogram.total() == 0) {
+                sender.sendMessage(ChatColor.GRAY + "  " + stage.description + ": " + ChatColor.DARK_GRAY + "no samples");
+                continue;
+            }
+            sender.sendMessage(ChatColor.GRAY + "  " + stage.description + ": " + ChatColor.WHITE
+                    + String.format("n=%d avg=%.0f p50<=%s p95<=%s max=%d", histogram.total(), histogram.averageMillis(),
+                            formatBucketBound(histogram.percentileBoundMillis(0.50)),
+                            formatBucketBound(histogram.percentileBoundMillis(0.95)),
+                            histogram.maxMillis()));
+        }
+
+        List<ActuationTracer.Trace> traces = tracer.getRecentTraces();
+        if (traces.isEmpty()) {
+            return;
+        }
+        sender.sendMessage(ChatColor.AQUA + "Recent decisions:");
+        for (ActuationTracer.Trace trace : traces) {
+            StringBuilder line = new StringBuilder()
+                    .append(ChatColor.GRAY).append("  #").append(trace.id()).append(' ')
+                    .append(ChatColor.WHITE).append(trace.previousCores()).append(" -> ").append(trace.cores())
+                    .append(ChatColor.GRAY).append(" [").append(trace.outcome().name().toLowerCase()).append(']');
+            appendStage(line, "sent", trace.millisBetween(trace.enqueuedNanos(), trace.sentNanos()));
+            appendStage(line, "ack", trace.millisBetween(trace.sentNanos(), trace.acknowledgedNanos()));
+            appendStage(line, "log", trace.millisBetween(trace.enqueuedNanos(), trace.confirmedNanos()));
+            if (!trace.controlPath().isEmpty()) {
+                line.append(" via ").append(trace.controlPath());
+            }
+            if (trace.note() != null && !trace.note().isEmpty()) {
+                line.append(ChatColor.DARK_GRAY).append(" (").append(trace.note()).append(')');
+            }
+            sender.sendMessage(line.toString());
+        }
+    }
+
+    private static void appendStage(StringBuilder line, String label, long millis) {
+        if (millis >= 0) {
+            line.append(' ').append(label).append('+').append(millis).append("ms");
+        }
+    }
+
+    private static String formatBucketBound(long boundMillis) {
+        return boundMillis < 0 ? "60000+" : Long.toString(boundMillis);
+    }
+
     private boolean handlePause(CommandSender sender) {
         if (!sender.hasPermission("fahdonor.pause")) {
             sender.sendMessage(ChatColor.RED + "You don't have permission!");
@@ -802,6 +997,281 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private boolean handleSchedule(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            return true;
+        }
+        
+        ScheduleManager scheduleManager = plugin.getScheduleManager();
+        if (scheduleManager == null) {
+            sender.sendMessage(ChatColor.RED + "Schedule manager not initialized!");
+            return true;
+        }
+        
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        switch (action) {
+            case "status" -> {
+                sender.sendMessage(ChatColor.GOLD + "=== FAH Schedule ===");
+                for (String line : scheduleManager.getScheduleStatus().split("\n")) {
+                    sender.sendMessage(ChatColor.YELLOW + line);
+                }
+            }
+            case "preview" -> {
+                int count = 10;
+                if (args.length > 2) {
+                    try {
+                        count = Math.max(1, Math.min(50, Integer.parseInt(args[2])));
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage(ChatColor.RED + "Invalid number: " + args[2]);
+                        return true;
+                    }
+                }
+                List<Transition> transitions = scheduleManager.previewTransitions(count);
+                sender.sendMessage(ChatColor.GOLD + "=== Next Schedule Transitions (" + scheduleManager.getZone().getId() + ") ===");
+                if (!scheduleManager.isEnabled()) {
+                    sender.sendMessage(ChatColor.GRAY + "Scheduling is disabled; these apply once enabled.");
+                }
+                if (transitions.isEmpty()) {
+                    sender.sendMessage(ChatColor.GRAY + "The schedule never changes.");
+                }
+                for (Transition transition : transitions) {
+                    sender.sendMessage(ChatColor.YELLOW + ScheduleManager.formatTransition(transition));
+                }
+            }
+            case "enable", "disable" -> {
+                boolean enable = action.equals("enable");
+                scheduleManager.setEnabled(enable);
+                sender.sendMessage(ChatColor.GREEN + "Scheduling " + (enable ? "enabled" : "disabled") + ".");
+            }
+            default -> sender.sendMessage(ChatColor.YELLOW + "Usage: /fah schedule <status|preview [count]|enable|disable>");
+        }
+        return true;
+    }
+    
+    private boolean handleGraph(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            return true;
+        }
+        
+        MetricsHistory history = plugin.getMetricsHistory();
+        if (history == null || !plugin.getConfig().getBoolean("metrics-history.enabled", true)) {
+            sender.sendMessage(ChatColor.RED + "Metrics history is disabled.");
+            return true;
+        }
+        
+        if (args.length < 2 || !history.getSeriesNames().contains(args[1].toLowerCase())) {
+            sender.sendMessage(ChatColor.YELLOW + "Usage: /fah graph <metric> [range, e.g. 30m, 6h, 7d]");
+            sender.sendMessage(ChatColor.GRAY + "Metrics: " + String.join(", ", history.getSeriesNames()));
+            return true;
+        }
+        
+        String metric = args[1].toLowerCase();
+        String rangeText = args.length > 2 ? args[2].toLowerCase() : "1h";
+        long rangeSeconds = parseRange(rangeText);
+        if (rangeSeconds <= 0) {
+            sender.sendMessage(ChatColor.RED + "Invalid range: " + rangeText + " (use s, m, h, d or w, e.g. 12h)");
+            return true;
+        }
+        
+        List<Point> points = history.query(metric, rangeSeconds);
+        sender.sendMessage(ChatColor.GOLD + "=== " + metric + " (last " + rangeText + ") ===");
+        if (points.isEmpty()) {
+            sender.sendMessage(ChatColor.GRAY + "No data recorded for this range yet.");
+            return true;
+        }
+        
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (Point point : points) {
+            min = Math.min(min, point.min());
+            max = Math.max(max, point.max());
+            sum += point.avg();
+        }
+        long from = System.currentTimeMillis() / 1000L - rangeSeconds;
+        sender.sendMessage(ChatColor.AQUA + MetricsHistory.sparkline(points, from, rangeSeconds, 40));
+        sender.sendMessage(ChatColor.YELLOW + String.format("Min: %.1f  Avg: %.1f  Max: %.1f  Last: %.1f",
+            min, sum / points.size(), max, points.get(points.size() - 1).last()));
+        return true;
+    }
+    
+    private boolean handleProfile(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            return true;
+        }
+        
+        PluginProfiler profiler = plugin.getProfiler();
+        if (profiler == null || !PluginProfiler.isSupported()) {
+            sender.sendMessage(ChatColor.RED + "Java Flight Recorder is not available on this JVM.");
+            return true;
+        }
+        
+        String action = args.length > 1 ? args[1].toLowerCase() : "status";
+        switch (action) {
+            case "start" -> {
+                int seconds = 60;
+                if (args.length > 2) {
+                    try {
+                        seconds = Math.max(5, Math.min(600, Integer.parseInt(args[2])));
+                    } catch (NumberFormatException e) {
+                        sender.sendMessage(ChatColor.RED + "Invalid number: " + args[2]);
+                        return true;
+                    }
+                }
+                try {
+                    Path file = profiler.start(seconds);
+                    sender.sendMessage(ChatColor.GREEN + "Profiling for " + seconds + "s. Output: "
+                        + ChatColor.WHITE + plugin.getDataFolder().toPath().relativize(file));
+                } catch (IllegalStateException e) {
+                    sender.sendMessage(ChatColor.YELLOW + e.getMessage());
+                } catch (IOException e) {
+                    sender.sendMessage(ChatColor.RED + "Failed to start profiling: " + e.getMessage());
+                }
+            }
+            case "stop" -> {
+                Path file = profiler.stop();
+                if (file == null) {
+                    sender.sendMessage(ChatColor.YELLOW + "No profile is being recorded.");
+                } else {
+                    sender.sendMessage(ChatColor.GREEN + "Profile written to " + ChatColor.WHITE
+                        + plugin.getDataFolder().toPath().relativize(file));
+                }
+            }
+            case "status" -> {
+                if (profiler.isRecording()) {
+                    sender.sendMessage(ChatColor.YELLOW + "Recording to " + profiler.getDestination().getFileName());
+                } else if (profiler.getDestination() != null) {
+                    sender.sendMessage(ChatColor.YELLOW + "Not recording. Last profile: " + profiler.getDestination().getFileName());
+                } else {
+                    sender.sendMessage(ChatColor.YELLOW + "Not recording.");
+                }
+            }
+            default -> sender.sendMessage(ChatColor.YELLOW + "Usage: /fah profile <start [seconds]|stop|status>");
+        }
+        return true;
+    }
+    
+    private boolean handleHealth(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            return true;
+        }
+        
+        HealthMonitor health = plugin.getHealthMonitor();
+        if (health == null) {
+            sender.sendMessage(ChatColor.RED + "Health monitoring is not running.");
+            return true;
+        }
+        
+        if (args.length < 2 || !args[1].equalsIgnoreCase("history")) {
+            for (String line : health.getHealthReport().split("\n")) {
+                sender.sendMessage(ChatColor.YELLOW + line);
+            }
+            return true;
+        }
+        
+        HealthIssueType type = null;
+        String rangeText = "24h";
+        for (int i = 2; i < args.length; i++) {
+            try {
+                type = HealthIssueType.valueOf(args[i].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                rangeText = args[i].toLowerCase();
+            }
+        }
+        long rangeSeconds = parseRange(rangeText);
+        if (rangeSeconds <= 0) {
+            sender.sendMessage(ChatColor.RED + "Invalid range: " + rangeText + " (use s, m, h, d or w, e.g. 12h)");
+            return true;
+        }
+        
+        HealthIssueJournal journal = health.getJournal();
+        long now = System.currentTimeMillis();
+        List<HealthIssueJournal.Entry> entries = journal.query(type, now - rangeSeconds * 1000L, now, journal.getCapacity());
+        String label = type != null ? type.name() : "all issues";
+        sender.sendMessage(ChatColor.GOLD + "=== Health history: " + label + " (last " + rangeText + ") ===");
+        
+        int hours = (int) Math.min(48, Math.max(1, (rangeSeconds + 3599) / 3600));
+        int[] perHour = journal.countsPerHour(type, hours);
+        int peak = Arrays.stream(perHour).max().orElse(0);
+        sender.sendMessage(ChatColor.AQUA + MetricsHistory.sparkline(perHour) + ChatColor.GRAY
+            + String.format(" %d issues, peak %d/h over %dh", entries.size(), peak, hours));
+        
+        if (entries.isEmpty()) {
+            sender.sendMessage(ChatColor.GREEN + "No issues recorded in this range.");
+            return true;
+        }
+        DateTimeFormatter time = DateTimeFormatter.ofPattern("MM-dd HH:mm").withZone(ZoneId.systemDefault());
+        int shown = Math.min(10, entries.size());
+        for (int i = 0; i < shown; i++) {
+            HealthIssueJournal.Entry entry = entries.get(i);
+            sender.sendMessage(ChatColor.GRAY + time.format(Instant.ofEpochMilli(entry.epochMillis())) + " "
+                + ChatColor.YELLOW + entry.type() + ChatColor.WHITE + " " + entry.description());
+        }
+        if (entries.size() > shown) {
+            sender.sendMessage(ChatColor.GRAY + "... and " + (entries.size() - shown) + " older entries");
+        }
+        return true;
+    }
+    
+    private boolean handleOverhead(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fahdonor.admin")) {
+            sender.sendMessage(ChatColor.RED + "You don't have permission!");
+            return true;
+        }
+        
+        OverheadProfiler overhead = plugin.getOverheadProfiler();
+        if (!overhead.isEnabled()) {
+            sender.sendMessage(ChatColor.RED + "Overhead profiling is disabled (overhead-profiling.enabled).");
+            return true;
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+            overhead.reset();
+            sender.sendMessage(ChatColor.GREEN + "Overhead counters reset.");
+            return true;
+        }
+        
+        sender.sendMessage(ChatColor.GOLD + "=== Plugin Main-Thread Overhead ===");
+        sender.sendMessage(ChatColor.GRAY + String.format("Over %,d ticks; last minute: %.1f µs/tick = %.3f%% of MSPT (budget %.2f%%)",
+            overhead.getTicks(), overhead.getWindowAverageMicros(), overhead.getMsptSharePercent(),
+            plugin.getConfig().getDouble("overhead-profiling.budget-percent", 1.0)));
+        for (OverheadProfiler.SubsystemCost cost : overhead.getCosts()) {
+            if (cost.calls() == 0) {
+                continue;
+            }
+            sender.sendMessage(ChatColor.YELLOW + cost.subsystem().description + ": " + ChatColor.WHITE
+                + String.format("avg %.2f µs/tick, max %.0f µs/tick, %,d calls",
+                    cost.averageMicros(), cost.maxMicros(), cost.calls()));
+        }
+        return true;
+    }
+    
+    private static long parseRange(String text) {
+        if (text.length() < 2) {
+            return -1;
+        }
+        long unit = switch (text.charAt(text.length() - 1)) {
+            case 's' -> 1L;
+            case 'm' -> 60L;
+            case 'h' -> 3600L;
+            case 'd' -> 86400L;
+            case 'w' -> 604800L;
+            default -> -1L;
+        };
+        if (unit < 0) {
+            return -1;
+        }
+        try {
+            long amount = Long.parseLong(text.substring(0, text.length() - 1));
+            return amount > 0 ? amount * unit : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
     private boolean handleReload(CommandSender sender) {
         if (!sender.hasPermission("fahdonor.reload")) {
             sender.sendMessage(ChatColor.RED + "You don't have permission!");
@@ -827,6 +1297,8 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "/fah status" + ChatColor.GRAY + " - Check current status");
         sender.sendMessage(ChatColor.YELLOW + "/fah info" + ChatColor.GRAY + " - Detailed information");
         sender.sendMessage(ChatColor.YELLOW + "/fah stats" + ChatColor.GRAY + " - View contribution statistics");
+        sender.sendMessage(ChatColor.YELLOW + "/fah top [daily|weekly|monthly] [points|time|workunits|efficiency] [page]" + ChatColor.GRAY + " - Contributor leaderboards");
+        sender.sendMessage(ChatColor.YELLOW + "/fah winners <daily|weekly|monthly>" + ChatColor.GRAY + " - Past leaderboard winners");
         sender.sendMessage(ChatColor.YELLOW + "/fah diseases" + ChatColor.GRAY + " - List research causes");
         sender.sendMessage(ChatColor.YELLOW + "/fah vote <disease>" + ChatColor.GRAY + " - Vote for research focus");
         
@@ -849,6 +1321,11 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
             sender.sendMessage(ChatColor.YELLOW + "/fah cores <number>" + ChatColor.GRAY + " - Set core count");
             sender.sendMessage(ChatColor.YELLOW + "/fah web" + ChatColor.GRAY + " - Web interface info");
             sender.sendMessage(ChatColor.YELLOW + "/fah reload" + ChatColor.GRAY + " - Reload config");
+            sender.sendMessage(ChatColor.YELLOW + "/fah schedule [status|preview [n]]" + ChatColor.GRAY + " - Folding schedule");
+            sender.sendMessage(ChatColor.YELLOW + "/fah graph <metric> [range]" + ChatColor.GRAY + " - Metric history sparkline");
+            sender.sendMessage(ChatColor.YELLOW + "/fah profile <start [s]|stop>" + ChatColor.GRAY + " - Record a JFR profile");
+            sender.sendMessage(ChatColor.YELLOW + "/fah health [history [type] [range]]" + ChatColor.GRAY + " - Health status and issue history");
+            sender.sendMessage(ChatColor.YELLOW + "/fah overhead [reset]" + ChatColor.GRAY + " - Plugin main-thread cost per tick");
             sender.sendMessage("");
             sender.sendMessage(ChatColor.AQUA + "Environment Commands:");
             sender.sendMessage(ChatColor.YELLOW + "/fah environment" + ChatColor.GRAY + " - Show detected environment");
@@ -866,7 +1343,7 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         if (args.length == 1) {
             List<String> commands = new ArrayList<>(Arrays.asList(
-                "setup", "token", "passkey", "status", "info", "start", "stop", "stats", "diseases", "vote", "showconfig", "verify"
+                "setup", "token", "passkey", "status", "info", "start", "stop", "stats", "top", "winners", "diseases", "vote", "showconfig", "verify"
             ));
             
             if (sender.hasPermission("fahdonor.account")) {
@@ -875,7 +1352,7 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
             
             if (sender.hasPermission("fahdonor.admin")) {
                 commands.addAll(Arrays.asList("debug", "install", "pause", "resume", "cores", "web", "reload", "cause",
-                    "environment", "env", "limits", "platform", "optimize"));
+                    "environment", "env", "limits", "platform", "optimize", "schedule", "graph", "profile", "health", "overhead"));
             }
             
             return commands.stream()
@@ -883,8 +1360,52 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
                 .collect(Collectors.toList());
         }
         
+        if (args.length == 2 && args[0].equalsIgnoreCase("top")) {
+            return Arrays.asList("points", "time", "workunits", "efficiency", "daily", "weekly", "monthly");
+        }
+        
+        if (args.length == 3 && args[0].equalsIgnoreCase("top") && Window.fromString(args[1]) != null) {
+            return Arrays.asList("points", "time", "workunits", "efficiency");
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("winners")) {
+            return Arrays.asList("daily", "weekly", "monthly");
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("schedule")) {
+            return Arrays.asList("status", "preview", "enable", "disable");
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("graph") && plugin.getMetricsHistory() != null) {
+            return new ArrayList<>(plugin.getMetricsHistory().getSeriesNames());
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("profile")) {
+            return Arrays.asList("start", "stop", "status");
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("overhead")) {
+            return Arrays.asList("reset");
+        }
+        
+        if (args.length == 2 && args[0].equalsIgnoreCase("health")) {
+            return Arrays.asList("history");
+        }
+        
+        if (args.length == 3 && args[0].equalsIgnoreCase("health")) {
+            List<String> types = new ArrayList<>();
+            for (HealthIssueType type : HealthIssueType.values()) {
+                types.add(type.name().toLowerCase());
+            }
+            return types;
+        }
+        
+        if (args.length == 3 && args[0].equalsIgnoreCase("graph")) {
+            return Arrays.asList("1h", "6h", "24h", "7d", "30d");
+        }
+        
         if (args.length == 2 && args[0].equalsIgnoreCase("debug")) {
-            return Arrays.asList("check", "start", "stop", "unpause", "logs", "info");
+            return Arrays.asList("check", "start", "stop", "unpause", "logs", "info", "actuation", "storage");
         }
         
         if (args.length == 2) {
@@ -1029,6 +1550,74 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "Recommended Cores: " + ChatColor.WHITE + limits.getRecommendedCores());
         sender.sendMessage(ChatColor.YELLOW + "Max Memory: " + ChatColor.WHITE + limits.getMaxMemoryMB() + "MB");
         
+        HostPressureMonitor hostPressure = plugin.getHostPressureMonitor();
+        if (hostPressure != null) {
+            HostPressure pressure = hostPressure.getLastPressure();
+            sender.sendMessage(ChatColor.GOLD + "========= Host CPU Pressure =========");
+            sender.sendMessage(ChatColor.YELLOW + "PSI some/full (avg10): " + ChatColor.WHITE + (pressure.hasPsi()
+                ? String.format("%.1f%% / %.1f%%", pressure.someAvg10(), pressure.fullAvg10())
+                : "unavailable"));
+            sender.sendMessage(ChatColor.YELLOW + "CPU steal: " + ChatColor.WHITE + (pressure.hasCpuStat()
+                ? String.format("%.1f%%", pressure.stealFraction() * 100.0)
+                : "unavailable"));
+            sender.sendMessage(ChatColor.YELLOW + "Throttle Step: " + ChatColor.WHITE + hostPressure.getThrottleSteps());
+        }
+        
+        BurstThrottle burstThrottle = plugin.getBurstThrottle();
+        if (burstThrottle != null) {
+            Map<BurstType, Long> boosts = burstThrottle.getActiveBoosts();
+            if (!boosts.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<BurstType, Long> boost : boosts.entrySet()) {
+                    if (sb.length() > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(boost.getKey().getConfigKey()).append(" (").append(boost.getValue()).append("s)");
+                }
+                sender.sendMessage(ChatColor.YELLOW + "Active Burst Throttles: " + ChatColor.WHITE + sb);
+            }
+        }
+        
+        MemoryGuard memoryGuard = plugin.getMemoryGuard();
+        if (memoryGuard != null) {
+            MemorySample sample = memoryGuard.getLastSample();
+            sender.sendMessage(ChatColor.GOLD + "========= Memory Guard =========");
+            sender.sendMessage(ChatColor.YELLOW + "State: " + ChatColor.WHITE + memoryGuard.getState());
+            sender.sendMessage(ChatColor.YELLOW + "FAH RSS: " + ChatColor.WHITE + formatMegabytes(sample.fahRssBytes()));
+            sender.sendMessage(ChatColor.YELLOW + "Usage / Limit: " + ChatColor.WHITE + formatMegabytes(sample.usageBytes())
+                + " / " + formatMegabytes(sample.limitBytes()));
+            Map<String, Long> peaks = memoryGuard.getTopProjectPeaks(3);
+            if (!peaks.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, Long> peak : peaks.entrySet()) {
+                    if (sb.length() > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(peak.getKey()).append(" (").append(peak.getValue()).append("MB)");
+                }
+                sender.sendMessage(ChatColor.YELLOW + "Peak Projects: " + ChatColor.WHITE + sb);
+            }
+        }
+        
+        ThroughputTuner tuner = plugin.getThroughputTuner();
+        if (tuner != null && !tuner.getCurve().isEmpty()) {
+            sender.sendMessage(ChatColor.GOLD + "========= Throughput Tuning =========");
+            StringBuilder sb = new StringBuilder();
+            for (CurvePoint point : tuner.getCurve()) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(String.format("%dc=%.2f (%d)", point.cores(), point.relativeThroughput(), point.samples()));
+            }
+            sender.sendMessage(ChatColor.YELLOW + "Curve (relative, samples): " + ChatColor.WHITE + sb);
+            sender.sendMessage(ChatColor.YELLOW + "Recommended FAH Cap: " + ChatColor.WHITE
+                + (tuner.getRecommendedCores() > 0 ? tuner.getRecommendedCores() + " cores" : "not enough data")
+                + (plugin.getConfig().getBoolean("auto-tuning.apply", false) ? " (applied)" : ""));
+            if (tuner.getExperimentCores() > 0) {
+                sender.sendMessage(ChatColor.YELLOW + "Running Experiment: " + ChatColor.WHITE + tuner.getExperimentCores() + " cores");
+            }
+        }
+        
         sender.sendMessage(ChatColor.GOLD + "========= Configuration =========");
         sender.sendMessage(ChatColor.YELLOW + "Configured Total Cores: " + ChatColor.WHITE + 
                           plugin.getConfig().getInt("server.total-cores", 8));
@@ -1040,6 +1629,13 @@ public class FAHCommands implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private static String formatMegabytes(long bytes) {
+        if (bytes < 0 || bytes == Long.MAX_VALUE) {
+            return "unknown";
+        }
+        return (bytes / (1024L * 1024L)) + "MB";
+    }
+    
     /**
      * Handle platform command - shows platform-specific settings and recommendations
      */
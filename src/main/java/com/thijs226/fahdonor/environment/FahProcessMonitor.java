@@ -0,0 +1,111 @@
+package com.thijs226.fahdonor.environment;
+
+import java.util.Optional;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHClientManager;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.environment.FahProcessSampler.TreeSample;
+import com.thijs226.fahdonor.metrics.PerformanceMetrics;
+
+/**
+ * Periodically samples the FAH process tree off the main thread and feeds CPU
+ * and memory figures into {@link PerformanceMetrics}.
+ */
+public class FahProcessMonitor {
+
+    /** Config values the sampling task reads; replaced as a whole on reload. */
+    private record Settings(long intervalTicks, boolean trackCpu, boolean trackMemory) {
+
+        static Settings fromConfig(FileConfiguration config) {
+            return new Settings(
+                Math.max(1, config.getLong("performance-tracking.sample-interval-seconds", 15)) * 20L,
+                config.getBoolean("performance-tracking.track-cpu", true),
+                config.getBoolean("performance-tracking.track-memory", true));
+        }
+    }
+
+    private final FAHResourceDonor plugin;
+    private final FahProcessSampler sampler;
+    private volatile Settings settings;
+    private BukkitTask samplingTask;
+    private volatile TreeSample lastSample = TreeSample.EMPTY;
+    private boolean warned = false;
+
+    public FahProcessMonitor(FAHResourceDonor plugin) {
+        this(plugin, new FahProcessSampler());
+    }
+
+    public FahProcessMonitor(FAHResourceDonor plugin, FahProcessSampler sampler) {
+        this.plugin = plugin;
+        this.sampler = sampler;
+        reload();
+    }
+
+    /**
+     * Re-reads which figures to record. The interval applies from the next
+     * {@link #start()}. Main thread.
+     */
+    public final void reload() {
+        settings = Settings.fromConfig(plugin.getConfig());
+    }
+
+    public void start() {
+        stop();
+        reload();
+        samplingTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::sampleAndRecord, 100L,
+            settings.intervalTicks());
+    }
+
+    public void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel();
+            samplingTask = null;
+        }
+    }
+
+    private void sampleAndRecord() {
+        try {
+            FAHClientManager manager = plugin.getFAHManager();
+            Optional<ProcessHandle> handle = manager != null ? manager.getFahProcessHandle() : Optional.empty();
+            if (handle.isEmpty()) {
+                lastSample = TreeSample.EMPTY;
+                return;
+            }
+            TreeSample sample = sampler.sample(handle.get());
+            lastSample = sample;
+            if (sample.processes().isEmpty()) {
+                return;
+            }
+
+            PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+            if (metrics == null) {
+                return;
+            }
+            Settings current = settings;
+            if (current.trackCpu()) {
+                metrics.updateCpuUsage(sample.cpuPercent());
+                metrics.addFahCpuTime(sample.cpuDeltaMillis());
+            }
+            if (current.trackMemory()) {
+                metrics.updateMemoryUsage(sample.rssBytes() / (1024L * 1024L));
+            }
+        } catch (RuntimeException e) {
+            if (!warned) {
+                warned = true;
+                plugin.getLogger().log(Level.WARNING, "FAH process sampling failed; further errors are suppressed", e);
+            }
+        }
+    }
+
+    /**
+     * Most recent sample of the FAH process tree; empty while FAH is not running.
+     */
+    public TreeSample getLastSample() {
+        return lastSample;
+    }
+}
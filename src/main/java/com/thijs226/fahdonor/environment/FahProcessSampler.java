@@ -0,0 +1,205 @@
+package com.thijs226.fahdonor.environment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples CPU time, RSS and thread counts of the FAH process tree (the client
+ * plus its FahCore children) from procfs. Files are read into one reused
+ * buffer and parsed in place; per-process state is kept between calls so CPU
+ * percentages come from the delta against the previous sample.
+ */
+public class FahProcessSampler {
+
+    /** Kernel USER_HZ; fixed at 100 on every mainstream Linux ABI. */
+    private static final long CLOCK_TICKS_PER_SECOND = 100L;
+    private static final byte[] VM_RSS = "VmRSS:".getBytes(StandardCharsets.US_ASCII);
+
+    /** One process in the tree. CPU percent is per core, so it can exceed 100. */
+    public record ProcessStats(long pid, String name, double cpuPercent, double cpuSeconds, long rssBytes, int threads) {}
+
+    /** The whole tree; {@code cpuDeltaMillis} is CPU time used since the previous sample. */
+    public record TreeSample(List<ProcessStats> processes, double cpuPercent, long cpuDeltaMillis, long rssBytes) {
+        public static final TreeSample EMPTY = new TreeSample(List.of(), 0.0, 0L, 0L);
+    }
+
+    private static final class ProcessState {
+        final Path stat;
+        final Path status;
+        final Path task;
+        String name;
+        long lastTicks = -1;
+        long lastSampleNanos;
+        boolean seen;
+
+        ProcessState(Path dir) {
+            this.stat = dir.resolve("stat");
+            this.status = dir.resolve("status");
+            this.task = dir.resolve("task");
+        }
+    }
+
+    private final Path procRoot;
+    private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+    private final Map<Long, ProcessState> states = new HashMap<>();
+    private long lastTickDelta;
+
+    public FahProcessSampler() {
+        this(Paths.get("/proc"));
+    }
+
+    public FahProcessSampler(Path procRoot) {
+        this.procRoot = procRoot;
+    }
+
+    /**
+     * Samples {@code root} and all of its live descendants. Not thread-safe;
+     * drive it from a single timer.
+     */
+    public TreeSample sample(ProcessHandle root) {
+        for (ProcessState state : states.values()) {
+            state.seen = false;
+        }
+        List<ProcessStats> processes = new ArrayList<>();
+        long now = System.nanoTime();
+        sampleProcess(root.pid(), now, processes);
+        for (ProcessHandle child : (Iterable<ProcessHandle>) root.descendants()::iterator) {
+            sampleProcess(child.pid(), now, processes);
+        }
+        // Forget processes that exited so reused PIDs start from a fresh baseline
+        Iterator<ProcessState> it = states.values().iterator();
+        while (it.hasNext()) {
+            if (!it.next().seen) {
+                it.remove();
+            }
+        }
+
+        double cpuPercent = 0.0;
+        long rss = 0L;
+        for (ProcessStats stats : processes) {
+            cpuPercent += stats.cpuPercent();
+            rss += stats.rssBytes();
+        }
+        long deltaMillis = Math.round(lastTickDelta * 1000.0 / CLOCK_TICKS_PER_SECOND);
+        lastTickDelta = 0;
+        return new TreeSample(List.copyOf(processes), cpuPercent, deltaMillis, rss);
+    }
+
+    private void sampleProcess(long pid, long now, List<ProcessStats> out) {
+        ProcessState state = states.computeIfAbsent(pid, id -> new ProcessState(procRoot.resolve(Long.toString(id))));
+        int length = read(state.stat);
+        if (length <= 0) {
+            return;
+        }
+        int open = ProcFs.indexOf(buffer.array(), length, (byte) '(', 0);
+        int close = ProcFs.lastIndexOf(buffer.array(), length, (byte) ')');
+        if (open < 0 || close < open) {
+            return;
+        }
+        if (state.name == null) {
+            state.name = new String(buffer.array(), open + 1, close - open - 1, StandardCharsets.US_ASCII);
+        }
+        // Fields after the command name start at field 3 (state); utime and stime are fields 14 and 15
+        long utime = fieldAfterComm(length, close, 14);
+        long stime = fieldAfterComm(length, close, 15);
+        if (utime < 0 || stime < 0) {
+            return;
+        }
+        long ticks = utime + stime;
+
+        double cpuPercent = 0.0;
+        if (state.lastTicks >= 0 && ticks >= state.lastTicks) {
+            long delta = ticks - state.lastTicks;
+            double elapsedSeconds = (now - state.lastSampleNanos) / 1_000_000_000.0;
+            if (elapsedSeconds > 0) {
+                cpuPercent = delta * 100.0 / CLOCK_TICKS_PER_SECOND / elapsedSeconds;
+            }
+            lastTickDelta += delta;
+        }
+        state.lastTicks = ticks;
+        state.lastSampleNanos = now;
+        state.seen = true;
+
+        long rss = readRssBytes(state.status);
+        int threads = countTasks(state.task);
+        out.add(new ProcessStats(pid, state.name, cpuPercent, (double) ticks / CLOCK_TICKS_PER_SECOND,
+            Math.max(0L, rss), threads));
+    }
+
+    private long fieldAfterComm(int length, int close, int field) {
+        byte[] data = buffer.array();
+        int current = 2;
+        int i = close + 1;
+        while (i < length) {
+            while (i < length && data[i] == ' ') {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            current++;
+            if (current == field) {
+                return ProcFs.parseLong(data, i, length);
+            }
+            while (i < length && data[i] != ' ') {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private long readRssBytes(Path status) {
+        int length = read(status);
+        if (length <= 0) {
+            return -1;
+        }
+        byte[] data = buffer.array();
+        int at = ProcFs.indexOf(data, length, VM_RSS);
+        if (at < 0) {
+            return -1;
+        }
+        int i = at + VM_RSS.length;
+        while (i < length && (data[i] == ' ' || data[i] == '\t')) {
+            i++;
+        }
+        long kb = ProcFs.parseLong(data, i, length);
+        return kb < 0 ? -1 : kb * 1024L;
+    }
+
+    private static int countTasks(Path task) {
+        int count = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(task)) {
+            for (Path ignored : entries) {
+                count++;
+            }
+        } catch (IOException | SecurityException e) {
+            return 0;
+        }
+        return count;
+    }
+
+    /** Reads a whole (small) procfs file into the shared buffer; returns its length or -1. */
+    private int read(Path path) {
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // procfs hands out the file in page-sized chunks
+            }
+        } catch (IOException | SecurityException e) {
+            return -1;
+        }
+        return buffer.position();
+    }
+}
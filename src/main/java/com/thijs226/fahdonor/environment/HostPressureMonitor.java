@@ -0,0 +1,155 @@
+package com.thijs226.fahdonor.environment;
+
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.PlayerMonitor;
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
+import com.thijs226.fahdonor.environment.HostPressureSampler.HostPressure;
+
+/**
+ * Backs FAH off when the host itself is contended (noisy neighbours, other
+ * JVMs on the node), even while this server's TPS still looks fine. Samples
+ * PSI and CPU steal at a low rate off the main thread and throttles in steps:
+ * one step more per sample above the thresholds, one step less per sample
+ * below {@code release-ratio} of them.
+ */
+public class HostPressureMonitor implements CoreBudgetAdjuster {
+
+    private final FAHResourceDonor plugin;
+    private final HostPressureSampler sampler;
+    private volatile Settings settings;
+    private BukkitTask samplingTask;
+    private volatile HostPressure lastPressure = HostPressure.UNAVAILABLE;
+    private volatile int throttleSteps = 0;
+
+    public HostPressureMonitor(FAHResourceDonor plugin) {
+        this(plugin, new HostPressureSampler());
+    }
+
+    /** Thresholds read on the main thread, so the sampling task never touches the config. */
+    private record Settings(boolean enabled, double someThreshold, double fullThreshold, double stealThreshold,
+                            int coresPerStep, int maxSteps, double releaseRatio) {
+
+        static Settings fromConfig(FileConfiguration config) {
+            return new Settings(
+                config.getBoolean("monitoring.host-pressure.enabled", true),
+                config.getDouble("monitoring.host-pressure.psi-some-threshold", 25.0),
+                config.getDouble("monitoring.host-pressure.psi-full-threshold", 5.0),
+                config.getDouble("monitoring.host-pressure.steal-threshold", 0.10),
+                Math.max(1, config.getInt("monitoring.host-pressure.cores-per-step", 2)),
+                Math.max(0, config.getInt("monitoring.host-pressure.max-steps", 4)),
+                config.getDouble("monitoring.host-pressure.release-ratio", 0.5));
+        }
+    }
+
+    public HostPressureMonitor(FAHResourceDonor plugin, HostPressureSampler sampler) {
+        this.plugin = plugin;
+        this.sampler = sampler;
+        reload();
+    }
+
+    /**
+     * Re-reads the thresholds. Main thread.
+     */
+    public final void reload() {
+        settings = Settings.fromConfig(plugin.getConfig());
+    }
+
+    public void start() {
+        stop();
+        reload();
+        long interval = Math.max(1, plugin.getConfig().getLong("monitoring.host-pressure.sample-interval-seconds", 10)) * 20L;
+        samplingTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::sampleAndUpdate, 40L, interval);
+    }
+
+    public void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel();
+            samplingTask = null;
+        }
+        throttleSteps = 0;
+    }
+
+    private void sampleAndUpdate() {
+        try {
+            HostPressure pressure = sampler.sample();
+            lastPressure = pressure;
+
+            Settings current = settings;
+            double level = pressureLevel(pressure, current);
+
+            int previous = throttleSteps;
+            int next = previous;
+            if (level >= 1.0) {
+                next = Math.min(current.maxSteps(), previous + 1);
+            } else if (level < current.releaseRatio()) {
+                next = Math.max(0, previous - 1);
+            }
+
+            if (next != previous) {
+                throttleSteps = next;
+                final int steps = next;
+                plugin.getLogger().info(() -> String.format(
+                    "Host CPU pressure %s (PSI some=%.1f%% full=%.1f%%, steal=%.1f%%); throttle step %d",
+                    steps > previous ? "rising" : "easing",
+                    pressure.someAvg10(), pressure.fullAvg10(), pressure.stealFraction() * 100.0, steps));
+                PlayerMonitor monitor = plugin.getPlayerMonitor();
+                if (monitor != null) {
+                    monitor.requestCheck();
+                }
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Host pressure sampling failed", e);
+        }
+    }
+
+    /**
+     * Highest ratio of any signal to its threshold; 1.0 or more means contended.
+     */
+    private static double pressureLevel(HostPressure pressure, Settings settings) {
+        double level = 0.0;
+        if (pressure.hasPsi()) {
+            level = Math.max(level, ratio(pressure.someAvg10(), settings.someThreshold()));
+            level = Math.max(level, ratio(pressure.fullAvg10(), settings.fullThreshold()));
+        }
+        if (pressure.hasCpuStat()) {
+            level = Math.max(level, ratio(pressure.stealFraction(), settings.stealThreshold()));
+        }
+        return level;
+    }
+
+    private static double ratio(double value, double threshold) {
+        if (Double.isNaN(value) || threshold <= 0) {
+            return 0.0;
+        }
+        return value / threshold;
+    }
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        int steps = throttleSteps;
+        Settings current = settings;
+        if (steps == 0 || !current.enabled()) {
+            return cores;
+        }
+        return Math.max(0, cores - steps * current.coresPerStep());
+    }
+
+    @Override
+    public String getName() {
+        return "host CPU pressure";
+    }
+
+    public HostPressure getLastPressure() {
+        return lastPressure;
+    }
+
+    public int getThrottleSteps() {
+        return throttleSteps;
+    }
+}
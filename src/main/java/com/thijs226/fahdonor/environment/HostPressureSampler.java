@@ -0,0 +1,101 @@
+package com.thijs226.fahdonor.environment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads host-wide CPU contention from procfs: PSI ({@code pressure/cpu}) and
+ * the aggregate {@code stat} counters. The procfs root is configurable so the
+ * sampler can be exercised against a fake directory tree.
+ */
+public class HostPressureSampler {
+
+    private final Path pressureFile;
+    private final Path statFile;
+
+    private long lastTotalJiffies = -1;
+    private long lastStealJiffies;
+
+    /**
+     * One host pressure reading. PSI values are percentages (0-100) and are
+     * {@code NaN} when the kernel does not expose PSI; the steal fraction is
+     * 0-1 and is {@code NaN} until two {@code stat} samples have been taken.
+     * Plain host busy time is not reported: FAH itself keeps the host busy,
+     * so it says nothing about contention.
+     */
+    public record HostPressure(double someAvg10, double fullAvg10, double stealFraction) {
+        public static final HostPressure UNAVAILABLE = new HostPressure(Double.NaN, Double.NaN, Double.NaN);
+
+        public boolean hasPsi() {
+            return !Double.isNaN(someAvg10);
+        }
+
+        public boolean hasCpuStat() {
+            return !Double.isNaN(stealFraction);
+        }
+    }
+
+    public HostPressureSampler() {
+        this(Paths.get("/proc"));
+    }
+
+    public HostPressureSampler(Path procRoot) {
+        this.pressureFile = procRoot.resolve("pressure").resolve("cpu");
+        this.statFile = procRoot.resolve("stat");
+    }
+
+    /**
+     * Takes a sample. Steal is computed from the delta against the
+     * previous call, so this is not thread-safe and should be driven by a
+     * single timer.
+     */
+    public HostPressure sample() {
+        String psi = ProcFs.read(pressureFile);
+        double some = ProcFs.psiAvg10(psi, "some");
+        double full = ProcFs.psiAvg10(psi, "full");
+
+        double steal = Double.NaN;
+        String stat = ProcFs.read(statFile);
+        if (stat != null) {
+            int end = stat.indexOf('\n');
+            String cpuLine = end >= 0 ? stat.substring(0, end) : stat;
+            long[] fields = parseCpuLine(cpuLine);
+            if (fields != null) {
+                // user nice system idle iowait irq softirq steal (guest time is already in user)
+                long stealTicks = fields.length > 7 ? fields[7] : 0;
+                long total = 0;
+                for (int i = 0; i < Math.min(fields.length, 8); i++) {
+                    total += fields[i];
+                }
+                if (lastTotalJiffies >= 0 && total > lastTotalJiffies) {
+                    double delta = total - lastTotalJiffies;
+                    steal = clampFraction((stealTicks - lastStealJiffies) / delta);
+                }
+                lastTotalJiffies = total;
+                lastStealJiffies = stealTicks;
+            }
+        }
+
+        return new HostPressure(some, full, steal);
+    }
+
+    private static long[] parseCpuLine(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length < 5 || !"cpu".equals(parts[0])) {
+            return null;
+        }
+        long[] values = new long[parts.length - 1];
+        try {
+            for (int i = 1; i < parts.length; i++) {
+                values[i - 1] = Long.parseLong(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return values;
+    }
+
+    private static double clampFraction(double value) {
+        return Math.max(0.0, Math.min(1.0, value));
+    }
+}
@@ -0,0 +1,384 @@
+package com.thijs226.fahdonor.environment;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClientManager;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.PlayerMonitor;
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
+import com.thijs226.fahdonor.storage.AutosavedDataFile;
+
+/**
+ * Keeps the FAH process tree from pushing the container into OOM, which would
+ * take the Minecraft JVM down with it. Samples the FAH tree's RSS and the
+ * cgroup's usage, limit and memory pressure off the main thread, shrinks or
+ * pauses FAH when headroom runs low, and remembers which projects peaked.
+ * When a project that peaked before runs again, the guard shrinks FAH as
+ * soon as that peak would no longer fit, instead of waiting for it to hit.
+ * Peaks are kept in {@code memory-peaks.yml} and saved by the autosave.
+ */
+public class MemoryGuard implements CoreBudgetAdjuster {
+
+    private static final Pattern PROJECT_NUMBER = Pattern.compile("(\\d+)");
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    /** Config values the sampling task reads; replaced as a whole on reload. */
+    private record Settings(boolean enabled, long sampleIntervalTicks, long shrinkMarginBytes, long pauseMarginBytes,
+                            double pressureThreshold, double releaseFactor, boolean useProjectPeaks) {
+
+        static Settings fromConfig(FileConfiguration config) {
+            return new Settings(
+                config.getBoolean("memory-guard.enabled", true),
+                Math.max(1, config.getLong("memory-guard.sample-interval-seconds", 5)) * 20L,
+                config.getLong("memory-guard.shrink-headroom-mb", 768) * 1024L * 1024L,
+                config.getLong("memory-guard.pause-headroom-mb", 384) * 1024L * 1024L,
+                config.getDouble("memory-guard.pressure-threshold", 10.0),
+                Math.max(1.0, config.getDouble("memory-guard.release-factor", 1.5)),
+                config.getBoolean("memory-guard.use-project-peaks", true));
+        }
+    }
+
+    public enum GuardState {
+        NORMAL, SHRINK, PAUSE
+    }
+
+    /**
+     * One memory sample; sizes are in bytes, {@code -1} when unknown.
+     */
+    public record MemorySample(long fahRssBytes, long usageBytes, long limitBytes, double pressureSomeAvg10) {
+        public long headroomBytes() {
+            if (usageBytes < 0 || limitBytes < 0 || limitBytes == UNLIMITED) {
+                return -1;
+            }
+            return limitBytes - usageBytes;
+        }
+    }
+
+    private final FAHResourceDonor plugin;
+    private final Path procRoot;
+    private final Path cgroupRoot;
+    private final Map<String, Long> projectPeaks = new ConcurrentHashMap<>();
+    private final AutosavedDataFile peaksFile;
+    private volatile Settings settings;
+    private BukkitTask samplingTask;
+    private volatile GuardState state = GuardState.NORMAL;
+    private volatile MemorySample lastSample = new MemorySample(-1, -1, -1, Double.NaN);
+
+    public MemoryGuard(FAHResourceDonor plugin) {
+        this(plugin, Paths.get("/proc"), Paths.get("/sys/fs/cgroup"));
+    }
+
+    public MemoryGuard(FAHResourceDonor plugin, Path procRoot, Path cgroupRoot) {
+        this.plugin = plugin;
+        this.procRoot = procRoot;
+        this.cgroupRoot = cgroupRoot;
+        this.peaksFile = new AutosavedDataFile(plugin, "memory-peaks.yml", "memory peaks", this::writePeaks);
+        reload();
+        loadPeaks();
+    }
+
+    /**
+     * Re-reads the margins and thresholds. Main thread.
+     */
+    public final void reload() {
+        settings = Settings.fromConfig(plugin.getConfig());
+    }
+
+    public void start() {
+        stop();
+        reload();
+        samplingTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::sampleAndUpdate, 60L,
+            settings.sampleIntervalTicks());
+    }
+
+    public void stop() {
+        if (samplingTask != null) {
+            samplingTask.cancel();
+            samplingTask = null;
+        }
+        state = GuardState.NORMAL;
+    }
+
+    private void sampleAndUpdate() {
+        try {
+            MemorySample sample = sample();
+            lastSample = sample;
+            String project = currentProject();
+            recordProjectPeak(project, sample);
+
+            Settings current = settings;
+            GuardState next = evaluate(sample, state, current, knownPeakBytes(project, current));
+            GuardState previous = state;
+            if (next != previous) {
+                state = next;
+                onStateChange(previous, next, sample);
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Memory guard sampling failed", e);
+        }
+    }
+
+    /**
+     * Reads the FAH tree RSS and cgroup counters. Public so the guard can be
+     * exercised against fake proc and cgroup roots.
+     */
+    public MemorySample sample() {
+        long fahRss = -1;
+        FAHClientManager manager = plugin.getFAHManager();
+        if (manager != null) {
+            Optional<ProcessHandle> handle = manager.getFahProcessHandle();
+            if (handle.isPresent()) {
+                fahRss = processTreeRss(handle.get());
+            }
+        }
+
+        // Working set = usage minus reclaimable inactive page cache
+        long usage = ProcFs.readLong(cgroupRoot.resolve("memory.current"));
+        long limit = readLimit(cgroupRoot.resolve("memory.max"));
+        long inactiveFile = ProcFs.readKeyedValue(cgroupRoot.resolve("memory.stat"), "inactive_file");
+        if (usage < 0) {
+            // cgroup v1 layout
+            Path v1 = cgroupRoot.resolve("memory");
+            usage = ProcFs.readLong(v1.resolve("memory.usage_in_bytes"));
+            limit = readLimit(v1.resolve("memory.limit_in_bytes"));
+            inactiveFile = ProcFs.readKeyedValue(v1.resolve("memory.stat"), "total_inactive_file");
+        }
+        if (usage > 0 && inactiveFile > 0) {
+            usage = Math.max(0, usage - inactiveFile);
+        }
+        if (usage < 0 || limit == UNLIMITED) {
+            // No container limit: fall back to host memory
+            long[] meminfo = readMeminfo();
+            if (meminfo != null) {
+                limit = meminfo[0];
+                usage = meminfo[0] - meminfo[1];
+            }
+        }
+
+        double pressure = ProcFs.psiAvg10(ProcFs.read(cgroupRoot.resolve("memory.pressure")), "some");
+        if (Double.isNaN(pressure)) {
+            pressure = ProcFs.psiAvg10(ProcFs.read(procRoot.resolve("pressure").resolve("memory")), "some");
+        }
+        return new MemorySample(fahRss, usage, limit, pressure);
+    }
+
+    /**
+     * {@code knownPeakBytes} is the largest FAH RSS seen for the running
+     * project before, or -1; room it still needs to grow into counts
+     * against headroom when deciding whether to shrink, but never pauses.
+     */
+    private static GuardState evaluate(MemorySample sample, GuardState current, Settings settings,
+                                       long knownPeakBytes) {
+        long shrinkMargin = settings.shrinkMarginBytes();
+        long pauseMargin = settings.pauseMarginBytes();
+        double pressureThreshold = settings.pressureThreshold();
+        double releaseFactor = settings.releaseFactor();
+
+        long headroom = sample.headroomBytes();
+        boolean known = headroom >= 0;
+        boolean pressured = !Double.isNaN(sample.pressureSomeAvg10()) && sample.pressureSomeAvg10() >= pressureThreshold;
+        long expectedHeadroom = headroom;
+        if (known && knownPeakBytes > 0 && sample.fahRssBytes() >= 0) {
+            expectedHeadroom = headroom - Math.max(0L, knownPeakBytes - sample.fahRssBytes());
+        }
+
+        if (known && headroom < pauseMargin) {
+            return GuardState.PAUSE;
+        }
+        // Only step down once headroom comfortably exceeds the margin that triggered us
+        if (current == GuardState.PAUSE && known && headroom < pauseMargin * releaseFactor) {
+            return GuardState.PAUSE;
+        }
+        if (pressured || (known && expectedHeadroom < shrinkMargin)) {
+            return GuardState.SHRINK;
+        }
+        if (current != GuardState.NORMAL && known && expectedHeadroom < shrinkMargin * releaseFactor) {
+            return GuardState.SHRINK;
+        }
+        return GuardState.NORMAL;
+    }
+
+    private void onStateChange(GuardState previous, GuardState next, MemorySample sample) {
+        String project = currentProject();
+        final String detail = String.format("headroom %s, FAH RSS %s%s",
+            formatBytes(sample.headroomBytes()), formatBytes(sample.fahRssBytes()),
+            project.isEmpty() ? "" : ", project " + project);
+        if (next.ordinal() > previous.ordinal()) {
+            plugin.getLogger().warning(() -> String.format("Memory guard: %s -> %s (%s)", previous, next, detail));
+            if (next == GuardState.PAUSE) {
+                plugin.notifyAdmins("Memory headroom critical; FAH paused to protect the server (" + detail + ")", ChatColor.RED, false);
+            }
+        } else {
+            plugin.getLogger().info(() -> String.format("Memory guard: %s -> %s (%s)", previous, next, detail));
+        }
+        PlayerMonitor monitor = plugin.getPlayerMonitor();
+        if (monitor != null) {
+            monitor.requestCheck();
+        }
+    }
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        if (!settings.enabled()) {
+            return cores;
+        }
+        return switch (state) {
+            case NORMAL -> cores;
+            case SHRINK -> cores / 2;
+            case PAUSE -> 0;
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "memory guard";
+    }
+
+    private void recordProjectPeak(String project, MemorySample sample) {
+        if (sample.fahRssBytes() <= 0 || project.isEmpty()) {
+            return;
+        }
+        long rssMb = sample.fahRssBytes() / (1024L * 1024L);
+        Long previous = projectPeaks.get(project);
+        if (previous == null || rssMb > previous) {
+            projectPeaks.merge(project, rssMb, Math::max);
+            peaksFile.markDirty();
+        }
+    }
+
+    /** Earlier peak of the project in bytes, or -1 when it has not been seen. */
+    private long knownPeakBytes(String project, Settings settings) {
+        if (project.isEmpty() || !settings.useProjectPeaks()) {
+            return -1;
+        }
+        Long peakMb = projectPeaks.get(project);
+        return peakMb != null ? peakMb * 1024L * 1024L : -1;
+    }
+
+    private String currentProject() {
+        FAHClient client = plugin.getFAHClient();
+        if (client == null) {
+            return "";
+        }
+        String summary = client.getCurrentProjectSummary();
+        if (summary == null || summary.isBlank()) {
+            return "";
+        }
+        Matcher matcher = PROJECT_NUMBER.matcher(summary);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    /**
+     * Projects ordered by the largest FAH RSS observed while they ran, in MB.
+     */
+    public Map<String, Long> getTopProjectPeaks(int limit) {
+        List<Map.Entry<String, Long>> sorted = projectPeaks.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(limit)
+            .collect(Collectors.toList());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : sorted) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /** The peaks file, for registering with the autosave. */
+    public AutosavedDataFile getPeaksFile() {
+        return peaksFile;
+    }
+
+    private void loadPeaks() {
+        YamlConfiguration peaks = peaksFile.load();
+        for (String project : peaks.getKeys(false)) {
+            projectPeaks.put(project, peaks.getLong(project, 0));
+        }
+    }
+
+    private void writePeaks(YamlConfiguration data) {
+        for (Map.Entry<String, Long> entry : projectPeaks.entrySet()) {
+            data.set(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private long processTreeRss(ProcessHandle root) {
+        long total = rssOf(root.pid());
+        if (total < 0) {
+            return -1;
+        }
+        for (ProcessHandle child : (Iterable<ProcessHandle>) root.descendants()::iterator) {
+            long rss = rssOf(child.pid());
+            if (rss > 0) {
+                total += rss;
+            }
+        }
+        return total;
+    }
+
+    private long rssOf(long pid) {
+        String status = ProcFs.read(procRoot.resolve(Long.toString(pid)).resolve("status"));
+        if (status == null) {
+            return -1;
+        }
+        // Kernel threads have no VmRSS line
+        return Math.max(0L, ProcFs.kbField(status, "VmRSS:"));
+    }
+
+    private long[] readMeminfo() {
+        String meminfo = ProcFs.read(procRoot.resolve("meminfo"));
+        long total = ProcFs.kbField(meminfo, "MemTotal:");
+        long available = ProcFs.kbField(meminfo, "MemAvailable:");
+        return total > 0 && available >= 0 ? new long[] {total, available} : null;
+    }
+
+    private static long readLimit(Path path) {
+        String value = ProcFs.read(path);
+        if (value == null) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        if ("max".equals(trimmed)) {
+            return UNLIMITED;
+        }
+        try {
+            long limit = Long.parseLong(trimmed);
+            // cgroup v1 reports "unlimited" as a huge page-aligned number
+            return limit >= (1L << 60) ? UNLIMITED : limit;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 0) {
+            return "unknown";
+        }
+        return String.format("%dMB", bytes / (1024L * 1024L));
+    }
+
+    public GuardState getState() {
+        return state;
+    }
+
+    public MemorySample getLastSample() {
+        return lastSample;
+    }
+}
@@ -1,10 +1,10 @@
 package com.thijs226.fahdonor.environment;
 
-import java.util.Locale;
-
 import org.bukkit.configuration.file.FileConfiguration;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.allocation.AllocationPolicy;
+import com.thijs226.fahdonor.allocation.AllocationPolicyEngine;
 import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.EnvironmentInfo;
 import com.thijs226.fahdonor.environment.ServerEnvironmentDetector.ResourceLimits;
 
@@ -18,6 +18,7 @@ public class PlatformResourceManager {
     private final EnvironmentInfo environmentInfo;
     private final ResourceLimits resourceLimits;
     private final boolean enforceStrictLimits;
+    private final AllocationPolicyEngine allocationPolicy;
     
     public PlatformResourceManager(FAHResourceDonor plugin) {
         this.plugin = plugin;
@@ -27,6 +28,7 @@ public class PlatformResourceManager {
         
         logEnvironmentInfo();
         validateConfiguration();
+        this.allocationPolicy = new AllocationPolicyEngine(plugin, environmentInfo);
     }
     
     /**
@@ -169,57 +171,14 @@ public class PlatformResourceManager {
      * Calculates safe core allocation for FAH based on current player count and environment
      */
     public int calculateFAHCores(int playerCount) {
-        FileConfiguration config = plugin.getConfig();
-        
-        // Get configuration values
-        int totalCores = config.getInt("server.total-cores", 8);
-        int reservedCores = config.getInt("server.reserved-cores", 1);
-        String modeRaw = config.getString("allocation.mode");
-        String mode = (modeRaw == null ? "dynamic" : modeRaw).toLowerCase(Locale.ROOT);
-        int fahCores = switch (mode) {
-            case "dynamic" -> calculateDynamicCores(playerCount, totalCores, reservedCores, config);
-            case "tiered" -> calculateTieredCores(playerCount, config);
-            case "percentage" -> calculatePercentageCores(playerCount, totalCores, reservedCores, config);
-            default -> calculateDynamicCores(playerCount, totalCores, reservedCores, config);
-        };
-        
-        // Remove environment-imposed max caps to allow auto-detection (user requested "unlimited")
-        // Always ensure at least 1 core remains for Minecraft
-        fahCores = Math.min(fahCores, totalCores - 1);
-
-        // Enforce FAH minimum: if FAH would use only 1 core, pause instead (return 0)
-        if (fahCores == 1) {
-            return 0;
-        }
-
-        return Math.max(0, fahCores);
+        return allocationPolicy.coresFor(playerCount);
     }
     
-    private int calculateDynamicCores(int playerCount, int totalCores, int reservedCores, FileConfiguration config) {
-        double coresPerPlayer = config.getDouble("allocation.dynamic.cores-per-player", 0.5);
-        int minCoresForMC = config.getInt("allocation.dynamic.min-cores-for-minecraft", 1);
-        int maxCoresForFAH = config.getInt("allocation.dynamic.max-cores-for-fah", 7);
-        
-        double neededForMC = reservedCores + (playerCount * coresPerPlayer);
-        neededForMC = Math.max(neededForMC, minCoresForMC);
-        
-        int availableForFAH = (int) Math.floor(totalCores - neededForMC);
-        return Math.min(Math.max(0, availableForFAH), maxCoresForFAH);
-    }
-    
-    private int calculateTieredCores(int playerCount, FileConfiguration config) {
-        // Implementation for tiered allocation would go here
-        // For now, fall back to dynamic
-        return calculateDynamicCores(playerCount, 
-                                   config.getInt("server.total-cores", 8),
-                                   config.getInt("server.reserved-cores", 1),
-                                   config);
-    }
-    
-    private int calculatePercentageCores(int playerCount, int totalCores, int reservedCores, FileConfiguration config) {
-        // Implementation for percentage allocation would go here
-        // For now, fall back to dynamic
-        return calculateDynamicCores(playerCount, totalCores, reservedCores, config);
+    /**
+     * Recompiles the allocation policy after the configuration changed
+     */
+    public void reloadAllocationPolicy() {
+        allocationPolicy.compile();
     }
     
     /**
@@ -286,5 +245,6 @@ public class PlatformResourceManager {
     // Getters
     public EnvironmentInfo getEnvironmentInfo() { return environmentInfo; }
     public ResourceLimits getResourceLimits() { return resourceLimits; }
+    public AllocationPolicy getAllocationPolicy() { return allocationPolicy; }
     public boolean isStrictLimitsEnforced() { return enforceStrictLimits; }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.thijs226.fahdonor.environment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Parsing shared by the procfs and cgroup samplers. Every reader returns a
+ * sentinel ({@code null}, {@code -1} or {@code NaN}) instead of throwing, so
+ * a missing or unreadable file simply means "not available here". The
+ * byte-array helpers parse in place for samplers that reuse one buffer.
+ */
+final class ProcFs {
+
+    private ProcFs() {
+    }
+
+    /** Whole file as ASCII, or null when it cannot be read. */
+    static String read(Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.US_ASCII);
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /** A file holding a single number, e.g. {@code memory.current}; -1 when unavailable. */
+    static long readLong(Path path) {
+        String value = read(path);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Value of {@code key} in a "key value" file such as {@code memory.stat}; -1 when absent. */
+    static long readKeyedValue(Path path, String key) {
+        String content = read(path);
+        if (content == null) {
+            return -1;
+        }
+        String prefix = key + " ";
+        for (String line : content.split("\n")) {
+            if (line.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(line.substring(prefix.length()).trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A "Key:   123 kB" field from {@code status} or {@code meminfo}, in
+     * bytes; -1 when absent. {@code key} includes the colon.
+     */
+    static long kbField(String content, String key) {
+        if (content == null) {
+            return -1;
+        }
+        for (String line : content.split("\n")) {
+            if (line.startsWith(key)) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 2) {
+                    return -1;
+                }
+                try {
+                    return Long.parseLong(parts[1]) * 1024L;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The {@code avg10} percentage of the "some" or "full" line of a PSI
+     * file's content; NaN when absent.
+     */
+    static double psiAvg10(String content, String kind) {
+        if (content == null) {
+            return Double.NaN;
+        }
+        String prefix = kind + " ";
+        for (String line : content.split("\n")) {
+            if (!line.startsWith(prefix)) {
+                continue;
+            }
+            int idx = line.indexOf("avg10=");
+            if (idx < 0) {
+                return Double.NaN;
+            }
+            int start = idx + 6;
+            int end = line.indexOf(' ', start);
+            try {
+                return Double.parseDouble(end < 0 ? line.substring(start).trim() : line.substring(start, end));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /** Unsigned decimal starting at {@code from}; -1 when there is no digit there. */
+    static long parseLong(byte[] data, int from, int length) {
+        long value = 0;
+        int i = from;
+        if (i >= length || data[i] < '0' || data[i] > '9') {
+            return -1;
+        }
+        while (i < length && data[i] >= '0' && data[i] <= '9') {
+            value = value * 10 + (data[i] - '0');
+            i++;
+        }
+        return value;
+    }
+
+    static int indexOf(byte[] data, int length, byte target, int from) {
+        for (int i = from; i < length; i++) {
+            if (data[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int lastIndexOf(byte[] data, int length, byte target) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (data[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(byte[] data, int length, byte[] needle) {
+        outer:
+        for (int i = 0; i <= length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (data[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
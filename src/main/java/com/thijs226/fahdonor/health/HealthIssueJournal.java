@@ -0,0 +1,238 @@
+package com.thijs226.fahdonor.health;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.thijs226.fahdonor.health.HealthMonitor.HealthIssueType;
+
+/**
+ * Fixed-size, lock-free ring of recent health issues, mirrored to an
+ * append-only journal file so history survives restarts.
+ *
+ * <p>Writers claim a slot with one atomic increment and publish it seqlock
+ * style: the slot's stamp is negated while the fields are written and set to
+ * the sequence number afterwards. Readers copy the fields and keep them only
+ * if the stamp was the same before and after. Journal lines are queued and
+ * written by {@link #flush()}; the file rotates once it reaches
+ * {@code maxFileBytes}, keeping {@code maxFiles} old files.
+ */
+public class HealthIssueJournal {
+
+    private static final HealthIssueType[] TYPES = HealthIssueType.values();
+
+    /** One journal entry; {@code epochMillis} is wall-clock time. */
+    public record Entry(long epochMillis, HealthIssueType type, String description) {}
+
+    private final int mask;
+    private final long[] timestamps;
+    private final byte[] types;
+    private final String[] descriptions;
+    private final AtomicLongArray stamps;
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder[] totals = new LongAdder[TYPES.length];
+
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Logger logger;
+    private final Queue<Entry> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public HealthIssueJournal(int capacity, Path file, long maxFileBytes, int maxFiles, Logger logger) {
+        int size = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 16)) - 1) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.types = new byte[size];
+        this.descriptions = new String[size];
+        this.stamps = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            stamps.set(i, -1L);
+        }
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongAdder();
+        }
+        this.file = file;
+        this.maxFileBytes = Math.max(4096L, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.logger = logger;
+    }
+
+    public void record(HealthIssueType type, String description) {
+        Entry entry = new Entry(System.currentTimeMillis(), type, description != null ? description : "");
+        append(entry);
+        totals[type.ordinal()].increment();
+        pendingWrites.add(entry);
+    }
+
+    private void append(Entry entry) {
+        long seq = sequence.getAndIncrement();
+        int index = (int) (seq & mask);
+        stamps.set(index, -seq - 2);
+        VarHandle.releaseFence();
+        timestamps[index] = entry.epochMillis();
+        types[index] = (byte) entry.type().ordinal();
+        descriptions[index] = entry.description();
+        stamps.set(index, seq);
+    }
+
+    /**
+     * Entries newest first, optionally filtered by type (null for all) and
+     * limited to {@code [fromMillis, toMillis]}.
+     */
+    public List<Entry> query(HealthIssueType type, long fromMillis, long toMillis, int limit) {
+        List<Entry> result = new ArrayList<>();
+        long newest = sequence.get() - 1;
+        long oldest = Math.max(0L, newest - mask);
+        for (long seq = newest; seq >= oldest && result.size() < limit; seq--) {
+            int index = (int) (seq & mask);
+            if (stamps.get(index) != seq) {
+                continue;
+            }
+            long timestamp = timestamps[index];
+            byte ordinal = types[index];
+            String description = descriptions[index];
+            VarHandle.acquireFence();
+            if (stamps.get(index) != seq) {
+                continue; // overwritten while reading
+            }
+            if (timestamp < fromMillis) {
+                break;
+            }
+            if (timestamp > toMillis || (type != null && ordinal != type.ordinal())) {
+                continue;
+            }
+            result.add(new Entry(timestamp, TYPES[ordinal], description));
+        }
+        return result;
+    }
+
+    public List<Entry> recent(int limit) {
+        return query(null, Long.MIN_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Issue counts per hour for the last {@code hours} hours, oldest first.
+     * Only covers what is still in the ring.
+     */
+    public int[] countsPerHour(HealthIssueType type, int hours) {
+        int[] counts = new int[Math.max(1, hours)];
+        long now = System.currentTimeMillis();
+        long from = now - counts.length * 3_600_000L;
+        for (Entry entry : query(type, from, now, mask + 1)) {
+            int bucket = (int) ((entry.epochMillis() - from) / 3_600_000L);
+            counts[Math.min(counts.length - 1, Math.max(0, bucket))]++;
+        }
+        return counts;
+    }
+
+    /** Issues of this type recorded since the plugin started. */
+    public long getTotal(HealthIssueType type) {
+        return totals[type.ordinal()].sum();
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Appends queued entries to the journal file. Called off the main thread.
+     */
+    public synchronized void flush() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            rotateIfNeeded();
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                Entry entry;
+                while ((entry = pendingWrites.poll()) != null) {
+                    writer.write(Long.toString(entry.epochMillis()));
+                    writer.write('\t');
+                    writer.write(entry.type().name());
+                    writer.write('\t');
+                    writer.write(entry.description().replace('\n', ' ').replace('\t', ' '));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write health journal", e);
+        }
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        if (!Files.exists(file) || Files.size(file) < maxFileBytes) {
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    /**
+     * Refills the ring from the journal files, newest entries last.
+     */
+    public void load() {
+        Deque<Entry> tail = new ArrayDeque<>();
+        for (int i = maxFiles; i >= 0; i--) {
+            Path source = i == 0 ? file : rotated(i);
+            if (!Files.exists(source)) {
+                continue;
+            }
+            try {
+                for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+                    Entry entry = parse(line);
+                    if (entry == null) {
+                        continue;
+                    }
+                    tail.addLast(entry);
+                    if (tail.size() > mask + 1) {
+                        tail.removeFirst();
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to read health journal " + source.getFileName(), e);
+            }
+        }
+        tail.forEach(this::append);
+    }
+
+    private static Entry parse(String line) {
+        String[] parts = line.split("\t", 3);
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            return new Entry(Long.parseLong(parts[0]), HealthIssueType.valueOf(parts[1]),
+                    parts.length > 2 ? parts[2] : "");
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.thijs226.fahdonor.health;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -14,6 +16,7 @@ import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
 
 /**
  * Monitors the health of the Folding@home client and performs automatic
@@ -37,11 +40,21 @@ public class HealthMonitor {
     private final AtomicBoolean isHealthy = new AtomicBoolean(true);
     private final AtomicReference<String> lastHealthIssue = new AtomicReference<>("");
     
-    private final List<HealthIssue> recentIssues = new ArrayList<>();
+    private final HealthIssueJournal journal;
+    /** Slow slots already recorded, by slot. Locked: a recovery follow-up check can overlap the timer. */
+    private final Map<String, ProgressRateTracker.SlowProgress> reportedSlowSlots = new HashMap<>();
     
     public HealthMonitor(FAHResourceDonor plugin) {
         this.plugin = plugin;
         loadConfiguration();
+        var config = plugin.getConfig();
+        this.journal = new HealthIssueJournal(
+            config.getInt("health-monitoring.journal.capacity", 1024),
+            plugin.getDataFolder().toPath().resolve("health-journal.log"),
+            config.getLong("health-monitoring.journal.max-file-kb", 1024) * 1024L,
+            config.getInt("health-monitoring.journal.max-files", 3),
+            plugin.getLogger());
+        journal.load();
     }
     
     public void start() {
@@ -64,16 +77,21 @@ public class HealthMonitor {
             monitorTask.cancel();
             monitorTask = null;
         }
+        journal.flush();
     }
     
     private void performHealthCheck() {
         boolean healthy = true;
+        int issueCount = 0;
         StringBuilder issues = new StringBuilder();
+        ProfilingEvents.HealthCheck event = new ProfilingEvents.HealthCheck();
+        event.begin();
         
         try {
             // Check 1: FAH Client is running
             if (plugin.getFAHManager() != null && !plugin.getFAHManager().isFAHRunning()) {
                 healthy = false;
+                issueCount++;
                 issues.append("FAH client not running; ");
                 recordIssue(HealthIssueType.CLIENT_NOT_RUNNING, "FAH client process not detected");
             }
@@ -87,6 +105,7 @@ public class HealthMonitor {
                 
                 if (lastUpdate > 0 && (now - lastUpdate) > stalledThreshold) {
                     healthy = false;
+                    issueCount++;
                     issues.append(String.format("No updates for %d seconds; ", now - lastUpdate));
                     recordIssue(HealthIssueType.STALLED_ACTIVITY, 
                         String.format("No activity for %d seconds", now - lastUpdate));
@@ -97,6 +116,7 @@ public class HealthMonitor {
                 
                 if (consecutive >= 3) {
                     healthy = false;
+                    issueCount++;
                     issues.append(String.format("%d consecutive failures; ", consecutive));
                     recordIssue(HealthIssueType.EXCESSIVE_FAILURES, 
                         String.format("%d consecutive work unit failures", consecutive));
@@ -105,12 +125,35 @@ public class HealthMonitor {
                 // Check 4: Auto-restart suppression
                 if (plugin.getFAHClient().isAutoRestartSuppressed()) {
                     healthy = false;
+                    issueCount++;
                     issues.append("Auto-restart suppressed; ");
                     recordIssue(HealthIssueType.AUTO_RESTART_SUPPRESSED, 
                         "Automatic restart has been suppressed due to repeated failures");
                 }
             }
             
+            // Check 5: Work units progressing far slower than their project baseline.
+            // Logged as issues but not treated as unhealthy: restarting FAH does not fix contention.
+            // Only a slot that is newly slow or has a new frame since the last check is recorded again.
+            ProgressRateTracker progressTracker = plugin.getProgressRateTracker();
+            List<ProgressRateTracker.SlowProgress> slowSlots = progressTracker != null
+                ? progressTracker.getSlowSlots() : List.of();
+            synchronized (reportedSlowSlots) {
+                Map<String, ProgressRateTracker.SlowProgress> current = new HashMap<>();
+                for (ProgressRateTracker.SlowProgress slow : slowSlots) {
+                    issueCount++;
+                    current.put(slow.slot(), slow);
+                    if (slow.equals(reportedSlowSlots.get(slow.slot()))) {
+                        continue;
+                    }
+                    recordIssue(HealthIssueType.SLOW_PROGRESS, String.format(
+                        "%s project %s at %.1fx usual frame time (%.0f vs %.0f core-s/%%): %s",
+                        slow.slot(), slow.project(), slow.ratio(), slow.observedCost(), slow.expectedCost(), slow.cause()));
+                }
+                reportedSlowSlots.clear();
+                reportedSlowSlots.putAll(current);
+            }
+            
             // Update health status
             if (healthy) {
                 handleHealthyState();
@@ -121,7 +164,13 @@ public class HealthMonitor {
         } catch (RuntimeException e) {
             plugin.getLogger().log(Level.WARNING, "Error during health check", e);
             recordIssue(HealthIssueType.HEALTH_CHECK_ERROR, e.getMessage());
+            healthy = false;
+            issueCount++;
         }
+        event.healthy = healthy;
+        event.issues = issueCount;
+        event.commit();
+        journal.flush();
     }
     
     private void handleHealthyState() {
@@ -227,14 +276,7 @@ public class HealthMonitor {
     }
     
     private void recordIssue(HealthIssueType type, String description) {
-        HealthIssue issue = new HealthIssue(type, description);
-        synchronized (recentIssues) {
-            recentIssues.add(issue);
-            // Keep only last 50 issues
-            while (recentIssues.size() > 50) {
-                recentIssues.remove(0);
-            }
-        }
+        journal.record(type, description);
     }
     
     public boolean isHealthy() {
@@ -253,10 +295,21 @@ public class HealthMonitor {
         return recoveryAttempts.get();
     }
     
+    /**
+     * The last 50 issues, oldest first.
+     */
     public List<HealthIssue> getRecentIssues() {
-        synchronized (recentIssues) {
-            return new ArrayList<>(recentIssues);
+        List<HealthIssueJournal.Entry> entries = journal.recent(50);
+        List<HealthIssue> issues = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            HealthIssueJournal.Entry entry = entries.get(i);
+            issues.add(new HealthIssue(entry.type(), entry.description(), Instant.ofEpochMilli(entry.epochMillis())));
         }
+        return issues;
+    }
+    
+    public HealthIssueJournal getJournal() {
+        return journal;
     }
     
     public String getHealthReport() {
@@ -324,6 +377,7 @@ public class HealthMonitor {
         STALLED_ACTIVITY,
         EXCESSIVE_FAILURES,
         AUTO_RESTART_SUPPRESSED,
+        SLOW_PROGRESS,
         HEALTH_CHECK_ERROR,
         OTHER
     }
@@ -334,9 +388,13 @@ public class HealthMonitor {
         private final Instant timestamp;
         
         public HealthIssue(HealthIssueType type, String description) {
+            this(type, description, Instant.now());
+        }
+        
+        public HealthIssue(HealthIssueType type, String description, Instant timestamp) {
             this.type = type;
             this.description = description;
-            this.timestamp = Instant.now();
+            this.timestamp = timestamp;
         }
         
         public HealthIssueType getType() {
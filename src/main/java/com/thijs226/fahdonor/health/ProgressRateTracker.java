@@ -0,0 +1,336 @@
+package com.thijs226.fahdonor.health;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClient.CompletedWorkUnit;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.PlayerMonitor;
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
+import com.thijs226.fahdonor.environment.HostPressureMonitor;
+import com.thijs226.fahdonor.metrics.PerformanceMetrics;
+import com.thijs226.fahdonor.storage.AutosavedDataFile;
+
+/**
+ * Catches work units that keep progressing but far slower than usual. Each
+ * progress line yields a frame cost in core-seconds per percent, so planned
+ * core changes do not look like slowdowns. Costs are compared against a
+ * per-project EWMA baseline and deviation; a slot is slow after
+ * {@code confirm-frames} consecutive frames above both limits.
+ *
+ * <p>When the slowdown is attributed to CPU contention (host pressure or FAH
+ * getting much less CPU than it was given), FAH is stepped down a core at a
+ * time so its threads stop competing with each other and the server. The
+ * throttle is released once no slot is slow from contention any more,
+ * including when slots go away because FAH paused or finished a unit.
+ *
+ * <p>Project baselines are written to {@code progress-baselines.yml} so a
+ * restart does not have to relearn them.
+ */
+public class ProgressRateTracker implements FAHClient.ProgressListener, FAHClient.WorkUnitListener, CoreBudgetAdjuster {
+
+    private static final Pattern PROJECT_NUMBER = Pattern.compile("(\\d+)");
+    private static final String CONFIG_PATH = "health-monitoring.slow-progress.";
+    /** Gaps longer than this (client restarts, log gaps) are not frames. */
+    private static final long MAX_FRAME_SECONDS = 6L * 3600L;
+
+    /** EWMA of frame cost for one project. */
+    private static final class Baseline {
+        double mean;
+        double variance;
+        long samples;
+
+        void add(double cost, double alpha) {
+            if (samples == 0) {
+                mean = cost;
+                variance = 0.0;
+            } else {
+                double diff = cost - mean;
+                double increment = alpha * diff;
+                mean += increment;
+                variance = (1.0 - alpha) * (variance + diff * increment);
+            }
+            samples++;
+        }
+
+        double deviation() {
+            return Math.sqrt(Math.max(variance, 0.0));
+        }
+    }
+
+    private static final class SlotState {
+        final String project;
+        int lastPercent;
+        long lastTimestamp;
+        int lastCores;
+        volatile int slowStreak;
+        volatile double lastCost;
+        volatile double lastRatio;
+        volatile String cause = "";
+        volatile boolean contention;
+
+        SlotState(String project, int percent, long timestamp, int cores) {
+            this.project = project;
+            this.lastPercent = percent;
+            this.lastTimestamp = timestamp;
+            this.lastCores = cores;
+        }
+    }
+
+    /**
+     * A slot currently running slower than its project baseline.
+     * Costs are core-seconds per percent of progress.
+     */
+    public record SlowProgress(String slot, String project, double observedCost, double expectedCost,
+                               double ratio, String cause, boolean contention) {}
+
+    private final FAHResourceDonor plugin;
+    private final Map<String, Baseline> baselines = new ConcurrentHashMap<>();
+    private final Map<String, SlotState> slots = new ConcurrentHashMap<>();
+    private final AutosavedDataFile baselinesFile;
+    private volatile int throttleSteps = 0;
+
+    public ProgressRateTracker(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        this.baselinesFile = new AutosavedDataFile(plugin, "progress-baselines.yml", "progress baselines",
+            this::writeBaselines);
+        loadBaselines();
+    }
+
+    @Override
+    public void onProgress(String slot, String projectSummary, int percent, long timestampSeconds, int cores) {
+        FileConfiguration config = plugin.getConfig();
+        if (!config.getBoolean(CONFIG_PATH + "enabled", true)) {
+            return;
+        }
+        String project = projectNumber(projectSummary);
+        SlotState state = slots.get(slot);
+        if (state == null || !state.project.equals(project) || percent < state.lastPercent
+                || timestampSeconds < state.lastTimestamp) {
+            slots.put(slot, new SlotState(project, percent, timestampSeconds, cores));
+            return;
+        }
+        if (percent == state.lastPercent) {
+            return;
+        }
+
+        long elapsed = timestampSeconds - state.lastTimestamp;
+        int frames = percent - state.lastPercent;
+        boolean comparable = !project.isEmpty() && cores > 0 && cores == state.lastCores
+                && elapsed > 0 && elapsed <= MAX_FRAME_SECONDS;
+        state.lastPercent = percent;
+        state.lastTimestamp = timestampSeconds;
+        state.lastCores = cores;
+        if (!comparable) {
+            return;
+        }
+
+        double cost = (double) elapsed * cores / frames;
+        double alpha = clamp(config.getDouble(CONFIG_PATH + "alpha", 0.1), 0.01, 1.0);
+        int minSamples = Math.max(1, config.getInt(CONFIG_PATH + "min-samples", 8));
+        double slowRatio = Math.max(1.0, config.getDouble(CONFIG_PATH + "slow-ratio", 1.5));
+        double minDeviations = Math.max(0.0, config.getDouble(CONFIG_PATH + "min-deviations", 2.0));
+
+        Baseline baseline = baselines.computeIfAbsent(project, k -> new Baseline());
+        boolean slow = false;
+        synchronized (baseline) {
+            if (baseline.samples >= minSamples && baseline.mean > 0) {
+                double ratio = cost / baseline.mean;
+                double deviations = baseline.deviation() > 0
+                        ? (cost - baseline.mean) / baseline.deviation()
+                        : (cost > baseline.mean ? Double.POSITIVE_INFINITY : 0.0);
+                slow = ratio >= slowRatio && deviations >= minDeviations;
+                state.lastRatio = ratio;
+            }
+            // A slow stretch should not become the new normal, so it only nudges the baseline
+            baseline.add(cost, slow ? alpha / 4.0 : alpha);
+        }
+        baselinesFile.markDirty();
+        state.lastCost = cost;
+
+        if (slow) {
+            state.slowStreak++;
+            attribute(state, cores);
+            int confirmFrames = Math.max(1, config.getInt(CONFIG_PATH + "confirm-frames", 3));
+            if (state.slowStreak == confirmFrames) {
+                plugin.getLogger().warning(() -> String.format(
+                        "Slow progress on %s (project %s): %.1fx the usual frame time, %s",
+                        slot, project, state.lastRatio, state.cause));
+            }
+            if (state.slowStreak >= confirmFrames && state.contention) {
+                stepThrottle(1);
+            }
+        } else {
+            state.slowStreak = 0;
+            releaseIfRecovered();
+        }
+    }
+
+    @Override
+    public void onPaused() {
+        // Time spent paused is not frame time
+        slots.clear();
+        releaseIfNoContention();
+    }
+
+    @Override
+    public void onWorkUnitCompleted(CompletedWorkUnit unit) {
+        slots.remove(unit.slot());
+        releaseIfNoContention();
+    }
+
+    private void attribute(SlotState state, int cores) {
+        HostPressureMonitor hostPressure = plugin.getHostPressureMonitor();
+        if (hostPressure != null && hostPressure.getThrottleSteps() > 0) {
+            state.cause = "host CPU is contended";
+            state.contention = true;
+            return;
+        }
+        PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+        double cpuPercent = metrics != null ? metrics.getCurrentCpuUsage() : 0.0;
+        double share = plugin.getConfig().getDouble(CONFIG_PATH + "starved-cpu-share", 0.7);
+        if (cpuPercent > 0 && cpuPercent < cores * 100.0 * share) {
+            state.cause = String.format("FAH is getting %.0f%% CPU for %d cores", cpuPercent, cores);
+            state.contention = true;
+            return;
+        }
+        state.cause = "work unit is slower than the project baseline";
+        state.contention = false;
+    }
+
+    /**
+     * Eases the throttle by one step per normal frame once no slot is slow
+     * because of contention any more.
+     */
+    private void releaseIfRecovered() {
+        if (throttleSteps > 0 && getSlowSlots().stream().noneMatch(SlowProgress::contention)) {
+            stepThrottle(-1);
+        }
+    }
+
+    /**
+     * Drops the whole throttle once the slots that caused it are gone; there
+     * are no more frames coming from them to ease it step by step.
+     */
+    private void releaseIfNoContention() {
+        if (throttleSteps > 0 && getSlowSlots().stream().noneMatch(SlowProgress::contention)) {
+            setThrottle(0);
+        }
+    }
+
+    private synchronized void stepThrottle(int delta) {
+        FileConfiguration config = plugin.getConfig();
+        if (delta > 0 && !config.getBoolean(CONFIG_PATH + "throttle.enabled", true)) {
+            return;
+        }
+        int maxSteps = Math.max(0, config.getInt(CONFIG_PATH + "throttle.max-steps", 2));
+        setThrottle(Math.max(0, Math.min(maxSteps, throttleSteps + delta)));
+    }
+
+    private synchronized void setThrottle(int next) {
+        int previous = throttleSteps;
+        if (next == previous) {
+            return;
+        }
+        throttleSteps = next;
+        plugin.getLogger().info(() -> String.format("Slow-progress throttle step %d -> %d", previous, next));
+        PlayerMonitor monitor = plugin.getPlayerMonitor();
+        if (monitor != null) {
+            monitor.requestCheck();
+        }
+    }
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        int steps = throttleSteps;
+        if (steps == 0 || !plugin.getConfig().getBoolean(CONFIG_PATH + "enabled", true)) {
+            return cores;
+        }
+        int perStep = Math.max(1, plugin.getConfig().getInt(CONFIG_PATH + "throttle.cores-per-step", 1));
+        return Math.max(0, cores - steps * perStep);
+    }
+
+    @Override
+    public String getName() {
+        return "slow work unit progress";
+    }
+
+    /**
+     * Slots whose last {@code confirm-frames} frames were all slow.
+     */
+    public List<SlowProgress> getSlowSlots() {
+        int confirmFrames = Math.max(1, plugin.getConfig().getInt(CONFIG_PATH + "confirm-frames", 3));
+        List<SlowProgress> result = new ArrayList<>();
+        for (Map.Entry<String, SlotState> entry : slots.entrySet()) {
+            SlotState state = entry.getValue();
+            if (state.slowStreak < confirmFrames) {
+                continue;
+            }
+            Baseline baseline = baselines.get(state.project);
+            double expected;
+            if (baseline == null) {
+                expected = 0.0;
+            } else {
+                synchronized (baseline) {
+                    expected = baseline.mean;
+                }
+            }
+            result.add(new SlowProgress(entry.getKey(), state.project, state.lastCost, expected,
+                    state.lastRatio, state.cause, state.contention));
+        }
+        return result;
+    }
+
+    public int getThrottleSteps() {
+        return throttleSteps;
+    }
+
+    public AutosavedDataFile getBaselinesFile() {
+        return baselinesFile;
+    }
+
+    private static String projectNumber(String summary) {
+        if (summary == null) {
+            return "";
+        }
+        Matcher matcher = PROJECT_NUMBER.matcher(summary);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private void loadBaselines() {
+        ConfigurationSection section = baselinesFile.load();
+        for (String project : section.getKeys(false)) {
+            Baseline baseline = new Baseline();
+            baseline.mean = section.getDouble(project + ".mean", 0.0);
+            baseline.variance = section.getDouble(project + ".variance", 0.0);
+            baseline.samples = section.getLong(project + ".samples", 0L);
+            if (baseline.mean > 0 && baseline.samples > 0) {
+                baselines.put(project, baseline);
+            }
+        }
+    }
+
+    private void writeBaselines(YamlConfiguration data) {
+        for (Map.Entry<String, Baseline> entry : baselines.entrySet()) {
+            Baseline baseline = entry.getValue();
+            synchronized (baseline) {
+                data.set(entry.getKey() + ".mean", baseline.mean);
+                data.set(entry.getKey() + ".variance", baseline.variance);
+                data.set(entry.getKey() + ".samples", baseline.samples);
+            }
+        }
+    }
+}
@@ -1,32 +1,64 @@
 package com.thijs226.fahdonor.leaderboard;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.logging.Level;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.leaderboard.LeaderboardPageCache.PageKey;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.PlayerRecord;
+import com.thijs226.fahdonor.storage.Table;
 
 /**
  * Manages leaderboards for tracking top contributors by various metrics.
  */
-public class LeaderboardManager {
+public class LeaderboardManager implements PersistenceScheduler.DirtySource {
+    
+    private static final String LEGACY_DATA_PATH = "data.leaderboard";
     
     private final FAHResourceDonor plugin;
+    private final ContributionStore store;
     private final Map<UUID, LeaderboardEntry> entries = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<LeaderboardType, RankIndex> indexes = new EnumMap<>(LeaderboardType.class);
+    private final LeaderboardPageCache pageCache;
+    private final WindowedLeaderboards windows;
+    private BukkitTask broadcastTask;
     
     public LeaderboardManager(FAHResourceDonor plugin) {
         this.plugin = plugin;
+        this.store = plugin.getContributionStore();
+        for (LeaderboardType type : LeaderboardType.values()) {
+            indexes.put(type, new RankIndex());
+        }
+        this.pageCache = new LeaderboardPageCache(plugin, this::renderPage, this::getEntryCount);
+        this.windows = plugin.getConfig().getBoolean("leaderboard.windows.enabled", true)
+            ? new WindowedLeaderboards(plugin) : null;
         loadLeaderboard();
     }
     
+    /**
+     * Running totals of one player. Changed on the main thread and read by
+     * the async page rebuild and the autosave, so every accessor holds the
+     * entry's lock; hold it yourself to read several totals together.
+     */
     public static class LeaderboardEntry {
         private final UUID playerId;
         private String playerName;
@@ -48,153 +80,225 @@ public class LeaderboardManager {
             return playerId;
         }
         
-        public String getPlayerName() {
+        public synchronized String getPlayerName() {
             return playerName;
         }
         
-        public void setPlayerName(String name) {
+        public synchronized void setPlayerName(String name) {
             this.playerName = name;
         }
         
-        public long getTotalPoints() {
+        public synchronized long getTotalPoints() {
             return totalPoints;
         }
         
-        public void addPoints(long points) {
+        public synchronized void addPoints(long points) {
             this.totalPoints += points;
             this.lastUpdateTime = System.currentTimeMillis();
         }
         
-        public long getTotalTimeSeconds() {
+        public synchronized long getTotalTimeSeconds() {
             return totalTimeSeconds;
         }
         
-        public void addTime(long seconds) {
+        public synchronized void addTime(long seconds) {
             this.totalTimeSeconds += seconds;
             this.lastUpdateTime = System.currentTimeMillis();
         }
         
-        public long getWorkUnitsCompleted() {
+        public synchronized long getWorkUnitsCompleted() {
             return workUnitsCompleted;
         }
         
-        public void incrementWorkUnits() {
+        public synchronized void incrementWorkUnits() {
             this.workUnitsCompleted++;
             this.lastUpdateTime = System.currentTimeMillis();
         }
         
-        public long getLastUpdateTime() {
+        public synchronized void addWorkUnits(long units) {
+            this.workUnitsCompleted += units;
+            this.lastUpdateTime = System.currentTimeMillis();
+        }
+        
+        public synchronized long getLastUpdateTime() {
             return lastUpdateTime;
         }
         
-        public double getPointsPerHour() {
+        public synchronized double getPointsPerHour() {
             if (totalTimeSeconds == 0) return 0;
             return (totalPoints * 3600.0) / totalTimeSeconds;
         }
     }
     
     public LeaderboardEntry getOrCreateEntry(UUID playerId, String playerName) {
-        return entries.computeIfAbsent(playerId, k -> new LeaderboardEntry(playerId, playerName));
+        return entries.computeIfAbsent(playerId, k -> {
+            LeaderboardEntry created = new LeaderboardEntry(playerId, playerName);
+            reindex(created);
+            return created;
+        });
+    }
+    
+    /**
+     * Moves the entry to its current position in every rank index. Must be
+     * called after each change to its totals. Cached pages are only
+     * invalidated when the entry was or is now within their visible depth.
+     */
+    private void reindex(LeaderboardEntry entry) {
+        UUID playerId = entry.getPlayerId();
+        for (LeaderboardType type : LeaderboardType.values()) {
+            RankIndex index = indexes.get(type);
+            int depth = pageCache.getVisibleDepth(type);
+            int before = depth > 0 ? index.rank(playerId) : -1;
+            if (type == LeaderboardType.EFFICIENCY && entry.getTotalTimeSeconds() <= 0) {
+                index.remove(playerId);
+            } else {
+                index.update(playerId, type.scoreOf(entry));
+            }
+            if (depth > 0) {
+                int after = index.rank(playerId);
+                if ((before > 0 && before <= depth) || (after > 0 && after <= depth)) {
+                    pageCache.invalidate(type);
+                }
+            }
+        }
     }
     
     public void recordPoints(UUID playerId, String playerName, long points) {
         LeaderboardEntry entry = getOrCreateEntry(playerId, playerName);
         entry.addPoints(points);
+        reindex(entry);
+        markDirty(playerId);
+        if (windows != null) {
+            windows.recordPoints(playerId, playerName, points);
+        }
     }
     
     public void recordTime(UUID playerId, String playerName, long seconds) {
         LeaderboardEntry entry = getOrCreateEntry(playerId, playerName);
         entry.addTime(seconds);
+        reindex(entry);
+        markDirty(playerId);
+        if (windows != null) {
+            windows.recordTime(playerId, playerName, seconds);
+        }
     }
     
     public void recordWorkUnit(UUID playerId, String playerName) {
         LeaderboardEntry entry = getOrCreateEntry(playerId, playerName);
         entry.incrementWorkUnits();
+        reindex(entry);
+        markDirty(playerId);
+        if (windows != null) {
+            windows.recordWorkUnit(playerId, playerName);
+        }
+    }
+    
+    /**
+     * Adds a batch of attributed totals with a single reindex, instead of
+     * one per metric.
+     */
+    public void recordAttributed(UUID playerId, String playerName, long points, long seconds, long units) {
+        LeaderboardEntry entry = getOrCreateEntry(playerId, playerName);
+        entry.setPlayerName(playerName);
+        entry.addPoints(points);
+        entry.addTime(seconds);
+        entry.addWorkUnits(units);
+        reindex(entry);
+        markDirty(playerId);
+        if (windows != null) {
+            windows.record(playerId, playerName, points, seconds, (int) units);
+        }
     }
     
     public List<LeaderboardEntry> getTopByPoints(int limit) {
-        return entries.values().stream()
-            .sorted(Comparator.comparingLong(LeaderboardEntry::getTotalPoints).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        return getRange(LeaderboardType.POINTS, 0, limit);
     }
     
     public List<LeaderboardEntry> getTopByTime(int limit) {
-        return entries.values().stream()
-            .sorted(Comparator.comparingLong(LeaderboardEntry::getTotalTimeSeconds).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        return getRange(LeaderboardType.TIME, 0, limit);
     }
     
     public List<LeaderboardEntry> getTopByWorkUnits(int limit) {
-        return entries.values().stream()
-            .sorted(Comparator.comparingLong(LeaderboardEntry::getWorkUnitsCompleted).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        return getRange(LeaderboardType.WORK_UNITS, 0, limit);
     }
     
     public List<LeaderboardEntry> getTopByEfficiency(int limit) {
-        return entries.values().stream()
-            .filter(e -> e.getTotalTimeSeconds() > 0)
-            .sorted(Comparator.comparingDouble(LeaderboardEntry::getPointsPerHour).reversed())
-            .limit(limit)
-            .collect(Collectors.toList());
+        return getRange(LeaderboardType.EFFICIENCY, 0, limit);
+    }
+    
+    /**
+     * Entries at positions {@code offset} (0-based) to {@code offset + limit}
+     * of a leaderboard, read from its rank index.
+     */
+    public List<LeaderboardEntry> getRange(LeaderboardType type, int offset, int limit) {
+        List<UUID> ids = indexes.get(type).range(offset, limit);
+        List<LeaderboardEntry> page = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            LeaderboardEntry entry = entries.get(id);
+            if (entry != null) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+    
+    public int getEntryCount(LeaderboardType type) {
+        return indexes.get(type).size();
     }
     
     public String formatLeaderboard(LeaderboardType type, int limit) {
+        return formatPage(type, limit, 0);
+    }
+    
+    /**
+     * Rendered page {@code page} (0-based) of {@code limit} entries, served
+     * from the page cache.
+     */
+    public String formatPage(LeaderboardType type, int limit, int page) {
+        return pageCache.get(new PageKey(type, Math.max(1, limit), Math.max(0, page)));
+    }
+    
+    /** One line of a rendered page, copied from its entry. */
+    private record RenderedRow(String name, double score) {}
+    
+    private String renderPage(PageKey key) {
+        LeaderboardType type = key.type();
+        ProfilingEvents.LeaderboardFormat event = new ProfilingEvents.LeaderboardFormat();
+        event.begin();
         StringBuilder sb = new StringBuilder();
-        sb.append(ChatColor.GOLD).append("=== ").append(type.getDisplayName())
-          .append(" Leaderboard ===\n");
+        sb.append(ChatColor.GOLD).append("=== ").append(type.getDisplayName()).append(" Leaderboard");
+        if (key.page() > 0) {
+            sb.append(" (page ").append(key.page() + 1).append(')');
+        }
+        sb.append(" ===\n");
         
-        List<LeaderboardEntry> topEntries;
-        switch (type) {
-            case POINTS:
-                topEntries = getTopByPoints(limit);
-                break;
-            case TIME:
-                topEntries = getTopByTime(limit);
-                break;
-            case WORK_UNITS:
-                topEntries = getTopByWorkUnits(limit);
-                break;
-            case EFFICIENCY:
-                topEntries = getTopByEfficiency(limit);
-                break;
-            default:
-                topEntries = Collections.emptyList();
+        int offset = key.page() * key.limit();
+        List<RenderedRow> rows = new ArrayList<>(key.limit());
+        for (LeaderboardEntry entry : getRange(type, offset, key.limit())) {
+            // Runs on the async rebuild; copy the name and score under the entry's lock
+            synchronized (entry) {
+                rows.add(new RenderedRow(entry.getPlayerName(), type.scoreOf(entry)));
+            }
         }
         
-        int rank = 1;
-        for (LeaderboardEntry entry : topEntries) {
+        int rank = offset + 1;
+        for (RenderedRow row : rows) {
             sb.append(ChatColor.YELLOW).append(rank).append(". ")
-              .append(ChatColor.WHITE).append(entry.getPlayerName())
-              .append(ChatColor.GRAY).append(" - ");
-            
-            switch (type) {
-                case POINTS:
-                    sb.append(ChatColor.GREEN).append(String.format("%,d points", entry.getTotalPoints()));
-                    break;
-                case TIME:
-                    long hours = entry.getTotalTimeSeconds() / 3600;
-                    long minutes = (entry.getTotalTimeSeconds() % 3600) / 60;
-                    sb.append(ChatColor.GREEN).append(String.format("%dh %dm", hours, minutes));
-                    break;
-                case WORK_UNITS:
-                    sb.append(ChatColor.GREEN).append(String.format("%d units", entry.getWorkUnitsCompleted()));
-                    break;
-                case EFFICIENCY:
-                    sb.append(ChatColor.GREEN).append(String.format("%.0f pts/hr", entry.getPointsPerHour()));
-                    break;
-            }
-            
-            sb.append("\n");
+              .append(ChatColor.WHITE).append(row.name())
+              .append(ChatColor.GRAY).append(" - ")
+              .append(ChatColor.GREEN).append(type.formatValue(row.score()))
+              .append("\n");
             rank++;
         }
         
-        if (topEntries.isEmpty()) {
-            sb.append(ChatColor.GRAY).append("No contributors yet!\n");
+        if (rows.isEmpty()) {
+            sb.append(ChatColor.GRAY).append(key.page() == 0 ? "No contributors yet!\n" : "No entries on this page.\n");
         }
         
+        event.leaderboard = type.name();
+        event.entries = rows.size();
+        event.outputCharacters = sb.length();
+        event.commit();
         return sb.toString();
     }
     
@@ -209,45 +313,132 @@ public class LeaderboardManager {
         }
     }
     
+    /**
+     * Broadcasts the configured leaderboard every
+     * {@code leaderboard.auto-broadcast.interval-hours}.
+     */
+    public void startAutoBroadcast() {
+        stopAutoBroadcast();
+        long intervalTicks = Math.max(1L, plugin.getConfig().getLong("leaderboard.auto-broadcast.interval-hours", 6)) * 60L * 60L * 20L;
+        LeaderboardType type = LeaderboardType.fromString(plugin.getConfig().getString("leaderboard.auto-broadcast.type", "points"));
+        int limit = Math.max(1, plugin.getConfig().getInt("leaderboard.auto-broadcast.limit", 10));
+        broadcastTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(OverheadProfiler.Subsystem.LEADERBOARD, () -> {
+                if (!Bukkit.getOnlinePlayers().isEmpty()) {
+                    broadcastLeaderboard(type, limit);
+                }
+            }), intervalTicks, intervalTicks);
+    }
+    
+    public void stopAutoBroadcast() {
+        if (broadcastTask != null) {
+            broadcastTask.cancel();
+            broadcastTask = null;
+        }
+    }
+    
+    public LeaderboardPageCache getPageCache() {
+        return pageCache;
+    }
+    
+    /**
+     * Daily, weekly and monthly leaderboards, or null when
+     * {@code leaderboard.windows.enabled} is off.
+     */
+    public WindowedLeaderboards getWindows() {
+        return windows;
+    }
+    
+    /**
+     * 1-based rank of the player, or -1 when they are not on this
+     * leaderboard. O(log n).
+     */
     public int getPlayerRank(UUID playerId, LeaderboardType type) {
-        List<LeaderboardEntry> sorted;
-        switch (type) {
-            case POINTS:
-                sorted = getTopByPoints(Integer.MAX_VALUE);
-                break;
-            case TIME:
-                sorted = getTopByTime(Integer.MAX_VALUE);
-                break;
-            case WORK_UNITS:
-                sorted = getTopByWorkUnits(Integer.MAX_VALUE);
-                break;
-            case EFFICIENCY:
-                sorted = getTopByEfficiency(Integer.MAX_VALUE);
-                break;
-            default:
-                return -1;
+        return indexes.get(type).rank(playerId);
+    }
+    
+    private void markDirty(UUID playerId) {
+        if (dirty.add(playerId)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
         }
-        
-        for (int i = 0; i < sorted.size(); i++) {
-            if (sorted.get(i).getPlayerId().equals(playerId)) {
-                return i + 1;
+    }
+    
+    @Override
+    public String getPersistenceName() {
+        return "leaderboard";
+    }
+    
+    /**
+     * Hands entries changed since the last call to the store. Runs on the
+     * autosave thread.
+     */
+    @Override
+    public int flushDirty() {
+        int written = 0;
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext();) {
+            UUID playerId = it.next();
+            it.remove();
+            LeaderboardEntry entry = entries.get(playerId);
+            if (entry != null) {
+                persist(entry);
+                written++;
             }
         }
-        return -1;
+        return written;
+    }
+    
+    private void persist(LeaderboardEntry entry) {
+        store.upsert(Table.LEADERBOARD, toRecord(entry));
+    }
+    
+    private static PlayerRecord toRecord(LeaderboardEntry entry) {
+        synchronized (entry) {
+            return new PlayerRecord(entry.getPlayerId(), entry.getPlayerName(), entry.getTotalPoints(),
+                entry.getTotalTimeSeconds(), entry.getWorkUnitsCompleted(), entry.getLastUpdateTime());
+        }
+    }
+    
+    private static LeaderboardEntry toEntry(PlayerRecord record) {
+        LeaderboardEntry entry = new LeaderboardEntry(record.playerId(), record.name().isEmpty() ? "Unknown" : record.name());
+        entry.totalPoints = record.points();
+        entry.totalTimeSeconds = record.timeSeconds();
+        entry.workUnitsCompleted = record.workUnits();
+        entry.lastUpdateTime = record.updatedAtMillis();
+        return entry;
     }
     
     private void loadLeaderboard() {
-        // Load from config
-        var section = plugin.getConfig().getConfigurationSection("data.leaderboard");
-        if (section == null) {
+        for (PlayerRecord record : store.loadAll(Table.LEADERBOARD).values()) {
+            LeaderboardEntry entry = toEntry(record);
+            entries.put(record.playerId(), entry);
+            reindex(entry);
+        }
+        migrateLegacyLeaderboard();
+    }
+    
+    /**
+     * Moves entries saved by older versions under {@code data.leaderboard}
+     * into the store and drops them from config.yml.
+     */
+    private void migrateLegacyLeaderboard() {
+        var section = plugin.getConfig().getConfigurationSection(LEGACY_DATA_PATH);
+        if (section == null || section.getKeys(false).isEmpty()) {
+            return;
+        }
+        if (!store.isOpen()) {
+            plugin.getLogger().warning("Contribution store is not open; keeping data.leaderboard in config.yml");
             return;
         }
         
+        int migrated = 0;
         for (String uuidStr : section.getKeys(false)) {
             try {
                 UUID uuid = UUID.fromString(uuidStr);
                 var playerData = section.getConfigurationSection(uuidStr);
-                if (playerData == null) continue;
+                if (playerData == null || entries.containsKey(uuid)) continue;
                 
                 String name = playerData.getString("name", "Unknown");
                 LeaderboardEntry entry = new LeaderboardEntry(uuid, name);
@@ -257,28 +448,34 @@ public class LeaderboardManager {
                 entry.lastUpdateTime = playerData.getLong("lastUpdate", System.currentTimeMillis());
                 
                 entries.put(uuid, entry);
+                reindex(entry);
+                persist(entry);
+                migrated++;
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("Invalid UUID in leaderboard data: " + uuidStr);
             }
         }
-    }
-    
-    public void saveLeaderboard() {
-        var section = plugin.getConfig().createSection("data.leaderboard");
         
-        for (Map.Entry<UUID, LeaderboardEntry> entry : entries.entrySet()) {
-            String uuidStr = entry.getKey().toString();
-            LeaderboardEntry lbEntry = entry.getValue();
-            
-            var playerData = section.createSection(uuidStr);
-            playerData.set("name", lbEntry.getPlayerName());
-            playerData.set("points", lbEntry.getTotalPoints());
-            playerData.set("time", lbEntry.getTotalTimeSeconds());
-            playerData.set("units", lbEntry.getWorkUnitsCompleted());
-            playerData.set("lastUpdate", lbEntry.getLastUpdateTime());
+        // Only drop the old copy once the store has it on disk
+        try {
+            store.flush().join();
+        } catch (CompletionException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write migrated leaderboard entries; keeping data.leaderboard in config.yml", e.getCause());
+            return;
         }
-        
+        plugin.getConfig().set(LEGACY_DATA_PATH, null);
         plugin.saveConfig();
+        final int count = migrated;
+        plugin.getLogger().info(() -> String.format("Migrated %d leaderboard entries from config.yml to the contribution store", count));
+    }
+    
+    /**
+     * Writes pending changes right away instead of waiting for the next
+     * autosave.
+     */
+    public void saveLeaderboard() {
+        flushDirty();
+        store.flush();
     }
     
     public enum LeaderboardType {
@@ -296,5 +493,41 @@ public class LeaderboardManager {
         public String getDisplayName() {
             return displayName;
         }
+        
+        /**
+         * Parses config and command names such as "points" or "workunits".
+         * Unknown names fall back to points.
+         */
+        public static LeaderboardType fromString(String name) {
+            if (name == null) {
+                return POINTS;
+            }
+            return switch (name.toLowerCase(Locale.ROOT).replace("-", "").replace("_", "")) {
+                case "time" -> TIME;
+                case "workunits", "units", "wu" -> WORK_UNITS;
+                case "efficiency", "pph" -> EFFICIENCY;
+                default -> POINTS;
+            };
+        }
+        
+        /** Value this leaderboard ranks by, higher is better. */
+        public double scoreOf(LeaderboardEntry entry) {
+            return switch (this) {
+                case POINTS -> entry.getTotalPoints();
+                case TIME -> entry.getTotalTimeSeconds();
+                case WORK_UNITS -> entry.getWorkUnitsCompleted();
+                case EFFICIENCY -> entry.getPointsPerHour();
+            };
+        }
+        
+        /** A score of this leaderboard as shown in chat, e.g. "1,234 points". */
+        public String formatValue(double score) {
+            return switch (this) {
+                case POINTS -> String.format("%,d points", (long) score);
+                case TIME -> String.format("%dh %dm", (long) score / 3600, ((long) score % 3600) / 60);
+                case WORK_UNITS -> String.format("%d units", (long) score);
+                case EFFICIENCY -> String.format("%.0f pts/hr", score);
+            };
+        }
     }
 }
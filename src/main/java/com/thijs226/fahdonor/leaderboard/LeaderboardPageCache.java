@@ -0,0 +1,199 @@
+package com.thijs226.fahdonor.leaderboard;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager.LeaderboardType;
+
+/**
+ * Rendered leaderboard pages keyed by (type, limit, page). Readers get the
+ * last rendered String instead of rendering again. When a score change
+ * reaches the visible part of a leaderboard, its version is bumped and all
+ * of its cached pages are re-rendered once on an async task; a render only
+ * replaces a page rendered from an older version. At most
+ * {@code MAX_PAGES} pages are kept; the least recently read one goes first.
+ */
+public class LeaderboardPageCache {
+
+    public record PageKey(LeaderboardType type, int limit, int page) {}
+
+    private record Rendered(long version, String text) {
+
+        /** Whichever of the two was rendered from the later version. */
+        Rendered newer(Rendered other) {
+            return other.version() >= version ? other : this;
+        }
+    }
+
+    private static final int MAX_PAGES = 64;
+    private static final LeaderboardType[] TYPES = LeaderboardType.values();
+
+    private final Plugin plugin;
+    private final Function<PageKey, String> renderer;
+    private final ToIntFunction<LeaderboardType> entryCount;
+    /** Access-ordered; guarded by itself, as is {@link #visibleDepth}. */
+    private final Map<PageKey, Rendered> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PageKey, Rendered> eldest) {
+            if (size() <= MAX_PAGES) {
+                return false;
+            }
+            remove(eldest.getKey());
+            recomputeDepth(eldest.getKey().type());
+            return false;
+        }
+    };
+    private final AtomicLongArray versions = new AtomicLongArray(TYPES.length);
+    private final AtomicIntegerArray visibleDepth = new AtomicIntegerArray(TYPES.length);
+    private final AtomicBoolean[] rebuildQueued = new AtomicBoolean[TYPES.length];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public LeaderboardPageCache(Plugin plugin, Function<PageKey, String> renderer,
+                                ToIntFunction<LeaderboardType> entryCount) {
+        this.plugin = plugin;
+        this.renderer = renderer;
+        this.entryCount = entryCount;
+        for (int i = 0; i < rebuildQueued.length; i++) {
+            rebuildQueued[i] = new AtomicBoolean();
+        }
+    }
+
+    /**
+     * The cached page, rendered on the calling thread only the first time a
+     * key is asked for. Pages past the last entry are rendered but not kept.
+     */
+    public String get(PageKey key) {
+        Rendered rendered;
+        synchronized (pages) {
+            rendered = pages.get(key);
+        }
+        if (rendered != null) {
+            hits.increment();
+            return rendered.text();
+        }
+        misses.increment();
+        int type = key.type().ordinal();
+        long version = versions.get(type);
+        String text = renderer.apply(key);
+        long offset = (long) key.page() * key.limit();
+        if (key.page() > 0 && offset >= entryCount.applyAsInt(key.type())) {
+            return text;
+        }
+        synchronized (pages) {
+            pages.merge(key, new Rendered(version, text), Rendered::newer);
+            visibleDepth.accumulateAndGet(type, depthOf(key), Math::max);
+        }
+        if (versions.get(type) != version) {
+            // Scores changed while rendering and the queued rebuild may have missed this key
+            invalidate(key.type());
+        }
+        return text;
+    }
+
+    /**
+     * How many top positions of this leaderboard appear on a cached page.
+     * Changes below that depth cannot change any cached output.
+     */
+    public int getVisibleDepth(LeaderboardType type) {
+        return visibleDepth.get(type.ordinal());
+    }
+
+    /**
+     * Marks this leaderboard's pages stale and queues one async re-render.
+     * Readers keep getting the previous text until it finishes.
+     */
+    public void invalidate(LeaderboardType type) {
+        int index = type.ordinal();
+        versions.incrementAndGet(index);
+        if (!rebuildQueued[index].compareAndSet(false, true)) {
+            return;
+        }
+        if (!plugin.isEnabled()) {
+            rebuildQueued[index].set(false);
+            synchronized (pages) {
+                pages.keySet().removeIf(key -> key.type() == type);
+                visibleDepth.set(index, 0);
+            }
+            return;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> rebuild(type));
+    }
+
+    public void invalidateAll() {
+        for (LeaderboardType type : TYPES) {
+            invalidate(type);
+        }
+    }
+
+    private void rebuild(LeaderboardType type) {
+        int index = type.ordinal();
+        // Cleared first so a change during the render queues another one
+        rebuildQueued[index].set(false);
+        long version = versions.get(index);
+        List<PageKey> keys;
+        synchronized (pages) {
+            keys = pages.keySet().stream().filter(key -> key.type() == type).toList();
+        }
+        for (PageKey key : keys) {
+            Rendered fresh = new Rendered(version, renderer.apply(key));
+            synchronized (pages) {
+                // A page evicted meanwhile stays evicted
+                pages.computeIfPresent(key, (k, current) -> current.newer(fresh));
+            }
+        }
+        synchronized (pages) {
+            recomputeDepth(type);
+        }
+        rebuilds.incrementAndGet();
+    }
+
+    /**
+     * Sets the visible depth to what the pages still cached for this
+     * leaderboard show, so it shrinks again once deep pages are evicted.
+     * Caller holds the lock on {@code pages}.
+     */
+    private void recomputeDepth(LeaderboardType type) {
+        int depth = 0;
+        for (PageKey key : pages.keySet()) {
+            if (key.type() == type) {
+                depth = Math.max(depth, depthOf(key));
+            }
+        }
+        visibleDepth.set(type.ordinal(), depth);
+    }
+
+    private static int depthOf(PageKey key) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) key.page() * key.limit() + key.limit());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRebuilds() {
+        return rebuilds.get();
+    }
+
+    public int size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+}
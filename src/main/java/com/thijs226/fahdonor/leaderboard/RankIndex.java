@@ -0,0 +1,219 @@
+package com.thijs226.fahdonor.leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order-statistic index over player scores: a skip list whose links also
+ * record how many entries they skip (their span), so the position of any
+ * entry can be found on the way down. Entries are ordered by score,
+ * highest first, then by player id.
+ *
+ * <p>{@link #update} and {@link #remove} cost O(log n); {@link #rank} is
+ * O(log n) and {@link #range} is O(log n + k). Methods are synchronized
+ * because leaderboards are rendered off the main thread.
+ */
+public final class RankIndex {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double LEVEL_PROBABILITY = 0.25;
+
+    private static final class Node {
+        final double score;
+        final UUID playerId;
+        final Node[] next;
+        final int[] span;
+
+        Node(double score, UUID playerId, int levels) {
+            this.score = score;
+            this.playerId = playerId;
+            this.next = new Node[levels];
+            this.span = new int[levels];
+        }
+    }
+
+    private final Node head = new Node(Double.NaN, null, MAX_LEVEL);
+    private final Map<UUID, Double> scores = new HashMap<>();
+    private int level = 1;
+    private int size;
+
+    /**
+     * Inserts the player or moves them to their new score.
+     */
+    public synchronized void update(UUID playerId, double score) {
+        Double previous = scores.put(playerId, score);
+        if (previous != null) {
+            if (previous == score) {
+                return;
+            }
+            delete(previous, playerId);
+        }
+        insert(score, playerId);
+    }
+
+    public synchronized void remove(UUID playerId) {
+        Double previous = scores.remove(playerId);
+        if (previous != null) {
+            delete(previous, playerId);
+        }
+    }
+
+    /**
+     * 1-based position of the player, or -1 when they are not indexed.
+     */
+    public synchronized int rank(UUID playerId) {
+        Double score = scores.get(playerId);
+        if (score == null) {
+            return -1;
+        }
+        int rank = countUpTo(score, playerId);
+        return rank > 0 ? rank : -1;
+    }
+
+    /** Number of entries that sort at or before {@code (score, playerId)}. */
+    private int countUpTo(double score, UUID playerId) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], score, playerId) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Player ids at positions {@code offset} (0-based) up to
+     * {@code offset + limit}, best first.
+     */
+    public synchronized List<UUID> range(int offset, int limit) {
+        int count = Math.max(0, Math.min(limit, size - Math.max(0, offset)));
+        List<UUID> result = new ArrayList<>(count);
+        if (count == 0) {
+            return result;
+        }
+        Node x = nodeAt(Math.max(0, offset) + 1);
+        while (x != null && result.size() < count) {
+            result.add(x.playerId);
+            x = x.next[0];
+        }
+        return result;
+    }
+
+    public synchronized double score(UUID playerId) {
+        Double score = scores.get(playerId);
+        return score != null ? score : Double.NaN;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        scores.clear();
+        level = 1;
+        size = 0;
+    }
+
+    /** Higher scores first, then player id ascending. */
+    private static int compare(Node node, double score, UUID playerId) {
+        int byScore = Double.compare(score, node.score);
+        return byScore != 0 ? byScore : node.playerId.compareTo(playerId);
+    }
+
+    private Node nodeAt(int rank) {
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private void insert(double score, UUID playerId) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], score, playerId) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int levels = randomLevel();
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = levels;
+        }
+
+        Node node = new Node(score, playerId, levels);
+        for (int i = 0; i < levels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = levels; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    private void delete(double score, UUID playerId) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], score, playerId) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        x = x.next[0];
+        if (x == null || compare(x, score, playerId) != 0) {
+            return;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    private static int randomLevel() {
+        int levels = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (levels < MAX_LEVEL && random.nextDouble() < LEVEL_PROBABILITY) {
+            levels++;
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,619 @@
+package com.thijs226.fahdonor.leaderboard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager.LeaderboardType;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.Table;
+
+/**
+ * Daily, weekly and monthly leaderboards over rolling windows of the last 1,
+ * 7 and 30 days. Each player keeps a ring of day buckets in primitive arrays
+ * plus a running sum per window: an event adds to today's bucket and to the
+ * sums, and a day leaving a window is subtracted when the player is next
+ * advanced, so every update is O(1) apart from the rank index.
+ *
+ * <p>Players are advanced lazily on their next event and all at once when
+ * the day rolls over. At that point the calendar period that just closed
+ * (the day, the Monday-to-Sunday week or the month) is summed from the day
+ * buckets and its top players are appended to that window's winners archive.
+ * Buckets and archives are stored as blobs in the contribution store.
+ */
+public class WindowedLeaderboards implements PersistenceScheduler.DirtySource {
+
+    public enum Window {
+        DAILY("Daily", 1),
+        WEEKLY("Weekly", 7),
+        MONTHLY("Monthly", 30);
+
+        private final String displayName;
+        private final int days;
+
+        Window(String displayName, int days) {
+            this.displayName = displayName;
+            this.days = days;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        /** Parses "daily", "weekly" or "monthly"; null for anything else. */
+        public static Window fromString(String name) {
+            if (name == null) {
+                return null;
+            }
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "daily", "day", "today" -> DAILY;
+                case "weekly", "week" -> WEEKLY;
+                case "monthly", "month" -> MONTHLY;
+                default -> null;
+            };
+        }
+    }
+
+    public record Winner(UUID playerId, String name, double score) {}
+
+    /** One closed window: the days it covered (inclusive) and its top players. */
+    public record Period(long firstDay, long lastDay, List<Winner> winners) {}
+
+    /** Days kept per player; must exceed the longest window and cover a whole calendar month. */
+    private static final int RING = 32;
+    private static final int POINTS = 0;
+    private static final int SECONDS = 1;
+    private static final int UNITS = 2;
+    private static final Window[] WINDOWS = Window.values();
+    private static final LeaderboardType[] TYPES = LeaderboardType.values();
+    private static final long ROLLOVER_CHECK_TICKS = 20L * 60L;
+
+    private static final class PlayerBuckets {
+        String name;
+        long lastDay;
+        final long[] points = new long[RING];
+        final long[] seconds = new long[RING];
+        final int[] units = new int[RING];
+        /** [window][metric] totals over the days inside each window. */
+        final long[][] sums = new long[WINDOWS.length][3];
+
+        PlayerBuckets(String name, long lastDay) {
+            this.name = name;
+            this.lastDay = lastDay;
+        }
+
+        boolean isEmpty() {
+            long[] widest = sums[WINDOWS.length - 1];
+            return widest[POINTS] == 0 && widest[SECONDS] == 0 && widest[UNITS] == 0;
+        }
+    }
+
+    private final FAHResourceDonor plugin;
+    private final ContributionStore store;
+    private final Map<UUID, PlayerBuckets> players = new HashMap<>();
+    private final RankIndex[][] indexes = new RankIndex[WINDOWS.length][TYPES.length];
+    private final Map<Window, Deque<Period>> archives = new EnumMap<>(Window.class);
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Window> dirtyArchives = ConcurrentHashMap.newKeySet();
+    private final LeaderboardType archiveType;
+    private final int archiveSize;
+    private final int archiveKeep;
+    private long currentDay;
+    private BukkitTask rolloverTask;
+
+    public WindowedLeaderboards(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        this.store = plugin.getContributionStore();
+        this.archiveType = LeaderboardType.fromString(plugin.getConfig().getString("leaderboard.windows.archive-type", "points"));
+        this.archiveSize = Math.max(1, plugin.getConfig().getInt("leaderboard.windows.archive-size", 3));
+        this.archiveKeep = Math.max(1, plugin.getConfig().getInt("leaderboard.windows.archive-keep", 52));
+        for (int w = 0; w < WINDOWS.length; w++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                indexes[w][t] = new RankIndex();
+            }
+            archives.put(WINDOWS[w], new ArrayDeque<>());
+        }
+        this.currentDay = today();
+        load();
+    }
+
+    /**
+     * Checks for a day rollover once a minute so windows close on time even
+     * when nobody is contributing.
+     */
+    public void start() {
+        stop();
+        rolloverTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(OverheadProfiler.Subsystem.LEADERBOARD, () -> rollover(today())),
+            ROLLOVER_CHECK_TICKS, ROLLOVER_CHECK_TICKS);
+    }
+
+    public void stop() {
+        if (rolloverTask != null) {
+            rolloverTask.cancel();
+            rolloverTask = null;
+        }
+    }
+
+    public void recordPoints(UUID playerId, String playerName, long points) {
+        record(playerId, playerName, points, 0, 0);
+    }
+
+    public void recordTime(UUID playerId, String playerName, long seconds) {
+        record(playerId, playerName, 0, seconds, 0);
+    }
+
+    public void recordWorkUnit(UUID playerId, String playerName) {
+        record(playerId, playerName, 0, 0, 1);
+    }
+
+    /** Adds to today's bucket of every metric at once. */
+    public synchronized void record(UUID playerId, String playerName, long points, long seconds, int units) {
+        long today = today();
+        rollover(today);
+        PlayerBuckets buckets = players.computeIfAbsent(playerId, id -> new PlayerBuckets(playerName, currentDay));
+        if (playerName != null) {
+            buckets.name = playerName;
+        }
+        advance(buckets, currentDay);
+        int slot = slot(currentDay);
+        buckets.points[slot] += points;
+        buckets.seconds[slot] += seconds;
+        buckets.units[slot] += units;
+        for (long[] sum : buckets.sums) {
+            sum[POINTS] += points;
+            sum[SECONDS] += seconds;
+            sum[UNITS] += units;
+        }
+        reindex(playerId, buckets);
+        markDirty(playerId);
+    }
+
+    /**
+     * Moves the player's ring forward to {@code day}: each day that leaves a
+     * window is subtracted from that window's sum and each slot that is
+     * reused is cleared. A gap of a whole ring or more resets the player.
+     */
+    private static void advance(PlayerBuckets buckets, long day) {
+        if (day <= buckets.lastDay) {
+            return;
+        }
+        if (day - buckets.lastDay >= RING) {
+            Arrays.fill(buckets.points, 0L);
+            Arrays.fill(buckets.seconds, 0L);
+            Arrays.fill(buckets.units, 0);
+            for (long[] sum : buckets.sums) {
+                Arrays.fill(sum, 0L);
+            }
+            buckets.lastDay = day;
+            return;
+        }
+        for (long d = buckets.lastDay + 1; d <= day; d++) {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int leaving = slot(d - WINDOWS[w].days);
+                long[] sum = buckets.sums[w];
+                sum[POINTS] -= buckets.points[leaving];
+                sum[SECONDS] -= buckets.seconds[leaving];
+                sum[UNITS] -= buckets.units[leaving];
+            }
+            int reused = slot(d);
+            buckets.points[reused] = 0;
+            buckets.seconds[reused] = 0;
+            buckets.units[reused] = 0;
+        }
+        buckets.lastDay = day;
+    }
+
+    private void reindex(UUID playerId, PlayerBuckets buckets) {
+        for (int w = 0; w < WINDOWS.length; w++) {
+            long[] sum = buckets.sums[w];
+            boolean active = sum[POINTS] != 0 || sum[SECONDS] != 0 || sum[UNITS] != 0;
+            for (int t = 0; t < TYPES.length; t++) {
+                LeaderboardType type = TYPES[t];
+                if (!active || (type == LeaderboardType.EFFICIENCY && sum[SECONDS] <= 0)) {
+                    indexes[w][t].remove(playerId);
+                } else {
+                    indexes[w][t].update(playerId, scoreOf(type, sum));
+                }
+            }
+        }
+    }
+
+    private static double scoreOf(LeaderboardType type, long[] sum) {
+        return switch (type) {
+            case POINTS -> sum[POINTS];
+            case TIME -> sum[SECONDS];
+            case WORK_UNITS -> sum[UNITS];
+            case EFFICIENCY -> sum[SECONDS] == 0 ? 0 : sum[POINTS] * 3600.0 / sum[SECONDS];
+        };
+    }
+
+    /**
+     * Closes the windows that ended before {@code today}, archives their
+     * winners and advances every player, dropping those with nothing left in
+     * any window.
+     */
+    private synchronized void rollover(long today) {
+        if (today <= currentDay) {
+            return;
+        }
+        LocalDate previous = LocalDate.ofEpochDay(currentDay);
+        archive(Window.DAILY, previous, previous);
+        if (previous.with(TemporalAdjusters.next(DayOfWeek.MONDAY)).toEpochDay() <= today) {
+            LocalDate monday = previous.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            archive(Window.WEEKLY, monday, monday.plusDays(6));
+        }
+        if (previous.with(TemporalAdjusters.firstDayOfNextMonth()).toEpochDay() <= today) {
+            archive(Window.MONTHLY, previous.withDayOfMonth(1), previous.with(TemporalAdjusters.lastDayOfMonth()));
+        }
+        currentDay = today;
+
+        for (Iterator<Map.Entry<UUID, PlayerBuckets>> it = players.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<UUID, PlayerBuckets> player = it.next();
+            PlayerBuckets buckets = player.getValue();
+            advance(buckets, today);
+            reindex(player.getKey(), buckets);
+            markDirty(player.getKey());
+            if (buckets.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Appends the top players of {@code firstDate} to {@code lastDate} (inclusive) to
+     * the window's archive. The period is summed from the day buckets rather
+     * than read from the rolling window, so a month is the calendar month and
+     * days the server was down do not shift the period. Called before the
+     * players are advanced past it.
+     */
+    private void archive(Window window, LocalDate firstDate, LocalDate lastDate) {
+        long firstDay = firstDate.toEpochDay();
+        long lastDay = lastDate.toEpochDay();
+        List<Winner> ranked = new ArrayList<>();
+        for (Map.Entry<UUID, PlayerBuckets> player : players.entrySet()) {
+            long[] sum = sumDays(player.getValue(), firstDay, lastDay);
+            if ((sum[POINTS] == 0 && sum[SECONDS] == 0 && sum[UNITS] == 0)
+                    || (archiveType == LeaderboardType.EFFICIENCY && sum[SECONDS] <= 0)) {
+                continue;
+            }
+            ranked.add(new Winner(player.getKey(), player.getValue().name, scoreOf(archiveType, sum)));
+        }
+        if (ranked.isEmpty()) {
+            return;
+        }
+        ranked.sort(Comparator.comparingDouble(Winner::score).reversed());
+        List<Winner> winners = ranked.subList(0, Math.min(archiveSize, ranked.size()));
+        Deque<Period> archive = archives.get(window);
+        archive.addFirst(new Period(firstDay, lastDay, List.copyOf(winners)));
+        while (archive.size() > archiveKeep) {
+            archive.removeLast();
+        }
+        dirtyArchives.add(window);
+        PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+        if (scheduler != null) {
+            scheduler.markDirty();
+        }
+        Winner first = winners.get(0);
+        plugin.getLogger().info(() -> String.format("%s leaderboard closed: %s won with %s",
+            window.getDisplayName(), first.name(), archiveType.formatValue(first.score())));
+    }
+
+    /**
+     * Totals of the player's days from {@code firstDay} to {@code lastDay}
+     * that are still in the ring. Slots past the player's last day hold
+     * days that already left the ring and are skipped.
+     */
+    private static long[] sumDays(PlayerBuckets buckets, long firstDay, long lastDay) {
+        long[] sum = new long[3];
+        long from = Math.max(firstDay, buckets.lastDay - RING + 1);
+        long to = Math.min(lastDay, buckets.lastDay);
+        for (long day = from; day <= to; day++) {
+            int slot = slot(day);
+            sum[POINTS] += buckets.points[slot];
+            sum[SECONDS] += buckets.seconds[slot];
+            sum[UNITS] += buckets.units[slot];
+        }
+        return sum;
+    }
+
+    /**
+     * Players at positions {@code offset} (0-based) to {@code offset + limit}
+     * of a window, with their scores.
+     */
+    public synchronized List<Winner> getRange(Window window, LeaderboardType type, int offset, int limit) {
+        rollover(today());
+        RankIndex index = indexes[window.ordinal()][type.ordinal()];
+        List<Winner> page = new ArrayList<>();
+        for (UUID playerId : index.range(offset, limit)) {
+            PlayerBuckets buckets = players.get(playerId);
+            page.add(new Winner(playerId, buckets != null ? buckets.name : "Unknown", index.score(playerId)));
+        }
+        return page;
+    }
+
+    public synchronized int getEntryCount(Window window, LeaderboardType type) {
+        rollover(today());
+        return indexes[window.ordinal()][type.ordinal()].size();
+    }
+
+    public synchronized int getPlayerRank(UUID playerId, Window window, LeaderboardType type) {
+        rollover(today());
+        return indexes[window.ordinal()][type.ordinal()].rank(playerId);
+    }
+
+    /** Closed periods of a window, most recent first. */
+    public synchronized List<Period> getArchive(Window window) {
+        return new ArrayList<>(archives.get(window));
+    }
+
+    public LeaderboardType getArchiveType() {
+        return archiveType;
+    }
+
+    public String formatPage(Window window, LeaderboardType type, int limit, int page) {
+        int offset = Math.max(0, page) * Math.max(1, limit);
+        List<Winner> entries = getRange(window, type, offset, Math.max(1, limit));
+        StringBuilder sb = new StringBuilder();
+        sb.append(ChatColor.GOLD).append("=== ").append(window.getDisplayName()).append(' ')
+          .append(type.getDisplayName()).append(" Leaderboard");
+        if (page > 0) {
+            sb.append(" (page ").append(page + 1).append(')');
+        }
+        sb.append(" ===\n");
+        int rank = offset + 1;
+        for (Winner entry : entries) {
+            sb.append(ChatColor.YELLOW).append(rank++).append(". ")
+              .append(ChatColor.WHITE).append(entry.name())
+              .append(ChatColor.GRAY).append(" - ")
+              .append(ChatColor.GREEN).append(type.formatValue(entry.score())).append('\n');
+        }
+        if (entries.isEmpty()) {
+            sb.append(ChatColor.GRAY).append(page == 0 ? "No contributors in this period yet!\n" : "No entries on this page.\n");
+        }
+        return sb.toString();
+    }
+
+    public String formatArchive(Window window, int limit) {
+        List<Period> periods = getArchive(window);
+        StringBuilder sb = new StringBuilder();
+        sb.append(ChatColor.GOLD).append("=== ").append(window.getDisplayName()).append(" Winners (")
+          .append(archiveType.getDisplayName()).append(") ===\n");
+        if (periods.isEmpty()) {
+            sb.append(ChatColor.GRAY).append("No finished periods yet.\n");
+            return sb.toString();
+        }
+        for (Period period : periods.subList(0, Math.min(Math.max(1, limit), periods.size()))) {
+            LocalDate first = LocalDate.ofEpochDay(period.firstDay());
+            LocalDate last = LocalDate.ofEpochDay(period.lastDay());
+            sb.append(ChatColor.AQUA).append(first.equals(last) ? last.toString() : first + " - " + last).append('\n');
+            int rank = 1;
+            for (Winner winner : period.winners()) {
+                sb.append(ChatColor.YELLOW).append("  ").append(rank++).append(". ")
+                  .append(ChatColor.WHITE).append(winner.name())
+                  .append(ChatColor.GRAY).append(" - ")
+                  .append(ChatColor.GREEN).append(archiveType.formatValue(winner.score())).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private void markDirty(UUID playerId) {
+        if (dirty.add(playerId)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
+        }
+    }
+
+    @Override
+    public String getPersistenceName() {
+        return "windowed leaderboards";
+    }
+
+    /**
+     * Encodes changed buckets and archives and hands them to the store. Runs
+     * on the autosave thread.
+     */
+    @Override
+    public int flushDirty() throws IOException {
+        Map<UUID, byte[]> encoded = new HashMap<>();
+        Map<Window, byte[]> encodedArchives = new EnumMap<>(Window.class);
+        synchronized (this) {
+            for (Iterator<UUID> it = dirty.iterator(); it.hasNext();) {
+                UUID playerId = it.next();
+                it.remove();
+                PlayerBuckets buckets = players.get(playerId);
+                encoded.put(playerId, encode(buckets));
+            }
+            for (Iterator<Window> it = dirtyArchives.iterator(); it.hasNext();) {
+                Window window = it.next();
+                it.remove();
+                encodedArchives.put(window, encode(archives.get(window)));
+            }
+        }
+        encoded.forEach((playerId, data) -> store.putBlob(Table.WINDOW_BUCKETS, playerId, data));
+        encodedArchives.forEach((window, data) -> store.putBlob(Table.WINDOW_WINNERS, archiveKey(window), data));
+        return encoded.size() + encodedArchives.size();
+    }
+
+    /**
+     * [lastDay][name][count] then [age][points][seconds][units] per non-empty
+     * day. A removed player is written with no days.
+     */
+    private static byte[] encode(PlayerBuckets buckets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (buckets == null) {
+            out.writeLong(0);
+            out.writeUTF("");
+            out.writeByte(0);
+            return bytes.toByteArray();
+        }
+        out.writeLong(buckets.lastDay);
+        out.writeUTF(buckets.name != null ? buckets.name : "");
+        int count = 0;
+        for (int age = 0; age < RING; age++) {
+            int slot = slot(buckets.lastDay - age);
+            if (buckets.points[slot] != 0 || buckets.seconds[slot] != 0 || buckets.units[slot] != 0) {
+                count++;
+            }
+        }
+        out.writeByte(count);
+        for (int age = 0; age < RING; age++) {
+            int slot = slot(buckets.lastDay - age);
+            if (buckets.points[slot] != 0 || buckets.seconds[slot] != 0 || buckets.units[slot] != 0) {
+                out.writeByte(age);
+                out.writeLong(buckets.points[slot]);
+                out.writeLong(buckets.seconds[slot]);
+                out.writeInt(buckets.units[slot]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(Deque<Period> archive) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(archive.size());
+        for (Period period : archive) {
+            out.writeLong(period.firstDay());
+            out.writeLong(period.lastDay());
+            out.writeByte(period.winners().size());
+            for (Winner winner : period.winners()) {
+                out.writeLong(winner.playerId().getMostSignificantBits());
+                out.writeLong(winner.playerId().getLeastSignificantBits());
+                out.writeUTF(winner.name());
+                out.writeDouble(winner.score());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private void load() {
+        int loaded = 0;
+        for (Map.Entry<UUID, byte[]> blob : store.loadBlobs(Table.WINDOW_BUCKETS).entrySet()) {
+            try {
+                PlayerBuckets buckets = decode(blob.getValue());
+                if (!buckets.isEmpty()) {
+                    players.put(blob.getKey(), buckets);
+                    reindex(blob.getKey(), buckets);
+                    loaded++;
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning(() -> "Skipping unreadable window buckets for " + blob.getKey());
+            }
+        }
+        Map<UUID, byte[]> stored = store.loadBlobs(Table.WINDOW_WINNERS);
+        for (Window window : WINDOWS) {
+            byte[] data = stored.get(archiveKey(window));
+            if (data == null) {
+                continue;
+            }
+            try {
+                archives.get(window).addAll(decodeArchive(data));
+            } catch (IOException e) {
+                plugin.getLogger().warning(() -> "Skipping unreadable " + window.getDisplayName().toLowerCase(Locale.ROOT) + " winners archive");
+            }
+        }
+        final int count = loaded;
+        plugin.getLogger().info(() -> String.format("Loaded windowed leaderboard buckets for %d players", count));
+    }
+
+    /**
+     * Rebuilds a player's ring as of today, keeping only the days that are
+     * still inside the ring and summing those inside each window.
+     */
+    private PlayerBuckets decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        long lastDay = in.readLong();
+        String name = in.readUTF();
+        int count = in.readUnsignedByte();
+        PlayerBuckets buckets = new PlayerBuckets(name.isEmpty() ? "Unknown" : name, currentDay);
+        for (int i = 0; i < count; i++) {
+            long day = lastDay - in.readUnsignedByte();
+            long points = in.readLong();
+            long seconds = in.readLong();
+            int units = in.readInt();
+            long age = currentDay - day;
+            if (age < 0 || age >= RING) {
+                continue;
+            }
+            int slot = slot(day);
+            buckets.points[slot] = points;
+            buckets.seconds[slot] = seconds;
+            buckets.units[slot] = units;
+            for (int w = 0; w < WINDOWS.length; w++) {
+                if (age < WINDOWS[w].days) {
+                    buckets.sums[w][POINTS] += points;
+                    buckets.sums[w][SECONDS] += seconds;
+                    buckets.sums[w][UNITS] += units;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private static List<Period> decodeArchive(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int periods = in.readUnsignedShort();
+        List<Period> result = new ArrayList<>(periods);
+        for (int i = 0; i < periods; i++) {
+            long firstDay = in.readLong();
+            long lastDay = in.readLong();
+            int count = in.readUnsignedByte();
+            List<Winner> winners = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                winners.add(new Winner(playerId, in.readUTF(), in.readDouble()));
+            }
+            result.add(new Period(firstDay, lastDay, Collections.unmodifiableList(winners)));
+        }
+        return result;
+    }
+
+    /** Archives share a table and are keyed by window. */
+    private static UUID archiveKey(Window window) {
+        return new UUID(0L, window.ordinal());
+    }
+
+    private static int slot(long day) {
+        return (int) Math.floorMod(day, (long) RING);
+    }
+
+    private static long today() {
+        return LocalDate.now().toEpochDay();
+    }
+}
@@ -0,0 +1,294 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Follows each core-count decision from the moment it is queued until the
+ * Folding@home log shows it took effect. Every decision gets an id and a
+ * timestamp per stage (enqueued, sent, acknowledged, confirmed); stage
+ * latencies feed fixed-bucket histograms and decisions that never reach the
+ * log are counted by how they were lost.
+ */
+public class ActuationTracer {
+
+    /** Histogram bucket upper bounds in milliseconds; the last bucket is open. */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {10, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000};
+    private static final long CONFIRM_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int RECENT_LIMIT = 10;
+
+    public enum Stage {
+        QUEUE("enqueued -> sent"),
+        ACK("sent -> acknowledged"),
+        CONFIRM("acknowledged -> log"),
+        TOTAL("enqueued -> log");
+
+        public final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+    }
+
+    public enum Outcome {
+        PENDING,
+        CONFIRMED,
+        SUPERSEDED,
+        DEFERRED,
+        FAILED,
+        UNCONFIRMED
+    }
+
+    /**
+     * Point-in-time copy of one decision. Stage timestamps are
+     * {@link System#nanoTime()} values, or 0 when the stage was not reached.
+     */
+    public record Trace(long id, int previousCores, int cores, String controlPath, long enqueuedNanos,
+                        long sentNanos, long acknowledgedNanos, long confirmedNanos, Outcome outcome, String note) {
+
+        public long millisBetween(long fromNanos, long toNanos) {
+            if (fromNanos == 0L || toNanos == 0L) {
+                return -1L;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos);
+        }
+    }
+
+    public record Histogram(long[] boundsMillis, long[] counts, long total, long sumMillis, long maxMillis) {
+
+        public double averageMillis() {
+            return total == 0 ? 0.0 : (double) sumMillis / total;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, or -1 when
+         * it falls in the open bucket.
+         */
+        public long percentileBoundMillis(double percentile) {
+            if (total == 0) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i < boundsMillis.length ? boundsMillis[i] : -1L;
+                }
+            }
+            return -1L;
+        }
+    }
+
+    private static final class MutableTrace {
+        final long id;
+        final int previousCores;
+        final int cores;
+        final long enqueuedNanos;
+        String controlPath = "";
+        long sentNanos;
+        long acknowledgedNanos;
+        long confirmedNanos;
+        Outcome outcome = Outcome.PENDING;
+        String note = "";
+
+        MutableTrace(long id, int previousCores, int cores, long enqueuedNanos) {
+            this.id = id;
+            this.previousCores = previousCores;
+            this.cores = cores;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        Trace freeze() {
+            return new Trace(id, previousCores, cores, controlPath, enqueuedNanos, sentNanos,
+                    acknowledgedNanos, confirmedNanos, outcome, note);
+        }
+    }
+
+    private static final class LatencyHistogram {
+        final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        final LongAdder sum = new LongAdder();
+        final MetricRegistry.Extreme max;
+
+        LatencyHistogram(MetricRegistry.Extreme max) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            this.max = max;
+        }
+
+        void record(long millis) {
+            int index = 0;
+            while (index < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            sum.add(millis);
+            max.record(millis);
+        }
+
+        Histogram snapshot() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            return new Histogram(BUCKET_BOUNDS_MILLIS.clone(), counts, total, sum.sum(), Math.max(0L, max.get()));
+        }
+    }
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final MetricRegistry.Counter decisions = registry.counter("actuation.decisions");
+    private final MetricRegistry.Counter[] outcomes = new MetricRegistry.Counter[Outcome.values().length];
+
+    private final Deque<MutableTrace> recent = new ArrayDeque<>();
+    private long nextId = 1;
+
+    public ActuationTracer() {
+        for (Stage stage : Stage.values()) {
+            String name = stage.name().toLowerCase(Locale.ROOT);
+            histograms[stage.ordinal()] = new LatencyHistogram(registry.max("actuation." + name + ".max_millis"));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes[outcome.ordinal()] = registry.counter("actuation.outcome." + outcome.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Records a new decision. Any earlier decision that has not been confirmed
+     * yet is counted as superseded.
+     *
+     * @return the decision id to pass to the later stages
+     */
+    public synchronized long enqueue(int previousCores, int cores) {
+        long now = System.nanoTime();
+        expireStale(now);
+        for (MutableTrace trace : recent) {
+            if (trace.outcome == Outcome.PENDING) {
+                finish(trace, Outcome.SUPERSEDED, "replaced by #" + nextId);
+            }
+        }
+        MutableTrace trace = new MutableTrace(nextId++, previousCores, cores, now);
+        recent.addFirst(trace);
+        while (recent.size() > RECENT_LIMIT) {
+            recent.removeLast();
+        }
+        decisions.increment();
+        return trace.id;
+    }
+
+    public synchronized void sent(long id, String controlPath) {
+        MutableTrace trace = find(id);
+        if (trace == null || trace.sentNanos != 0L) {
+            return;
+        }
+        trace.controlPath = controlPath;
+        trace.sentNanos = System.nanoTime();
+        record(Stage.QUEUE, trace.enqueuedNanos, trace.sentNanos);
+    }
+
+    public synchronized void acknowledged(long id) {
+        MutableTrace trace = find(id);
+        if (trace == null || trace.acknowledgedNanos != 0L) {
+            return;
+        }
+        trace.acknowledgedNanos = System.nanoTime();
+        if (trace.sentNanos != 0L) {
+            record(Stage.ACK, trace.sentNanos, trace.acknowledgedNanos);
+        }
+    }
+
+    /**
+     * Marks a decision as dropped before it reached the client, e.g. when the
+     * CLI is backing off ({@link Outcome#DEFERRED}) or the command failed.
+     */
+    public synchronized void lost(long id, Outcome outcome, String note) {
+        MutableTrace trace = find(id);
+        if (trace != null && trace.outcome == Outcome.PENDING) {
+            finish(trace, outcome, note);
+        }
+    }
+
+    /**
+     * Called from log parsing when FAH reports running with {@code cores}
+     * (0 for paused). Confirms the newest pending decision for that count.
+     */
+    public synchronized void confirmed(int cores) {
+        long now = System.nanoTime();
+        for (MutableTrace trace : recent) {
+            if (trace.outcome != Outcome.PENDING || trace.cores != cores) {
+                continue;
+            }
+            trace.confirmedNanos = now;
+            if (trace.acknowledgedNanos != 0L) {
+                record(Stage.CONFIRM, trace.acknowledgedNanos, now);
+            }
+            record(Stage.TOTAL, trace.enqueuedNanos, now);
+            finish(trace, Outcome.CONFIRMED, "");
+            return;
+        }
+    }
+
+    public synchronized List<Trace> getRecentTraces() {
+        expireStale(System.nanoTime());
+        List<Trace> traces = new ArrayList<>(recent.size());
+        for (MutableTrace trace : recent) {
+            traces.add(trace.freeze());
+        }
+        return traces;
+    }
+
+    public Histogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()].snapshot();
+    }
+
+    public long getDecisionCount() {
+        return decisions.sum();
+    }
+
+    public long getOutcomeCount(Outcome outcome) {
+        if (outcome == Outcome.PENDING) {
+            return countPending();
+        }
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    private synchronized long countPending() {
+        expireStale(System.nanoTime());
+        return recent.stream().filter(trace -> trace.outcome == Outcome.PENDING).count();
+    }
+
+    private MutableTrace find(long id) {
+        for (MutableTrace trace : recent) {
+            if (trace.id == id) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    private void expireStale(long now) {
+        for (MutableTrace trace : recent) {
+            if (trace.outcome == Outcome.PENDING && now - trace.enqueuedNanos > CONFIRM_TIMEOUT_NANOS) {
+                finish(trace, Outcome.UNCONFIRMED, "no log confirmation within 5 minutes");
+            }
+        }
+    }
+
+    private void finish(MutableTrace trace, Outcome outcome, String note) {
+        trace.outcome = outcome;
+        trace.note = note;
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    private void record(Stage stage, long fromNanos, long toNanos) {
+        histograms[stage.ordinal()].record(Math.max(0L, TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos)));
+    }
+}
@@ -0,0 +1,325 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Named metrics that are cheap to update from any thread. Updates never
+ * allocate: counters are striped {@link LongAdder}s, extremes are
+ * {@link LongAccumulator}s and double gauges keep their raw bits in a
+ * primitive {@link AtomicLong}.
+ *
+ * <p>Every update holds the registry's {@link StampedLock} in shared mode, so
+ * updates never wait for each other. Reads that span more than one value,
+ * {@link #snapshot()}, {@link Mean#value()} and resets, take it exclusively:
+ * they wait for updates in flight and hold off new ones for the few
+ * microseconds the read takes, so what they see is one point in time.
+ */
+public final class MetricRegistry {
+
+    /** Common view used for snapshots and resets. */
+    public interface Metric {
+        double value();
+
+        void reset();
+    }
+
+    /** Holds the registry lock; subclasses guard their updates with it. */
+    abstract static class Guarded implements Metric {
+        final StampedLock lock;
+
+        Guarded(StampedLock lock) {
+            this.lock = lock;
+        }
+
+        /** Value without locking; the caller holds the lock exclusively or reads one cell. */
+        abstract double read();
+
+        /** Clears the value without locking; the caller holds the lock exclusively. */
+        abstract void clear();
+
+        @Override
+        public double value() {
+            return read();
+        }
+
+        @Override
+        public final void reset() {
+            long stamp = lock.writeLock();
+            try {
+                clear();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /** Monotonic counter. */
+    public static final class Counter extends Guarded {
+        private final LongAdder adder = new LongAdder();
+
+        private Counter(StampedLock lock) {
+            super(lock);
+        }
+
+        public void increment() {
+            long stamp = lock.readLock();
+            try {
+                adder.increment();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public void add(long delta) {
+            long stamp = lock.readLock();
+            try {
+                adder.add(delta);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public long sum() {
+            return adder.sum();
+        }
+
+        @Override
+        double read() {
+            return adder.sum();
+        }
+
+        @Override
+        void clear() {
+            adder.reset();
+        }
+    }
+
+    /** Running maximum or minimum of recorded values. */
+    public static final class Extreme extends Guarded {
+        private final LongAccumulator accumulator;
+
+        private Extreme(StampedLock lock, boolean max) {
+            super(lock);
+            this.accumulator = max
+                ? new LongAccumulator(Math::max, Long.MIN_VALUE)
+                : new LongAccumulator(Math::min, Long.MAX_VALUE);
+        }
+
+        public void record(long value) {
+            long stamp = lock.readLock();
+            try {
+                accumulator.accumulate(value);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /** The extreme so far, or 0 when nothing has been recorded. */
+        public long get() {
+            long value = accumulator.get();
+            return value == Long.MIN_VALUE || value == Long.MAX_VALUE ? 0 : value;
+        }
+
+        @Override
+        double read() {
+            return get();
+        }
+
+        @Override
+        void clear() {
+            accumulator.reset();
+        }
+    }
+
+    /** Last-written long value. */
+    public static final class LongGauge extends Guarded {
+        private final AtomicLong value = new AtomicLong();
+
+        private LongGauge(StampedLock lock) {
+            super(lock);
+        }
+
+        public void set(long newValue) {
+            long stamp = lock.readLock();
+            try {
+                value.set(newValue);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public long increment() {
+            long stamp = lock.readLock();
+            try {
+                return value.incrementAndGet();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        @Override
+        double read() {
+            return value.get();
+        }
+
+        @Override
+        void clear() {
+            value.set(0);
+        }
+    }
+
+    /** Last-written double value, stored as raw bits to avoid boxing. */
+    public static final class DoubleGauge extends Guarded {
+        private final AtomicLong bits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+
+        private DoubleGauge(StampedLock lock) {
+            super(lock);
+        }
+
+        public void set(double newValue) {
+            long stamp = lock.readLock();
+            try {
+                bits.set(Double.doubleToRawLongBits(newValue));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+
+        @Override
+        double read() {
+            return get();
+        }
+
+        @Override
+        void clear() {
+            bits.set(Double.doubleToRawLongBits(0.0));
+        }
+    }
+
+    /**
+     * Arithmetic mean of recorded samples. A sample is added to the sum and
+     * the count under one shared hold of the lock, and {@link #value()} reads
+     * both under an exclusive one, so the two always match.
+     */
+    public static final class Mean extends Guarded {
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        private Mean(StampedLock lock) {
+            super(lock);
+        }
+
+        public void record(long sample) {
+            long stamp = lock.readLock();
+            try {
+                sum.add(sample);
+                count.increment();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        @Override
+        public double value() {
+            long stamp = lock.writeLock();
+            try {
+                return read();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        double read() {
+            long samples = count.sum();
+            return samples == 0 ? 0.0 : (double) sum.sum() / samples;
+        }
+
+        @Override
+        void clear() {
+            sum.reset();
+            count.reset();
+        }
+    }
+
+    private final Map<String, Guarded> metrics = new ConcurrentHashMap<>();
+    private final StampedLock lock = new StampedLock();
+
+    public Counter counter(String name) {
+        return register(name, Counter.class, key -> new Counter(lock));
+    }
+
+    public Extreme max(String name) {
+        return register(name, Extreme.class, key -> new Extreme(lock, true));
+    }
+
+    public Extreme min(String name) {
+        return register(name, Extreme.class, key -> new Extreme(lock, false));
+    }
+
+    public LongGauge longGauge(String name) {
+        return register(name, LongGauge.class, key -> new LongGauge(lock));
+    }
+
+    public DoubleGauge doubleGauge(String name) {
+        return register(name, DoubleGauge.class, key -> new DoubleGauge(lock));
+    }
+
+    public Mean mean(String name) {
+        return register(name, Mean.class, key -> new Mean(lock));
+    }
+
+    private <T extends Guarded> T register(String name, Class<T> type, Function<String, T> factory) {
+        Guarded metric = metrics.computeIfAbsent(name, factory);
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric '" + name + "' is already registered as "
+                + metric.getClass().getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Current values of every metric, sorted by name, all taken at one
+     * point in time: every update that finished before the call is in it and
+     * none that started after.
+     */
+    public Map<String, Double> snapshot() {
+        Map<String, Double> values = new TreeMap<>();
+        long stamp = lock.writeLock();
+        try {
+            metrics.forEach((name, metric) -> values.put(name, metric.read()));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    public void resetAll() {
+        long stamp = lock.writeLock();
+        try {
+            metrics.values().forEach(Guarded::clear);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClientManager;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.health.HealthIssueJournal;
+import com.thijs226.fahdonor.health.HealthMonitor;
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager;
+import com.thijs226.fahdonor.leaderboard.LeaderboardPageCache;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+import com.thijs226.fahdonor.rewards.ContributionAttributor;
+import com.thijs226.fahdonor.rewards.RewardDispatcher;
+import com.thijs226.fahdonor.rewards.RewardManager;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+
+/**
+ * Optional OpenMetrics endpoint for scraping plugin and FAH metrics. Values are
+ * collected on the main thread at a fixed interval and rendered once into a
+ * cached payload; scrapes only copy those bytes and never touch server state.
+ */
+public class MetricsExporter {
+
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private final FAHResourceDonor plugin;
+    private volatile byte[] payload = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+    private HttpServer server;
+    private ExecutorService httpExecutor;
+    private BukkitTask refreshTask;
+
+    public MetricsExporter(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        stop();
+        String bindAddress = plugin.getConfig().getString("metrics-exporter.bind-address", "127.0.0.1");
+        int port = plugin.getConfig().getInt("metrics-exporter.port", 9464);
+        String path = plugin.getConfig().getString("metrics-exporter.path", "/metrics");
+        long refreshSeconds = Math.max(1, plugin.getConfig().getLong("metrics-exporter.refresh-interval-seconds", 10));
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to start metrics exporter on " + bindAddress + ":" + port, e);
+            server = null;
+            return;
+        }
+        httpExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "FAH-MetricsExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(httpExecutor);
+        server.createContext(path, this::handle);
+        server.start();
+
+        refreshTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.METRICS, this::refresh), 1L, 20L * refreshSeconds);
+        plugin.getLogger().info(() -> String.format("Metrics exporter listening on http://%s:%d%s", bindAddress, port, path));
+    }
+
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+            httpExecutor = null;
+        }
+    }
+
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = payload;
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Collects current values and swaps in a freshly rendered payload.
+     */
+    private void refresh() {
+        try {
+            payload = render().getBytes(StandardCharsets.UTF_8);
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to refresh exported metrics", e);
+        }
+    }
+
+    private String render() {
+        StringBuilder out = new StringBuilder(4096);
+        FAHClient client = plugin.getFAHClient();
+        FAHClientManager manager = plugin.getFAHManager();
+        PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+        HealthMonitor health = plugin.getHealthMonitor();
+
+        if (client != null) {
+            counter(out, "fah_points", "Points credited to this server", client.getPointsEarned());
+            counter(out, "fah_work_units_completed", "Work units completed", client.getCompletedWorkUnits());
+            counter(out, "fah_work_unit_failures", "Work unit failures", client.getTotalFailures());
+            gauge(out, "fah_consecutive_failures", "Consecutive work unit failures", client.getConsecutiveFailures());
+            counter(out, "fah_core_hours", "CPU core hours donated", client.getTotalCoreHours());
+            gauge(out, "fah_auto_restart_suppressed", "1 while automatic restarts are suppressed",
+                client.isAutoRestartSuppressed() ? 1 : 0);
+        }
+
+        if (manager != null) {
+            gauge(out, "fah_cores_current", "Cores FAH is currently running with", manager.getCurrentCores());
+            gauge(out, "fah_cores_target", "Cores most recently requested for FAH", manager.getTargetCores());
+        }
+
+        if (metrics != null) {
+            header(out, "fah_actuation_latency_seconds", "summary", "Time from a core change request to FAH applying it");
+            sample(out, "fah_actuation_latency_seconds_count", metrics.getActuationCount());
+            sample(out, "fah_actuation_latency_seconds_sum", metrics.getActuationLatencyTotalMillis() / 1000.0);
+            gauge(out, "fah_actuation_last_latency_seconds", "Latency of the most recent core change",
+                metrics.getLastActuationLatencyMillis() / 1000.0);
+            counter(out, "fah_log_lines_ingested", "FAH log lines read", metrics.getLogLinesIngested());
+            counter(out, "fah_log_bytes_ingested", "FAH log bytes read", metrics.getLogBytesIngested());
+            gauge(out, "fah_process_cpu_percent", "CPU usage of the FAH process", metrics.getCurrentCpuUsage());
+            gauge(out, "fah_process_memory_megabytes", "Memory used by the FAH process", metrics.getCurrentMemoryUsageMB());
+        }
+
+        if (health != null) {
+            gauge(out, "fah_health_healthy", "1 when the last health check passed", health.isHealthy() ? 1 : 0);
+            gauge(out, "fah_health_consecutive_failed_checks", "Consecutive failed health checks",
+                health.getConsecutiveFailedChecks());
+            gauge(out, "fah_health_recovery_attempts", "Recovery attempts since the last healthy check",
+                health.getRecoveryAttempts());
+            HealthIssueJournal journal = health.getJournal();
+            header(out, "fah_health_issues", "counter", "Health issues recorded since startup, by type");
+            for (HealthMonitor.HealthIssueType type : HealthMonitor.HealthIssueType.values()) {
+                sample(out, "fah_health_issues_total{type=\"" + type.name().toLowerCase(Locale.ROOT) + "\"}",
+                    journal.getTotal(type));
+            }
+            gauge(out, "fah_health_issues_last_hour", "Health issues recorded in the last hour",
+                journal.countsPerHour(null, 1)[0]);
+        }
+
+        OverheadProfiler overhead = plugin.getOverheadProfiler();
+        if (overhead.isEnabled()) {
+            header(out, "fah_plugin_overhead_microseconds_per_tick", "gauge",
+                "Average main-thread time per tick spent in the plugin, by subsystem");
+            for (OverheadProfiler.SubsystemCost cost : overhead.getCosts()) {
+                sample(out, "fah_plugin_overhead_microseconds_per_tick{subsystem=\""
+                    + cost.subsystem().name().toLowerCase(Locale.ROOT) + "\"}", cost.averageMicros());
+            }
+            gauge(out, "fah_plugin_mspt_share_percent", "Plugin share of MSPT over the last minute",
+                overhead.getMsptSharePercent());
+        }
+
+        PersistenceScheduler persistence = plugin.getPersistenceScheduler();
+        if (persistence != null) {
+            PersistenceScheduler.FlushStats stats = persistence.getStats();
+            header(out, "fah_autosave_flush_seconds", "summary", "Time to write changed records and reach disk");
+            sample(out, "fah_autosave_flush_seconds_count", stats.flushes());
+            sample(out, "fah_autosave_flush_seconds_sum", stats.totalMicros() / 1_000_000.0);
+            gauge(out, "fah_autosave_last_flush_seconds", "Duration of the most recent autosave",
+                stats.lastMicros() / 1_000_000.0);
+            counter(out, "fah_autosave_records", "Records written by autosave", stats.records());
+            counter(out, "fah_autosave_failures", "Autosaves with at least one failed source", stats.failures());
+            gauge(out, "fah_autosave_pending_changes", "Changes waiting for the next autosave", stats.pendingChanges());
+        }
+
+        LeaderboardManager leaderboard = plugin.getLeaderboardManager();
+        if (leaderboard != null) {
+            LeaderboardPageCache cache = leaderboard.getPageCache();
+            counter(out, "fah_leaderboard_cache_hits", "Leaderboard pages served from the cache", cache.getHits());
+            counter(out, "fah_leaderboard_cache_misses", "Leaderboard pages rendered on request", cache.getMisses());
+            counter(out, "fah_leaderboard_cache_rebuilds", "Async re-renders after a visible score change", cache.getRebuilds());
+        }
+
+        ContributionAttributor attributor = plugin.getContributionAttributor();
+        if (attributor != null) {
+            counter(out, "fah_attribution_points", "Work unit credit split across online players", attributor.getAttributedPoints());
+            counter(out, "fah_attribution_unattributed_points", "Work unit credit earned while nobody was online",
+                attributor.getUnattributedPoints());
+            counter(out, "fah_attribution_player_updates", "Batched player updates handed to rewards and leaderboards",
+                attributor.getPlayerUpdates());
+            gauge(out, "fah_attribution_timeline_segments", "Roster changes kept in the presence timeline",
+                attributor.getTimelineSegments());
+        }
+
+        RewardManager rewards = plugin.getRewardManager();
+        if (rewards != null) {
+            RewardDispatcher dispatcher = rewards.getDispatcher();
+            gauge(out, "fah_reward_queue_size", "Granted rewards waiting to be dispatched", dispatcher.getQueuedRewards());
+            gauge(out, "fah_reward_queue_waiting_players", "Players whose rewards wait for them to join",
+                dispatcher.getWaitingPlayers());
+            counter(out, "fah_reward_commands", "Reward commands dispatched", dispatcher.getCommandsDispatched());
+            counter(out, "fah_rewards_delivered", "Rewards fully delivered", dispatcher.getRewardsDelivered());
+        }
+
+        double tps = ServerTickStats.tps();
+        if (!Double.isNaN(tps)) {
+            gauge(out, "minecraft_tps", "Server ticks per second (1 minute average)", tps);
+        }
+        double mspt = ServerTickStats.mspt();
+        if (!Double.isNaN(mspt)) {
+            gauge(out, "minecraft_mspt", "Average milliseconds per tick", mspt);
+        }
+        gauge(out, "minecraft_players_online", "Players online", Bukkit.getOnlinePlayers().size());
+
+        out.append("# EOF\n");
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, double value) {
+        header(out, name, "counter", help);
+        sample(out, name + "_total", value);
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        sample(out, name, value);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, double value) {
+        out.append(name).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.6g", value));
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,239 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Level;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClientManager;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.environment.HostPressureMonitor;
+import com.thijs226.fahdonor.metrics.TimeSeriesStore.Point;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
+
+/**
+ * Feeds plugin and FAH metrics into a {@link TimeSeriesStore} every ten
+ * seconds and keeps it on disk across restarts, so past periods (an event
+ * last night, a slow week) can be looked back on with {@code /fah graph}.
+ */
+public class MetricsHistory {
+
+    private static final String SPARK_BLOCKS = "\u2581\u2582\u2583\u2584\u2585\u2586\u2587\u2588";
+    private static final long SAMPLE_INTERVAL_TICKS = 20L * TimeSeriesStore.Resolution.TEN_SECONDS.getStepSeconds();
+
+    private final FAHResourceDonor plugin;
+    private final TimeSeriesStore store;
+    private final Map<String, DoubleSupplier> sources = new LinkedHashMap<>();
+    /** Sources whose failure has been logged; cleared once they work again. */
+    private final Set<String> failingSources = new HashSet<>();
+    private final Path snapshotFile;
+    private BukkitTask sampleTask;
+    private BukkitTask snapshotTask;
+
+    private long lastPoints = -1;
+    private long lastWorkUnits = -1;
+    private long lastRateEpochSecond;
+    private double pointsPerHour = Double.NaN;
+    private double workUnitsPerHour = Double.NaN;
+
+    public MetricsHistory(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        long maxMemoryKb = Math.max(64, plugin.getConfig().getLong("metrics-history.max-memory-kb", 4096));
+        this.store = new TimeSeriesStore(maxMemoryKb * 1024L);
+        this.snapshotFile = plugin.getDataFolder().toPath()
+            .resolve(plugin.getConfig().getString("metrics-history.snapshot-file", "metrics-history.bin"));
+        registerSources();
+    }
+
+    private void registerSources() {
+        PerformanceMetrics metrics = plugin.getPerformanceMetrics();
+        if (metrics != null) {
+            source("fah_cpu_percent", metrics::getCurrentCpuUsage);
+            source("fah_memory_mb", metrics::getCurrentMemoryUsageMB);
+        }
+        source("fah_cores", () -> {
+            FAHClientManager manager = plugin.getFAHManager();
+            return manager != null ? manager.getCurrentCores() : Double.NaN;
+        });
+        source("points_per_hour", () -> pointsPerHour);
+        source("work_units_per_hour", () -> workUnitsPerHour);
+        source("tps", ServerTickStats::tps);
+        source("mspt", ServerTickStats::mspt);
+        source("players", () -> Bukkit.getOnlinePlayers().size());
+        source("host_cpu_pressure", () -> {
+            HostPressureMonitor monitor = plugin.getHostPressureMonitor();
+            return monitor != null ? monitor.getLastPressure().someAvg10() : Double.NaN;
+        });
+    }
+
+    private void source(String name, DoubleSupplier supplier) {
+        if (store.register(name)) {
+            sources.put(name, supplier);
+        } else {
+            plugin.getLogger().warning(() -> String.format(
+                "Metrics history memory limit reached; not recording '%s' (max %d series)", name, store.getMaxSeries()));
+        }
+    }
+
+    public void start() {
+        stop();
+        load();
+        sampleTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.METRICS, this::sample), SAMPLE_INTERVAL_TICKS, SAMPLE_INTERVAL_TICKS);
+        long snapshotTicks = Math.max(1, plugin.getConfig().getLong("metrics-history.snapshot-interval-minutes", 10)) * 60L * 20L;
+        snapshotTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::save, snapshotTicks, snapshotTicks);
+    }
+
+    public void stop() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+            snapshotTask = null;
+        }
+    }
+
+    private void sample() {
+        long now = System.currentTimeMillis() / 1000L;
+        updateRates(now);
+        for (Map.Entry<String, DoubleSupplier> entry : sources.entrySet()) {
+            String name = entry.getKey();
+            try {
+                store.record(name, now, entry.getValue().getAsDouble());
+                failingSources.remove(name);
+            } catch (RuntimeException e) {
+                // A failing source must not stop the others from being recorded
+                if (failingSources.add(name)) {
+                    plugin.getLogger().log(Level.WARNING, "Metrics history source '" + name + "' failed; skipping it until it recovers", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the lifetime point and work unit totals into per-hour rates.
+     */
+    private void updateRates(long now) {
+        FAHClient client = plugin.getFAHClient();
+        if (client == null) {
+            pointsPerHour = Double.NaN;
+            workUnitsPerHour = Double.NaN;
+            return;
+        }
+        long points = client.getPointsEarned();
+        long workUnits = client.getCompletedWorkUnits();
+        if (lastPoints >= 0 && now > lastRateEpochSecond) {
+            double hours = (now - lastRateEpochSecond) / 3600.0;
+            pointsPerHour = Math.max(0, points - lastPoints) / hours;
+            workUnitsPerHour = Math.max(0, workUnits - lastWorkUnits) / hours;
+        }
+        lastPoints = points;
+        lastWorkUnits = workUnits;
+        lastRateEpochSecond = now;
+    }
+
+    /**
+     * Writes the store to disk via a temporary file so a crash never leaves a
+     * truncated snapshot behind. Synchronized because the async snapshot task
+     * and the save on disable share the temporary file.
+     */
+    public synchronized void save() {
+        try {
+            byte[] snapshot = store.snapshot();
+            Files.createDirectories(snapshotFile.getParent());
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.write(temp, snapshot);
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to save metrics history", e);
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(snapshotFile)) {
+            store.readSnapshot(in);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to load metrics history; starting fresh", e);
+        }
+    }
+
+    public Set<String> getSeriesNames() {
+        return store.getSeriesNames();
+    }
+
+    public List<Point> query(String name, long rangeSeconds) {
+        return store.query(name, rangeSeconds, System.currentTimeMillis() / 1000L);
+    }
+
+    /**
+     * Renders bucket averages as a block-character sparkline of {@code width}
+     * columns spanning {@code [from, from + rangeSeconds)}. Columns without
+     * data are left blank.
+     */
+    public static String sparkline(List<Point> points, long fromEpochSecond, long rangeSeconds, int width) {
+        double[] sums = new double[width];
+        int[] counts = new int[width];
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        for (Point point : points) {
+            int column = (int) ((point.epochSecond() - fromEpochSecond) * width / Math.max(1, rangeSeconds));
+            column = Math.max(0, Math.min(width - 1, column));
+            sums[column] += point.avg();
+            counts[column]++;
+        }
+        for (int i = 0; i < width; i++) {
+            if (counts[i] > 0) {
+                double value = sums[i] / counts[i];
+                low = Math.min(low, value);
+                high = Math.max(high, value);
+            }
+        }
+        StringBuilder line = new StringBuilder(width);
+        for (int i = 0; i < width; i++) {
+            if (counts[i] == 0) {
+                line.append(' ');
+                continue;
+            }
+            line.append(sparkBlock(sums[i] / counts[i], low, high));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Renders counts as a sparkline, one column each, scaled from zero to
+     * the largest count.
+     */
+    public static String sparkline(int[] counts) {
+        int peak = 0;
+        for (int count : counts) {
+            peak = Math.max(peak, count);
+        }
+        StringBuilder line = new StringBuilder(counts.length);
+        for (int count : counts) {
+            line.append(sparkBlock(count, 0, peak));
+        }
+        return line.toString();
+    }
+
+    private static char sparkBlock(double value, double low, double high) {
+        int level = high > low ? (int) Math.round((value - low) / (high - low) * (SPARK_BLOCKS.length() - 1)) : 0;
+        return SPARK_BLOCKS.charAt(level);
+    }
+}
@@ -2,7 +2,7 @@ package com.thijs226.fahdonor.metrics;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
@@ -10,41 +10,64 @@ import com.thijs226.fahdonor.FAHResourceDonor;
 /**
  * Tracks performance metrics for the Folding@home client including CPU usage,
  * memory consumption, work unit efficiency, and overall health statistics.
+ * Values live in a {@link MetricRegistry}, so updates are cheap and safe
+ * from any thread.
  */
 public class PerformanceMetrics {
     
+    private final MetricRegistry registry = new MetricRegistry();
+    
     // CPU Metrics
-    private final AtomicLong totalCpuTimeMillis = new AtomicLong(0);
-    private final AtomicLong fahCpuTimeMillis = new AtomicLong(0);
-    private final AtomicReference<Double> currentCpuUsagePercent = new AtomicReference<>(0.0);
+    private final MetricRegistry.Counter totalCpuTimeMillis = registry.counter("cpu.total_time_millis");
+    private final MetricRegistry.Counter fahCpuTimeMillis = registry.counter("cpu.fah_time_millis");
+    private final MetricRegistry.DoubleGauge currentCpuUsagePercent = registry.doubleGauge("cpu.usage_percent");
     
     // Memory Metrics
-    private final AtomicLong peakMemoryUsageMB = new AtomicLong(0);
-    private final AtomicLong currentMemoryUsageMB = new AtomicLong(0);
-    private final AtomicLong averageMemoryUsageMB = new AtomicLong(0);
-    private final AtomicLong memorySampleCount = new AtomicLong(0);
+    private final MetricRegistry.Extreme peakMemoryUsageMB = registry.max("memory.peak_mb");
+    private final MetricRegistry.LongGauge currentMemoryUsageMB = registry.longGauge("memory.current_mb");
+    private final MetricRegistry.Mean averageMemoryUsageMB = registry.mean("memory.average_mb");
     
     // Work Unit Efficiency
-    private final AtomicLong totalWorkUnitsStarted = new AtomicLong(0);
-    private final AtomicLong totalWorkUnitsCompleted = new AtomicLong(0);
-    private final AtomicLong totalWorkUnitsFailed = new AtomicLong(0);
-    private final AtomicLong totalPointsEarned = new AtomicLong(0);
-    private final AtomicLong totalProcessingTimeSeconds = new AtomicLong(0);
+    private final MetricRegistry.Counter totalWorkUnitsStarted = registry.counter("work_units.started");
+    private final MetricRegistry.Counter totalWorkUnitsCompleted = registry.counter("work_units.completed");
+    private final MetricRegistry.Counter totalWorkUnitsFailed = registry.counter("work_units.failed");
+    private final MetricRegistry.Counter totalPointsEarned = registry.counter("work_units.points");
+    private final MetricRegistry.Counter totalProcessingTimeSeconds = registry.counter("work_units.processing_seconds");
+    
+    // Actuation & Log Ingest
+    private final MetricRegistry.Counter actuationCount = registry.counter("actuation.count");
+    private final MetricRegistry.Counter actuationLatencyTotalMillis = registry.counter("actuation.latency_total_millis");
+    private final MetricRegistry.LongGauge lastActuationLatencyMillis = registry.longGauge("actuation.last_latency_millis");
+    private final MetricRegistry.Extreme maxActuationLatencyMillis = registry.max("actuation.max_latency_millis");
+    private final MetricRegistry.Counter logLinesIngested = registry.counter("log.lines_ingested");
+    private final MetricRegistry.Counter logBytesIngested = registry.counter("log.bytes_ingested");
     
     // Uptime & Session Tracking
     private final AtomicReference<Instant> sessionStartTime = new AtomicReference<>(Instant.now());
-    private final AtomicLong totalUptimeSeconds = new AtomicLong(0);
-    private final AtomicLong totalDowntimeSeconds = new AtomicLong(0);
-    private final AtomicLong restartCount = new AtomicLong(0);
+    private final MetricRegistry.Counter totalUptimeSeconds = registry.counter("session.uptime_seconds");
+    private final MetricRegistry.Counter totalDowntimeSeconds = registry.counter("session.downtime_seconds");
+    private final MetricRegistry.Counter restartCount = registry.counter("session.restarts");
     
     // Health Metrics
-    private final AtomicLong consecutiveSuccessfulUnits = new AtomicLong(0);
-    private final AtomicLong consecutiveFailedUnits = new AtomicLong(0);
+    private final MetricRegistry.LongGauge consecutiveSuccessfulUnits = registry.longGauge("health.consecutive_successes");
+    private final MetricRegistry.LongGauge consecutiveFailedUnits = registry.longGauge("health.consecutive_failures");
     private final AtomicReference<String> lastHealthStatus = new AtomicReference<>("Initializing");
-    private final AtomicLong lastHealthCheckTimestamp = new AtomicLong(System.currentTimeMillis());
+    private final MetricRegistry.LongGauge lastHealthCheckTimestamp = registry.longGauge("health.last_check_millis");
     
     public PerformanceMetrics(FAHResourceDonor plugin) {
         // Plugin reference not needed for metrics
+        lastHealthCheckTimestamp.set(System.currentTimeMillis());
+    }
+    
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+    
+    /**
+     * Current value of every tracked metric, keyed by registry name.
+     */
+    public Map<String, Double> snapshot() {
+        return registry.snapshot();
     }
     
     // CPU Metrics
@@ -53,11 +76,11 @@ public class PerformanceMetrics {
     }
     
     public void addCpuTime(long millis) {
-        totalCpuTimeMillis.addAndGet(millis);
+        totalCpuTimeMillis.add(millis);
     }
     
     public void addFahCpuTime(long millis) {
-        fahCpuTimeMillis.addAndGet(millis);
+        fahCpuTimeMillis.add(millis);
     }
     
     public double getCurrentCpuUsage() {
@@ -65,28 +88,18 @@ public class PerformanceMetrics {
     }
     
     public long getTotalCpuTimeMillis() {
-        return totalCpuTimeMillis.get();
+        return totalCpuTimeMillis.sum();
     }
     
     public long getFahCpuTimeMillis() {
-        return fahCpuTimeMillis.get();
+        return fahCpuTimeMillis.sum();
     }
     
     // Memory Metrics
     public void updateMemoryUsage(long usageMB) {
         currentMemoryUsageMB.set(usageMB);
-        
-        // Update peak
-        long currentPeak = peakMemoryUsageMB.get();
-        if (usageMB > currentPeak) {
-            peakMemoryUsageMB.compareAndSet(currentPeak, usageMB);
-        }
-        
-        // Update rolling average
-        long count = memorySampleCount.incrementAndGet();
-        long currentAvg = averageMemoryUsageMB.get();
-        long newAvg = ((currentAvg * (count - 1)) + usageMB) / count;
-        averageMemoryUsageMB.set(newAvg);
+        peakMemoryUsageMB.record(usageMB);
+        averageMemoryUsageMB.record(usageMB);
     }
     
     public long getCurrentMemoryUsageMB() {
@@ -98,86 +111,127 @@ public class PerformanceMetrics {
     }
     
     public long getAverageMemoryUsageMB() {
-        return averageMemoryUsageMB.get();
+        return (long) averageMemoryUsageMB.value();
     }
     
     // Work Unit Metrics
     public void recordWorkUnitStarted() {
-        totalWorkUnitsStarted.incrementAndGet();
+        totalWorkUnitsStarted.increment();
     }
     
     public void recordWorkUnitCompleted(long points, long durationSeconds) {
-        totalWorkUnitsCompleted.incrementAndGet();
-        totalPointsEarned.addAndGet(points);
-        totalProcessingTimeSeconds.addAndGet(durationSeconds);
-        consecutiveSuccessfulUnits.incrementAndGet();
+        totalWorkUnitsCompleted.increment();
+        totalPointsEarned.add(points);
+        totalProcessingTimeSeconds.add(durationSeconds);
+        consecutiveSuccessfulUnits.increment();
         consecutiveFailedUnits.set(0);
     }
     
     public void recordWorkUnitFailed() {
-        totalWorkUnitsFailed.incrementAndGet();
-        consecutiveFailedUnits.incrementAndGet();
+        totalWorkUnitsFailed.increment();
+        consecutiveFailedUnits.increment();
         consecutiveSuccessfulUnits.set(0);
     }
     
     public long getTotalWorkUnitsStarted() {
-        return totalWorkUnitsStarted.get();
+        return totalWorkUnitsStarted.sum();
     }
     
     public long getTotalWorkUnitsCompleted() {
-        return totalWorkUnitsCompleted.get();
+        return totalWorkUnitsCompleted.sum();
     }
     
     public long getTotalWorkUnitsFailed() {
-        return totalWorkUnitsFailed.get();
+        return totalWorkUnitsFailed.sum();
     }
     
     public long getTotalPointsEarned() {
-        return totalPointsEarned.get();
+        return totalPointsEarned.sum();
     }
     
     public double getSuccessRate() {
-        long total = totalWorkUnitsCompleted.get() + totalWorkUnitsFailed.get();
+        long completed = totalWorkUnitsCompleted.sum();
+        long total = completed + totalWorkUnitsFailed.sum();
         if (total == 0) return 100.0;
-        return (totalWorkUnitsCompleted.get() * 100.0) / total;
+        return (completed * 100.0) / total;
     }
     
     public double getAveragePointsPerUnit() {
-        long completed = totalWorkUnitsCompleted.get();
+        long completed = totalWorkUnitsCompleted.sum();
         if (completed == 0) return 0.0;
-        return (double) totalPointsEarned.get() / completed;
+        return (double) totalPointsEarned.sum() / completed;
     }
     
     public double getPointsPerHour() {
         long totalHours = getTotalUptimeSeconds() / 3600;
         if (totalHours == 0) return 0.0;
-        return (double) totalPointsEarned.get() / totalHours;
+        return (double) totalPointsEarned.sum() / totalHours;
+    }
+    
+    // Actuation & Log Ingest
+    /**
+     * Records the time between a core change being requested and FAH accepting it.
+     */
+    public void recordActuation(long latencyMillis) {
+        actuationCount.increment();
+        actuationLatencyTotalMillis.add(latencyMillis);
+        lastActuationLatencyMillis.set(latencyMillis);
+        maxActuationLatencyMillis.record(latencyMillis);
+    }
+    
+    public void recordLogIngest(long lines, long bytes) {
+        logLinesIngested.add(lines);
+        logBytesIngested.add(bytes);
+    }
+    
+    public long getActuationCount() {
+        return actuationCount.sum();
+    }
+    
+    public long getActuationLatencyTotalMillis() {
+        return actuationLatencyTotalMillis.sum();
+    }
+    
+    public long getLastActuationLatencyMillis() {
+        return lastActuationLatencyMillis.get();
+    }
+    
+    public long getMaxActuationLatencyMillis() {
+        return maxActuationLatencyMillis.get();
+    }
+    
+    public long getLogLinesIngested() {
+        return logLinesIngested.sum();
+    }
+    
+    public long getLogBytesIngested() {
+        return logBytesIngested.sum();
     }
     
     // Session & Uptime
     public void recordRestart() {
-        restartCount.incrementAndGet();
+        restartCount.increment();
         sessionStartTime.set(Instant.now());
     }
     
     public void addUptime(long seconds) {
-        totalUptimeSeconds.addAndGet(seconds);
+        totalUptimeSeconds.add(seconds);
     }
     
     public void addDowntime(long seconds) {
-        totalDowntimeSeconds.addAndGet(seconds);
+        totalDowntimeSeconds.add(seconds);
     }
     
     public long getTotalUptimeSeconds() {
-        return totalUptimeSeconds.get();
+        return totalUptimeSeconds.sum();
     }
     
     public long getTotalDowntimeSeconds() {
-        return totalDowntimeSeconds.get();
+        return totalDowntimeSeconds.sum();
     }
     
     public long getRestartCount() {
-        return restartCount.get();
+        return restartCount.sum();
     }
     
     public Duration getSessionDuration() {
@@ -185,9 +239,10 @@ public class PerformanceMetrics {
     }
     
     public double getUptimePercentage() {
-        long total = totalUptimeSeconds.get() + totalDowntimeSeconds.get();
+        long uptime = totalUptimeSeconds.sum();
+        long total = uptime + totalDowntimeSeconds.sum();
         if (total == 0) return 100.0;
-        return (totalUptimeSeconds.get() * 100.0) / total;
+        return (uptime * 100.0) / total;
     }
     
     // Health Status
@@ -268,24 +323,8 @@ public class PerformanceMetrics {
      * Reset all metrics (useful for testing or starting fresh)
      */
     public void reset() {
-        totalCpuTimeMillis.set(0);
-        fahCpuTimeMillis.set(0);
-        currentCpuUsagePercent.set(0.0);
-        peakMemoryUsageMB.set(0);
-        currentMemoryUsageMB.set(0);
-        averageMemoryUsageMB.set(0);
-        memorySampleCount.set(0);
-        totalWorkUnitsStarted.set(0);
-        totalWorkUnitsCompleted.set(0);
-        totalWorkUnitsFailed.set(0);
-        totalPointsEarned.set(0);
-        totalProcessingTimeSeconds.set(0);
+        registry.resetAll();
         sessionStartTime.set(Instant.now());
-        totalUptimeSeconds.set(0);
-        totalDowntimeSeconds.set(0);
-        restartCount.set(0);
-        consecutiveSuccessfulUnits.set(0);
-        consecutiveFailedUnits.set(0);
         lastHealthStatus.set("Reset");
         lastHealthCheckTimestamp.set(System.currentTimeMillis());
     }
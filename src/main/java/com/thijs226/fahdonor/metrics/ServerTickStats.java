@@ -0,0 +1,55 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.lang.reflect.Method;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+/**
+ * TPS and MSPT readings from servers that expose them (Paper and forks).
+ * Both return {@code NaN} on Spigot/vanilla.
+ */
+public final class ServerTickStats {
+
+    private static final Method TPS_METHOD = findServerMethod("getTPS");
+    private static final Method TICK_TIME_METHOD = findServerMethod("getAverageTickTime");
+
+    private ServerTickStats() {
+    }
+
+    /** One-minute TPS average, capped at 20. */
+    public static double tps() {
+        return invokeDouble(TPS_METHOD);
+    }
+
+    /** Average milliseconds per tick. */
+    public static double mspt() {
+        return invokeDouble(TICK_TIME_METHOD);
+    }
+
+    private static Method findServerMethod(String name) {
+        try {
+            return Server.class.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static double invokeDouble(Method method) {
+        if (method == null) {
+            return Double.NaN;
+        }
+        try {
+            Object result = method.invoke(Bukkit.getServer());
+            if (result instanceof double[] values && values.length > 0) {
+                return Math.min(20.0, values[0]);
+            }
+            if (result instanceof Number number) {
+                return number.doubleValue();
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Double.NaN;
+        }
+        return Double.NaN;
+    }
+}
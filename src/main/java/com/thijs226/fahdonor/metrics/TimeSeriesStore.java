@@ -0,0 +1,357 @@
+package com.thijs226.fahdonor.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-memory store of numeric time series. Every series keeps one ring of
+ * primitive arrays per {@link Resolution}; each sample is rolled into the open
+ * bucket of every resolution (min, max, sum/count and last) and the bucket is
+ * committed to its ring once time moves past it. Memory is allocated up front
+ * and capped by the number of series the store will accept.
+ */
+public final class TimeSeriesStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x46414854; // "FAHT"
+    private static final int SNAPSHOT_VERSION = 1;
+    /** time + min + max + sum + last (longs/doubles) plus an int count. */
+    private static final int BYTES_PER_SLOT = 5 * Long.BYTES + Integer.BYTES;
+
+    public enum Resolution {
+        TEN_SECONDS(10, 360),
+        MINUTE(60, 1440),
+        HOUR(3600, 720),
+        DAY(86400, 730);
+
+        private final int stepSeconds;
+        private final int capacity;
+
+        Resolution(int stepSeconds, int capacity) {
+            this.stepSeconds = stepSeconds;
+            this.capacity = capacity;
+        }
+
+        public int getStepSeconds() {
+            return stepSeconds;
+        }
+
+        /** How far back this resolution reaches. */
+        public long getSpanSeconds() {
+            return (long) stepSeconds * capacity;
+        }
+    }
+
+    /** One aggregated bucket. */
+    public record Point(long epochSecond, double min, double max, double avg, double last) {}
+
+    private static final class Ring {
+        final int step;
+        final long[] time;
+        final double[] min;
+        final double[] max;
+        final double[] sum;
+        final double[] last;
+        final int[] count;
+        int head;
+        int size;
+
+        long openBucket = Long.MIN_VALUE;
+        double openMin;
+        double openMax;
+        double openSum;
+        double openLast;
+        int openCount;
+
+        Ring(Resolution resolution) {
+            this.step = resolution.stepSeconds;
+            int capacity = resolution.capacity;
+            this.time = new long[capacity];
+            this.min = new double[capacity];
+            this.max = new double[capacity];
+            this.sum = new double[capacity];
+            this.last = new double[capacity];
+            this.count = new int[capacity];
+        }
+
+        void add(long epochSecond, double value) {
+            long bucket = epochSecond - Math.floorMod(epochSecond, step);
+            // A sample older than the open bucket (clock went backwards) is folded into it
+            if (bucket > openBucket) {
+                commit();
+                openBucket = bucket;
+                openMin = value;
+                openMax = value;
+                openSum = 0;
+                openCount = 0;
+            }
+            openMin = Math.min(openMin, value);
+            openMax = Math.max(openMax, value);
+            openSum += value;
+            openLast = value;
+            openCount++;
+        }
+
+        private void commit() {
+            if (openCount == 0) {
+                return;
+            }
+            push(openBucket, openMin, openMax, openSum, openLast, openCount);
+            openCount = 0;
+        }
+
+        void push(long bucket, double bucketMin, double bucketMax, double bucketSum, double bucketLast, int bucketCount) {
+            time[head] = bucket;
+            min[head] = bucketMin;
+            max[head] = bucketMax;
+            sum[head] = bucketSum;
+            last[head] = bucketLast;
+            count[head] = bucketCount;
+            head = (head + 1) % time.length;
+            size = Math.min(size + 1, time.length);
+        }
+
+        void collect(long fromEpochSecond, List<Point> out) {
+            int capacity = time.length;
+            for (int i = 0; i < size; i++) {
+                int index = Math.floorMod(head - size + i, capacity);
+                if (time[index] + step > fromEpochSecond) {
+                    out.add(new Point(time[index], min[index], max[index], sum[index] / count[index], last[index]));
+                }
+            }
+            if (openCount > 0 && openBucket + step > fromEpochSecond) {
+                out.add(new Point(openBucket, openMin, openMax, openSum / openCount, openLast));
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            int capacity = time.length;
+            out.writeInt(step);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                int index = Math.floorMod(head - size + i, capacity);
+                writeSlot(out, time[index], min[index], max[index], sum[index], last[index], count[index]);
+            }
+            out.writeBoolean(openCount > 0);
+            if (openCount > 0) {
+                writeSlot(out, openBucket, openMin, openMax, openSum, openLast, openCount);
+            }
+        }
+
+        void read(DataInputStream in) throws IOException {
+            head = 0;
+            size = 0;
+            openCount = 0;
+            openBucket = Long.MIN_VALUE;
+            int entries = in.readInt();
+            for (int i = 0; i < entries; i++) {
+                long bucket = in.readLong();
+                double slotMin = in.readDouble();
+                double slotMax = in.readDouble();
+                double slotSum = in.readDouble();
+                double slotLast = in.readDouble();
+                int slotCount = in.readInt();
+                push(bucket, slotMin, slotMax, slotSum, slotLast, slotCount);
+            }
+            if (in.readBoolean()) {
+                openBucket = in.readLong();
+                openMin = in.readDouble();
+                openMax = in.readDouble();
+                openSum = in.readDouble();
+                openLast = in.readDouble();
+                openCount = in.readInt();
+            }
+        }
+
+        private static void writeSlot(DataOutputStream out, long bucket, double slotMin, double slotMax,
+                                      double slotSum, double slotLast, int slotCount) throws IOException {
+            out.writeLong(bucket);
+            out.writeDouble(slotMin);
+            out.writeDouble(slotMax);
+            out.writeDouble(slotSum);
+            out.writeDouble(slotLast);
+            out.writeInt(slotCount);
+        }
+
+        static void skip(DataInputStream in) throws IOException {
+            int entries = in.readInt();
+            in.skipNBytes((long) entries * BYTES_PER_SLOT);
+            if (in.readBoolean()) {
+                in.skipNBytes(BYTES_PER_SLOT);
+            }
+        }
+    }
+
+    private static final class Series {
+        final Ring[] rings = new Ring[Resolution.values().length];
+
+        Series() {
+            for (Resolution resolution : Resolution.values()) {
+                rings[resolution.ordinal()] = new Ring(resolution);
+            }
+        }
+
+        synchronized void record(long epochSecond, double value) {
+            for (Ring ring : rings) {
+                ring.add(epochSecond, value);
+            }
+        }
+
+        synchronized List<Point> query(Resolution resolution, long fromEpochSecond) {
+            List<Point> points = new ArrayList<>();
+            rings[resolution.ordinal()].collect(fromEpochSecond, points);
+            return points;
+        }
+
+        synchronized void write(DataOutputStream out) throws IOException {
+            out.writeByte(rings.length);
+            for (Ring ring : rings) {
+                ring.write(out);
+            }
+        }
+
+        synchronized void read(DataInputStream in) throws IOException {
+            int ringCount = in.readUnsignedByte();
+            for (int i = 0; i < ringCount; i++) {
+                int step = in.readInt();
+                Ring ring = i < rings.length && rings[i].step == step ? rings[i] : null;
+                if (ring != null) {
+                    ring.read(in);
+                } else {
+                    Ring.skip(in);
+                }
+            }
+        }
+    }
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final int maxSeries;
+
+    /**
+     * @param maxMemoryBytes ceiling for all ring buffers; limits how many series can be registered
+     */
+    public TimeSeriesStore(long maxMemoryBytes) {
+        this.maxSeries = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemoryBytes / bytesPerSeries()));
+    }
+
+    /** Pre-allocated size of one series across all resolutions. */
+    public static long bytesPerSeries() {
+        long slots = 0;
+        for (Resolution resolution : Resolution.values()) {
+            slots += resolution.capacity;
+        }
+        return slots * BYTES_PER_SLOT;
+    }
+
+    /**
+     * Registers a series. Returns false when the memory ceiling would be exceeded.
+     */
+    public synchronized boolean register(String name) {
+        if (series.containsKey(name)) {
+            return true;
+        }
+        if (series.size() >= maxSeries) {
+            return false;
+        }
+        series.put(name, new Series());
+        return true;
+    }
+
+    public Set<String> getSeriesNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(series.keySet()));
+    }
+
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    /**
+     * Records a sample; NaN and unknown series are ignored.
+     */
+    public void record(String name, long epochSecond, double value) {
+        Series target = series.get(name);
+        if (target != null && !Double.isNaN(value)) {
+            target.record(epochSecond, value);
+        }
+    }
+
+    /**
+     * Finest resolution that still covers {@code rangeSeconds}.
+     */
+    public static Resolution resolutionFor(long rangeSeconds) {
+        for (Resolution resolution : Resolution.values()) {
+            if (resolution.getSpanSeconds() >= rangeSeconds) {
+                return resolution;
+            }
+        }
+        return Resolution.DAY;
+    }
+
+    /**
+     * Points covering the last {@code rangeSeconds} before {@code nowEpochSecond},
+     * oldest first, at the finest resolution that spans the range.
+     */
+    public List<Point> query(String name, long rangeSeconds, long nowEpochSecond) {
+        Series target = series.get(name);
+        if (target == null) {
+            return List.of();
+        }
+        return target.query(resolutionFor(rangeSeconds), nowEpochSecond - rangeSeconds);
+    }
+
+    /**
+     * Serialises every series into a compact binary snapshot.
+     */
+    public byte[] snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            List<Map.Entry<String, Series>> entries = new ArrayList<>(series.entrySet());
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Series> entry : entries) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores registered series from a snapshot; series that are no longer
+     * registered are skipped.
+     */
+    public void readSnapshot(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a metrics history snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported metrics history snapshot version " + version);
+        }
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            Series target = series.get(name);
+            if (target != null) {
+                target.read(in);
+            } else {
+                int ringCount = in.readUnsignedByte();
+                for (int r = 0; r < ringCount; r++) {
+                    in.readInt();
+                    Ring.skip(in);
+                }
+            }
+        }
+    }
+}
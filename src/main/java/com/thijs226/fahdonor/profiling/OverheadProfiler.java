@@ -0,0 +1,205 @@
+package com.thijs226.fahdonor.profiling;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.metrics.ServerTickStats;
+
+/**
+ * Accounts for main-thread time spent inside the plugin's own sync tasks and
+ * event handlers. Work is timed with {@link System#nanoTime()} into a
+ * per-tick slot for its subsystem; a one-tick timer folds the slots into
+ * totals and per-tick maxima and checks the share of MSPT against a budget.
+ * Everything runs on the main thread, so plain arrays are enough.
+ */
+public class OverheadProfiler {
+
+    public enum Subsystem {
+        ALLOCATION("core allocation"),
+        SCHEDULE("schedule"),
+        PLAYER_EVENTS("join/quit handlers"),
+        BURST_EVENTS("burst throttle events"),
+        NOTIFICATIONS("admin notifications"),
+        STATUS("status checks"),
+        METRICS("metrics"),
+        TUNING("throughput tuning"),
+        STATISTICS("statistics"),
+        LEADERBOARD("leaderboard broadcasts"),
+        ATTRIBUTION("contribution attribution"),
+        REWARDS("reward commands");
+
+        public final String description;
+
+        Subsystem(String description) {
+            this.description = description;
+        }
+    }
+
+    /** Average and worst main-thread cost of one subsystem, in microseconds per tick. */
+    public record SubsystemCost(Subsystem subsystem, double averageMicros, double maxMicros, long calls) {}
+
+    private static final int WINDOW_TICKS = 1200;
+    private static final double DEFAULT_TICK_MILLIS = 50.0;
+
+    private final FAHResourceDonor plugin;
+    private final long[] currentTick = new long[Subsystem.values().length];
+    private final long[] totalNanos = new long[Subsystem.values().length];
+    private final long[] maxTickNanos = new long[Subsystem.values().length];
+    private final long[] calls = new long[Subsystem.values().length];
+    private final long[] window = new long[WINDOW_TICKS];
+    private long windowSum;
+    private long ticks;
+    private long lastAlertMillis;
+    private boolean inSection;
+    private BukkitTask rollTask;
+    private volatile boolean enabled;
+
+    public OverheadProfiler(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        stop();
+        enabled = true;
+        rollTask = Bukkit.getScheduler().runTaskTimer(plugin, this::rollTick, 1L, 1L);
+    }
+
+    public void stop() {
+        enabled = false;
+        if (rollTask != null) {
+            rollTask.cancel();
+            rollTask = null;
+        }
+    }
+
+    /**
+     * Start time to pass to {@link #end}, or 0 when nothing is measured.
+     * Nested sections are charged to the outermost one, so a notification
+     * sent from a core check is not counted twice. Always pair with
+     * {@link #end} in a finally block.
+     */
+    public long begin() {
+        if (!enabled || inSection || !Bukkit.isPrimaryThread()) {
+            return 0L;
+        }
+        inSection = true;
+        return System.nanoTime();
+    }
+
+    public void end(Subsystem subsystem, long startedNanos) {
+        if (startedNanos == 0L) {
+            return;
+        }
+        inSection = false;
+        currentTick[subsystem.ordinal()] += System.nanoTime() - startedNanos;
+        calls[subsystem.ordinal()]++;
+    }
+
+    /**
+     * Wraps a sync task so its run time is charged to {@code subsystem}.
+     */
+    public Runnable wrap(Subsystem subsystem, Runnable task) {
+        return () -> {
+            long started = begin();
+            try {
+                task.run();
+            } finally {
+                end(subsystem, started);
+            }
+        };
+    }
+
+    private void rollTick() {
+        long tickTotal = 0L;
+        for (int i = 0; i < currentTick.length; i++) {
+            long nanos = currentTick[i];
+            if (nanos != 0L) {
+                totalNanos[i] += nanos;
+                if (nanos > maxTickNanos[i]) {
+                    maxTickNanos[i] = nanos;
+                }
+                tickTotal += nanos;
+                currentTick[i] = 0L;
+            }
+        }
+        int slot = (int) (ticks % WINDOW_TICKS);
+        windowSum += tickTotal - window[slot];
+        window[slot] = tickTotal;
+        ticks++;
+
+        if (slot == WINDOW_TICKS - 1) {
+            checkBudget();
+        }
+    }
+
+    private void checkBudget() {
+        double budgetPercent = plugin.getConfig().getDouble("overhead-profiling.budget-percent", 1.0);
+        double share = getMsptSharePercent();
+        if (budgetPercent <= 0 || share < budgetPercent) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long cooldown = TimeUnit.MINUTES.toMillis(plugin.getConfig().getLong("overhead-profiling.alert-cooldown-minutes", 30));
+        if (now - lastAlertMillis < cooldown) {
+            return;
+        }
+        lastAlertMillis = now;
+        plugin.notifyAdmins(String.format(
+                "FAH plugin overhead is %.2f%% of MSPT (budget %.2f%%, %.0f µs/tick). See /fah overhead",
+                share, budgetPercent, getWindowAverageMicros()), ChatColor.YELLOW, true);
+    }
+
+    /**
+     * Average plugin main-thread time per tick over the last minute.
+     */
+    public double getWindowAverageMicros() {
+        long filled = Math.min(ticks, WINDOW_TICKS);
+        return filled == 0 ? 0.0 : windowSum / 1000.0 / filled;
+    }
+
+    /**
+     * Plugin share of the current MSPT over the last minute, in percent.
+     * Falls back to a 50 ms tick when the server does not expose MSPT.
+     */
+    public double getMsptSharePercent() {
+        double mspt = ServerTickStats.mspt();
+        if (Double.isNaN(mspt) || mspt <= 0) {
+            mspt = DEFAULT_TICK_MILLIS;
+        }
+        return getWindowAverageMicros() / 1000.0 / mspt * 100.0;
+    }
+
+    public SubsystemCost[] getCosts() {
+        Subsystem[] subsystems = Subsystem.values();
+        SubsystemCost[] costs = new SubsystemCost[subsystems.length];
+        for (int i = 0; i < subsystems.length; i++) {
+            double average = ticks == 0 ? 0.0 : totalNanos[i] / 1000.0 / ticks;
+            costs[i] = new SubsystemCost(subsystems[i], average, maxTickNanos[i] / 1000.0, calls[i]);
+        }
+        return costs;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void reset() {
+        for (int i = 0; i < totalNanos.length; i++) {
+            totalNanos[i] = 0L;
+            maxTickNanos[i] = 0L;
+            calls[i] = 0L;
+        }
+        ticks = 0L;
+        windowSum = 0L;
+        Arrays.fill(window, 0L);
+    }
+}
@@ -0,0 +1,128 @@
+package com.thijs226.fahdonor.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * On-demand JFR recording limited to the plugin's own events plus the JDK
+ * events that explain them (CPU samples, lock contention, parking, GC, I/O).
+ * Recordings are written to {@code profiles/} in the plugin folder.
+ */
+public class PluginProfiler {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final FAHResourceDonor plugin;
+    private Recording recording;
+    private Path destination;
+
+    public PluginProfiler(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+    }
+
+    public static boolean isSupported() {
+        try {
+            return FlightRecorder.isAvailable();
+        } catch (RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Starts a recording that stops by itself after {@code seconds}.
+     *
+     * @return the file the recording will be written to
+     */
+    public synchronized Path start(int seconds) throws IOException {
+        if (isRecording()) {
+            throw new IllegalStateException("A profile is already being recorded to " + destination.getFileName());
+        }
+        Path directory = plugin.getDataFolder().toPath().resolve("profiles");
+        Files.createDirectories(directory);
+        Path file = directory.resolve("fah-profile-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+
+        Recording newRecording = new Recording();
+        newRecording.setName("FAH ResourceDonor profile");
+        newRecording.enable(ProfilingEvents.LogPoll.class);
+        newRecording.enable(ProfilingEvents.CoreActuation.class);
+        newRecording.enable(ProfilingEvents.HealthCheck.class);
+        newRecording.enable(ProfilingEvents.RewardCheck.class);
+        newRecording.enable(ProfilingEvents.LeaderboardFormat.class);
+        newRecording.enable(ProfilingEvents.ConfigWrite.class).withStackTrace();
+        newRecording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(20));
+        newRecording.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(10));
+        newRecording.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(10));
+        newRecording.enable("jdk.GarbageCollection");
+        newRecording.enable("jdk.ObjectAllocationSample").with("throttle", "150/s");
+        newRecording.enable("jdk.FileRead").withThreshold(Duration.ofMillis(1));
+        newRecording.enable("jdk.FileWrite").withThreshold(Duration.ofMillis(1));
+        newRecording.enable("jdk.SocketRead").withThreshold(Duration.ofMillis(10));
+        newRecording.enable("jdk.SocketWrite").withThreshold(Duration.ofMillis(10));
+        newRecording.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+        newRecording.setToDisk(true);
+        newRecording.setDestination(file);
+        newRecording.setDuration(Duration.ofSeconds(seconds));
+        newRecording.start();
+
+        recording = newRecording;
+        destination = file;
+        plugin.getLogger().info(() -> String.format("Started %ds JFR profile -> %s", seconds, file));
+        return file;
+    }
+
+    /**
+     * Stops the active recording early and writes it out.
+     *
+     * @return the written file, or null when nothing was recording
+     */
+    public synchronized Path stop() {
+        if (!isRecording()) {
+            return null;
+        }
+        Path file = destination;
+        try {
+            recording.stop();
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.FINE, "Profile already stopped", e);
+        }
+        closeRecording();
+        return file;
+    }
+
+    public synchronized boolean isRecording() {
+        if (recording == null) {
+            return false;
+        }
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            return true;
+        }
+        // Finished on its own after the requested duration
+        closeRecording();
+        return false;
+    }
+
+    /**
+     * File of the current or most recent recording.
+     */
+    public synchronized Path getDestination() {
+        return destination;
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.thijs226.fahdonor.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events around the plugin's hot paths. Events are cheap
+ * when no recording is active; {@link PluginProfiler} enables them together
+ * with the relevant JDK events.
+ */
+public final class ProfilingEvents {
+
+    static final String CATEGORY = "FAH ResourceDonor";
+
+    private ProfilingEvents() {
+    }
+
+    @Name("fahdonor.LogPoll")
+    @Label("FAH Log Poll")
+    @Description("Reading and parsing new Folding@home log lines")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class LogPoll extends Event {
+        @Label("Lines Read")
+        public long linesRead;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytesRead;
+    }
+
+    @Name("fahdonor.CoreActuation")
+    @Label("FAH Core Actuation")
+    @Description("Applying a new core count to the Folding@home client")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class CoreActuation extends Event {
+        @Label("Previous Cores")
+        public int previousCores;
+
+        @Label("Requested Cores")
+        public int requestedCores;
+
+        @Label("Control Path")
+        public String controlPath;
+
+        @Label("Applied")
+        public boolean applied;
+    }
+
+    @Name("fahdonor.HealthCheck")
+    @Label("FAH Health Check")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class HealthCheck extends Event {
+        @Label("Healthy")
+        public boolean healthy;
+
+        @Label("Issues")
+        public int issues;
+    }
+
+    @Name("fahdonor.RewardCheck")
+    @Label("Reward Check")
+    @Description("Evaluating reward thresholds for one player")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class RewardCheck extends Event {
+        @Label("Thresholds Evaluated")
+        public int thresholdsEvaluated;
+
+        @Label("Rewards Granted")
+        public int rewardsGranted;
+    }
+
+    @Name("fahdonor.LeaderboardFormat")
+    @Label("Leaderboard Format")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class LeaderboardFormat extends Event {
+        @Label("Leaderboard")
+        public String leaderboard;
+
+        @Label("Entries")
+        public int entries;
+
+        @Label("Output Characters")
+        public int outputCharacters;
+    }
+
+    @Name("fahdonor.ConfigWrite")
+    @Label("Config Write")
+    @Description("Saving config.yml")
+    @Category(CATEGORY)
+    public static final class ConfigWrite extends Event {
+        @Label("File Size")
+        @DataAmount
+        public long bytesWritten;
+    }
+}
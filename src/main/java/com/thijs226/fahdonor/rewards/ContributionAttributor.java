@@ -0,0 +1,285 @@
+package com.thijs226.fahdonor.rewards;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHClient;
+import com.thijs226.fahdonor.FAHClient.CompletedWorkUnit;
+import com.thijs226.fahdonor.FAHClientManager;
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.leaderboard.LeaderboardManager;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+
+/**
+ * Turns what FAH does into per-player contributions. Who is online is
+ * sampled every {@code sample-seconds} into a timeline that only grows when
+ * the roster changes. A credited work unit is split across the players of
+ * that timeline for the time it ran, weighted by how long each was online;
+ * the core-seconds FAH used since the previous sample are split the same
+ * way and count as contribution time.
+ *
+ * <p>Shares are summed per player as fractions and handed to the reward and
+ * leaderboard managers every {@code flush-seconds}, one update per player,
+ * on the main thread. Whole units are passed on and the remainder is kept
+ * for the next flush, so nothing is lost to rounding. Once a player is
+ * offline and no longer in the timeline nothing more can be added, so their
+ * remainder is rounded off and their entries are dropped.
+ */
+public class ContributionAttributor implements FAHClient.WorkUnitListener {
+
+    /** Roster from {@code startMillis} until the next segment starts. */
+    private record Segment(long startMillis, UUID[] players) {}
+
+    private static final class Share {
+        double points;
+        double seconds;
+        double units;
+    }
+
+    private static final UUID[] NOBODY = new UUID[0];
+
+    private final FAHResourceDonor plugin;
+    private final Deque<Segment> timeline = new ArrayDeque<>();
+    private final Map<UUID, Share> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+    private final long sampleTicks;
+    private final long flushTicks;
+    private final long historyMillis;
+    private final AtomicLong attributedPoints = new AtomicLong();
+    private final AtomicLong unattributedPoints = new AtomicLong();
+    private final AtomicLong playerUpdates = new AtomicLong();
+    private long lastSampleMillis;
+    private BukkitTask sampleTask;
+    private BukkitTask flushTask;
+
+    public ContributionAttributor(FAHResourceDonor plugin) {
+        this.plugin = plugin;
+        this.sampleTicks = Math.max(1L, plugin.getConfig().getLong("attribution.sample-seconds", 30)) * 20L;
+        this.flushTicks = Math.max(1L, plugin.getConfig().getLong("attribution.flush-seconds", 60)) * 20L;
+        this.historyMillis = Math.max(1L, plugin.getConfig().getLong("attribution.history-hours", 48)) * 3_600_000L;
+    }
+
+    public void start() {
+        stop();
+        lastSampleMillis = System.currentTimeMillis();
+        sample();
+        sampleTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(OverheadProfiler.Subsystem.ATTRIBUTION, this::sample),
+            sampleTicks, sampleTicks);
+        flushTask = Bukkit.getScheduler().runTaskTimer(plugin,
+            plugin.getOverheadProfiler().wrap(OverheadProfiler.Subsystem.ATTRIBUTION, this::flush),
+            flushTicks, flushTicks);
+    }
+
+    /**
+     * Stops sampling and hands out what is pending. Call on the main thread.
+     */
+    public void stop() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+            sample();
+            flush();
+        }
+    }
+
+    /**
+     * Records the current roster and attributes the core-seconds used since
+     * the previous sample. Main thread.
+     */
+    private void sample() {
+        long now = System.currentTimeMillis();
+        List<UUID> online = new ArrayList<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            online.add(player.getUniqueId());
+            names.put(player.getUniqueId(), player.getName());
+        }
+        UUID[] roster = online.isEmpty() ? NOBODY : online.toArray(new UUID[0]);
+        Arrays.sort(roster);
+
+        long elapsedMillis = now - lastSampleMillis;
+        lastSampleMillis = now;
+        FAHClient client = plugin.getFAHClient();
+        FAHClientManager manager = plugin.getFAHManager();
+        if (elapsedMillis > 0 && client != null && manager != null && client.isProcessingWork()) {
+            double coreSeconds = elapsedMillis / 1000.0 * Math.max(0, manager.getCurrentCores());
+            if (coreSeconds > 0) {
+                weights(now - elapsedMillis, now)
+                    .forEach((playerId, weight) -> add(playerId, 0, coreSeconds * weight, 0));
+            }
+        }
+
+        synchronized (timeline) {
+            Segment last = timeline.peekLast();
+            if (last == null || !Arrays.equals(last.players(), roster)) {
+                timeline.addLast(new Segment(now, roster));
+            }
+            // Keep the segment that was current at the cutoff
+            while (timeline.size() > 1) {
+                Iterator<Segment> it = timeline.iterator();
+                it.next();
+                if (it.next().startMillis() > now - historyMillis) {
+                    break;
+                }
+                timeline.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Splits a credited work unit across the players online while it ran.
+     * Called on the log polling thread.
+     */
+    @Override
+    public void onWorkUnitCompleted(CompletedWorkUnit unit) {
+        long now = System.currentTimeMillis();
+        long runMillis = Math.max(sampleTicks * 50L, unit.durationSeconds() * 1000L);
+        Map<UUID, Double> weights = weights(now - Math.min(runMillis, historyMillis), now);
+        if (weights.isEmpty()) {
+            unattributedPoints.addAndGet(unit.credit());
+            return;
+        }
+        attributedPoints.addAndGet(unit.credit());
+        weights.forEach((playerId, weight) -> add(playerId, unit.credit() * weight, 0, weight));
+    }
+
+    /**
+     * Each player's share of {@code [fromMillis, toMillis)}: the time they
+     * were online, with each moment split evenly across everyone online
+     * then, normalised to sum to 1. Empty when nobody was online.
+     */
+    private Map<UUID, Double> weights(long fromMillis, long toMillis) {
+        Map<UUID, Double> weights = new HashMap<>();
+        double covered = 0;
+        synchronized (timeline) {
+            Segment previous = null;
+            for (Segment segment : timeline) {
+                if (previous != null) {
+                    covered += overlap(previous, segment.startMillis(), fromMillis, toMillis, weights);
+                }
+                previous = segment;
+            }
+            if (previous != null) {
+                covered += overlap(previous, toMillis, fromMillis, toMillis, weights);
+            }
+        }
+        if (covered <= 0) {
+            return Map.of();
+        }
+        double total = covered;
+        weights.replaceAll((playerId, weight) -> weight / total);
+        return weights;
+    }
+
+    private static double overlap(Segment segment, long endMillis, long fromMillis, long toMillis,
+                                  Map<UUID, Double> weights) {
+        UUID[] players = segment.players();
+        long overlap = Math.min(endMillis, toMillis) - Math.max(segment.startMillis(), fromMillis);
+        if (overlap <= 0 || players.length == 0) {
+            return 0;
+        }
+        double each = (double) overlap / players.length;
+        for (UUID playerId : players) {
+            weights.merge(playerId, each, Double::sum);
+        }
+        return overlap;
+    }
+
+    private void add(UUID playerId, double points, double seconds, double units) {
+        pending.compute(playerId, (id, share) -> {
+            Share result = share != null ? share : new Share();
+            result.points += points;
+            result.seconds += seconds;
+            result.units += units;
+            return result;
+        });
+    }
+
+    /**
+     * Hands every player's whole points, seconds and work units to the
+     * reward and leaderboard managers in one update each, and drops offline
+     * players that have nothing left to hand out. Main thread.
+     */
+    private void flush() {
+        RewardManager rewards = plugin.getRewardManager();
+        LeaderboardManager leaderboard = plugin.getLeaderboardManager();
+        Set<UUID> inTimeline = playersInTimeline();
+        for (UUID playerId : pending.keySet()) {
+            boolean online = Bukkit.getPlayer(playerId) != null;
+            boolean last = !online && !inTimeline.contains(playerId);
+            long[] whole = new long[3];
+            pending.computeIfPresent(playerId, (id, share) -> {
+                whole[0] = last ? Math.round(share.points) : (long) share.points;
+                whole[1] = last ? Math.round(share.seconds) : (long) share.seconds;
+                whole[2] = last ? Math.round(share.units) : (long) share.units;
+                share.points -= whole[0];
+                share.seconds -= whole[1];
+                share.units -= whole[2];
+                boolean empty = share.points == 0 && share.seconds == 0 && share.units == 0;
+                return last || (!online && empty) ? null : share;
+            });
+            if (whole[0] == 0 && whole[1] == 0 && whole[2] == 0) {
+                continue;
+            }
+            if (rewards != null) {
+                rewards.recordAttributed(playerId, whole[0], whole[1], whole[2]);
+            }
+            if (leaderboard != null) {
+                leaderboard.recordAttributed(playerId, names.getOrDefault(playerId, "Unknown"),
+                    whole[0], whole[1], whole[2]);
+            }
+            playerUpdates.incrementAndGet();
+        }
+        names.keySet().removeIf(playerId -> !pending.containsKey(playerId) && !inTimeline.contains(playerId)
+            && Bukkit.getPlayer(playerId) == null);
+    }
+
+    /** Everyone in a segment of the timeline, i.e. who a work unit can still be split to. */
+    private Set<UUID> playersInTimeline() {
+        Set<UUID> players = new HashSet<>();
+        synchronized (timeline) {
+            for (Segment segment : timeline) {
+                players.addAll(Arrays.asList(segment.players()));
+            }
+        }
+        return players;
+    }
+
+    public long getAttributedPoints() {
+        return attributedPoints.get();
+    }
+
+    /** Points credited while nobody was online. */
+    public long getUnattributedPoints() {
+        return unattributedPoints.get();
+    }
+
+    public long getPlayerUpdates() {
+        return playerUpdates.get();
+    }
+
+    public int getTimelineSegments() {
+        synchronized (timeline) {
+            return timeline.size();
+        }
+    }
+}
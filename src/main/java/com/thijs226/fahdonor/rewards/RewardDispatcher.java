@@ -0,0 +1,297 @@
+package com.thijs226.fahdonor.rewards;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.profiling.OverheadProfiler;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.Table;
+
+/**
+ * Runs reward commands at a bounded rate instead of all at once. Granted
+ * rewards are queued per player; every tick at most
+ * {@code rewards.dispatch.commands-per-tick} commands run on the main
+ * thread, taking one reward per online player in turn. Rewards for offline
+ * players wait until they join.
+ *
+ * <p>The queue is persisted per player, including how many commands of the
+ * reward at the head already ran. It is saved before the ledger, so a crash
+ * in between can queue a reward again but never drop one; a command that
+ * ran shortly before a crash may also run again.
+ */
+public class RewardDispatcher implements Listener, PersistenceScheduler.DirtySource {
+
+    private static final String LEGACY_PERMISSION_PREFIX = "fahdonor.reward.";
+
+    private static final class Pending {
+        final String rewardId;
+        final long queuedAtMillis;
+        int nextCommand;
+
+        Pending(String rewardId, long queuedAtMillis, int nextCommand) {
+            this.rewardId = rewardId;
+            this.queuedAtMillis = queuedAtMillis;
+            this.nextCommand = nextCommand;
+        }
+    }
+
+    private final FAHResourceDonor plugin;
+    private final RewardManager rewards;
+    private final ContributionStore store;
+    private final Map<UUID, Deque<Pending>> pending = new HashMap<>();
+    /** Online players with pending rewards, in turn order. */
+    private final Set<UUID> ready = new LinkedHashSet<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong commandsDispatched = new AtomicLong();
+    private final AtomicLong rewardsDelivered = new AtomicLong();
+    private int commandsPerTick;
+    private BukkitTask task;
+    private boolean registered;
+
+    public RewardDispatcher(FAHResourceDonor plugin, RewardManager rewards) {
+        this.plugin = plugin;
+        this.rewards = rewards;
+        this.store = plugin.getContributionStore();
+        load();
+    }
+
+    public void start() {
+        reload();
+        if (!registered) {
+            Bukkit.getPluginManager().registerEvents(this, plugin);
+            registered = true;
+        }
+        synchronized (this) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (pending.containsKey(player.getUniqueId())) {
+                    ready.add(player.getUniqueId());
+                }
+            }
+        }
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin,
+                plugin.getOverheadProfiler().wrap(OverheadProfiler.Subsystem.REWARDS, this::tick), 1L, 1L);
+        }
+    }
+
+    public void reload() {
+        commandsPerTick = Math.max(1, plugin.getConfig().getInt("rewards.dispatch.commands-per-tick", 5));
+    }
+
+    public void stop() {
+        if (registered) {
+            HandlerList.unregisterAll(this);
+            registered = false;
+        }
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Queues a reward that was just recorded in the ledger. Thread-safe.
+     */
+    public synchronized void enqueue(UUID playerId, String rewardId) {
+        pending.computeIfAbsent(playerId, id -> new ArrayDeque<>())
+            .addLast(new Pending(rewardId, System.currentTimeMillis(), 0));
+        Player player = Bukkit.getPlayer(playerId);
+        if (player != null && player.isOnline()) {
+            ready.add(playerId);
+        }
+        markDirty(playerId);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        long started = plugin.getOverheadProfiler().begin();
+        try {
+            UUID playerId = event.getPlayer().getUniqueId();
+            synchronized (this) {
+                if (pending.containsKey(playerId)) {
+                    ready.add(playerId);
+                }
+            }
+        } finally {
+            plugin.getOverheadProfiler().end(OverheadProfiler.Subsystem.REWARDS, started);
+        }
+    }
+
+    /**
+     * Runs up to {@code commandsPerTick} commands, finishing one reward per
+     * player before moving on to the next player. Main thread.
+     */
+    private synchronized void tick() {
+        int budget = commandsPerTick;
+        while (budget > 0 && !ready.isEmpty()) {
+            UUID playerId = ready.iterator().next();
+            Player player = Bukkit.getPlayer(playerId);
+            Deque<Pending> queue = pending.get(playerId);
+            if (player == null || !player.isOnline() || queue == null || queue.isEmpty()) {
+                // Waits in pending until the player joins again
+                ready.remove(playerId);
+                continue;
+            }
+            Pending head = queue.peekFirst();
+            RewardThresholds.Reward reward = rewards.findReward(head.rewardId);
+            boolean done;
+            if (reward == null) {
+                plugin.getLogger().warning(() -> String.format("Dropping queued reward '%s' for %s: no longer configured",
+                    head.rewardId, player.getName()));
+                done = true;
+            } else if (head.nextCommand == 0 && player.hasPermission(LEGACY_PERMISSION_PREFIX + reward.id())) {
+                // Granted by an older version through a permission node
+                done = true;
+            } else {
+                if (head.nextCommand < reward.commands().size()) {
+                    String command = reward.commands().get(head.nextCommand++)
+                        .replace("{player}", player.getName())
+                        .replace("{uuid}", playerId.toString());
+                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
+                    commandsDispatched.incrementAndGet();
+                    budget--;
+                }
+                done = head.nextCommand >= reward.commands().size();
+                if (done) {
+                    deliver(player, reward);
+                }
+            }
+            if (done) {
+                queue.pollFirst();
+                // Next player's turn
+                ready.remove(playerId);
+                if (queue.isEmpty()) {
+                    pending.remove(playerId);
+                } else {
+                    ready.add(playerId);
+                }
+            }
+            markDirty(playerId);
+        }
+    }
+
+    private void deliver(Player player, RewardThresholds.Reward reward) {
+        String message = reward.message();
+        if (message != null && !message.isEmpty()) {
+            player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
+        }
+        rewardsDelivered.incrementAndGet();
+        plugin.getLogger().info(String.format("Gave reward '%s' to player %s", reward.name(), player.getName()));
+    }
+
+    public synchronized int getQueuedRewards() {
+        int count = 0;
+        for (Deque<Pending> queue : pending.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    /** Players whose rewards are waiting for them to join. */
+    public synchronized int getWaitingPlayers() {
+        return pending.size() - ready.size();
+    }
+
+    public long getCommandsDispatched() {
+        return commandsDispatched.get();
+    }
+
+    public long getRewardsDelivered() {
+        return rewardsDelivered.get();
+    }
+
+    private void markDirty(UUID playerId) {
+        if (dirty.add(playerId)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
+        }
+    }
+
+    @Override
+    public String getPersistenceName() {
+        return "reward queue";
+    }
+
+    /**
+     * Writes the queue of every player that changed; an emptied queue is
+     * written with no entries.
+     */
+    @Override
+    public int flushDirty() throws IOException {
+        Map<UUID, byte[]> encoded = new HashMap<>();
+        synchronized (this) {
+            for (Iterator<UUID> it = dirty.iterator(); it.hasNext();) {
+                UUID playerId = it.next();
+                it.remove();
+                encoded.put(playerId, encode(pending.get(playerId)));
+            }
+        }
+        encoded.forEach((playerId, data) -> store.putBlob(Table.REWARD_QUEUE, playerId, data));
+        return encoded.size();
+    }
+
+    private static byte[] encode(Deque<Pending> queue) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(queue != null ? queue.size() : 0);
+        if (queue != null) {
+            for (Pending entry : queue) {
+                out.writeUTF(entry.rewardId);
+                out.writeLong(entry.queuedAtMillis);
+                out.writeShort(entry.nextCommand);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private void load() {
+        int loaded = 0;
+        for (Map.Entry<UUID, byte[]> blob : store.loadBlobs(Table.REWARD_QUEUE).entrySet()) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob.getValue()))) {
+                int count = in.readUnsignedShort();
+                if (count == 0) {
+                    continue;
+                }
+                Deque<Pending> queue = new ArrayDeque<>(count);
+                for (int i = 0; i < count; i++) {
+                    queue.addLast(new Pending(in.readUTF(), in.readLong(), in.readUnsignedShort()));
+                }
+                pending.put(blob.getKey(), queue);
+                loaded += count;
+            } catch (IOException e) {
+                plugin.getLogger().warning(() -> "Skipping unreadable reward queue for " + blob.getKey());
+            }
+        }
+        if (loaded > 0) {
+            final int count = loaded;
+            plugin.getLogger().info(() -> String.format("Loaded %d queued rewards", count));
+        }
+    }
+}
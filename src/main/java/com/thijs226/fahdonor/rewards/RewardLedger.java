@@ -0,0 +1,189 @@
+package com.thijs226.fahdonor.rewards;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.Table;
+
+/**
+ * Which rewards each player has received, as a bitset per player. Reward ids
+ * are given bit numbers in order of first use and that mapping is persisted
+ * too, so renaming or reordering rewards in config.yml never moves a grant
+ * to another reward. Bitsets and the mapping are blobs in the contribution
+ * store, saved by the background autosave.
+ */
+public class RewardLedger implements PersistenceScheduler.DirtySource {
+
+    /** Blob key of the id-to-bit mapping; not a valid player UUID. */
+    private static final UUID REGISTRY_KEY = new UUID(0L, 0L);
+
+    private final ContributionStore store;
+    private final Logger logger;
+    private final Runnable onChange;
+    private final Map<String, Integer> bits = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Map<UUID, long[]> grants = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private volatile boolean registryDirty;
+
+    public RewardLedger(ContributionStore store, Logger logger, Runnable onChange) {
+        this.store = store;
+        this.logger = logger;
+        this.onChange = onChange;
+        load();
+    }
+
+    /** Bit number of a reward id, assigning the next free one on first use. */
+    public synchronized int bitOf(String rewardId) {
+        Integer bit = bits.get(rewardId);
+        if (bit != null) {
+            return bit;
+        }
+        int assigned = ids.size();
+        ids.add(rewardId);
+        bits.put(rewardId, assigned);
+        registryDirty = true;
+        onChange.run();
+        return assigned;
+    }
+
+    public boolean has(UUID playerId, int bit) {
+        long[] words = grants.get(playerId);
+        int word = bit >>> 6;
+        return words != null && word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+
+    /** Whether the player has the reward; false for ids never registered. */
+    public synchronized boolean has(UUID playerId, String rewardId) {
+        Integer bit = bits.get(rewardId);
+        return bit != null && has(playerId, bit);
+    }
+
+    /**
+     * Records a grant. Returns false when the player already had it, so
+     * concurrent checks can never hand out the same reward twice.
+     */
+    public boolean grant(UUID playerId, int bit) {
+        boolean[] added = new boolean[1];
+        grants.compute(playerId, (id, words) -> {
+            int word = bit >>> 6;
+            long[] result = words == null ? new long[word + 1]
+                : word < words.length ? words : Arrays.copyOf(words, word + 1);
+            long mask = 1L << bit;
+            added[0] = (result[word] & mask) == 0;
+            result[word] |= mask;
+            return result;
+        });
+        if (added[0] && dirty.add(playerId)) {
+            onChange.run();
+        }
+        return added[0];
+    }
+
+    /** Number of rewards the player has received. */
+    public int count(UUID playerId) {
+        long[] words = grants.get(playerId);
+        int count = 0;
+        if (words != null) {
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    public int getPlayerCount() {
+        return grants.size();
+    }
+
+    @Override
+    public String getPersistenceName() {
+        return "reward ledger";
+    }
+
+    @Override
+    public int flushDirty() throws IOException {
+        int written = 0;
+        if (registryDirty) {
+            registryDirty = false;
+            store.putBlob(Table.REWARD_LEDGER, REGISTRY_KEY, encodeRegistry());
+            written++;
+        }
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext();) {
+            UUID playerId = it.next();
+            it.remove();
+            long[] words = grants.get(playerId);
+            if (words != null) {
+                store.putBlob(Table.REWARD_LEDGER, playerId, encode(words));
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private synchronized byte[] encodeRegistry() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            out.writeUTF(id);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(long[] words) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + words.length * 8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        // Snapshot the words; another thread may be setting a bit
+        long[] copy = words.clone();
+        out.writeShort(copy.length);
+        for (long word : copy) {
+            out.writeLong(word);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void load() {
+        Map<UUID, byte[]> blobs = store.loadBlobs(Table.REWARD_LEDGER);
+        byte[] registry = blobs.remove(REGISTRY_KEY);
+        if (registry != null) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(registry))) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String id = in.readUTF();
+                    bits.put(id, ids.size());
+                    ids.add(id);
+                }
+            } catch (IOException e) {
+                logger.warning("Reward ledger id mapping is unreadable; granted rewards may be given again");
+                return;
+            }
+        }
+        for (Map.Entry<UUID, byte[]> blob : blobs.entrySet()) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob.getValue()))) {
+                long[] words = new long[in.readUnsignedShort()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = in.readLong();
+                }
+                grants.put(blob.getKey(), words);
+            } catch (IOException e) {
+                logger.warning(() -> "Skipping unreadable reward ledger entry for " + blob.getKey());
+            }
+        }
+    }
+}
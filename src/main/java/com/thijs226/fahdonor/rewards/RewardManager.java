@@ -1,29 +1,60 @@
 package com.thijs226.fahdonor.rewards;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
-import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.profiling.ProfilingEvents;
+import com.thijs226.fahdonor.rewards.RewardThresholds.Dimension;
+import com.thijs226.fahdonor.storage.ContributionStore;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
+import com.thijs226.fahdonor.storage.PlayerRecord;
+import com.thijs226.fahdonor.storage.Table;
 
 /**
  * Manages rewards for players based on their contribution to Folding@home.
  * Tracks contribution time, points earned, and distributes configurable rewards.
  */
-public class RewardManager {
+public class RewardManager implements PersistenceScheduler.DirtySource {
+    
+    private static final String LEGACY_DATA_PATH = "data.contributions";
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+    
+    /**
+     * Compiled thresholds, the ledger bit of each one, and per player the
+     * index of the first threshold not yet passed in each dimension.
+     * Replaced as a whole on reload.
+     */
+    private record CompiledRewards(RewardThresholds thresholds, int[][] bits, Map<UUID, int[]> cursors) {}
     
     private final FAHResourceDonor plugin;
+    private final ContributionStore store;
     private final Map<UUID, PlayerContribution> contributions = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final RewardLedger ledger;
+    private final RewardDispatcher dispatcher;
+    private volatile CompiledRewards compiled;
     
     public RewardManager(FAHResourceDonor plugin) {
         this.plugin = plugin;
+        this.store = plugin.getContributionStore();
+        this.ledger = new RewardLedger(store, plugin.getLogger(), () -> {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
+        });
         loadContributions();
+        reloadRewards();
+        this.dispatcher = new RewardDispatcher(plugin, this);
     }
     
     public static class PlayerContribution {
@@ -51,6 +82,10 @@ public class RewardManager {
             this.workUnitsCompleted++;
         }
         
+        public void addWorkUnits(long units) {
+            this.workUnitsCompleted += units;
+        }
+        
         public long getContributionTimeSeconds() {
             return contributionTimeSeconds;
         }
@@ -75,18 +110,34 @@ public class RewardManager {
     public void recordContribution(UUID playerId, long seconds) {
         PlayerContribution contrib = contributions.computeIfAbsent(playerId, k -> new PlayerContribution());
         contrib.addContributionTime(seconds);
+        markDirty(playerId);
         checkAndGiveRewards(playerId);
     }
     
     public void recordPoints(UUID playerId, long points) {
         PlayerContribution contrib = contributions.computeIfAbsent(playerId, k -> new PlayerContribution());
         contrib.addPoints(points);
+        markDirty(playerId);
         checkAndGiveRewards(playerId);
     }
     
     public void recordWorkUnitCompleted(UUID playerId) {
         PlayerContribution contrib = contributions.computeIfAbsent(playerId, k -> new PlayerContribution());
         contrib.incrementWorkUnits();
+        markDirty(playerId);
+        checkAndGiveRewards(playerId);
+    }
+    
+    /**
+     * Adds everything attributed to a player since the last attribution
+     * flush and checks rewards once.
+     */
+    public void recordAttributed(UUID playerId, long points, long seconds, long units) {
+        PlayerContribution contrib = contributions.computeIfAbsent(playerId, k -> new PlayerContribution());
+        contrib.addPoints(points);
+        contrib.addContributionTime(seconds);
+        contrib.addWorkUnits(units);
+        markDirty(playerId);
         checkAndGiveRewards(playerId);
     }
     
@@ -99,126 +150,163 @@ public class RewardManager {
             return;
         }
         
-        Player player = Bukkit.getPlayer(playerId);
-        if (player == null || !player.isOnline()) {
-            return;
-        }
-        
         PlayerContribution contrib = contributions.get(playerId);
         if (contrib == null) {
             return;
         }
         
-        // Check time-based rewards
-        checkTimeRewards(player, contrib);
+        ProfilingEvents.RewardCheck event = new ProfilingEvents.RewardCheck();
+        event.begin();
         
-        // Check points-based rewards
-        checkPointsRewards(player, contrib);
+        CompiledRewards current = compiled;
+        int[] cursor = current.cursors().computeIfAbsent(playerId, id -> new int[DIMENSIONS.length]);
+        synchronized (cursor) {
+            for (Dimension dimension : DIMENSIONS) {
+                int d = dimension.ordinal();
+                long[] thresholds = current.thresholds().thresholds(dimension);
+                long value = dimension.valueOf(contrib);
+                int next = cursor[d];
+                // Only thresholds passed since the last check are looked at
+                while (next < thresholds.length && thresholds[next] <= value) {
+                    event.thresholdsEvaluated++;
+                    RewardThresholds.Reward reward = current.thresholds().reward(dimension, next);
+                    int bit = current.bits()[d][next];
+                    if (ledger.grant(playerId, bit)) {
+                        // Commands run later, once the player is online and the queue gets to it
+                        dispatcher.enqueue(playerId, reward.id());
+                        contrib.updateLastRewardTime();
+                        event.rewardsGranted++;
+                    }
+                    next++;
+                }
+                cursor[d] = next;
+            }
+        }
         
-        // Check work unit rewards
-        checkWorkUnitRewards(player, contrib);
+        event.commit();
     }
     
-    private void checkTimeRewards(Player player, PlayerContribution contrib) {
-        ConfigurationSection timeRewards = plugin.getConfig().getConfigurationSection("rewards.time-based");
-        if (timeRewards == null) {
-            return;
-        }
-        
-        long hours = contrib.getContributionTimeSeconds() / 3600;
-        
-        for (String key : timeRewards.getKeys(false)) {
-            ConfigurationSection reward = timeRewards.getConfigurationSection(key);
-            if (reward == null) continue;
-            
-            long requiredHours = reward.getLong("hours", 0);
-            if (hours >= requiredHours && !hasReceivedReward(player, "time_" + key)) {
-                giveReward(player, reward, "time_" + key);
+    /**
+     * Compiles the {@code rewards.*} sections again and resets every
+     * player's cursor. Rewards already in the ledger are not given again.
+     */
+    public void reloadRewards() {
+        RewardThresholds thresholds = RewardThresholds.compile(plugin.getConfig());
+        int[][] bits = new int[DIMENSIONS.length][];
+        for (Dimension dimension : DIMENSIONS) {
+            long[] values = thresholds.thresholds(dimension);
+            bits[dimension.ordinal()] = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                bits[dimension.ordinal()][i] = ledger.bitOf(thresholds.reward(dimension, i).id());
             }
         }
+        compiled = new CompiledRewards(thresholds, bits, new ConcurrentHashMap<>());
     }
     
-    private void checkPointsRewards(Player player, PlayerContribution contrib) {
-        ConfigurationSection pointsRewards = plugin.getConfig().getConfigurationSection("rewards.points-based");
-        if (pointsRewards == null) {
-            return;
-        }
-        
-        long points = contrib.getPointsEarned();
-        
-        for (String key : pointsRewards.getKeys(false)) {
-            ConfigurationSection reward = pointsRewards.getConfigurationSection(key);
-            if (reward == null) continue;
-            
-            long requiredPoints = reward.getLong("points", 0);
-            if (points >= requiredPoints && !hasReceivedReward(player, "points_" + key)) {
-                giveReward(player, reward, "points_" + key);
-            }
-        }
+    /**
+     * Drops the player's cursors so they do not pile up for everyone who
+     * ever joined. The next check rebuilds them by walking the thresholds
+     * from the start; the ledger keeps rewards from being granted twice.
+     */
+    public void onPlayerQuit(UUID playerId) {
+        compiled.cursors().remove(playerId);
     }
     
-    private void checkWorkUnitRewards(Player player, PlayerContribution contrib) {
-        ConfigurationSection wuRewards = plugin.getConfig().getConfigurationSection("rewards.workunit-based");
-        if (wuRewards == null) {
-            return;
-        }
-        
-        long units = contrib.getWorkUnitsCompleted();
-        
-        for (String key : wuRewards.getKeys(false)) {
-            ConfigurationSection reward = wuRewards.getConfigurationSection(key);
-            if (reward == null) continue;
-            
-            long requiredUnits = reward.getLong("units", 0);
-            if (units >= requiredUnits && !hasReceivedReward(player, "wu_" + key)) {
-                giveReward(player, reward, "wu_" + key);
+    public boolean hasReceivedReward(UUID playerId, String rewardId) {
+        return ledger.has(playerId, rewardId);
+    }
+    
+    public RewardLedger getLedger() {
+        return ledger;
+    }
+    
+    public int getCompiledRewardCount() {
+        return compiled.thresholds().size();
+    }
+    
+    /** The configured reward with this ledger id, or null. */
+    public RewardThresholds.Reward findReward(String rewardId) {
+        return compiled.thresholds().find(rewardId);
+    }
+    
+    public RewardDispatcher getDispatcher() {
+        return dispatcher;
+    }
+    
+    public Map<UUID, PlayerContribution> getAllContributions() {
+        return new HashMap<>(contributions);
+    }
+    
+    private void markDirty(UUID playerId) {
+        if (dirty.add(playerId)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
             }
         }
     }
     
-    private boolean hasReceivedReward(Player player, String rewardId) {
-        return player.hasPermission("fahdonor.reward." + rewardId);
+    @Override
+    public String getPersistenceName() {
+        return "player contributions";
     }
     
-    private void giveReward(Player player, ConfigurationSection reward, String rewardId) {
-        // Mark as received
-        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), 
-            String.format("lp user %s permission set fahdonor.reward.%s true", player.getName(), rewardId));
-        
-            // Execute commands
-        if (reward.contains("commands")) {
-            for (String command : reward.getStringList("commands")) {
-                String processedCommand = command
-                    .replace("{player}", player.getName())
-                    .replace("{uuid}", player.getUniqueId().toString());
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
+    /**
+     * Hands contributions changed since the last call to the store. Runs on
+     * the autosave thread.
+     */
+    @Override
+    public int flushDirty() {
+        int written = 0;
+        for (Iterator<UUID> it = dirty.iterator(); it.hasNext();) {
+            UUID playerId = it.next();
+            it.remove();
+            PlayerContribution contrib = contributions.get(playerId);
+            if (contrib != null) {
+                persist(playerId, contrib);
+                written++;
             }
         }
-        
-        // Send message
-        String message = reward.getString("message");
-        if (message != null && !message.isEmpty()) {
-            player.sendMessage(ChatColor.translateAlternateColorCodes('&', message));
-        }        // Log
-        String rewardName = reward.getString("name", rewardId);
-        plugin.getLogger().info(String.format("Gave reward '%s' to player %s", rewardName, player.getName()));
+        return written;
     }
     
-    public Map<UUID, PlayerContribution> getAllContributions() {
-        return new HashMap<>(contributions);
+    private void persist(UUID playerId, PlayerContribution contrib) {
+        store.upsert(Table.CONTRIBUTIONS, new PlayerRecord(playerId, "", contrib.getPointsEarned(),
+            contrib.getContributionTimeSeconds(), contrib.getWorkUnitsCompleted(), contrib.getLastRewardTime()));
     }
     
     private void loadContributions() {
-        ConfigurationSection data = plugin.getConfig().getConfigurationSection("data.contributions");
-        if (data == null) {
+        for (PlayerRecord record : store.loadAll(Table.CONTRIBUTIONS).values()) {
+            PlayerContribution contrib = new PlayerContribution();
+            contrib.contributionTimeSeconds = record.timeSeconds();
+            contrib.pointsEarned = record.points();
+            contrib.workUnitsCompleted = record.workUnits();
+            contrib.lastRewardTime = record.updatedAtMillis();
+            contributions.put(record.playerId(), contrib);
+        }
+        migrateLegacyContributions();
+    }
+    
+    /**
+     * Moves contributions saved by older versions under {@code data.contributions}
+     * into the store and drops them from config.yml.
+     */
+    private void migrateLegacyContributions() {
+        ConfigurationSection data = plugin.getConfig().getConfigurationSection(LEGACY_DATA_PATH);
+        if (data == null || data.getKeys(false).isEmpty()) {
+            return;
+        }
+        if (!store.isOpen()) {
+            plugin.getLogger().warning("Contribution store is not open; keeping data.contributions in config.yml");
             return;
         }
         
+        int migrated = 0;
         for (String uuidStr : data.getKeys(false)) {
             try {
                 UUID uuid = UUID.fromString(uuidStr);
                 ConfigurationSection playerData = data.getConfigurationSection(uuidStr);
-                if (playerData == null) continue;
+                if (playerData == null || contributions.containsKey(uuid)) continue;
                 
                 PlayerContribution contrib = new PlayerContribution();
                 contrib.contributionTimeSeconds = playerData.getLong("time", 0);
@@ -227,26 +315,32 @@ public class RewardManager {
                 contrib.lastRewardTime = playerData.getLong("lastReward", System.currentTimeMillis());
                 
                 contributions.put(uuid, contrib);
+                persist(uuid, contrib);
+                migrated++;
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning(() -> "Invalid UUID in contributions data: " + uuidStr);
             }
         }
-    }
-    
-    public void saveContributions() {
-        ConfigurationSection data = plugin.getConfig().createSection("data.contributions");
         
-        for (Map.Entry<UUID, PlayerContribution> entry : contributions.entrySet()) {
-            String uuidStr = entry.getKey().toString();
-            PlayerContribution contrib = entry.getValue();
-            
-            ConfigurationSection playerData = data.createSection(uuidStr);
-            playerData.set("time", contrib.getContributionTimeSeconds());
-            playerData.set("points", contrib.getPointsEarned());
-            playerData.set("units", contrib.getWorkUnitsCompleted());
-            playerData.set("lastReward", contrib.getLastRewardTime());
+        // Only drop the old copy once the store has it on disk
+        try {
+            store.flush().join();
+        } catch (CompletionException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write migrated contributions; keeping data.contributions in config.yml", e.getCause());
+            return;
         }
-        
+        plugin.getConfig().set(LEGACY_DATA_PATH, null);
         plugin.saveConfig();
+        final int count = migrated;
+        plugin.getLogger().info(() -> String.format("Migrated %d player contributions from config.yml to the contribution store", count));
+    }
+    
+    /**
+     * Writes pending changes right away instead of waiting for the next
+     * autosave.
+     */
+    public void saveContributions() {
+        flushDirty();
+        store.flush();
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.thijs226.fahdonor.rewards;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * The {@code rewards.*} sections compiled into one threshold array per
+ * dimension, sorted ascending, so a check only looks at the thresholds
+ * between a player's cursor and their current total. Built once per
+ * (re)load; immutable afterwards.
+ */
+public final class RewardThresholds {
+
+    public enum Dimension {
+        TIME("rewards.time-based", "hours", "time_", 3600L),
+        POINTS("rewards.points-based", "points", "points_", 1L),
+        WORK_UNITS("rewards.workunit-based", "units", "wu_", 1L);
+
+        private final String path;
+        private final String thresholdKey;
+        private final String idPrefix;
+        private final long scale;
+
+        Dimension(String path, String thresholdKey, String idPrefix, long scale) {
+            this.path = path;
+            this.thresholdKey = thresholdKey;
+            this.idPrefix = idPrefix;
+            this.scale = scale;
+        }
+
+        /** The player's total in the unit thresholds are compiled to. */
+        public long valueOf(RewardManager.PlayerContribution contrib) {
+            return switch (this) {
+                case TIME -> contrib.getContributionTimeSeconds();
+                case POINTS -> contrib.getPointsEarned();
+                case WORK_UNITS -> contrib.getWorkUnitsCompleted();
+            };
+        }
+    }
+
+    /**
+     * One configured reward. {@code id} is what the ledger records, e.g.
+     * "time_bronze"; {@code threshold} is in seconds, points or units.
+     */
+    public record Reward(String id, String name, long threshold, List<String> commands, String message) {}
+
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+
+    private final Map<Dimension, long[]> thresholds = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, Reward[]> rewards = new EnumMap<>(Dimension.class);
+    private final Map<String, Reward> byId = new HashMap<>();
+
+    private RewardThresholds() {
+    }
+
+    public static RewardThresholds compile(FileConfiguration config) {
+        RewardThresholds compiled = new RewardThresholds();
+        for (Dimension dimension : DIMENSIONS) {
+            List<Reward> list = new ArrayList<>();
+            ConfigurationSection section = config.getConfigurationSection(dimension.path);
+            if (section != null) {
+                for (String key : section.getKeys(false)) {
+                    ConfigurationSection reward = section.getConfigurationSection(key);
+                    if (reward == null) continue;
+                    String id = dimension.idPrefix + key;
+                    list.add(new Reward(id, reward.getString("name", id),
+                        Math.max(0L, reward.getLong(dimension.thresholdKey, 0)) * dimension.scale,
+                        List.copyOf(reward.getStringList("commands")), reward.getString("message")));
+                }
+            }
+            list.sort(Comparator.comparingLong(Reward::threshold));
+            for (Reward reward : list) {
+                compiled.byId.put(reward.id(), reward);
+            }
+            Reward[] sorted = list.toArray(new Reward[0]);
+            long[] values = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                values[i] = sorted[i].threshold();
+            }
+            compiled.rewards.put(dimension, sorted);
+            compiled.thresholds.put(dimension, values);
+        }
+        return compiled;
+    }
+
+    /** Thresholds of a dimension, ascending. Do not modify. */
+    public long[] thresholds(Dimension dimension) {
+        return thresholds.get(dimension);
+    }
+
+    public Reward reward(Dimension dimension, int index) {
+        return rewards.get(dimension)[index];
+    }
+
+    /** The reward with this ledger id, or null when it is no longer configured. */
+    public Reward find(String id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Reward[] list : rewards.values()) {
+            size += list.length;
+        }
+        return size;
+    }
+
+    /** Every reward id, for registering ledger bits up front. */
+    public List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Dimension dimension : DIMENSIONS) {
+            for (Reward reward : rewards.get(dimension)) {
+                ids.add(reward.id());
+            }
+        }
+        return ids;
+    }
+}
@@ -1,26 +1,47 @@
 package com.thijs226.fahdonor.scheduling;
 
+import java.time.DateTimeException;
 import java.time.DayOfWeek;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
-import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.scheduler.BukkitTask;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
+import com.thijs226.fahdonor.PlayerMonitor;
+import com.thijs226.fahdonor.allocation.CoreBudgetAdjuster;
+import com.thijs226.fahdonor.scheduling.ScheduleTimeline.Transition;
+import com.thijs226.fahdonor.profiling.OverheadProfiler.Subsystem;
 
 /**
  * Manages time-based scheduling for Folding@home operations.
- * Allows folding during specific hours and days to optimize resource usage.
+ * Rules (days, time range, core budget, priority) are compiled into a weekly
+ * timeline and a single timer is armed for the next transition; the active
+ * rule caps FAH cores through {@link PlayerMonitor}.
  */
-public class ScheduleManager {
-    
+public class ScheduleManager implements CoreBudgetAdjuster {
+
+    /** Upper bound on a single timer so clock changes and lag are corrected. */
+    private static final long MAX_TIMER_TICKS = 20L * 60L * 10L;
+    private static final DateTimeFormatter PREVIEW_FORMAT = DateTimeFormatter.ofPattern("EEE HH:mm");
+
     private final FAHResourceDonor plugin;
-    private BukkitTask schedulerTask;
-    private boolean currentlyEnabled = true;
-    
+    private BukkitTask transitionTask;
+    private volatile ScheduleRule activeRule;
+    private volatile boolean running = false;
+
     // Schedule configuration
     private boolean scheduleEnabled = false;
     private LocalTime startTime = LocalTime.of(22, 0); // 10 PM
@@ -28,228 +49,314 @@ public class ScheduleManager {
     private Set<DayOfWeek> activeDays = EnumSet.allOf(DayOfWeek.class);
     private int coresOffPeak = 4;
     private int coresPeak = 1;
-    
+    private ZoneId zone = ZoneId.systemDefault();
+    private List<ScheduleRule> rules = new ArrayList<>();
+    private volatile ScheduleTimeline timeline;
+
     public ScheduleManager(FAHResourceDonor plugin) {
         this.plugin = plugin;
         loadConfiguration();
     }
-    
+
     public void start() {
-        if (schedulerTask != null) {
-            schedulerTask.cancel();
-        }
-        
+        cancelTimer();
         if (!scheduleEnabled) {
             return;
         }
-        
-        // Check schedule every minute
-        schedulerTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                checkAndApplySchedule();
-            }
-        }.runTaskTimer(plugin, 20L, 20L * 60L); // Every 60 seconds
-        
-        // Apply schedule immediately
-        checkAndApplySchedule();
+        running = true;
+        evaluateAndArm();
     }
-    
+
     public void stop() {
-        if (schedulerTask != null) {
-            schedulerTask.cancel();
-            schedulerTask = null;
+        running = false;
+        cancelTimer();
+        activeRule = null;
+    }
+
+    /**
+     * Re-reads the scheduling section and restarts the timer if running.
+     */
+    public void reload() {
+        loadConfiguration();
+        if (scheduleEnabled) {
+            start();
+        } else {
+            stop();
         }
+        requestCoreCheck();
     }
-    
-    private void checkAndApplySchedule() {
-        boolean shouldBeActive = isWithinSchedule();
-        
-        if (shouldBeActive != currentlyEnabled) {
-            currentlyEnabled = shouldBeActive;
-            applyScheduleChange(shouldBeActive);
+
+    private void cancelTimer() {
+        if (transitionTask != null) {
+            transitionTask.cancel();
+            transitionTask = null;
         }
     }
-    
-    private boolean isWithinSchedule() {
-        if (!scheduleEnabled) {
-            return true;
+
+    /**
+     * Applies the rule in effect now and arms the timer for the next transition.
+     */
+    private void evaluateAndArm() {
+        transitionTask = null;
+        if (!running) {
+            return;
         }
-        
-        LocalDateTime now = LocalDateTime.now();
-        DayOfWeek currentDay = now.getDayOfWeek();
-        LocalTime currentTime = now.toLocalTime();
-        
-        // Check if current day is in active days
-        if (!activeDays.contains(currentDay)) {
-            return false;
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        ScheduleRule rule = timeline.ruleAt(now);
+        if (rule != activeRule) {
+            ScheduleRule previous = activeRule;
+            activeRule = rule;
+            announceChange(previous, rule);
+            requestCoreCheck();
         }
-        
-        // Handle schedules that cross midnight
-        if (startTime.isAfter(endTime)) {
-            // Example: 22:00 to 06:00 (overnight)
-            return currentTime.isAfter(startTime) || currentTime.isBefore(endTime);
-        } else {
-            // Example: 08:00 to 17:00 (same day)
-            return currentTime.isAfter(startTime) && currentTime.isBefore(endTime);
+
+        Transition next = timeline.nextTransition(now);
+        if (next == null) {
+            return;
         }
+        long millis = Duration.between(now, next.at()).toMillis();
+        // Round up so we never wake just before the boundary
+        long ticks = Math.max(1L, Math.min(MAX_TIMER_TICKS, (millis + 49L) / 50L + 1L));
+        transitionTask = Bukkit.getScheduler().runTaskLater(plugin,
+            plugin.getOverheadProfiler().wrap(Subsystem.SCHEDULE, this::evaluateAndArm), ticks);
     }
-    
-    private void applyScheduleChange(boolean activate) {
-        if (plugin.getFAHManager() == null) {
+
+    private void announceChange(ScheduleRule previous, ScheduleRule current) {
+        if (current == null) {
+            plugin.getLogger().info(() -> String.format("Schedule rule '%s' ended; no schedule cap active",
+                previous == null ? "none" : previous.getName()));
+            plugin.notifyAdmins("FAH schedule: no rule active (normal allocation)", ChatColor.GREEN, false);
             return;
         }
-        
-        try {
-            if (activate) {
-                // Off-peak hours - use more cores
-                plugin.getLogger().info("Entering off-peak hours. Increasing FAH resource allocation.");
-                plugin.getFAHManager().setCores(coresOffPeak);
-                
-                if (plugin.getFAHClient() != null) {
-                    plugin.getFAHClient().resume();
-                }
-                
-                plugin.notifyAdmins(
-                    String.format("FAH schedule: Now in OFF-PEAK mode (%d cores)", coresOffPeak),
-                    org.bukkit.ChatColor.GREEN,
-                    false
-                );
-            } else {
-                // Peak hours - use fewer cores
-                plugin.getLogger().info("Entering peak hours. Reducing FAH resource allocation.");
-                plugin.getFAHManager().setCores(coresPeak);
-                
-                if (coresPeak == 0 && plugin.getFAHClient() != null) {
-                    plugin.getFAHClient().pause();
-                }
-                
-                plugin.notifyAdmins(
-                    String.format("FAH schedule: Now in PEAK mode (%d cores)", coresPeak),
-                    org.bukkit.ChatColor.YELLOW,
-                    false
-                );
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning(() -> "Failed to apply schedule change: " + e.getMessage());
+        plugin.getLogger().info(() -> String.format("Schedule rule '%s' active: FAH capped at %d cores",
+            current.getName(), current.getCores()));
+        plugin.notifyAdmins(
+            String.format("FAH schedule: '%s' active (max %d cores)", current.getName(), current.getCores()),
+            previous == null || current.getCores() >= previous.getCores() ? ChatColor.GREEN : ChatColor.YELLOW,
+            false
+        );
+    }
+
+    private void requestCoreCheck() {
+        PlayerMonitor monitor = plugin.getPlayerMonitor();
+        if (monitor != null) {
+            monitor.requestCheck();
         }
     }
-    
+
+    @Override
+    public int adjust(int cores, int playerCount) {
+        ScheduleRule rule = activeRule;
+        if (!running || rule == null) {
+            return cores;
+        }
+        return Math.min(cores, rule.getCores());
+    }
+
+    @Override
+    public String getName() {
+        ScheduleRule rule = activeRule;
+        return rule == null ? "schedule" : "schedule '" + rule.getName() + "'";
+    }
+
     public void setSchedule(LocalTime start, LocalTime end, Set<DayOfWeek> days, int offPeakCores, int peakCores) {
         this.startTime = start;
         this.endTime = end;
         this.activeDays = days;
         this.coresOffPeak = offPeakCores;
         this.coresPeak = peakCores;
-        
+
         saveConfiguration();
-        checkAndApplySchedule();
+        reload();
     }
-    
+
     public void setEnabled(boolean enabled) {
         this.scheduleEnabled = enabled;
         saveConfiguration();
-        
+
         if (enabled) {
             start();
         } else {
             stop();
-            // Reset to normal operation
-            if (plugin.getFAHManager() != null) {
-                int defaultCores = plugin.getConfig().getInt("server.total-cores", 4) - 
-                                  plugin.getConfig().getInt("server.reserved-cores", 1);
-                try {
-                    plugin.getFAHManager().setCores(Math.max(1, defaultCores));
-                } catch (Exception e) {
-                    plugin.getLogger().warning(() -> "Failed to reset cores: " + e.getMessage());
-                }
-            }
         }
+        // Cores are re-evaluated through the normal allocation path
+        requestCoreCheck();
     }
-    
+
     public boolean isEnabled() {
         return scheduleEnabled;
     }
-    
+
+    /**
+     * Whether the schedule currently lets FAH run (no rule, or a rule with a non-zero budget).
+     */
     public boolean isCurrentlyActive() {
-        return currentlyEnabled;
+        ScheduleRule rule = activeRule;
+        return rule == null || rule.getCores() > 0;
     }
-    
+
+    public ScheduleRule getActiveRule() {
+        return activeRule;
+    }
+
+    public List<ScheduleRule> getRules() {
+        return new ArrayList<>(rules);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
     public LocalTime getStartTime() {
         return startTime;
     }
-    
+
     public LocalTime getEndTime() {
         return endTime;
     }
-    
+
     public Set<DayOfWeek> getActiveDays() {
         return EnumSet.copyOf(activeDays);
     }
-    
+
     public int getCoresOffPeak() {
         return coresOffPeak;
     }
-    
+
     public int getCoresPeak() {
         return coresPeak;
     }
-    
+
+    /**
+     * The next {@code count} schedule transitions from now.
+     */
+    public List<Transition> previewTransitions(int count) {
+        return timeline.preview(ZonedDateTime.now(zone), count);
+    }
+
     public String getScheduleStatus() {
         if (!scheduleEnabled) {
             return "Schedule: Disabled (always active)";
         }
-        
+
         StringBuilder status = new StringBuilder();
         status.append("Schedule: Enabled\n");
-        status.append(String.format("Active Hours: %s - %s\n", startTime, endTime));
-        status.append("Active Days: ");
-        status.append(activeDays.stream()
-            .map(DayOfWeek::toString)
-            .reduce((a, b) -> a + ", " + b)
-            .orElse("None"));
-        status.append("\n");
-        status.append(String.format("Off-Peak Cores: %d\n", coresOffPeak));
-        status.append(String.format("Peak Cores: %d\n", coresPeak));
-        status.append(String.format("Current Mode: %s\n", currentlyEnabled ? "OFF-PEAK" : "PEAK"));
-        
+        status.append(String.format("Timezone: %s\n", zone.getId()));
+        status.append(String.format("Rules: %d\n", rules.size()));
+        for (ScheduleRule rule : rules) {
+            status.append("  ").append(rule).append("\n");
+        }
+        ScheduleRule rule = activeRule;
+        status.append(String.format("Current Rule: %s\n", rule == null ? "none" : rule.getName() + " (max " + rule.getCores() + " cores)"));
+        Transition next = timeline.nextTransition(ZonedDateTime.now(zone));
+        if (next != null) {
+            status.append(String.format("Next Change: %s -> %s\n", next.at().format(PREVIEW_FORMAT),
+                next.rule() == null ? "no rule" : next.rule().getName()));
+        }
+
         return status.toString();
     }
-    
+
+    /**
+     * Formats a transition for chat output.
+     */
+    public static String formatTransition(Transition transition) {
+        ScheduleRule rule = transition.rule();
+        return transition.at().format(PREVIEW_FORMAT) + " -> "
+            + (rule == null ? "no rule (normal allocation)" : rule.getName() + " (max " + rule.getCores() + " cores)");
+    }
+
     private void loadConfiguration() {
         var config = plugin.getConfig();
         scheduleEnabled = config.getBoolean("scheduling.enabled", false);
-        
+
+        String zoneId = config.getString("scheduling.timezone", "");
+        zone = ZoneId.systemDefault();
+        if (zoneId != null && !zoneId.isBlank()) {
+            try {
+                zone = ZoneId.of(zoneId.trim());
+            } catch (DateTimeException e) {
+                plugin.getLogger().warning(() -> "Invalid schedule timezone '" + zoneId + "', using server default");
+            }
+        }
+
         String startTimeStr = config.getString("scheduling.off-peak-start", "22:00");
         String endTimeStr = config.getString("scheduling.off-peak-end", "06:00");
-        
+
         try {
             startTime = LocalTime.parse(startTimeStr);
             endTime = LocalTime.parse(endTimeStr);
-        } catch (Exception e) {
+        } catch (DateTimeParseException e) {
             plugin.getLogger().warning("Invalid time format in schedule configuration. Using defaults.");
             startTime = LocalTime.of(22, 0);
             endTime = LocalTime.of(6, 0);
         }
-        
+
         // Load active days
         var daysList = config.getStringList("scheduling.active-days");
         if (!daysList.isEmpty()) {
-            activeDays = EnumSet.noneOf(DayOfWeek.class);
-            for (String day : daysList) {
-                try {
-                    activeDays.add(DayOfWeek.valueOf(day.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    String dayName = day;
-                    plugin.getLogger().warning(() -> "Invalid day in schedule: " + dayName);
-                }
-            }
+            activeDays = parseDays(daysList, "active-days");
         }
-        
+
         coresOffPeak = config.getInt("scheduling.cores-off-peak", 4);
         coresPeak = config.getInt("scheduling.cores-peak", 1);
+
+        rules = loadRules(config.getConfigurationSection("scheduling.rules"));
+        if (rules.isEmpty()) {
+            rules = legacyRules();
+        }
+        timeline = ScheduleTimeline.compile(rules, zone);
     }
-    
+
+    private List<ScheduleRule> loadRules(ConfigurationSection section) {
+        List<ScheduleRule> loaded = new ArrayList<>();
+        if (section == null) {
+            return loaded;
+        }
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection ruleSection = section.getConfigurationSection(name);
+            if (ruleSection == null) {
+                continue;
+            }
+            try {
+                List<String> days = ruleSection.getStringList("days");
+                Set<DayOfWeek> ruleDays = days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : parseDays(days, name);
+                LocalTime start = LocalTime.parse(ruleSection.getString("start", "00:00"));
+                LocalTime end = LocalTime.parse(ruleSection.getString("end", "00:00"));
+                int cores = ruleSection.getInt("cores", 0);
+                int priority = ruleSection.getInt("priority", 0);
+                loaded.add(new ScheduleRule(name, ruleDays, start, end, cores, priority));
+            } catch (DateTimeParseException e) {
+                plugin.getLogger().warning(() -> "Invalid time in schedule rule '" + name + "': " + e.getParsedString());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * The original single off-peak window expressed as rules: off-peak on the
+     * active days, and a lower-priority peak budget the rest of the week.
+     */
+    private List<ScheduleRule> legacyRules() {
+        List<ScheduleRule> legacy = new ArrayList<>();
+        legacy.add(new ScheduleRule("off-peak", activeDays, startTime, endTime, coresOffPeak, 10));
+        legacy.add(new ScheduleRule("peak", EnumSet.allOf(DayOfWeek.class), LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, coresPeak, 0));
+        return legacy;
+    }
+
+    private Set<DayOfWeek> parseDays(List<String> names, String context) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : names) {
+            try {
+                days.add(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                String dayName = day;
+                plugin.getLogger().warning(() -> "Invalid day in schedule (" + context + "): " + dayName);
+            }
+        }
+        return days;
+    }
+
     private void saveConfiguration() {
         var config = plugin.getConfig();
         config.set("scheduling.enabled", scheduleEnabled);
@@ -257,12 +364,12 @@ public class ScheduleManager {
         config.set("scheduling.off-peak-end", endTime.toString());
         config.set("scheduling.cores-off-peak", coresOffPeak);
         config.set("scheduling.cores-peak", coresPeak);
-        
+
         var dayNames = activeDays.stream()
             .map(DayOfWeek::toString)
             .toArray(String[]::new);
         config.set("scheduling.active-days", dayNames);
-        
+
         plugin.saveConfig();
     }
 }
@@ -0,0 +1,68 @@
+package com.thijs226.fahdonor.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A recurring weekly window that caps FAH at a core budget. A window whose end
+ * is not after its start runs past midnight into the next day; equal start
+ * and end means the whole day. Overlaps are won by the higher priority.
+ */
+public final class ScheduleRule {
+
+    private final String name;
+    private final Set<DayOfWeek> days;
+    private final LocalTime start;
+    private final LocalTime end;
+    private final int cores;
+    private final int priority;
+
+    public ScheduleRule(String name, Set<DayOfWeek> days, LocalTime start, LocalTime end, int cores, int priority) {
+        this.name = name;
+        this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+        this.start = start;
+        this.end = end;
+        this.cores = Math.max(0, cores);
+        this.priority = priority;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<DayOfWeek> getDays() {
+        return days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+    }
+
+    public LocalTime getStart() {
+        return start;
+    }
+
+    public LocalTime getEnd() {
+        return end;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Length of one occurrence in seconds.
+     */
+    int durationSeconds() {
+        int startSec = start.toSecondOfDay();
+        int endSec = end.toSecondOfDay();
+        return endSec > startSec ? endSec - startSec : ScheduleTimeline.SECONDS_PER_DAY - startSec + endSec;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s %s-%s -> %d cores (priority %d)", name, days, start, end, cores, priority);
+    }
+}
@@ -0,0 +1,187 @@
+package com.thijs226.fahdonor.scheduling;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Weekly schedule compiled from {@link ScheduleRule}s into sorted segments of
+ * the week, each resolved once to its winning rule. Lookups are a binary
+ * search and the next transition is simply the next segment boundary.
+ */
+public final class ScheduleTimeline {
+
+    static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+
+    /** Outcome of a schedule segment; {@code rule} is null when no rule applies. */
+    public record Transition(ZonedDateTime at, ScheduleRule rule) {}
+
+    private final ZoneId zone;
+    private final int[] segmentStart;
+    private final ScheduleRule[] segmentRule;
+
+    private ScheduleTimeline(ZoneId zone, int[] segmentStart, ScheduleRule[] segmentRule) {
+        this.zone = zone;
+        this.segmentStart = segmentStart;
+        this.segmentRule = segmentRule;
+    }
+
+    /**
+     * Compiles rules into a timeline. Overlapping rules resolve to the highest
+     * priority; ties go to the lower core budget, then to the earlier rule.
+     */
+    public static ScheduleTimeline compile(List<ScheduleRule> rules, ZoneId zone) {
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        List<int[]> intervals = new ArrayList<>();
+        List<ScheduleRule> owners = new ArrayList<>();
+
+        for (ScheduleRule rule : rules) {
+            for (DayOfWeek day : rule.getDays()) {
+                int from = (day.getValue() - 1) * SECONDS_PER_DAY + rule.getStart().toSecondOfDay();
+                int to = from + rule.durationSeconds();
+                if (to <= SECONDS_PER_WEEK) {
+                    addInterval(intervals, owners, boundaries, rule, from, to);
+                } else {
+                    // Sunday night windows wrap into Monday morning
+                    addInterval(intervals, owners, boundaries, rule, from, SECONDS_PER_WEEK);
+                    addInterval(intervals, owners, boundaries, rule, 0, to - SECONDS_PER_WEEK);
+                }
+            }
+        }
+        boundaries.remove(SECONDS_PER_WEEK);
+
+        List<Integer> starts = new ArrayList<>();
+        List<ScheduleRule> winners = new ArrayList<>();
+        for (int boundary : boundaries) {
+            ScheduleRule winner = null;
+            int winnerIndex = Integer.MAX_VALUE;
+            for (int i = 0; i < intervals.size(); i++) {
+                int[] interval = intervals.get(i);
+                if (boundary < interval[0] || boundary >= interval[1]) {
+                    continue;
+                }
+                ScheduleRule candidate = owners.get(i);
+                int index = rules.indexOf(candidate);
+                if (winner == null || beats(candidate, index, winner, winnerIndex)) {
+                    winner = candidate;
+                    winnerIndex = index;
+                }
+            }
+            // Merge neighbours with the same outcome so every boundary is a real transition
+            if (!winners.isEmpty() && winners.get(winners.size() - 1) == winner) {
+                continue;
+            }
+            starts.add(boundary);
+            winners.add(winner);
+        }
+
+        int[] startArray = starts.stream().mapToInt(Integer::intValue).toArray();
+        return new ScheduleTimeline(zone, startArray, winners.toArray(new ScheduleRule[0]));
+    }
+
+    private static void addInterval(List<int[]> intervals, List<ScheduleRule> owners, TreeSet<Integer> boundaries,
+                                    ScheduleRule rule, int from, int to) {
+        if (to <= from) {
+            return;
+        }
+        intervals.add(new int[] {from, to});
+        owners.add(rule);
+        boundaries.add(from);
+        boundaries.add(to);
+    }
+
+    private static boolean beats(ScheduleRule candidate, int candidateIndex, ScheduleRule current, int currentIndex) {
+        if (candidate.getPriority() != current.getPriority()) {
+            return candidate.getPriority() > current.getPriority();
+        }
+        if (candidate.getCores() != current.getCores()) {
+            return candidate.getCores() < current.getCores();
+        }
+        return candidateIndex < currentIndex;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Rule in effect at the given instant, or null when no rule applies.
+     */
+    public ScheduleRule ruleAt(ZonedDateTime time) {
+        return segmentRule[segmentIndex(secondOfWeek(time))];
+    }
+
+    /**
+     * First transition strictly after {@code from}, or null when the outcome never changes.
+     */
+    public Transition nextTransition(ZonedDateTime from) {
+        if (segmentStart.length <= 1 && wrapsToSelf()) {
+            return null;
+        }
+        ZonedDateTime local = from.withZoneSameInstant(zone);
+        int second = secondOfWeek(local);
+        int index = segmentIndex(second);
+        int nextIndex = (index + 1) % segmentStart.length;
+        int nextStart = segmentStart[nextIndex];
+        // Segment 0 may continue the last one (no rule change across the week boundary)
+        if (nextIndex == 0 && segmentRule[0] == segmentRule[segmentStart.length - 1]) {
+            nextIndex = segmentStart.length > 1 ? 1 : 0;
+            nextStart = segmentStart[nextIndex];
+        }
+        int delta = nextStart - second;
+        if (delta <= 0) {
+            delta += SECONDS_PER_WEEK;
+        }
+
+        LocalDate monday = local.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate date = monday.plusDays((second + delta) / SECONDS_PER_DAY);
+        LocalTime time = LocalTime.ofSecondOfDay((second + delta) % SECONDS_PER_DAY);
+        // Resolve via local wall-clock time so DST shifts land on the intended hour
+        ZonedDateTime at = ZonedDateTime.of(date, time, zone);
+        if (!at.isAfter(from)) {
+            at = from.plus(Duration.ofSeconds(delta));
+        }
+        return new Transition(at, segmentRule[nextIndex]);
+    }
+
+    /**
+     * The next {@code count} transitions after {@code from}.
+     */
+    public List<Transition> preview(ZonedDateTime from, int count) {
+        List<Transition> result = new ArrayList<>();
+        ZonedDateTime cursor = from;
+        for (int i = 0; i < count; i++) {
+            Transition next = nextTransition(cursor);
+            if (next == null) {
+                break;
+            }
+            result.add(next);
+            cursor = next.at();
+        }
+        return result;
+    }
+
+    private boolean wrapsToSelf() {
+        return segmentRule[0] == segmentRule[segmentStart.length - 1];
+    }
+
+    private int segmentIndex(int secondOfWeek) {
+        int index = Arrays.binarySearch(segmentStart, secondOfWeek);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int secondOfWeek(ZonedDateTime time) {
+        ZonedDateTime local = time.withZoneSameInstant(zone);
+        return (local.getDayOfWeek().getValue() - 1) * SECONDS_PER_DAY + local.toLocalTime().toSecondOfDay();
+    }
+}
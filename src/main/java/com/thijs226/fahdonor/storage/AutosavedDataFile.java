@@ -0,0 +1,72 @@
+package com.thijs226.fahdonor.storage;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.thijs226.fahdonor.FAHResourceDonor;
+
+/**
+ * A {@link DataFile} written by the autosave. The owner calls
+ * {@link #markDirty()} after a change; the next autosave pass asks the owner
+ * to fill a fresh document and saves it. A failed save leaves the file dirty
+ * so the next pass tries again.
+ */
+public final class AutosavedDataFile implements PersistenceScheduler.DirtySource {
+
+    private final FAHResourceDonor plugin;
+    private final DataFile file;
+    private final String persistenceName;
+    private final Consumer<YamlConfiguration> writer;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * @param writer fills the document with the owner's current state; runs
+     *               on the autosave thread
+     */
+    public AutosavedDataFile(FAHResourceDonor plugin, String fileName, String persistenceName,
+                             Consumer<YamlConfiguration> writer) {
+        this.plugin = plugin;
+        this.file = new DataFile(plugin.getDataFolder(), fileName);
+        this.persistenceName = persistenceName;
+        this.writer = writer;
+    }
+
+    /** The saved contents; empty when the file does not exist yet. */
+    public YamlConfiguration load() {
+        return file.load();
+    }
+
+    /** Schedules a save. Cheap and safe from any thread. */
+    public void markDirty() {
+        if (dirty.compareAndSet(false, true)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
+        }
+    }
+
+    @Override
+    public String getPersistenceName() {
+        return persistenceName;
+    }
+
+    @Override
+    public int flushDirty() throws IOException {
+        if (!dirty.compareAndSet(true, false)) {
+            return 0;
+        }
+        try {
+            YamlConfiguration data = new YamlConfiguration();
+            writer.accept(data);
+            file.save(data);
+        } catch (IOException | RuntimeException e) {
+            dirty.set(true);
+            throw e;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.thijs226.fahdonor.storage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistent per-player totals behind the reward and leaderboard managers.
+ * Upserts are cheap and never block on disk; implementations write them out
+ * on their own thread.
+ */
+public interface ContributionStore {
+
+    void open() throws IOException;
+
+    /**
+     * Whether {@link #open()} succeeded and writes reach disk. A store that
+     * failed to open still answers reads and takes upserts, but keeps them
+     * in memory only.
+     */
+    boolean isOpen();
+
+    /** All records of a table, as a copy. */
+    Map<UUID, PlayerRecord> loadAll(Table table);
+
+    void upsert(Table table, PlayerRecord record);
+
+    /** All blobs of a table, as a copy. */
+    Map<UUID, byte[]> loadBlobs(Table table);
+
+    /**
+     * Stores opaque bytes under {@code key}, replacing what was there. For
+     * state that does not fit a {@link PlayerRecord}; the caller owns the
+     * format. The array must not be modified afterwards.
+     */
+    void putBlob(Table table, UUID key, byte[] data);
+
+    /** Completes once everything upserted so far is on disk. */
+    CompletableFuture<Void> flush();
+
+    /** Flushes, waiting at most {@code timeoutMillis}, and releases resources. */
+    void close(long timeoutMillis);
+
+    /** Short name for status output. */
+    String getDescription();
+}
@@ -0,0 +1,45 @@
+package com.thijs226.fahdonor.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+/**
+ * A small YAML file in the plugin folder for learned state that is not
+ * configuration, so saving it never rewrites config.yml. Writes go to a
+ * temporary file that is then moved over the old one, so a crash never
+ * leaves half a file.
+ */
+public final class DataFile {
+
+    private final File file;
+    private final File tempFile;
+
+    public DataFile(File dataFolder, String name) {
+        this.file = new File(dataFolder, name);
+        this.tempFile = new File(dataFolder, name + ".tmp");
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /** The file's contents; empty when it does not exist yet. */
+    public YamlConfiguration load() {
+        return file.exists() ? YamlConfiguration.loadConfiguration(file) : new YamlConfiguration();
+    }
+
+    public void save(YamlConfiguration data) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(tempFile.toPath(), data.saveToString(), StandardCharsets.UTF_8);
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String getName() {
+        return file.getName();
+    }
+}
@@ -0,0 +1,618 @@
+package com.thijs226.fahdonor.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store for per-player contribution and leaderboard totals.
+ *
+ * <p>Every upsert is queued and written by one background thread as a
+ * length-prefixed, CRC-checked record. The writer drains whatever queued up
+ * while the previous batch was being fsynced, so many updates share one
+ * {@code force()} (group commit). When the journal grows past
+ * {@code compactBytes} the current state is written as a snapshot and the
+ * journal restarts under the snapshot's generation. Loading replays the
+ * snapshot and then the journal tail; a torn final record is cut off.
+ * Blobs are stored the same way, keyed by table and id.
+ */
+public class JournalStore implements ContributionStore {
+
+    private static final int JOURNAL_MAGIC = 0x46414A4C; // "FAJL"
+    private static final int SNAPSHOT_MAGIC = 0x46415353; // "FASS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final byte OP_UPSERT = 1;
+    private static final byte OP_BLOB = 2;
+    private static final int MAX_NAME_BYTES = 255;
+    private static final int MAX_BLOB_BYTES = 1 << 20;
+    private static final int MAX_BATCH = 4096;
+
+    /** A queued upsert or blob, or a barrier when {@code done} is set. */
+    private record Write(Table table, PlayerRecord record, UUID blobKey, byte[] blob, CompletableFuture<Void> done) {}
+
+    /** Queued by {@link #close(long)}; the writer exits once it reaches it. */
+    private static final Write STOP = new Write(null, null, null, null, null);
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final long compactBytes;
+    private final Logger logger;
+    private final Map<Table, Map<UUID, PlayerRecord>> state = new EnumMap<>(Table.class);
+    private final Map<Table, Map<UUID, byte[]>> blobs = new EnumMap<>(Table.class);
+    private final BlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    private final CRC32 crc = new CRC32();
+
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private volatile long lastCommitMicros;
+
+    private byte[] readBuffer = new byte[512];
+    private FileChannel journal;
+    private long generation;
+    /** Set after a failed append or compaction; the next commit compacts instead of appending. */
+    private boolean compactPending;
+    private Thread writer;
+    private volatile boolean running;
+
+    public JournalStore(Path directory, long compactBytes, Logger logger) {
+        this.journalFile = directory.resolve("contributions.journal");
+        this.snapshotFile = directory.resolve("contributions.snapshot");
+        this.compactBytes = Math.max(64 * 1024L, compactBytes);
+        this.logger = logger;
+        for (Table table : Table.values()) {
+            state.put(table, new ConcurrentHashMap<>());
+            blobs.put(table, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Replays the snapshot and journal, then starts the writer thread.
+     */
+    @Override
+    public synchronized void open() throws IOException {
+        if (running) {
+            return;
+        }
+        Files.createDirectories(journalFile.getParent());
+        long snapshotGeneration = readSnapshot();
+        generation = snapshotGeneration;
+
+        long validEnd = replayJournal(snapshotGeneration);
+        if (validEnd < 0) {
+            startJournal(generation);
+        } else {
+            journal = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (journal.size() > validEnd) {
+                logger.warning(() -> String.format("Discarding %d bytes of incomplete journal data", journalSizeQuietly() - validEnd));
+                journal.truncate(validEnd);
+            }
+            journal.position(validEnd);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "FAH-Storage");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return running;
+    }
+
+    /**
+     * Current records of a table. The map is a copy.
+     */
+    @Override
+    public Map<UUID, PlayerRecord> loadAll(Table table) {
+        return new HashMap<>(state.get(table));
+    }
+
+    /** Live read-only view for callers that only iterate. */
+    public Map<UUID, PlayerRecord> view(Table table) {
+        return Collections.unmodifiableMap(state.get(table));
+    }
+
+    public int size(Table table) {
+        return state.get(table).size();
+    }
+
+    @Override
+    public void upsert(Table table, PlayerRecord record) {
+        state.get(table).put(record.playerId(), record);
+        if (running) {
+            queue.add(new Write(table, record, null, null, null));
+        }
+    }
+
+    @Override
+    public Map<UUID, byte[]> loadBlobs(Table table) {
+        return new HashMap<>(blobs.get(table));
+    }
+
+    @Override
+    public void putBlob(Table table, UUID key, byte[] data) {
+        if (data.length > MAX_BLOB_BYTES) {
+            throw new IllegalArgumentException("Blob too large: " + data.length + " bytes");
+        }
+        blobs.get(table).put(key, data);
+        if (running) {
+            queue.add(new Write(table, null, key, data, null));
+        }
+    }
+
+    /**
+     * Completes once everything queued so far is on disk.
+     */
+    @Override
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!running) {
+            done.complete(null);
+            return done;
+        }
+        queue.add(new Write(null, null, null, null, done));
+        return done;
+    }
+
+    /**
+     * Flushes pending writes, waiting at most {@code timeoutMillis}, and stops
+     * the writer.
+     */
+    @Override
+    public void close(long timeoutMillis) {
+        if (!running) {
+            return;
+        }
+        try {
+            flush().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warning(() -> String.format("Storage flush did not finish within %d ms; %d writes pending",
+                    timeoutMillis, queue.size()));
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Storage flush failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        queue.add(STOP);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "journal (" + journalFile.getFileName() + ")";
+    }
+
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getLastCommitMicros() {
+        return lastCommitMicros;
+    }
+
+    public int getPendingWrites() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Only the stop marker ends the loop, so nothing queued is dropped
+                continue;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            stopping = batch.removeIf(write -> write == STOP);
+            if (stopping) {
+                // Writes that raced with close() still go out
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends a batch and forces it to disk. When the append fails, the
+     * journal is cut back to where the batch started and the full state is
+     * compacted into a snapshot instead, which also covers the failed batch.
+     * Until a compaction succeeds nothing more is appended after the damage.
+     */
+    private void commit(List<Write> batch) {
+        long started = System.nanoTime();
+        int written = 0;
+        IOException failure = null;
+        synchronized (this) {
+            if (!compactPending) {
+                long batchStart = -1L;
+                try {
+                    batchStart = journal.position();
+                    ByteBuffer buffer = ByteBuffer.allocate(batch.size() * 128);
+                    int encoded = 0;
+                    for (Write write : batch) {
+                        if (write.done() != null) {
+                            continue;
+                        }
+                        if (write.blob() != null) {
+                            buffer = ensureCapacity(buffer, 32 + write.blob().length);
+                            encodeBlob(buffer, write.table(), write.blobKey(), write.blob());
+                        } else {
+                            buffer = ensureCapacity(buffer, 128 + MAX_NAME_BYTES);
+                            encode(buffer, write.table(), write.record());
+                        }
+                        encoded++;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        journal.write(buffer);
+                    }
+                    journal.force(false);
+                    written = encoded;
+                } catch (IOException e) {
+                    failure = e;
+                    logger.log(Level.SEVERE, "Failed to write contribution journal; compacting to recover", e);
+                    discardFrom(batchStart);
+                    compactPending = true;
+                }
+            }
+            try {
+                if (compactPending || journal.size() >= compactBytes) {
+                    compact();
+                    compactPending = false;
+                    failure = null;
+                }
+            } catch (IOException e) {
+                compactPending = true;
+                if (written == 0) {
+                    failure = e;
+                }
+                logger.log(Level.SEVERE, "Failed to compact contribution journal", e);
+            }
+        }
+        if (written > 0) {
+            commits.incrementAndGet();
+            recordsWritten.addAndGet(written);
+            lastCommitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        }
+        for (Write write : batch) {
+            if (write.done() != null) {
+                if (failure == null) {
+                    write.done().complete(null);
+                } else {
+                    write.done().completeExceptionally(failure);
+                }
+            }
+        }
+    }
+
+    /** Cuts off a partly written batch so later appends follow intact records. */
+    private void discardFrom(long offset) {
+        if (offset < 0 || journal == null) {
+            return;
+        }
+        try {
+            journal.truncate(offset);
+            journal.position(offset);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to cut back the contribution journal", e);
+        }
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * Writes [length][body][crc32(body)] for one upsert.
+     */
+    private void encode(ByteBuffer buffer, Table table, PlayerRecord record) {
+        byte[] name = truncatedName(record.name());
+        int bodyLength = 1 + 1 + 16 + 2 + name.length + 8 * 4;
+        buffer.putInt(bodyLength);
+        int bodyStart = buffer.position();
+        buffer.put(OP_UPSERT);
+        buffer.put((byte) table.getId());
+        buffer.putLong(record.playerId().getMostSignificantBits());
+        buffer.putLong(record.playerId().getLeastSignificantBits());
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        buffer.putLong(record.points());
+        buffer.putLong(record.timeSeconds());
+        buffer.putLong(record.workUnits());
+        buffer.putLong(record.updatedAtMillis());
+        crc.reset();
+        crc.update(buffer.array(), bodyStart, bodyLength);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes [length][body][crc32(body)] for one blob.
+     */
+    private void encodeBlob(ByteBuffer buffer, Table table, UUID key, byte[] data) {
+        int bodyLength = 1 + 1 + 16 + 4 + data.length;
+        buffer.putInt(bodyLength);
+        int bodyStart = buffer.position();
+        buffer.put(OP_BLOB);
+        buffer.put((byte) table.getId());
+        buffer.putLong(key.getMostSignificantBits());
+        buffer.putLong(key.getLeastSignificantBits());
+        buffer.putInt(data.length);
+        buffer.put(data);
+        crc.reset();
+        crc.update(buffer.array(), bodyStart, bodyLength);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static byte[] truncatedName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        byte[] cut = new byte[MAX_NAME_BYTES];
+        System.arraycopy(bytes, 0, cut, 0, MAX_NAME_BYTES);
+        return cut;
+    }
+
+    /**
+     * Reads one framed record. Returns false at a clean end of input and
+     * throws {@link EOFException} or {@link IOException} for torn or corrupt
+     * records.
+     */
+    private boolean decodeInto(DataInputStream in) throws IOException {
+        int bodyLength;
+        try {
+            bodyLength = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (bodyLength == 0) {
+            return false;
+        }
+        if (bodyLength < 0 || bodyLength > MAX_BLOB_BYTES + 64) {
+            throw new IOException("Bad record length " + bodyLength);
+        }
+        if (bodyLength > readBuffer.length) {
+            readBuffer = new byte[bodyLength];
+        }
+        byte[] scratch = readBuffer;
+        in.readFully(scratch, 0, bodyLength);
+        int expected = in.readInt();
+        crc.reset();
+        crc.update(scratch, 0, bodyLength);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Checksum mismatch");
+        }
+
+        ByteBuffer body = ByteBuffer.wrap(scratch, 0, bodyLength);
+        byte op = body.get();
+        Table table = Table.byId(body.get());
+        UUID playerId = new UUID(body.getLong(), body.getLong());
+        if (op == OP_BLOB) {
+            byte[] data = new byte[body.getInt()];
+            body.get(data);
+            if (table != null) {
+                blobs.get(table).put(playerId, data);
+            }
+            return true;
+        }
+        int nameLength = body.getShort();
+        String name = new String(scratch, body.position(), nameLength, StandardCharsets.UTF_8);
+        body.position(body.position() + nameLength);
+        PlayerRecord record = new PlayerRecord(playerId, name, body.getLong(), body.getLong(), body.getLong(), body.getLong());
+        if (op == OP_UPSERT && table != null) {
+            state.get(table).put(playerId, record);
+        }
+        return true;
+    }
+
+    private long readSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0L;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a contribution snapshot: " + snapshotFile);
+            }
+            long snapshotGeneration = in.readLong();
+            int count = 0;
+            while (decodeInto(in)) {
+                count++;
+            }
+            final int loaded = count;
+            logger.info(() -> String.format("Loaded %d records from contribution snapshot (generation %d)", loaded, snapshotGeneration));
+            return snapshotGeneration;
+        }
+    }
+
+    /**
+     * @return the offset just past the last intact record, or -1 when the
+     *         journal is missing or belongs to another generation
+     */
+    private long replayJournal(long expectedGeneration) throws IOException {
+        if (!Files.exists(journalFile) || Files.size(journalFile) < HEADER_BYTES) {
+            return -1L;
+        }
+        try (InputStream raw = Files.newInputStream(journalFile);
+             CountingInputStream counting = new CountingInputStream(new BufferedInputStream(raw, 1 << 16));
+             DataInputStream in = new DataInputStream(counting)) {
+            if (in.readInt() != JOURNAL_MAGIC || in.readInt() != VERSION) {
+                logger.warning("Contribution journal has an unknown header; starting a new one");
+                return -1L;
+            }
+            long journalGeneration = in.readLong();
+            if (journalGeneration != expectedGeneration) {
+                // Crashed between writing a snapshot and resetting the journal; the snapshot has it all
+                return -1L;
+            }
+            long validEnd = counting.count;
+            int replayed = 0;
+            try {
+                while (decodeInto(in)) {
+                    validEnd = counting.count;
+                    replayed++;
+                }
+            } catch (IOException e) {
+                String reason = e instanceof EOFException ? "truncated record" : e.getMessage();
+                logger.warning(() -> "Contribution journal ends with a damaged record: " + reason);
+            }
+            final int count = replayed;
+            logger.info(() -> String.format("Replayed %d journal records", count));
+            return validEnd;
+        }
+    }
+
+    private void startJournal(long journalGeneration) throws IOException {
+        closeJournal();
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(JOURNAL_MAGIC).putInt(VERSION).putLong(journalGeneration).flip();
+        while (header.hasRemaining()) {
+            journal.write(header);
+        }
+        journal.force(true);
+    }
+
+    /**
+     * Writes the full state as a new snapshot generation, then restarts the
+     * journal under that generation. Runs on the writer thread.
+     */
+    private void compact() throws IOException {
+        long next = generation + 1;
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        int count = 0;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(next);
+            ByteBuffer buffer = ByteBuffer.allocate(128 + MAX_NAME_BYTES);
+            for (Map.Entry<Table, Map<UUID, PlayerRecord>> table : state.entrySet()) {
+                for (PlayerRecord record : table.getValue().values()) {
+                    buffer.clear();
+                    encode(buffer, table.getKey(), record);
+                    out.write(buffer.array(), 0, buffer.position());
+                    count++;
+                }
+            }
+            for (Map.Entry<Table, Map<UUID, byte[]>> table : blobs.entrySet()) {
+                for (Map.Entry<UUID, byte[]> blob : table.getValue().entrySet()) {
+                    ByteBuffer blobBuffer = ByteBuffer.allocate(32 + blob.getValue().length);
+                    encodeBlob(blobBuffer, table.getKey(), blob.getKey(), blob.getValue());
+                    out.write(blobBuffer.array(), 0, blobBuffer.position());
+                    count++;
+                }
+            }
+            out.writeInt(0);
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        generation = next;
+        startJournal(next);
+        final int written = count;
+        logger.fine(() -> String.format("Compacted contribution journal into %d records (generation %d)", written, next));
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Failed to close contribution journal", e);
+        }
+        journal = null;
+    }
+
+    private long journalSizeQuietly() {
+        try {
+            return journal.size();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /** Tracks how many bytes were consumed so replay knows where intact data ends. */
+    private static final class CountingInputStream extends java.io.FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
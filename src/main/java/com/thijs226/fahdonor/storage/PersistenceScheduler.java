@@ -0,0 +1,176 @@
+package com.thijs226.fahdonor.storage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single background autosave for everything the plugin persists. Managers
+ * remember which records changed and call {@link #markDirty()}; a flush runs
+ * every {@code intervalSeconds} or as soon as {@code maxChanges} changes have
+ * piled up, whichever comes first. Each flush asks every registered source to
+ * write only its dirty records and then waits for the contribution store to
+ * reach disk, so nothing here runs on the main thread.
+ */
+public class PersistenceScheduler {
+
+    /**
+     * Something with changes to persist. {@link #flushDirty()} runs on the
+     * autosave thread and returns how many records it wrote.
+     */
+    public interface DirtySource {
+        String getPersistenceName();
+
+        int flushDirty() throws Exception;
+    }
+
+    /** Totals for the flushes done so far. */
+    public record FlushStats(long flushes, long records, long lastMicros, long maxMicros, long totalMicros,
+                             long failures, int pendingChanges) {
+
+        public double averageMillis() {
+            return flushes == 0 ? 0.0 : totalMicros / 1000.0 / flushes;
+        }
+    }
+
+    private final ContributionStore store;
+    private final Logger logger;
+    private final List<DirtySource> sources = new CopyOnWriteArrayList<>();
+    private final AtomicInteger changes = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private volatile long lastMicros;
+    private volatile long maxMicros;
+
+    private volatile ScheduledExecutorService executor;
+    private volatile int maxChanges = Integer.MAX_VALUE;
+
+    public PersistenceScheduler(ContributionStore store, Logger logger) {
+        this.store = store;
+        this.logger = logger;
+    }
+
+    public void register(DirtySource source) {
+        sources.add(source);
+    }
+
+    public synchronized void start(long intervalSeconds, int maxChanges) {
+        if (executor != null) {
+            return;
+        }
+        this.maxChanges = Math.max(1, maxChanges);
+        long interval = Math.max(1L, intervalSeconds);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FAH-Autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Notes one changed record. Thread-safe and cheap; reaching
+     * {@code maxChanges} queues a flush right away.
+     */
+    public void markDirty() {
+        if (changes.incrementAndGet() >= maxChanges) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Queues a flush unless one is already waiting.
+     */
+    public void requestFlush() {
+        ScheduledExecutorService current = executor;
+        if (current != null && flushQueued.compareAndSet(false, true)) {
+            current.execute(this::flushAll);
+        }
+    }
+
+    /**
+     * Runs a final flush and stops the autosave thread, waiting at most
+     * {@code timeoutMillis} in total. Without a running scheduler the flush
+     * happens on the calling thread.
+     */
+    public void shutdown(long timeoutMillis) {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = executor;
+            executor = null;
+        }
+        if (current == null) {
+            flushAll();
+            return;
+        }
+        CompletableFuture<Void> done = CompletableFuture.runAsync(this::flushAll, current);
+        current.shutdown();
+        try {
+            done.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warning(() -> String.format("Final autosave did not finish within %d ms", timeoutMillis));
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Final autosave failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushAll() {
+        flushQueued.set(false);
+        changes.set(0);
+        long started = System.nanoTime();
+        int written = 0;
+        boolean failed = false;
+        for (DirtySource source : sources) {
+            try {
+                written += source.flushDirty();
+            } catch (Exception e) {
+                failed = true;
+                logger.log(Level.WARNING, "Failed to save " + source.getPersistenceName(), e);
+            }
+        }
+        if (written > 0) {
+            try {
+                store.flush().get();
+            } catch (ExecutionException e) {
+                failed = true;
+                logger.log(Level.WARNING, "Contribution store flush failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failed) {
+            failures.incrementAndGet();
+        }
+        if (written == 0) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        flushes.incrementAndGet();
+        records.addAndGet(written);
+        totalMicros.addAndGet(micros);
+        lastMicros = micros;
+        if (micros > maxMicros) {
+            maxMicros = micros;
+        }
+    }
+
+    public FlushStats getStats() {
+        return new FlushStats(flushes.get(), records.get(), lastMicros, maxMicros, totalMicros.get(),
+                failures.get(), changes.get());
+    }
+}
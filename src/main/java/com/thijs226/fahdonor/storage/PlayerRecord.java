@@ -0,0 +1,15 @@
+package com.thijs226.fahdonor.storage;
+
+import java.util.UUID;
+
+/**
+ * Persisted totals for one player in one {@link Table}. {@code name} may be
+ * empty for tables that do not track it.
+ */
+public record PlayerRecord(UUID playerId, String name, long points, long timeSeconds, long workUnits,
+                           long updatedAtMillis) {
+
+    public PlayerRecord {
+        name = name != null ? name : "";
+    }
+}
@@ -0,0 +1,398 @@
+package com.thijs226.fahdonor.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Contribution store backed by an embedded SQLite database, for networks
+ * that want to query player totals with SQL. Uses the sqlite-jdbc driver
+ * bundled with the server.
+ *
+ * <p>Upserts are coalesced per player in memory and written by a single
+ * background thread as one batched, prepared {@code INSERT ... ON CONFLICT}
+ * per table inside a transaction. The connection is only ever touched from
+ * that thread. Points, time and work units are indexed for SQL queries
+ * that rank players.
+ */
+public class SqliteStore implements ContributionStore {
+
+    private static final String SCHEMA = """
+            CREATE TABLE IF NOT EXISTS player_totals (
+                tbl INTEGER NOT NULL,
+                player_id TEXT NOT NULL,
+                name TEXT NOT NULL,
+                points INTEGER NOT NULL,
+                time_seconds INTEGER NOT NULL,
+                work_units INTEGER NOT NULL,
+                updated_at INTEGER NOT NULL,
+                PRIMARY KEY (tbl, player_id)
+            )""";
+    private static final String UPSERT = """
+            INSERT INTO player_totals (tbl, player_id, name, points, time_seconds, work_units, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (tbl, player_id) DO UPDATE SET
+                name = excluded.name,
+                points = excluded.points,
+                time_seconds = excluded.time_seconds,
+                work_units = excluded.work_units,
+                updated_at = excluded.updated_at""";
+    private static final String BLOB_SCHEMA = """
+            CREATE TABLE IF NOT EXISTS player_blobs (
+                tbl INTEGER NOT NULL,
+                blob_key TEXT NOT NULL,
+                data BLOB NOT NULL,
+                PRIMARY KEY (tbl, blob_key)
+            )""";
+    private static final String PUT_BLOB = """
+            INSERT INTO player_blobs (tbl, blob_key, data) VALUES (?, ?, ?)
+            ON CONFLICT (tbl, blob_key) DO UPDATE SET data = excluded.data""";
+    private static final String SELECT_COLUMNS =
+            "SELECT player_id, name, points, time_seconds, work_units, updated_at FROM player_totals";
+
+    private final Path databaseFile;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final Logger logger;
+    private final Map<Table, Map<UUID, PlayerRecord>> pending = new ConcurrentHashMap<>();
+    private final Map<Table, Map<UUID, byte[]>> pendingBlobs = new ConcurrentHashMap<>();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastFlushMicros;
+
+    private volatile ScheduledExecutorService executor;
+    private Connection connection;
+
+    public SqliteStore(Path databaseFile, long flushIntervalMillis, int batchSize, Logger logger) {
+        this.databaseFile = databaseFile;
+        this.flushIntervalMillis = Math.max(100L, flushIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.logger = logger;
+        for (Table table : Table.values()) {
+            pending.put(table, new ConcurrentHashMap<>());
+            pendingBlobs.put(table, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public synchronized void open() throws IOException {
+        if (executor != null) {
+            return;
+        }
+        Files.createDirectories(databaseFile.getParent());
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FAH-Storage-SQL");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            executor.submit(() -> {
+                connect();
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            executor = null;
+            throw new IOException("Could not open " + databaseFile.getFileName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while opening " + databaseFile.getFileName(), e);
+        }
+        executor.scheduleWithFixedDelay(this::writePendingQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return executor != null;
+    }
+
+    private void connect() throws SQLException, ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.toAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute(SCHEMA);
+            statement.execute(BLOB_SCHEMA);
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_totals_points ON player_totals (tbl, points DESC, player_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_totals_time ON player_totals (tbl, time_seconds DESC, player_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_totals_units ON player_totals (tbl, work_units DESC, player_id)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @Override
+    public Map<UUID, PlayerRecord> loadAll(Table table) {
+        Map<UUID, PlayerRecord> records = call(() -> {
+            writePending();
+            Map<UUID, PlayerRecord> result = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_COLUMNS + " WHERE tbl = ?")) {
+                statement.setInt(1, table.getId());
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        PlayerRecord record = read(rows);
+                        if (record != null) {
+                            result.put(record.playerId(), record);
+                        }
+                    }
+                }
+            }
+            return result;
+        });
+        return records != null ? records : new HashMap<>(pending.get(table));
+    }
+
+    @Override
+    public void upsert(Table table, PlayerRecord record) {
+        pending.get(table).put(record.playerId(), record);
+    }
+
+    @Override
+    public Map<UUID, byte[]> loadBlobs(Table table) {
+        Map<UUID, byte[]> blobs = call(() -> {
+            writePending();
+            Map<UUID, byte[]> result = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT blob_key, data FROM player_blobs WHERE tbl = ?")) {
+                statement.setInt(1, table.getId());
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        String key = rows.getString(1);
+                        try {
+                            result.put(UUID.fromString(key), rows.getBytes(2));
+                        } catch (IllegalArgumentException e) {
+                            logger.warning(() -> "Invalid UUID in contribution database: " + key);
+                        }
+                    }
+                }
+            }
+            return result;
+        });
+        return blobs != null ? blobs : new HashMap<>(pendingBlobs.get(table));
+    }
+
+    @Override
+    public void putBlob(Table table, UUID key, byte[] data) {
+        pendingBlobs.get(table).put(key, data);
+    }
+
+    @Override
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (executor == null || executor.isShutdown()) {
+            done.complete(null);
+            return done;
+        }
+        executor.execute(() -> {
+            try {
+                writePending();
+                done.complete(null);
+            } catch (SQLException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    @Override
+    public synchronized void close(long timeoutMillis) {
+        if (executor == null) {
+            return;
+        }
+        try {
+            flush().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warning(() -> String.format("Database flush did not finish within %d ms", timeoutMillis));
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Database flush failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.execute(() -> {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Failed to close contribution database", e);
+            }
+        });
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    @Override
+    public String getDescription() {
+        return "sqlite (" + databaseFile.getFileName() + ")";
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getLastFlushMicros() {
+        return lastFlushMicros;
+    }
+
+    private void writePendingQuietly() {
+        try {
+            writePending();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Failed to write contributions to the database", e);
+        }
+    }
+
+    /**
+     * Writes coalesced upserts in batches of {@code batchSize}. Runs on the
+     * store thread only. Records that fail to commit are queued again unless
+     * a newer version arrived meanwhile.
+     */
+    private void writePending() throws SQLException {
+        long started = System.nanoTime();
+        int written = 0;
+        for (Table table : Table.values()) {
+            Map<UUID, PlayerRecord> queued = pending.get(table);
+            if (queued.isEmpty()) {
+                continue;
+            }
+            List<PlayerRecord> drained = new ArrayList<>(queued.size());
+            for (UUID playerId : List.copyOf(queued.keySet())) {
+                PlayerRecord record = queued.remove(playerId);
+                if (record != null) {
+                    drained.add(record);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+                int inBatch = 0;
+                for (PlayerRecord record : drained) {
+                    statement.setInt(1, table.getId());
+                    statement.setString(2, record.playerId().toString());
+                    statement.setString(3, record.name());
+                    statement.setLong(4, record.points());
+                    statement.setLong(5, record.timeSeconds());
+                    statement.setLong(6, record.workUnits());
+                    statement.setLong(7, record.updatedAtMillis());
+                    statement.addBatch();
+                    if (++inBatch == batchSize) {
+                        statement.executeBatch();
+                        batches.incrementAndGet();
+                        inBatch = 0;
+                    }
+                }
+                if (inBatch > 0) {
+                    statement.executeBatch();
+                    batches.incrementAndGet();
+                }
+                connection.commit();
+                written += drained.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                for (PlayerRecord record : drained) {
+                    queued.putIfAbsent(record.playerId(), record);
+                }
+                throw e;
+            }
+        }
+        written += writePendingBlobs();
+        if (written > 0) {
+            rowsWritten.addAndGet(written);
+            lastFlushMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        }
+    }
+
+    private int writePendingBlobs() throws SQLException {
+        int written = 0;
+        for (Table table : Table.values()) {
+            Map<UUID, byte[]> queued = pendingBlobs.get(table);
+            if (queued.isEmpty()) {
+                continue;
+            }
+            Map<UUID, byte[]> drained = new HashMap<>();
+            for (UUID key : List.copyOf(queued.keySet())) {
+                byte[] data = queued.remove(key);
+                if (data != null) {
+                    drained.put(key, data);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(PUT_BLOB)) {
+                for (Map.Entry<UUID, byte[]> blob : drained.entrySet()) {
+                    statement.setInt(1, table.getId());
+                    statement.setString(2, blob.getKey().toString());
+                    statement.setBytes(3, blob.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                batches.incrementAndGet();
+                connection.commit();
+                written += drained.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                drained.forEach(queued::putIfAbsent);
+                throw e;
+            }
+        }
+        return written;
+    }
+
+    private PlayerRecord read(ResultSet rows) throws SQLException {
+        String id = rows.getString(1);
+        try {
+            return new PlayerRecord(UUID.fromString(id), rows.getString(2), rows.getLong(3), rows.getLong(4),
+                    rows.getLong(5), rows.getLong(6));
+        } catch (IllegalArgumentException e) {
+            logger.warning(() -> "Invalid UUID in contribution database: " + id);
+            return null;
+        }
+    }
+
+    private interface SqlTask<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Runs a query on the store thread and waits for it. Returns null when
+     * the store is closed or the query failed.
+     */
+    private <T> T call(SqlTask<T> task) {
+        if (executor == null || executor.isShutdown()) {
+            return null;
+        }
+        try {
+            return executor.submit(task::run).get();
+        } catch (ExecutionException e) {
+            logger.log(Level.WARNING, "Contribution database query failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.thijs226.fahdonor.storage;
+
+/**
+ * Record sets kept by the contribution store. The id is written to disk, so
+ * existing values must never change.
+ */
+public enum Table {
+    CONTRIBUTIONS(1),
+    LEADERBOARD(2),
+    /** Day buckets behind the daily, weekly and monthly leaderboards (blobs). */
+    WINDOW_BUCKETS(3),
+    /** Archived winners per leaderboard window (blobs). */
+    WINDOW_WINNERS(4),
+    /** Granted-reward bitsets per player (blobs). */
+    REWARD_LEDGER(5),
+    /** Rewards waiting to be dispatched, per player (blobs). */
+    REWARD_QUEUE(6);
+
+    private final int id;
+
+    Table(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static Table byId(int id) {
+        for (Table table : values()) {
+            if (table.id == id) {
+                return table;
+            }
+        }
+        return null;
+    }
+}
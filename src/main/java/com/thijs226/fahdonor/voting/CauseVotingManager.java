@@ -2,22 +2,29 @@ package com.thijs226.fahdonor.voting;
 
 import com.thijs226.fahdonor.FAHResourceDonor;
 import com.thijs226.fahdonor.FAHClientManager.FoldingCause;
+import com.thijs226.fahdonor.storage.DataFile;
+import com.thijs226.fahdonor.storage.PersistenceScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
-import java.io.*;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class CauseVotingManager {
+public class CauseVotingManager implements PersistenceScheduler.DirtySource {
     private final FAHResourceDonor plugin;
-    private final Map<UUID, FoldingCause> playerVotes = new HashMap<>();
+    private final DataFile votesFile;
+    private final Map<UUID, FoldingCause> playerVotes = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
     private final Map<FoldingCause, Integer> voteTally = new HashMap<>();
     private FoldingCause currentWinner = FoldingCause.ANY;
-    private long lastVotePeriod;
+    private volatile long lastVotePeriod;
     
     public CauseVotingManager(FAHResourceDonor plugin) {
         this.plugin = plugin;
+        this.votesFile = new DataFile(plugin.getDataFolder(), "votes.yml");
         loadVotes();
         
         if (plugin.getConfig().getBoolean("folding-at-home.democratic-cause.enabled")) {
@@ -56,13 +63,13 @@ public class CauseVotingManager {
                           cause.getDescription() + ChatColor.GREEN + " has been recorded!");
         
         showStandings(player);
-        saveVotes();
+        markDirty();
     }
     
     public void removeVote(Player player) {
         if (playerVotes.remove(player.getUniqueId()) != null) {
             player.sendMessage(ChatColor.GRAY + "Your vote has been removed.");
-            saveVotes();
+            markDirty();
         } else {
             player.sendMessage(ChatColor.RED + "You haven't voted yet!");
         }
@@ -140,11 +147,37 @@ public class CauseVotingManager {
         playerVotes.clear();
         voteTally.clear();
         lastVotePeriod = System.currentTimeMillis();
+        markDirty();
+    }
+    
+    private void markDirty() {
+        if (dirty.compareAndSet(false, true)) {
+            PersistenceScheduler scheduler = plugin.getPersistenceScheduler();
+            if (scheduler != null) {
+                scheduler.markDirty();
+            }
+        }
+    }
+    
+    @Override
+    public String getPersistenceName() {
+        return "votes";
+    }
+    
+    /**
+     * Rewrites votes.yml if anything changed since the last save. Runs on
+     * the autosave thread.
+     */
+    @Override
+    public int flushDirty() {
+        if (!dirty.compareAndSet(true, false)) {
+            return 0;
+        }
         saveVotes();
+        return 1;
     }
     
     public void saveVotes() {
-        File votesFile = new File(plugin.getDataFolder(), "votes.yml");
         YamlConfiguration votes = new YamlConfiguration();
         
         for (Map.Entry<UUID, FoldingCause> entry : playerVotes.entrySet()) {
@@ -154,17 +187,17 @@ public class CauseVotingManager {
         votes.set("last-period", lastVotePeriod);
         
         try {
-            votes.save(votesFile);
+            votesFile.save(votes);
         } catch (IOException e) {
+            dirty.set(true);
             plugin.getLogger().warning("Failed to save votes: " + e.getMessage());
         }
     }
     
     private void loadVotes() {
-        File votesFile = new File(plugin.getDataFolder(), "votes.yml");
         if (!votesFile.exists()) return;
         
-        YamlConfiguration votes = YamlConfiguration.loadConfiguration(votesFile);
+        YamlConfiguration votes = votesFile.load();
         lastVotePeriod = votes.getLong("last-period", System.currentTimeMillis());
         
         for (String key : votes.getKeys(false)) {